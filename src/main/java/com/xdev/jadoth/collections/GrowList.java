@@ -2641,6 +2641,52 @@ public final class GrowList<E> implements XList<E>
 		return -(low + 1);  // key not found.
 	}
 
+	/**
+	 * Sorts this list using the parallel Mergesort algorithm, lists of at least {@link JaSort#PARALLEL_THRESHOLD}
+	 * elements are sorted by all threads of the common {@link java.util.concurrent.ForkJoinPool}, so the comparator
+	 * has to be thread-safe. {@link #sort(Comparator)} always sorts in the calling thread.<br>
+	 * The result is the same as the one of {@link #sortMerge(Comparator)}.
+	 * <p>
+	 * <b>Characteristics</b><ul>
+	 * <li>Stable &#160;&#160; : yes</li>
+	 * <li>In-place : no (array instantiations)</li>
+	 * </ul>
+	 * @param comparator the comparator to use for sorting the elements.
+	 * @return this list.
+	 * @see JaSort#parallelMergesort(Object[], Comparator)
+	 */
+	@SuppressWarnings("unchecked")
+	public GrowList<E> sortParallel(final Comparator<E> comparator)
+	{
+		JaSort.parallelMergesort(this.data, 0, this.size-1, (Comparator<Object>)comparator);
+		return this;
+	}
+
+	/**
+	 * @param startIndex
+	 * @param endIndex
+	 * @param comparator
+	 * @return
+	 * @see #sortParallel(Comparator)
+	 */
+	@SuppressWarnings("unchecked")
+	public GrowList<E> rngSortParallel(final int startIndex, final int endIndex, final Comparator<E> comparator)
+	{
+		if(startIndex <= endIndex){
+			if(startIndex < 0 || endIndex >= this.size){
+				throw new IndexOutOfBoundsException(this.exceptionStringRange(startIndex, endIndex));
+			}
+			JaSort.parallelMergesort(this.data, startIndex, endIndex, (Comparator<Object>)comparator);
+		}
+		else {
+			if(startIndex >= this.size || endIndex < 0){
+				throw new IndexOutOfBoundsException(this.exceptionStringRange(endIndex, startIndex));
+			}
+			JaSort.parallelMergesort(this.data, endIndex, startIndex, (Comparator<Object>)comparator);
+		}
+		return this;
+	}
+
 	/**
 	 * Sorts this list using the Mergesort algorithm.<br>
 	 * As a rule of thumb, use this algorithm for good results in all situations.<br>
@@ -6953,11 +6999,16 @@ public final class GrowList<E> implements XList<E>
 		final Integer limit
 	)
 	{
+		int skp = skip;
 		int lim = limit == null ? Integer.MAX_VALUE :limit.intValue();
 		final Object[] data = this.data;
 		for(int i = 0, size = this.size; i < size && lim > 0; i++){
 			final E element = (E)data[i];
 			if(predicate.apply(element)){
+				if(skp > 0){
+					skp--;
+					continue;
+				}
 				targetCollection.add(element);
 				lim--;
 			}
@@ -6981,6 +7032,7 @@ public final class GrowList<E> implements XList<E>
 	{
 		final int size = this.size;
 		final Object[] data = this.data;
+		int skp = skip;
 		int lim = limit == null ? Integer.MAX_VALUE :limit.intValue();
 
 		//this construction yields the same performance as a loop without inner try, but can still continue the loop
@@ -6990,6 +7042,10 @@ public final class GrowList<E> implements XList<E>
 				while(i < size && lim > 0){
 					final E element = (E)data[i++];
 					if(predicate.apply(element)){
+						if(skp > 0){
+							skp--;
+							continue;
+						}
 						targetCollection.add(element);
 						lim--;
 					}
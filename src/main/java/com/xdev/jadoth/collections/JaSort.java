@@ -20,8 +20,13 @@
  */
 package com.xdev.jadoth.collections;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
 
 
@@ -554,4 +559,497 @@ public class JaSort
 
 	}
 
+
+	///////////////////////////////////////////////////////////////////////////
+	//    Parallel      //
+	/////////////////////
+
+	/**
+	 * Ranges shorter than this are sorted sequentially by the parallel sorting methods.
+	 */
+	public static final int PARALLEL_THRESHOLD = 1 << 13;
+
+	private static final int TASKS_PER_THREAD = 4;
+
+	private static boolean isParallel(final int length)
+	{
+		return length >= PARALLEL_THRESHOLD;
+	}
+
+	private static int granularity(final int length)
+	{
+		return Math.max(length / (ForkJoinPool.getCommonPoolParallelism() * TASKS_PER_THREAD), PARALLEL_THRESHOLD);
+	}
+
+	/**
+	 * Alias for <code>parallelMergesort(values, 0, values.length - 1, comparator)</code>.
+	 *
+	 * @param <E> the element type
+	 * @param values the array whose elements shall be sorted
+	 * @param comparator the comparator to be used to sort the elements
+	 * @throws NullPointerException if the provided array is <tt>null</tt>
+	 * @see #parallelMergesort(Object[], int, int, Comparator)
+	 */
+	public static final <E> void parallelMergesort(final E[] values, final Comparator<E> comparator)
+		throws NullPointerException
+	{
+		parallelMergesort(values, 0, values.length - 1, comparator);
+	}
+
+	/**
+	 * Stable merge sort that sorts and merges the halves of ranges of at least {@link #PARALLEL_THRESHOLD}
+	 * elements in the common {@link ForkJoinPool}. The result is the same as the one of
+	 * {@link #mergesort(Object[], int, int, Comparator)}.
+	 *
+	 * @param <E> the element type
+	 * @param values the array whose elements shall be sorted
+	 * @param startIndex the index of the first element to be sorted
+	 * @param endIndex the index of the last element to be sorted
+	 * @param comparator the comparator to be used to sort the elements
+	 * @throws NullPointerException
+	 * @throws ArrayIndexOutOfBoundsException
+	 */
+	public static final <E> void parallelMergesort(
+		final E[] values,
+		final int startIndex,
+		final int endIndex,
+		final Comparator<E> comparator
+	)
+		throws NullPointerException, ArrayIndexOutOfBoundsException
+	{
+		if(comparator == null) return;
+
+		final int length = endIndex - startIndex + 1;
+		if(!isParallel(length)){
+			mergesort(values, startIndex, endIndex, comparator);
+			return;
+		}
+
+		ForkJoinPool.commonPool().invoke(new MergesortTask(
+			Arrays.copyOfRange(values, startIndex, endIndex+1),
+			values, startIndex, endIndex+1, -startIndex, comparator, granularity(length)
+		));
+	}
+
+	/**
+	 * Alias for <code>parallelRadixsort(values, 0, values.length - 1)</code>.
+	 *
+	 * @param values the array whose elements shall be sorted
+	 * @throws NullPointerException if the provided array is <tt>null</tt>
+	 * @see #parallelRadixsort(int[], int, int)
+	 */
+	public static final void parallelRadixsort(final int[] values) throws NullPointerException
+	{
+		parallelRadixsort(values, 0, values.length - 1);
+	}
+
+	/**
+	 * LSD radix sort with 8 bit digits. The digits of the elements are counted and the elements are
+	 * distributed in parallel, each task handling one part of the range. Digits that are the same for all
+	 * elements are skipped. Ranges shorter than {@link #PARALLEL_THRESHOLD} are sorted sequentially.
+	 *
+	 * @param values the array whose elements shall be sorted
+	 * @param startIndex the index of the first element to be sorted
+	 * @param endIndex the index of the last element to be sorted
+	 * @throws NullPointerException
+	 * @throws ArrayIndexOutOfBoundsException
+	 */
+	public static final void parallelRadixsort(final int[] values, final int startIndex, final int endIndex)
+		throws NullPointerException, ArrayIndexOutOfBoundsException
+	{
+		final int length = endIndex - startIndex + 1;
+		if(!isParallel(length)){
+			Arrays.sort(values, startIndex, endIndex+1);
+			return;
+		}
+
+		final int[] bounds = radixBounds(length);
+		final int taskCount = bounds.length - 1;
+		int[] src = Arrays.copyOfRange(values, startIndex, endIndex+1);
+		int[] dst = new int[length];
+
+		for(int shift = 0; shift < Integer.SIZE; shift += RADIX_BITS){
+			final ArrayList<IntRadixTask> tasks = new ArrayList<IntRadixTask>(taskCount);
+			for(int t = 0; t < taskCount; t++){
+				tasks.add(new IntRadixTask(src, dst, bounds[t], bounds[t+1], shift));
+			}
+			ForkJoinTask.invokeAll(tasks);
+
+			if(!radixOffsets(tasks, length)){
+				continue;
+			}
+
+			for(final IntRadixTask task : tasks){
+				task.reinitialize();
+			}
+			ForkJoinTask.invokeAll(tasks);
+
+			final int[] swap = src;
+			src = dst;
+			dst = swap;
+		}
+
+		System.arraycopy(src, 0, values, startIndex, length);
+	}
+
+	/**
+	 * Alias for <code>parallelRadixsort(values, 0, values.length - 1)</code>.
+	 *
+	 * @param values the array whose elements shall be sorted
+	 * @throws NullPointerException if the provided array is <tt>null</tt>
+	 * @see #parallelRadixsort(long[], int, int)
+	 */
+	public static final void parallelRadixsort(final long[] values) throws NullPointerException
+	{
+		parallelRadixsort(values, 0, values.length - 1);
+	}
+
+	/**
+	 * <code>long</code> variant of {@link #parallelRadixsort(int[], int, int)}.
+	 *
+	 * @param values the array whose elements shall be sorted
+	 * @param startIndex the index of the first element to be sorted
+	 * @param endIndex the index of the last element to be sorted
+	 * @throws NullPointerException
+	 * @throws ArrayIndexOutOfBoundsException
+	 */
+	public static final void parallelRadixsort(final long[] values, final int startIndex, final int endIndex)
+		throws NullPointerException, ArrayIndexOutOfBoundsException
+	{
+		final int length = endIndex - startIndex + 1;
+		if(!isParallel(length)){
+			Arrays.sort(values, startIndex, endIndex+1);
+			return;
+		}
+
+		final int[] bounds = radixBounds(length);
+		final int taskCount = bounds.length - 1;
+		long[] src = Arrays.copyOfRange(values, startIndex, endIndex+1);
+		long[] dst = new long[length];
+
+		for(int shift = 0; shift < Long.SIZE; shift += RADIX_BITS){
+			final ArrayList<LongRadixTask> tasks = new ArrayList<LongRadixTask>(taskCount);
+			for(int t = 0; t < taskCount; t++){
+				tasks.add(new LongRadixTask(src, dst, bounds[t], bounds[t+1], shift));
+			}
+			ForkJoinTask.invokeAll(tasks);
+
+			if(!radixOffsets(tasks, length)){
+				continue;
+			}
+
+			for(final LongRadixTask task : tasks){
+				task.reinitialize();
+			}
+			ForkJoinTask.invokeAll(tasks);
+
+			final long[] swap = src;
+			src = dst;
+			dst = swap;
+		}
+
+		System.arraycopy(src, 0, values, startIndex, length);
+	}
+
+	private static final int RADIX_BITS = 8;
+	private static final int RADIX = 1 << RADIX_BITS;
+	private static final int RADIX_MASK = RADIX - 1;
+
+	private static int[] radixBounds(final int length)
+	{
+		final int count = Math.max(1, length / granularity(length));
+		final int[] bounds = new int[count + 1];
+		for(int i = 1; i <= count; i++){
+			bounds[i] = (int)((long)length * i / count);
+		}
+		return bounds;
+	}
+
+	/**
+	 * Turns the counts of the tasks into their start offsets in the target array, digit by digit and task by
+	 * task to keep the sort stable.
+	 *
+	 * @return <tt>false</tt> if all elements have the same digit, so the pass can be skipped.
+	 */
+	private static boolean radixOffsets(final List<? extends RadixTask> tasks, final int length)
+	{
+		int offset = 0;
+		for(int digit = 0; digit < RADIX; digit++){
+			int digitCount = 0;
+			for(final RadixTask task : tasks){
+				final int count = task.counts[digit];
+				task.counts[digit] = offset;
+				offset += count;
+				digitCount += count;
+			}
+			if(digitCount == length){
+				return false;
+			}
+		}
+		for(final RadixTask task : tasks){
+			task.distribute = true;
+		}
+		return true;
+	}
+
+	/**
+	 * Counts the digits of its part of the elements in the first run and distributes the part according to
+	 * the offsets in the second run.
+	 */
+	private abstract static class RadixTask extends RecursiveAction
+	{
+		final int[] counts = new int[RADIX];
+		final int from;
+		final int to;
+		final int shift;
+		boolean distribute;
+
+		RadixTask(final int from, final int to, final int shift)
+		{
+			super();
+			this.from = from;
+			this.to = to;
+			this.shift = shift;
+		}
+	}
+
+	private static final class IntRadixTask extends RadixTask
+	{
+		private final int[] src;
+		private final int[] dst;
+
+		IntRadixTask(final int[] src, final int[] dst, final int from, final int to, final int shift)
+		{
+			super(from, to, shift);
+			this.src = src;
+			this.dst = dst;
+		}
+
+		@Override
+		protected void compute()
+		{
+			final int[] src = this.src;
+			final int[] counts = this.counts;
+			final int shift = this.shift;
+			if(this.distribute){
+				final int[] dst = this.dst;
+				for(int i = this.from; i < this.to; i++){
+					// flipping the sign bit orders negative values before positive ones
+					dst[counts[(src[i] ^ Integer.MIN_VALUE) >>> shift & RADIX_MASK]++] = src[i];
+				}
+			}
+			else {
+				for(int i = this.from; i < this.to; i++){
+					counts[(src[i] ^ Integer.MIN_VALUE) >>> shift & RADIX_MASK]++;
+				}
+			}
+		}
+	}
+
+	private static final class LongRadixTask extends RadixTask
+	{
+		private final long[] src;
+		private final long[] dst;
+
+		LongRadixTask(final long[] src, final long[] dst, final int from, final int to, final int shift)
+		{
+			super(from, to, shift);
+			this.src = src;
+			this.dst = dst;
+		}
+
+		@Override
+		protected void compute()
+		{
+			final long[] src = this.src;
+			final int[] counts = this.counts;
+			final int shift = this.shift;
+			if(this.distribute){
+				final long[] dst = this.dst;
+				for(int i = this.from; i < this.to; i++){
+					// flipping the sign bit orders negative values before positive ones
+					dst[counts[(int)((src[i] ^ Long.MIN_VALUE) >>> shift) & RADIX_MASK]++] = src[i];
+				}
+			}
+			else {
+				for(int i = this.from; i < this.to; i++){
+					counts[(int)((src[i] ^ Long.MIN_VALUE) >>> shift) & RADIX_MASK]++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Parallel variant of {@link JaSort#mergesort0(Object[], Object[], int, int, int, Comparator)}.
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static final class MergesortTask extends RecursiveAction
+	{
+		private final Object[] src;
+		private final Object[] dest;
+		private final int low;
+		private final int high;
+		private final int off;
+		private final Comparator c;
+		private final int granularity;
+
+		MergesortTask(
+			final Object[] src,
+			final Object[] dest,
+			final int low,
+			final int high,
+			final int off,
+			final Comparator c,
+			final int granularity
+		)
+		{
+			super();
+			this.src = src;
+			this.dest = dest;
+			this.low = low;
+			this.high = high;
+			this.off = off;
+			this.c = c;
+			this.granularity = granularity;
+		}
+
+		@Override
+		protected void compute()
+		{
+			final int length = this.high - this.low;
+			if(length <= this.granularity){
+				mergesort0(this.src, this.dest, this.low, this.high, this.off, this.c);
+				return;
+			}
+
+			// Sort halves of dest into src in parallel
+			final int low  = this.low  + this.off;
+			final int high = this.high + this.off;
+			final int mid = low + high >>> 1;
+			invokeAll(
+				new MergesortTask(this.dest, this.src, low, mid, -this.off, this.c, this.granularity),
+				new MergesortTask(this.dest, this.src, mid, high, -this.off, this.c, this.granularity)
+			);
+
+			// already sorted
+			if(this.c.compare(this.src[mid-1], this.src[mid]) <= 0) {
+				System.arraycopy(this.src, low, this.dest, this.low, length);
+				return;
+			}
+
+			new MergeTask(this.src, low, mid, mid, high, this.dest, this.low, this.c, this.granularity).compute();
+		}
+	}
+
+	/**
+	 * Stable merge of two sorted runs that splits the longer run in the middle and the other one at the
+	 * according position and merges both parts in parallel.
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static final class MergeTask extends RecursiveAction
+	{
+		private final Object[] src;
+		private final int low1;
+		private final int high1;
+		private final int low2;
+		private final int high2;
+		private final Object[] dest;
+		private final int destLow;
+		private final Comparator c;
+		private final int granularity;
+
+		MergeTask(
+			final Object[] src,
+			final int low1,
+			final int high1,
+			final int low2,
+			final int high2,
+			final Object[] dest,
+			final int destLow,
+			final Comparator c,
+			final int granularity
+		)
+		{
+			super();
+			this.src = src;
+			this.low1 = low1;
+			this.high1 = high1;
+			this.low2 = low2;
+			this.high2 = high2;
+			this.dest = dest;
+			this.destLow = destLow;
+			this.c = c;
+			this.granularity = granularity;
+		}
+
+		@Override
+		protected void compute()
+		{
+			final Object[] src = this.src;
+			final Comparator c = this.c;
+			final int length1 = this.high1 - this.low1;
+			final int length2 = this.high2 - this.low2;
+
+			if(length1 + length2 <= this.granularity){
+				for(int i = this.destLow, p = this.low1, q = this.low2; p < this.high1 || q < this.high2; i++) {
+					if (q >= this.high2 || p < this.high1 && c.compare(src[p], src[q]) <= 0)
+						this.dest[i] = src[p++];
+					else
+						this.dest[i] = src[q++];
+				}
+				return;
+			}
+
+			final int mid1, mid2, split;
+			if(length1 >= length2){
+				// elements of the second run equal to the split element follow it
+				mid1 = this.low1 + this.high1 >>> 1;
+				mid2 = search(src, this.low2, this.high2, src[mid1], c, false);
+				split = this.destLow + mid1 - this.low1 + mid2 - this.low2;
+				this.dest[split] = src[mid1];
+				invokeAll(
+					new MergeTask(src, this.low1, mid1, this.low2, mid2, this.dest, this.destLow, c, this.granularity),
+					new MergeTask(src, mid1+1, this.high1, mid2, this.high2, this.dest, split+1, c, this.granularity)
+				);
+			}
+			else {
+				// elements of the first run equal to the split element precede it
+				mid2 = this.low2 + this.high2 >>> 1;
+				mid1 = search(src, this.low1, this.high1, src[mid2], c, true);
+				split = this.destLow + mid1 - this.low1 + mid2 - this.low2;
+				this.dest[split] = src[mid2];
+				invokeAll(
+					new MergeTask(src, this.low1, mid1, this.low2, mid2, this.dest, this.destLow, c, this.granularity),
+					new MergeTask(src, mid1, this.high1, mid2+1, this.high2, this.dest, split+1, c, this.granularity)
+				);
+			}
+		}
+
+		/**
+		 * @return the index of the first element in [low; high) that is greater than <code>key</code>
+		 * (<code>inclusive</code> = true) or not less than <code>key</code>.
+		 */
+		private static int search(
+			final Object[] values,
+			int low,
+			int high,
+			final Object key,
+			final Comparator c,
+			final boolean inclusive
+		)
+		{
+			while(low < high){
+				final int mid = low + high >>> 1;
+				final int cmp = c.compare(values[mid], key);
+				if(cmp < 0 || inclusive && cmp == 0){
+					low = mid + 1;
+				}
+				else {
+					high = mid;
+				}
+			}
+			return low;
+		}
+	}
+
 }
@@ -18,17 +18,24 @@
 package com.xdev.jadoth.cql;
 
 import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import com.xdev.jadoth.Jadoth;
 import com.xdev.jadoth.collections.Collecting;
 import com.xdev.jadoth.collections.GrowList;
 import com.xdev.jadoth.collections.Sortable;
 import com.xdev.jadoth.collections.XGettingCollection;
+import com.xdev.jadoth.collections.XGettingList;
 import com.xdev.jadoth.lang.ComparatorSequence;
 import com.xdev.jadoth.lang.Equalator;
 import com.xdev.jadoth.lang.EqualatorSequence;
+import com.xdev.jadoth.lang.HashEqualator;
+import com.xdev.jadoth.lang.HashEqualatorSequence;
 import com.xdev.jadoth.lang.functional.Condition;
 import com.xdev.jadoth.lang.functional.Predicate;
+import com.xdev.jadoth.lang.functional.aggregates.MergeableAggregate;
 
 
 /**
@@ -83,12 +90,140 @@ public class CQL
 		
 		// only apply sorting if result is actually sortable
 		final C result = dataSource.copyTo(storage, condition, skip, limit);
+		sort(result, sorting);
+		
+		// apply projection and return projection result
+		return projection.project(result);
+	}
+	
+	/**
+	 * Sorts the selected entries if the collecting instance is sortable or a list.
+	 * @param <E>
+	 * @param result
+	 * @param sorting
+	 */
+	@SuppressWarnings("unchecked")
+	static final <E> void sort(final Collecting<E> result, final Comparator<E> sorting)
+	{
 		if(result instanceof Sortable<?>){
 			((Sortable<E>)result).sort(sorting);
 		}
+		else if(sorting != null && result instanceof List<?>){
+			((List<E>)result).sort(sorting);
+		}
+	}
+	
+	/**
+	 * Parallel variant of {@link #select(CqlProjector, XGettingCollection, Predicate, Comparator, int, int)}.
+	 * <p>
+	 * Lists of at least {@value CqlParallel#PARALLEL_THRESHOLD} entries are split into ranges which are filtered on 
+	 * the common {@link ForkJoinPool}, the selection is sorted by a parallel merge sort. The result, including
+	 * skip and limit, is the same as the one of the sequential execution. The condition and the sorting have to
+	 * be thread-safe.
+	 * 
+	 * @param <E>
+	 * @param projection
+	 * @param dataSource
+	 * @param condition
+	 * @param sorting
+	 * @param skip
+	 * @param limit
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	public static final <E, P, C extends Collecting<E>> P selectParallel(
+		final CqlProjector<E, P, C> projection,
+		final XGettingCollection<E> dataSource, 
+		final Predicate<E> condition,
+		final Comparator<E> sorting,
+		final int skip,
+		final int limit
+	)
+	{
+		if(!CqlParallel.isParallel(dataSource)){
+			return select(projection, dataSource, condition, sorting, skip, limit);
+		}
+		return CqlParallel.select(projection, (XGettingList<E>)dataSource, condition, sorting, skip, limit);
+	}
+	
+	/**
+	 * Parallel variant of {@link #select(CqlProjector, XGettingCollection, Predicate, Equalator, Comparator, int, int)}.
+	 * <p>
+	 * Each range is grouped or made distinct separately, the partial results are merged in the order of the ranges.
+	 * Aggregations other than by a {@link CqlAggregateCollector} and aggregations with a limit that may be reached
+	 * are executed sequentially. The condition and the distinction have to be thread-safe.
+	 * 
+	 * @param <E>
+	 * @param projection
+	 * @param dataSource
+	 * @param condition
+	 * @param distinction
+	 * @param sorting
+	 * @param skip
+	 * @param limit
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	public static final <E, P, C extends Collecting<E>> P selectParallel(
+		final CqlProjector<E, P, C> projection,
+		final XGettingCollection<E> dataSource, 
+		final Predicate<E> condition,
+		final Equalator<E> distinction,
+		final Comparator<E> sorting, 
+		final int skip,
+		final int limit
+	)
+	{
+		if(!CqlParallel.isParallel(dataSource)){
+			return select(projection, dataSource, condition, distinction, sorting, skip, limit);
+		}
 		
-		// apply projection and return projection result
-		return projection.project(result);
+		if(projection instanceof CqlAggregator<?, ?, ?>){
+			// the limit of an aggregation stops the aggregation, which cannot be split into ranges
+			if(!(projection instanceof CqlAggregateCollector<?>) || limit < dataSource.size()){
+				return select(projection, dataSource, condition, distinction, sorting, skip, limit);
+			}
+			return CqlParallel.group(
+				projection, 
+				(CqlAggregateCollector<E>)projection, 
+				(XGettingList<E>)dataSource, 
+				condition, 
+				distinction, 
+				sorting
+			);
+		}
+		
+		return CqlParallel.selectDistinct(
+			projection, 
+			(XGettingList<E>)dataSource, 
+			condition, 
+			distinction, 
+			sorting, 
+			skip, 
+			limit
+		);
+	}
+	
+	/**
+	 * Aggregates all entries of the data source, splitting lists of at least 
+	 * {@value CqlParallel#PARALLEL_THRESHOLD} entries into ranges which are aggregated in parallel.
+	 * 
+	 * @param <E>
+	 * @param <R>
+	 * @param dataSource
+	 * @param aggregate
+	 * @return the result of the aggregate
+	 */
+	@SuppressWarnings("unchecked")
+	public static final <E, R> R aggregateParallel(
+		final XGettingCollection<E> dataSource, 
+		final MergeableAggregate<E, R> aggregate
+	)
+	{
+		if(!CqlParallel.isParallel(dataSource)){
+			return dataSource.aggregate(aggregate);
+		}
+		return CqlParallel.aggregate((XGettingList<E>)dataSource, aggregate);
 	}
 	
 	/**
@@ -96,7 +231,8 @@ public class CQL
 	 * @param <E>
 	 * @param data
 	 * @param condition
-	 * @param distinction
+	 * @param distinction the equalator defining the groups or distinct elements. A {@link HashEqualator} is
+	 * looked up in hash tables instead of linear searches.
 	 * @param sorting
 	 * @param limit
 	 * @return
@@ -138,13 +274,24 @@ public class CQL
 				}				
 			};
 		}
+		else if(distinction instanceof HashEqualator<?>){
+			final HashEqualator<E> hashDistinction = (HashEqualator<E>)distinction;
+			final HashSet<CqlHashKey<E>> keys = new HashSet<CqlHashKey<E>>();
+			aggregationExtendedCondition = new Predicate<E>() {
+				@Override
+				public boolean apply(final E t)
+				{
+					return condition.apply(t) && keys.add(new CqlHashKey<E>(t, hashDistinction));
+				}				
+			};
+		}
 		else {
 			final GrowList<E> keys = new GrowList<E>();
 			aggregationExtendedCondition = new Predicate<E>() {
 				@Override
 				public boolean apply(final E t)
 				{
-					return condition.apply(t) && keys.contains(t, distinction);
+					return condition.apply(t) && !keys.contains(t, distinction) && keys.add(t);
 				}				
 			};
 		}
@@ -292,4 +439,15 @@ public class CQL
 		return new EqualatorSequence<T>(distinction);
 	}
 	
+	/**
+	 * Hashing variant of {@link #groupBy(Equalator...)}, lets grouping and distinction use hash tables.
+	 * @param <T>
+	 * @param distinction
+	 * @return
+	 */
+	public static final <T> HashEqualator<T> groupBy(final HashEqualator<T>... distinction)
+	{
+		return new HashEqualatorSequence<T>(distinction);
+	}
+	
 }
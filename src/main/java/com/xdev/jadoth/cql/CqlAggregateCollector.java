@@ -28,6 +28,7 @@ import com.xdev.jadoth.collections.GrowList;
 import com.xdev.jadoth.collections.Sortable;
 import com.xdev.jadoth.collections.XList;
 import com.xdev.jadoth.lang.Equalator;
+import com.xdev.jadoth.lang.HashEqualator;
 import com.xdev.jadoth.util.KeyValue;
 
 
@@ -38,6 +39,9 @@ import com.xdev.jadoth.util.KeyValue;
  * <p>
  * The behaviour of this aggregate resembles the COLLECT(...) aggregate in SQL with a GROUP BY (...) that is defined 
  * by the given equalator.
+ * <p>
+ * If the equalator is a {@link HashEqualator}, groups are looked up in a hash table instead of searching all
+ * keys linearly.
  * 
  * @author Thomas Muenz
  *
@@ -56,6 +60,7 @@ CqlAggregator<E,  XList<KeyValue<E, XList<E>>>, Collecting<E>>, Collecting<E>, S
 	 */
 	private final GrowList<E> keys;
 	private final Map<E, XList<E>> aggregates;
+	private final Map<CqlHashKey<E>, E> hashedKeys;
 	
 	
 	
@@ -67,12 +72,14 @@ CqlAggregator<E,  XList<KeyValue<E, XList<E>>>, Collecting<E>>, Collecting<E>, S
 	{
 		this.keys = new GrowList<E>();
 		this.aggregates = new HashMap<E, XList<E>>();
+		this.hashedKeys = new HashMap<CqlHashKey<E>, E>();
 	}
 	
 	public CqlAggregateCollector(final int initialCapacity)
 	{
 		this.keys = new GrowList<E>(initialCapacity);
 		this.aggregates = new HashMap<E, XList<E>>(initialCapacity);
+		this.hashedKeys = new HashMap<CqlHashKey<E>, E>(initialCapacity);
 	}
 	
 	
@@ -85,6 +92,7 @@ CqlAggregator<E,  XList<KeyValue<E, XList<E>>>, Collecting<E>>, Collecting<E>, S
 	public CqlAggregateCollector<E> reset()
 	{
 		this.aggregates.clear();	
+		this.hashedKeys.clear();
 		this.keys.clear();
 		return this;
 	}
@@ -133,12 +141,25 @@ CqlAggregator<E,  XList<KeyValue<E, XList<E>>>, Collecting<E>>, Collecting<E>, S
 	{	
 		XList<E> aggValues;
 		
-		final E key = this.keys.search(element, equalator);		
+		final CqlHashKey<E> hashKey;
+		final E key;
+		if(equalator instanceof HashEqualator<?>){
+			hashKey = new CqlHashKey<E>(element, (HashEqualator<E>)equalator);
+			key = this.hashedKeys.get(hashKey);
+		}
+		else {
+			hashKey = null;
+			key = this.keys.search(element, equalator);
+		}
+		
 		if(key == null){
 			// new key element, add new aggregation group
 			aggValues = new GrowList<E>();
 			aggValues.add(element);
 			this.keys.add(element);	
+			if(hashKey != null){
+				this.hashedKeys.put(hashKey, element);
+			}
 			this.aggregates.put(element, aggValues);
 			return true; //return true to signal new grouping element (only for contract, has no effect for this class)
 		}
@@ -147,5 +168,44 @@ CqlAggregator<E,  XList<KeyValue<E, XList<E>>>, Collecting<E>>, Collecting<E>, S
 		aggValues.add(element);		
 		return false; //return false to signal already existing grouping element
 	}
+	
+	/**
+	 * Appends the groups of a partial collector that aggregated the elements following the ones aggregated by
+	 * this collector. Keys and group entries keep the order of the sequential aggregation.
+	 * 
+	 * @param partial
+	 * @param equalator
+	 */
+	void merge(final CqlAggregateCollector<E> partial, final Equalator<E> equalator)
+	{
+		for(final E k : partial.keys){
+			final XList<E> partialValues = partial.aggregates.get(k);
+			
+			final CqlHashKey<E> hashKey;
+			final E key;
+			if(equalator instanceof HashEqualator<?>){
+				hashKey = new CqlHashKey<E>(k, (HashEqualator<E>)equalator);
+				key = this.hashedKeys.get(hashKey);
+			}
+			else {
+				hashKey = null;
+				key = this.keys.search(k, equalator);
+			}
+			
+			if(key == null){
+				this.keys.add(k);
+				if(hashKey != null){
+					this.hashedKeys.put(hashKey, k);
+				}
+				this.aggregates.put(k, partialValues);
+				continue;
+			}
+			
+			final XList<E> aggValues = this.aggregates.get(key);
+			for(final E e : partialValues){
+				aggValues.add(e);
+			}
+		}
+	}
 
 }
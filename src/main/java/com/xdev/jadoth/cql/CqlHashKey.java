@@ -0,0 +1,78 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.xdev.jadoth.cql;
+
+import com.xdev.jadoth.lang.HashEqualator;
+
+
+/**
+ * Wraps an element for hash tables, using the hash code and equality defined by a {@link HashEqualator}
+ * instead of the element's own.
+ * 
+ * @author XDEV Software
+ */
+final class CqlHashKey<E>
+{
+	///////////////////////////////////////////////////////////////////////////
+	// instance fields  //
+	/////////////////////
+	
+	final E element;
+	private final HashEqualator<E> equalator;
+	private final int hash;
+	
+	
+	
+	///////////////////////////////////////////////////////////////////////////
+	// constructors     //
+	/////////////////////
+	
+	CqlHashKey(final E element, final HashEqualator<E> equalator)
+	{
+		this.element = element;
+		this.equalator = equalator;
+		this.hash = equalator.hashCode(element);
+	}
+	
+	
+
+	///////////////////////////////////////////////////////////////////////////
+	// override methods //
+	/////////////////////
+	
+	@Override
+	public int hashCode()
+	{
+		return this.hash;
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Override
+	public boolean equals(final Object obj)
+	{
+		if(obj == this){
+			return true;
+		}
+		if(!(obj instanceof CqlHashKey<?>)){
+			return false;
+		}
+		final CqlHashKey<E> other = (CqlHashKey<E>)obj;
+		return this.hash == other.hash && this.equalator.equal(this.element, other.element);
+	}
+	
+}
@@ -0,0 +1,419 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.xdev.jadoth.cql;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+import com.xdev.jadoth.collections.Collecting;
+import com.xdev.jadoth.collections.GrowList;
+import com.xdev.jadoth.collections.XGettingCollection;
+import com.xdev.jadoth.collections.XGettingList;
+import com.xdev.jadoth.lang.Equalator;
+import com.xdev.jadoth.lang.HashEqualator;
+import com.xdev.jadoth.lang.functional.Operation;
+import com.xdev.jadoth.lang.functional.Predicate;
+import com.xdev.jadoth.lang.functional.aggregates.MergeableAggregate;
+
+
+/**
+ * Parallel execution of CQL queries. The source list is split into ranges which are filtered and aggregated
+ * on the common {@link ForkJoinPool}, each into its own buffer. The partial results are merged in the order
+ * of the ranges, so the result is the same as the one of the sequential execution.
+ * 
+ * @author XDEV Software
+ *
+ */
+final class CqlParallel
+{
+	///////////////////////////////////////////////////////////////////////////
+	// constants        //
+	/////////////////////
+	
+	/**
+	 * Sources smaller than this are queried sequentially.
+	 */
+	static final int PARALLEL_THRESHOLD = 8192;
+	
+	private static final int MIN_RANGE_SIZE = 1024;
+	
+	private static final int RANGES_PER_THREAD = 4;
+	
+	
+	
+	///////////////////////////////////////////////////////////////////////////
+	// static methods   //
+	/////////////////////
+	
+	static boolean isParallel(final XGettingCollection<?> dataSource)
+	{
+		return dataSource instanceof XGettingList<?> && dataSource.size() >= PARALLEL_THRESHOLD;
+	}
+	
+	/**
+	 * @return the bounds of the ranges, range i is [bounds[i]; bounds[i+1])
+	 */
+	private static int[] ranges(final int size)
+	{
+		final int count = Math.max(1, Math.min(
+			ForkJoinPool.getCommonPoolParallelism() * RANGES_PER_THREAD,
+			size / MIN_RANGE_SIZE
+		));
+		final int[] bounds = new int[count + 1];
+		for(int i = 1; i <= count; i++){
+			bounds[i] = (int)((long)size * i / count);
+		}
+		return bounds;
+	}
+	
+	private static <T> List<T> invoke(final List<? extends RecursiveTask<T>> tasks)
+	{
+		ForkJoinTask.invokeAll(tasks);
+		final List<T> results = new ArrayList<T>(tasks.size());
+		for(final RecursiveTask<T> task : tasks){
+			results.add(task.join());
+		}
+		return results;
+	}
+	
+	static <E, P, C extends Collecting<E>> P select(
+		final CqlProjector<E, P, C> projection,
+		final XGettingList<E> dataSource, 
+		final Predicate<E> condition,
+		final Comparator<E> sorting,
+		final int skip,
+		final int limit
+	)
+	{
+		final int[] bounds = ranges(dataSource.size());
+		final List<FilterTask<E>> tasks = new ArrayList<FilterTask<E>>(bounds.length - 1);
+		for(int i = 1; i < bounds.length; i++){
+			tasks.add(new FilterTask<E>(dataSource, bounds[i-1], bounds[i], condition));
+		}
+		return complete(projection, invoke(tasks), sorting, skip, limit);
+	}
+	
+	static <E, P, C extends Collecting<E>> P selectDistinct(
+		final CqlProjector<E, P, C> projection,
+		final XGettingList<E> dataSource, 
+		final Predicate<E> condition,
+		final Equalator<E> distinction,
+		final Comparator<E> sorting,
+		final int skip,
+		final int limit
+	)
+	{
+		final int[] bounds = ranges(dataSource.size());
+		final List<DistinctTask<E>> tasks = new ArrayList<DistinctTask<E>>(bounds.length - 1);
+		for(int i = 1; i < bounds.length; i++){
+			tasks.add(new DistinctTask<E>(dataSource, bounds[i-1], bounds[i], condition, distinction));
+		}
+		
+		// the first occurrences of each range, in order, reduced to the global first occurrences
+		final GrowList<E> distinct = new GrowList<E>();
+		final Distinction<E> seen = new Distinction<E>(distinction);
+		for(final GrowList<E> part : invoke(tasks)){
+			for(final E e : part){
+				if(seen.add(e)){
+					distinct.add(e);
+				}
+			}
+		}
+		
+		final List<GrowList<E>> parts = new ArrayList<GrowList<E>>(1);
+		parts.add(distinct);
+		return complete(projection, parts, sorting, skip, limit);
+	}
+	
+	static <E, P, C extends Collecting<E>> P group(
+		final CqlProjector<E, P, C> projection,
+		final CqlAggregateCollector<E> collector,
+		final XGettingList<E> dataSource, 
+		final Predicate<E> condition,
+		final Equalator<E> distinction,
+		final Comparator<E> sorting
+	)
+	{
+		final C storage = projection.provideCollector();
+		
+		final int[] bounds = ranges(dataSource.size());
+		final List<GroupTask<E>> tasks = new ArrayList<GroupTask<E>>(bounds.length - 1);
+		for(int i = 1; i < bounds.length; i++){
+			tasks.add(new GroupTask<E>(dataSource, bounds[i-1], bounds[i], condition, distinction));
+		}
+		for(final CqlAggregateCollector<E> partial : invoke(tasks)){
+			collector.merge(partial, distinction);
+		}
+		
+		CQL.sort(storage, sorting);
+		return projection.project(storage);
+	}
+	
+	static <E, R> R aggregate(final XGettingList<E> dataSource, final MergeableAggregate<E, R> aggregate)
+	{
+		final int[] bounds = ranges(dataSource.size());
+		final List<AggregateTask<E, R>> tasks = new ArrayList<AggregateTask<E, R>>(bounds.length - 1);
+		for(int i = 1; i < bounds.length; i++){
+			tasks.add(new AggregateTask<E, R>(dataSource, bounds[i-1], bounds[i], aggregate.createPartial()));
+		}
+		for(final MergeableAggregate<E, R> partial : invoke(tasks)){
+			aggregate.merge(partial);
+		}
+		return aggregate.yield();
+	}
+	
+	/**
+	 * Applies skip and limit to the concatenated parts, collects and sorts the result and applies the projection.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <E, P, C extends Collecting<E>> P complete(
+		final CqlProjector<E, P, C> projection,
+		final List<GrowList<E>> parts,
+		final Comparator<E> sorting,
+		final int skip,
+		final int limit
+	)
+	{
+		int total = 0;
+		for(final GrowList<E> part : parts){
+			total += part.size();
+		}
+		final int start = Math.min(Math.max(skip, 0), total);
+		final int end = start + Math.min(Math.max(limit, 0), total - start);
+		
+		final Object[] selected = new Object[end - start];
+		int offset = 0, count = 0;
+		for(final GrowList<E> part : parts){
+			final int size = part.size();
+			final int from = Math.max(start - offset, 0);
+			final int to = Math.min(end - offset, size);
+			for(int i = from; i < to; i++){
+				selected[count++] = part.get(i);
+			}
+			offset += size;
+		}
+		
+		final C storage = projection.provideCollector();
+		if(storage instanceof GrowList<?>){
+			final GrowList<E> list = (GrowList<E>)storage;
+			list.add((E[])selected);
+			if(sorting != null){
+				// the sorting of a parallel query has to be thread-safe like its condition
+				list.sortParallel(sorting);
+			}
+		}
+		else {
+			for(final Object e : selected){
+				storage.add((E)e);
+			}
+			CQL.sort(storage, sorting);
+		}
+		return projection.project(storage);
+	}
+	
+	
+	
+	///////////////////////////////////////////////////////////////////////////
+	// member types     //
+	/////////////////////
+	
+	/**
+	 * Set of the elements that are distinct according to an {@link Equalator}.
+	 */
+	static final class Distinction<E>
+	{
+		private final Equalator<E> equalator;
+		private final HashSet<CqlHashKey<E>> hashed;
+		private final GrowList<E> searched;
+		
+		Distinction(final Equalator<E> equalator)
+		{
+			this.equalator = equalator;
+			if(equalator instanceof HashEqualator<?>){
+				this.hashed = new HashSet<CqlHashKey<E>>();
+				this.searched = null;
+			}
+			else {
+				this.hashed = null;
+				this.searched = new GrowList<E>();
+			}
+		}
+		
+		/**
+		 * @return true if no equal element has been added before
+		 */
+		boolean add(final E element)
+		{
+			if(this.hashed != null){
+				return this.hashed.add(new CqlHashKey<E>(element, (HashEqualator<E>)this.equalator));
+			}
+			return !this.searched.contains(element, this.equalator) && this.searched.add(element);
+		}
+	}
+	
+	private static final class FilterTask<E> extends RecursiveTask<GrowList<E>>
+	{
+		private final XGettingList<E> dataSource;
+		private final int start;
+		private final int end;
+		private final Predicate<E> condition;
+		
+		FilterTask(final XGettingList<E> dataSource, final int start, final int end, final Predicate<E> condition)
+		{
+			super();
+			this.dataSource = dataSource;
+			this.start = start;
+			this.end = end;
+			this.condition = condition;
+		}
+		
+		@Override
+		protected GrowList<E> compute()
+		{
+			return this.dataSource.rngCopyTo(this.start, this.end - 1, new GrowList<E>(), this.condition);
+		}
+	}
+	
+	private static final class DistinctTask<E> extends RecursiveTask<GrowList<E>>
+	{
+		private final XGettingList<E> dataSource;
+		private final int start;
+		private final int end;
+		private final Predicate<E> condition;
+		private final Equalator<E> distinction;
+		
+		DistinctTask(
+			final XGettingList<E> dataSource, 
+			final int start, 
+			final int end, 
+			final Predicate<E> condition,
+			final Equalator<E> distinction
+		)
+		{
+			super();
+			this.dataSource = dataSource;
+			this.start = start;
+			this.end = end;
+			this.condition = condition;
+			this.distinction = distinction;
+		}
+		
+		@Override
+		protected GrowList<E> compute()
+		{
+			final Predicate<E> condition = this.condition;
+			final Distinction<E> seen = new Distinction<E>(this.distinction);
+			return this.dataSource.rngCopyTo(this.start, this.end - 1, new GrowList<E>(), new Predicate<E>() {
+				@Override
+				public boolean apply(final E e)
+				{
+					return condition.apply(e) && seen.add(e);
+				}
+			});
+		}
+	}
+	
+	private static final class GroupTask<E> extends RecursiveTask<CqlAggregateCollector<E>>
+	{
+		private final XGettingList<E> dataSource;
+		private final int start;
+		private final int end;
+		private final Predicate<E> condition;
+		private final Equalator<E> distinction;
+		
+		GroupTask(
+			final XGettingList<E> dataSource, 
+			final int start, 
+			final int end, 
+			final Predicate<E> condition,
+			final Equalator<E> distinction
+		)
+		{
+			super();
+			this.dataSource = dataSource;
+			this.start = start;
+			this.end = end;
+			this.condition = condition;
+			this.distinction = distinction;
+		}
+		
+		@Override
+		protected CqlAggregateCollector<E> compute()
+		{
+			final Predicate<E> condition = this.condition;
+			final Equalator<E> distinction = this.distinction;
+			final CqlAggregateCollector<E> collector = new CqlAggregateCollector<E>();
+			this.dataSource.rngExecute(this.start, this.end - 1, new Operation<E>() {
+				@Override
+				public void execute(final E e)
+				{
+					if(condition.apply(e)){
+						collector.aggregate(e, distinction);
+					}
+				}
+			});
+			return collector;
+		}
+	}
+	
+	private static final class AggregateTask<E, R> extends RecursiveTask<MergeableAggregate<E, R>>
+	{
+		private final XGettingList<E> dataSource;
+		private final int start;
+		private final int end;
+		private final MergeableAggregate<E, R> partial;
+		
+		AggregateTask(
+			final XGettingList<E> dataSource, 
+			final int start, 
+			final int end, 
+			final MergeableAggregate<E, R> partial
+		)
+		{
+			super();
+			this.dataSource = dataSource;
+			this.start = start;
+			this.end = end;
+			this.partial = partial;
+		}
+		
+		@Override
+		protected MergeableAggregate<E, R> compute()
+		{
+			this.dataSource.rngExecute(this.start, this.end - 1, this.partial);
+			return this.partial;
+		}
+	}
+	
+	
+	
+	///////////////////////////////////////////////////////////////////////////
+	// constructors     //
+	/////////////////////
+	
+	private CqlParallel()
+	{
+		throw new UnsupportedOperationException();
+	}
+	
+}
@@ -0,0 +1,56 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.xdev.jadoth.lang;
+
+
+/**
+ * {@link EqualatorSequence} that also combines the hash codes of its
+ * {@link HashEqualator}s, so that groups can be looked up in hash tables.
+ * 
+ * @author XDEV Software
+ */
+public class HashEqualatorSequence<T> implements HashEqualator<T>
+{
+	final private HashEqualator<T>[] equalators;
+
+	public HashEqualatorSequence(final HashEqualator<T>... equalators)
+	{
+		super();
+		this.equalators = equalators;
+	}
+
+	@Override
+	public boolean equal(final T o1, final T o2)
+	{			
+		for(final HashEqualator<T> eq : this.equalators){
+			if(!eq.equal(o1, o2)) return false;
+		}
+		return true;
+	}
+
+	@Override
+	public int hashCode(final T object)
+	{
+		int hash = 1;
+		for(final HashEqualator<T> eq : this.equalators){
+			hash = 31 * hash + eq.hashCode(object);
+		}
+		return hash;
+	}
+	
+}
@@ -27,7 +27,7 @@ import com.xdev.jadoth.collections.XGettingCollection;
  * @author Thomas Muenz
  *
  */
-public final class AvgInteger implements Aggregate<Integer, Integer>
+public final class AvgInteger implements MergeableAggregate<Integer, Integer>
 {
 	private int sum = 0;
 	private int count = 0;
@@ -67,4 +67,18 @@ public final class AvgInteger implements Aggregate<Integer, Integer>
 		this.sum = 0;
 		return this;
 	}
+
+	@Override
+	public AvgInteger createPartial()
+	{
+		return new AvgInteger();
+	}
+
+	@Override
+	public void merge(final MergeableAggregate<Integer, Integer> partial)
+	{
+		final AvgInteger other = (AvgInteger)partial;
+		this.sum += other.sum;
+		this.count += other.count;
+	}
 }
@@ -27,7 +27,7 @@ import com.xdev.jadoth.collections.XGettingCollection;
  * @author Thomas Muenz
  *
  */
-public final class AvgIntegerNonNull implements Aggregate<Integer, Integer>
+public final class AvgIntegerNonNull implements MergeableAggregate<Integer, Integer>
 {
 	private int sum = 0;
 	private int count = 0;
@@ -67,4 +67,18 @@ public final class AvgIntegerNonNull implements Aggregate<Integer, Integer>
 		this.sum = 0;
 		return this;
 	}
+
+	@Override
+	public AvgIntegerNonNull createPartial()
+	{
+		return new AvgIntegerNonNull();
+	}
+
+	@Override
+	public void merge(final MergeableAggregate<Integer, Integer> partial)
+	{
+		final AvgIntegerNonNull other = (AvgIntegerNonNull)partial;
+		this.sum += other.sum;
+		this.count += other.count;
+	}
 }
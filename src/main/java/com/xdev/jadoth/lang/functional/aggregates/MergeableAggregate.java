@@ -0,0 +1,40 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.xdev.jadoth.lang.functional.aggregates;
+
+
+/**
+ * {@link Aggregate} whose partial results over disjoint parts of the data can be combined, which allows
+ * aggregating the parts in parallel.
+ * 
+ * @author XDEV Software
+ *
+ */
+public interface MergeableAggregate<E, R> extends Aggregate<E, R>
+{
+	/**
+	 * @return a new, empty aggregate of the same kind to collect a partial result.
+	 */
+	public MergeableAggregate<E, R> createPartial();
+
+	/**
+	 * Adds the partial result of another aggregate of the same kind to this aggregate.
+	 * @param partial an aggregate created by {@link #createPartial()}.
+	 */
+	public void merge(MergeableAggregate<E, R> partial);
+}
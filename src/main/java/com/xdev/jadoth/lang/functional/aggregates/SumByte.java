@@ -23,10 +23,15 @@ import com.xdev.jadoth.collections.XGettingCollection;
  * @author Thomas Muenz
  *
  */
-public final class SumByte implements Aggregate<Byte, Integer>
+public final class SumByte implements MergeableAggregate<Byte, Integer>
 {
 	private int sum = 0;	
 	
+	public SumByte()
+	{
+		super();
+	}
+	
 	public SumByte(final XGettingCollection<Byte> c)
 	{
 		super();
@@ -54,4 +59,17 @@ public final class SumByte implements Aggregate<Byte, Integer>
 		this.sum = 0;
 		return this;
 	}
+
+	@Override
+	public SumByte createPartial()
+	{
+		return new SumByte();
+	}
+
+	@Override
+	public void merge(final MergeableAggregate<Byte, Integer> partial)
+	{
+		final SumByte other = (SumByte)partial;
+		this.sum += other.sum;
+	}
 }
@@ -23,10 +23,15 @@ import com.xdev.jadoth.collections.XGettingCollection;
  * @author Thomas Muenz
  *
  */
-public final class SumDouble implements Aggregate<Double, Double>
+public final class SumDouble implements MergeableAggregate<Double, Double>
 {
 	private double sum = 0;	
 	
+	public SumDouble()
+	{
+		super();
+	}
+	
 	public SumDouble(final XGettingCollection<Double> c)
 	{
 		super();
@@ -54,4 +59,17 @@ public final class SumDouble implements Aggregate<Double, Double>
 		this.sum = 0;
 		return this;
 	}
+
+	@Override
+	public SumDouble createPartial()
+	{
+		return new SumDouble();
+	}
+
+	@Override
+	public void merge(final MergeableAggregate<Double, Double> partial)
+	{
+		final SumDouble other = (SumDouble)partial;
+		this.sum += other.sum;
+	}
 }
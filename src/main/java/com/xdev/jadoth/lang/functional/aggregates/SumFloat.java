@@ -23,10 +23,15 @@ import com.xdev.jadoth.collections.XGettingCollection;
  * @author Thomas Muenz
  *
  */
-public final class SumFloat implements Aggregate<Float, Double>
+public final class SumFloat implements MergeableAggregate<Float, Double>
 {
 	private double sum = 0;	
 	
+	public SumFloat()
+	{
+		super();
+	}
+	
 	public SumFloat(final XGettingCollection<Float> c)
 	{
 		super();
@@ -54,4 +59,17 @@ public final class SumFloat implements Aggregate<Float, Double>
 		this.sum = 0;
 		return this;
 	}
+
+	@Override
+	public SumFloat createPartial()
+	{
+		return new SumFloat();
+	}
+
+	@Override
+	public void merge(final MergeableAggregate<Float, Double> partial)
+	{
+		final SumFloat other = (SumFloat)partial;
+		this.sum += other.sum;
+	}
 }
@@ -27,7 +27,7 @@ import com.xdev.jadoth.collections.XGettingCollection;
  * @author Thomas Muenz
  *
  */
-public final class SumInteger implements Aggregate<Integer, Integer>
+public final class SumInteger implements MergeableAggregate<Integer, Integer>
 {
 	private int sum = 0;
 
@@ -63,4 +63,17 @@ public final class SumInteger implements Aggregate<Integer, Integer>
 		this.sum = 0;
 		return this;
 	}
+
+	@Override
+	public SumInteger createPartial()
+	{
+		return new SumInteger();
+	}
+
+	@Override
+	public void merge(final MergeableAggregate<Integer, Integer> partial)
+	{
+		final SumInteger other = (SumInteger)partial;
+		this.sum += other.sum;
+	}
 }
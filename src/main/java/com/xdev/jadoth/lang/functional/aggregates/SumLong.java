@@ -23,10 +23,15 @@ import com.xdev.jadoth.collections.XGettingCollection;
  * @author Thomas Muenz
  *
  */
-public final class SumLong implements Aggregate<Long, Long>
+public final class SumLong implements MergeableAggregate<Long, Long>
 {
 	private long sum = 0;	
 	
+	public SumLong()
+	{
+		super();
+	}
+	
 	public SumLong(final XGettingCollection<Long> c)
 	{
 		super();
@@ -54,4 +59,17 @@ public final class SumLong implements Aggregate<Long, Long>
 		this.sum = 0;
 		return this;
 	}
+
+	@Override
+	public SumLong createPartial()
+	{
+		return new SumLong();
+	}
+
+	@Override
+	public void merge(final MergeableAggregate<Long, Long> partial)
+	{
+		final SumLong other = (SumLong)partial;
+		this.sum += other.sum;
+	}
 }
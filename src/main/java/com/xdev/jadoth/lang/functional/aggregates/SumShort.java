@@ -23,10 +23,15 @@ import com.xdev.jadoth.collections.XGettingCollection;
  * @author Thomas Muenz
  *
  */
-public final class SumShort implements Aggregate<Short, Integer>
+public final class SumShort implements MergeableAggregate<Short, Integer>
 {
 	private int sum = 0;	
 	
+	public SumShort()
+	{
+		super();
+	}
+	
 	public SumShort(final XGettingCollection<Short> c)
 	{
 		super();
@@ -54,4 +59,17 @@ public final class SumShort implements Aggregate<Short, Integer>
 		this.sum = 0;
 		return this;
 	}
+
+	@Override
+	public SumShort createPartial()
+	{
+		return new SumShort();
+	}
+
+	@Override
+	public void merge(final MergeableAggregate<Short, Integer> partial)
+	{
+		final SumShort other = (SumShort)partial;
+		this.sum += other.sum;
+	}
 }
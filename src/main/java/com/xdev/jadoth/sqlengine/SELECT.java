@@ -444,6 +444,16 @@ public class SELECT extends TableQuery.Implementation
 		return this;
 	}
 
+	/**
+	 * Checks if an own alias is set, which is appended by this SELECT itself when it is assembled as a table
+	 * expression.
+	 *
+	 * @return true, if an own alias is set
+	 */
+	public boolean hasOwnAlias() {
+		return this.alias != null;
+	}
+
 	@Override
 	public SELECT setName(final String name)
 	{
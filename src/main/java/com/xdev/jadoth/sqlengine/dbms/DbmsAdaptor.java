@@ -188,6 +188,22 @@ public interface DbmsAdaptor<A extends DbmsAdaptor<A>>
 
 	public boolean supportsOFFSET_ROWS();
 	
+	/**
+	 * Returns the number of rows the JDBC driver should fetch from the database
+	 * per round trip when a result is read row by row.
+	 * 
+	 * <p>
+	 * The default implementation returns 0, adaptors of DBMS whose drivers
+	 * read the whole result by default should override it.
+	 * </p>
+	 * 
+	 * @return the fetch size, 0 to use the default of the driver
+	 * @since 6.0.3
+	 */
+	public default int getFetchSize() {
+		return 0;
+	}
+	
 
 
 
@@ -125,14 +125,25 @@ implements DbmsDMLAssembler<A>
 	/** The Constant TIMESTAMP. */
 	private static final String TIMESTAMP = DATE+" "+TIME;
 
-	/** The Constant date2TIMESTAMP. */
-	private static final SimpleDateFormat dateToTIMESTAMP = new SimpleDateFormat(TIMESTAMP);
+	/** The Constant date2TIMESTAMP, one per thread as SimpleDateFormat is not thread-safe. */
+	private static final ThreadLocal<SimpleDateFormat> dateToTIMESTAMP = createDateFormat(TIMESTAMP);
 
 	/** The Constant date2DATE. */
-	private static final SimpleDateFormat dateToDATE = new SimpleDateFormat(DATE);
+	private static final ThreadLocal<SimpleDateFormat> dateToDATE = createDateFormat(DATE);
 
 	/** The Constant date2TIME. */
-	private static final SimpleDateFormat dateToTIME = new SimpleDateFormat(TIME);
+	private static final ThreadLocal<SimpleDateFormat> dateToTIME = createDateFormat(TIME);
+
+	private static ThreadLocal<SimpleDateFormat> createDateFormat(final String pattern)
+	{
+		return new ThreadLocal<SimpleDateFormat>(){
+			@Override
+			protected SimpleDateFormat initialValue()
+			{
+				return new SimpleDateFormat(pattern);
+			}
+		};
+	}
 
 
 
@@ -1226,7 +1237,7 @@ implements DbmsDMLAssembler<A>
 	@Override
 	public DateFormat getDateFormatDATE()
 	{
-		return dateToDATE;
+		return dateToDATE.get();
 	}
 	/**
 	 * @return
@@ -1234,7 +1245,7 @@ implements DbmsDMLAssembler<A>
 	@Override
 	public DateFormat getDateFormatTIME()
 	{
-		return dateToTIME;
+		return dateToTIME.get();
 	}
 	/**
 	 * @return
@@ -1242,7 +1253,7 @@ implements DbmsDMLAssembler<A>
 	@Override
 	public DateFormat getDateFormatTIMESTAMP()
 	{
-		return dateToTIMESTAMP;
+		return dateToTIMESTAMP.get();
 	}
 
 	@Override
@@ -1397,7 +1408,8 @@ implements DbmsDMLAssembler<A>
 			return this.assembleTableIdentifier((SqlTableIdentity)tableExpression, sb, indentLevel, flags);
 		}
 		QueryPart.assembleObject(tableExpression, this, sb, indentLevel, flags);
-		if(!isOmitAlias(flags)){
+		//a sub select appends its own alias itself, otherwise the alias of its FROM clause is used
+		if(!isOmitAlias(flags) && !(tableExpression instanceof SELECT && ((SELECT)tableExpression).hasOwnAlias())){
 			final String alias = TableExpression.Utils.getAlias(tableExpression);
 			if(alias != null) {
 				sb.append(_);
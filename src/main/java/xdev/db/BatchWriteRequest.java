@@ -0,0 +1,201 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package xdev.db;
+
+
+import java.util.ArrayList;
+import java.util.List;
+
+import xdev.db.sql.WritingQuery;
+
+
+/**
+ * A write statement which is executed once for each of several parameter
+ * sets.
+ * <p>
+ * If the connection implements {@link BatchWriteSupport} the statement is
+ * prepared once and executed in chunks of <code>batchSize</code> parameter
+ * sets, otherwise every parameter set is written separately, like a
+ * {@link WriteRequest}.
+ * </p>
+ * 
+ * @author XDEV Software
+ * @since 6.0.3
+ */
+public class BatchWriteRequest
+{
+	private final WritingQuery		query;
+	private final String			sql;
+	private final String[]			columnNames;
+	private final boolean			returnGeneratedKeys;
+	private final List<Object[]>	params	= new ArrayList();
+	
+	
+	public BatchWriteRequest(WritingQuery query, boolean returnGeneratedKeys)
+	{
+		this.query = query;
+		this.sql = null;
+		this.columnNames = null;
+		this.returnGeneratedKeys = returnGeneratedKeys;
+	}
+	
+	
+	public BatchWriteRequest(String sql, boolean returnGeneratedKeys)
+	{
+		this.query = null;
+		this.sql = sql;
+		this.columnNames = null;
+		this.returnGeneratedKeys = returnGeneratedKeys;
+	}
+	
+	
+	public BatchWriteRequest(WritingQuery query, String[] columnNames)
+	{
+		this.query = query;
+		this.sql = null;
+		this.columnNames = columnNames;
+		this.returnGeneratedKeys = false;
+	}
+	
+	
+	public BatchWriteRequest(String sql, String[] columnNames)
+	{
+		this.query = null;
+		this.sql = sql;
+		this.columnNames = columnNames;
+		this.returnGeneratedKeys = false;
+	}
+	
+	
+	/**
+	 * Adds a parameter set, the statement is executed once for every added
+	 * parameter set.
+	 * 
+	 * @param params
+	 *            the parameter values for the statement
+	 */
+	public void addParams(Object... params)
+	{
+		this.params.add(params);
+	}
+	
+	
+	public WritingQuery getQuery()
+	{
+		return query;
+	}
+	
+	
+	public String getSQL()
+	{
+		return sql;
+	}
+	
+	
+	/**
+	 * @return the generated key columns or <code>null</code> if
+	 *         {@link #isReturnGeneratedKeys()} is used
+	 */
+	public String[] getColumnNames()
+	{
+		return columnNames;
+	}
+	
+	
+	public boolean isReturnGeneratedKeys()
+	{
+		return returnGeneratedKeys;
+	}
+	
+	
+	public List<Object[]> getParams()
+	{
+		return params;
+	}
+	
+	
+	/**
+	 * @return the number of added parameter sets
+	 */
+	public int size()
+	{
+		return params.size();
+	}
+	
+	
+	/**
+	 * Executes this request.
+	 * 
+	 * @param conn
+	 *            the connection to use
+	 * @param batchSize
+	 *            the maximum number of parameter sets sent in one batch, values
+	 *            less than 2 disable batching
+	 * @return one {@link WriteResult} for every parameter set, in the order the
+	 *         sets were added
+	 * @throws DBException
+	 *             if a database access error occurs
+	 */
+	public WriteResult[] execute(DBConnection conn, int batchSize) throws DBException
+	{
+		if(params.isEmpty())
+		{
+			return new WriteResult[0];
+		}
+		
+		if(batchSize > 1 && conn instanceof BatchWriteSupport)
+		{
+			return ((BatchWriteSupport)conn).writeBatch(this,batchSize);
+		}
+		
+		return executeSingly(conn);
+	}
+	
+	
+	/**
+	 * Executes this request with one statement per parameter set.
+	 * 
+	 * @param conn
+	 *            the connection to use
+	 * @return one {@link WriteResult} for every parameter set
+	 * @throws DBException
+	 *             if a database access error occurs
+	 */
+	public WriteResult[] executeSingly(DBConnection conn) throws DBException
+	{
+		WriteResult[] results = new WriteResult[params.size()];
+		for(int i = 0; i < results.length; i++)
+		{
+			results[i] = toWriteRequest(params.get(i)).execute(conn);
+		}
+		return results;
+	}
+	
+	
+	private WriteRequest toWriteRequest(Object[] params)
+	{
+		if(query != null)
+		{
+			return columnNames != null ? new WriteRequest(query,columnNames,params)
+					: new WriteRequest(query,returnGeneratedKeys,params);
+		}
+		
+		return columnNames != null ? new WriteRequest(sql,columnNames,params)
+				: new WriteRequest(sql,returnGeneratedKeys,params);
+	}
+}
@@ -0,0 +1,49 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package xdev.db;
+
+
+/**
+ * Implemented by {@link DBConnection}s which are able to execute a
+ * {@link BatchWriteRequest} with fewer round trips than one per parameter set.
+ * 
+ * @author XDEV Software
+ * @since 6.0.3
+ */
+public interface BatchWriteSupport
+{
+	/**
+	 * Executes <code>request</code> in batches of at most
+	 * <code>batchSize</code> parameter sets.
+	 * <p>
+	 * Implementations have to fall back to single writes if the underlying
+	 * data source doesn't support batches.
+	 * </p>
+	 * 
+	 * @param request
+	 *            the request to execute
+	 * @param batchSize
+	 *            the maximum number of parameter sets per batch
+	 * @return one {@link WriteResult} for every parameter set of
+	 *         <code>request</code>, in the same order
+	 * @throws DBException
+	 *             if a database access error occurs
+	 */
+	public WriteResult[] writeBatch(BatchWriteRequest request, int batchSize)
+			throws DBException;
+}
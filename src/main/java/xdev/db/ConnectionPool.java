@@ -26,6 +26,7 @@ import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.NClob;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLClientInfoException;
 import java.sql.SQLException;
 import java.sql.SQLWarning;
@@ -33,13 +34,18 @@ import java.sql.SQLXML;
 import java.sql.Savepoint;
 import java.sql.Statement;
 import java.sql.Struct;
-import java.util.Enumeration;
+import java.util.Collection;
+import java.util.Deque;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Timer;
 import java.util.TimerTask;
-import java.util.Vector;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import xdev.io.IOUtils;
 import xdev.util.logging.LoggerFactory;
@@ -48,6 +54,7 @@ import xdev.util.systemproperty.XdevSystemPropertyKeys;
 import xdev.util.systemproperty.XdevSystemPropertyUtils;
 
 import com.xdev.jadoth.sqlengine.dbms.DbmsAdaptor;
+import com.xdev.jadoth.sqlengine.exceptions.SQLEngineCouldNotConnectToDBException;
 import com.xdev.jadoth.sqlengine.interfaces.ConnectionProvider;
 
 
@@ -70,6 +77,10 @@ public class ConnectionPool implements ConnectionProvider
 	private static final long			DEFAULT_CONNECTION_TIMEOUT			= 5 * 60 * 1000;							// 5min
 	private static final long			DEFAULT_STACKTRACE_TIMEOUT_DELAY	= 10 * 1000;								// 10s
 	private static final boolean		DEFAULT_CONNECTION_DEBUG_MODE		= false;
+	private static final long			DEFAULT_ACQUIRE_TIMEOUT				= 30 * 1000;								// 30s
+	private static final int			DEFAULT_MAX_WAITING_REQUESTS		= 0;										// unlimited
+	private static final long			DEFAULT_VALIDATION_INTERVAL			= 30 * 1000;								// 30s
+	private static final int			DEFAULT_STATEMENT_CACHE_SIZE		= 100;
 	
 	/**
 	 * Logger instance for this class.
@@ -81,11 +92,29 @@ public class ConnectionPool implements ConnectionProvider
 	private final boolean					keepConnectionsAlive;
 	private final DbmsAdaptor			    adaptor;
 	private final ConnectionInformation		info;
-	private final Vector<PooledConnection>	pool;
 	
-	private final Timer						stacktraceTimer						= new Timer();
+	/**
+	 * All connections of this pool, leased or idle.
+	 */
+	private final Collection<PooledConnection>		pool				= new ConcurrentLinkedQueue<PooledConnection>();
+	
+	/**
+	 * Connections which are ready to be leased, most recently returned first.
+	 */
+	private final Deque<PooledConnection>			idle				= new ConcurrentLinkedDeque<PooledConnection>();
+	
+	/**
+	 * Fair permits for leased connections, <code>null</code> if the pool size
+	 * is unlimited.
+	 */
+	private final Semaphore							permits;
+	
+	private final Timer						timer								= new Timer(
+			"ConnectionPool",true);
+	
+	private final AtomicInteger				usedConnections						= new AtomicInteger();
 	
-	private int							usedConnections						= 0;
+	private volatile boolean				closed								= false;
 	
 	// over system properties configurable variables
 	/**
@@ -96,6 +125,12 @@ public class ConnectionPool implements ConnectionProvider
 	private boolean						isConnectionDebugMode;
 	private long						stackTraceTimeOutDelay;
 	private long						connectionTimeout;
+	private long						acquireTimeout;
+	private int							maxWaitingRequests;
+	private long						validationInterval;
+	private int							statementCacheSize;
+	
+	private final StatementCacheStatistics	statementCacheStatistics			= new StatementCacheStatistics();
 	
 	private final int                   maxStatementsPerConnection;
 	
@@ -126,11 +161,16 @@ public class ConnectionPool implements ConnectionProvider
 		this.keepConnectionsAlive = keepConnectionsAlive;
 		this.adaptor = adaptor;
 		this.info = info;
-		this.pool = new Vector<PooledConnection>();
+		this.permits = size > 0 ? new Semaphore(size,true) : null;
 		this.maxStatementsPerConnection = maxStmtPerCon;
 		
 		this.initConfigurableVariables();
 		
+		if(this.validationInterval > 0)
+		{
+			this.timer.schedule(new MaintenanceTask(),this.validationInterval,
+					this.validationInterval);
+		}
 	}
 	
 	
@@ -144,66 +184,145 @@ public class ConnectionPool implements ConnectionProvider
 				XdevSystemPropertyKeys.STACKTRACE_TIMEOUT_DELAY,DEFAULT_STACKTRACE_TIMEOUT_DELAY);
 		this.connectionTimeout = XdevSystemPropertyUtils.getLongValue(
 				XdevSystemPropertyKeys.CONNECTION_TIMEOUT,DEFAULT_CONNECTION_TIMEOUT);
+		this.acquireTimeout = XdevSystemPropertyUtils.getLongValue(
+				XdevSystemPropertyKeys.CONNECTION_ACQUIRE_TIMEOUT,DEFAULT_ACQUIRE_TIMEOUT);
+		this.maxWaitingRequests = XdevSystemPropertyUtils.getIntegerValue(
+				XdevSystemPropertyKeys.CONNECTION_MAX_WAITING_REQUESTS,
+				DEFAULT_MAX_WAITING_REQUESTS);
+		this.validationInterval = XdevSystemPropertyUtils.getLongValue(
+				XdevSystemPropertyKeys.CONNECTION_VALIDATION_INTERVAL,
+				DEFAULT_VALIDATION_INTERVAL);
+		this.statementCacheSize = XdevSystemPropertyUtils.getIntegerValue(
+				XdevSystemPropertyKeys.STATEMENT_CACHE_SIZE,DEFAULT_STATEMENT_CACHE_SIZE);
+	}
+	
+	
+	/**
+	 * Returns the counters of the prepared statement caches of this pool's
+	 * connections. The cache size per connection is set with the system
+	 * property {@link XdevSystemPropertyKeys#STATEMENT_CACHE_SIZE}.
+	 * 
+	 * @return the statement cache counters
+	 * @since 6.0.3
+	 */
+	public StatementCacheStatistics getStatementCacheStatistics()
+	{
+		return this.statementCacheStatistics;
 	}
 	
 	
-	private synchronized void reapConnections()
+	/**
+	 * Runs in the background: validates idle connections, retires connections
+	 * beyond the pool size and reaps stale leased connections.
+	 */
+	void maintain()
 	{
-		final long stale = System.currentTimeMillis() - this.connectionTimeout;
-		final Enumeration<PooledConnection> connlist = this.pool.elements();
-		while(connlist.hasMoreElements())
+		final long now = System.currentTimeMillis();
+		
+		for(final PooledConnection conn : this.idle)
+		{
+			if(now - conn.lastValidated >= this.validationInterval || this.size > 0
+					&& this.pool.size() > this.size)
+			{
+				// lease it to prevent concurrent use while validating
+				if(this.idle.remove(conn) && conn.lease(false))
+				{
+					if(this.size > 0 && this.pool.size() > this.size || !conn.validate())
+					{
+						retire(conn);
+					}
+					else
+					{
+						conn.inuse = false;
+						this.idle.offerLast(conn);
+					}
+				}
+			}
+		}
+		
+		final long stale = now - this.connectionTimeout;
+		for(final PooledConnection conn : this.pool)
 		{
-			final PooledConnection conn = connlist.nextElement();
-			
 			if(conn.inuse && stale > conn.initTimestamp && !conn.validate())
 			{
-				this.usedConnections--;
-				this.pool.removeElement(conn);
-				conn.closeDefinite();
+				// the lessee gets an invalid connection anyway, free its permit
+				conn.release(false);
+				retire(conn);
 			}
 		}
 	}
 	
 	
-	// /**
-	// * Returns the first {@link Connection} of this {@link ConnectionPool}
-	// that
-	// * is not in use. If no {@link Connection} is available, a new
-	// * {@link PooledConnection} is created and the method (
-	// * {@link #getConnection()}) is called again.
-	// *
-	// * @return the {@link Connection}
-	// */
+	private void retire(final PooledConnection conn)
+	{
+		this.pool.remove(conn);
+		conn.closeDefinite();
+		
+		if(LOGGER.isDebugEnabled())
+		{
+			LOGGER.debug("Retired connection: " + conn.toString() + " "
+					+ this.getPoolConnectionStats());
+		}
+	}
+	
+	
 	/**
 	 * {@inheritDoc}
+	 * <p>
+	 * If the pool size is limited and all connections are in use, the calling
+	 * thread waits in a fair queue until a connection is returned, at most for
+	 * the acquire timeout (system property
+	 * {@link XdevSystemPropertyKeys#CONNECTION_ACQUIRE_TIMEOUT}).
+	 * </p>
+	 * 
+	 * @throws SQLEngineCouldNotConnectToDBException
+	 *             if no connection is available within the acquire timeout, or
+	 *             if too many requests are already waiting
 	 */
 	@Override
-	public synchronized Connection getConnection()
+	public Connection getConnection() throws SQLEngineCouldNotConnectToDBException
 	{
-		for(final PooledConnection connection : this.pool)
+		if(this.closed)
 		{
-			if(connection.lease() && connection.validate())
-			{
-				this.usedConnections++;
-				
-				if(LOGGER.isDebugEnabled())
-				{
-					LOGGER.debug("Took connection from pool: " + connection.toString() + " "
-							+ this.getPoolConnectionStats());
-				}
-				
-				return connection;
-			}
+			throw new SQLEngineCouldNotConnectToDBException("Connection pool is closed");
 		}
 		
-		this.reapConnections();
+		acquirePermit();
 		
-		if(this.size <= 0 || this.pool.size() < this.size)
+		try
 		{
-			final PooledConnection connection = new PooledConnection(this.info.createConnection(), this.maxStatementsPerConnection);
-			connection.lease();
+			PooledConnection connection;
+			while((connection = this.idle.pollFirst()) != null)
+			{
+				if(connection.lease(true))
+				{
+					if(connection.isExhausted()
+							|| (System.currentTimeMillis()
+									- connection.lastValidated >= this.validationInterval && !connection
+									.validate()))
+					{
+						connection.inuse = false;
+						this.retire(connection);
+						continue;
+					}
+					
+					this.usedConnections.incrementAndGet();
+					
+					if(LOGGER.isDebugEnabled())
+					{
+						LOGGER.debug("Took connection from pool: " + connection.toString() + " "
+								+ this.getPoolConnectionStats());
+					}
+					
+					return connection;
+				}
+			}
+			
+			connection = new PooledConnection(this.info.createConnection(),
+					this.maxStatementsPerConnection);
+			connection.lease(true);
 			this.pool.add(connection);
-			this.usedConnections++;
+			this.usedConnections.incrementAndGet();
 			
 			if(LOGGER.isDebugEnabled())
 			{				
@@ -212,22 +331,57 @@ public class ConnectionPool implements ConnectionProvider
 			}
 			return connection;
 		}
+		catch(final RuntimeException e)
+		{
+			releasePermit();
+			throw e;
+		}
+	}
+	
+	
+	private void acquirePermit() throws SQLEngineCouldNotConnectToDBException
+	{
+		if(this.permits == null)
+		{
+			return;
+		}
+		
+		if(this.maxWaitingRequests > 0 && this.permits.availablePermits() == 0
+				&& this.permits.getQueueLength() >= this.maxWaitingRequests)
+		{
+			throw new SQLEngineCouldNotConnectToDBException("Connection pool exhausted: "
+					+ this.permits.getQueueLength() + " requests are already waiting");
+		}
 		
 		try
 		{
-			Thread.sleep(1000);
+			if(!this.permits.tryAcquire(this.acquireTimeout,TimeUnit.MILLISECONDS))
+			{
+				throw new SQLEngineCouldNotConnectToDBException(
+						"No connection available within " + this.acquireTimeout + " ms ("
+								+ this.getPoolConnectionStats() + ")");
+			}
 		}
 		catch(final InterruptedException e)
 		{
+			Thread.currentThread().interrupt();
+			throw new SQLEngineCouldNotConnectToDBException(e);
+		}
+	}
+	
+	
+	private void releasePermit()
+	{
+		if(this.permits != null)
+		{
+			this.permits.release();
 		}
-		
-		return this.getConnection();
 	}
 	
 	
 	private String getPoolConnectionStats()
 	{
-		return "Poolsize / used: " + this.pool.size() + " / " + this.usedConnections;
+		return "Poolsize / used: " + this.pool.size() + " / " + this.usedConnections.get();
 	}
 	
 	
@@ -245,7 +399,7 @@ public class ConnectionPool implements ConnectionProvider
 	 * {@inheritDoc}
 	 */
 	@Override
-	public synchronized void closeConnection(Connection connection)
+	public void closeConnection(Connection connection)
 	{
 		try
 		{
@@ -261,14 +415,18 @@ public class ConnectionPool implements ConnectionProvider
 	 * {@inheritDoc}
 	 */
 	@Override
-	public synchronized void close()
+	public void close()
 	{
+		this.closed = true;
+		this.timer.cancel();
+		
 		for(final PooledConnection connection : this.pool)
 		{
 			connection.closeDefinite();
 		}
 		this.pool.clear();
-		this.usedConnections = 0;
+		this.idle.clear();
+		this.usedConnections.set(0);
 	}
 	
 	
@@ -289,22 +447,50 @@ public class ConnectionPool implements ConnectionProvider
 	
 	
 	
+	private class MaintenanceTask extends TimerTask
+	{
+		@Override
+		public void run()
+		{
+			try
+			{
+				maintain();
+			}
+			catch(final Throwable t)
+			{
+				LOGGER.error(t);
+			}
+		}
+	}
+	
+	
+	
 	private class PooledConnection implements ConnectionWrapper
 	{
 		private static final int UNLIMITED_STATEMENTS_PER_CONNECTION = 0;
+		private static final int NO_HOLDABILITY = -1;
 		Connection			connection;
-		boolean				inuse;
+		volatile boolean	inuse;
 		long				initTimestamp;
+		long				lastValidated;
 		String				leaseStack;
 		StacktraceTimeOut	stacktraceTimeOut;
 		int                 maxStatementsPerConnection = UNLIMITED_STATEMENTS_PER_CONNECTION;
 		
 		int                 statementCount = 0;
 		
+		/**
+		 * <code>null</code> if statement caching is disabled
+		 */
+		final PreparedStatementCache	statementCache;
+		
 		PooledConnection(Connection connection, int maxStatementsPerCon) 
 		{
 			this.init(connection);			
 			this.maxStatementsPerConnection = maxStatementsPerCon;
+			this.statementCache = ConnectionPool.this.statementCacheSize > 0 ? new PreparedStatementCache(
+					this,ConnectionPool.this.statementCacheSize,
+					ConnectionPool.this.statementCacheStatistics) : null;
 		}
 		
 		private void init(final Connection connection)
@@ -312,6 +498,7 @@ public class ConnectionPool implements ConnectionProvider
 			this.connection = connection;
 			this.inuse = false;
 			this.initTimestamp = 0;
+			this.lastValidated = System.currentTimeMillis();
 			this.leaseStack = "set system property " + XdevSystemPropertyKeys.CONNECTION_DEBUG_MODE
 					+ " to get lease stack";
 		}
@@ -406,8 +593,8 @@ public class ConnectionPool implements ConnectionProvider
 		@Override
 		public PreparedStatement prepareStatement(String sql) throws SQLException
 		{
-			this.statementCount++;
-			return this.connection.prepareStatement(sql);
+			return this.prepareCached(new PreparedStatementCache.Key(sql,ResultSet.TYPE_FORWARD_ONLY,ResultSet.CONCUR_READ_ONLY,NO_HOLDABILITY,null),
+					() -> this.connection.prepareStatement(sql));
 		}
 		
 		
@@ -418,8 +605,8 @@ public class ConnectionPool implements ConnectionProvider
 		public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys)
 				throws SQLException
 		{
-			this.statementCount++;
-			return this.connection.prepareStatement(sql,autoGeneratedKeys);
+			return this.prepareCached(new PreparedStatementCache.Key(sql,ResultSet.TYPE_FORWARD_ONLY,ResultSet.CONCUR_READ_ONLY,NO_HOLDABILITY,
+					autoGeneratedKeys),() -> this.connection.prepareStatement(sql,autoGeneratedKeys));
 		}
 		
 		
@@ -430,8 +617,8 @@ public class ConnectionPool implements ConnectionProvider
 		public PreparedStatement prepareStatement(String sql, int[] columnIndexes)
 				throws SQLException
 		{
-			this.statementCount++;
-			return this.connection.prepareStatement(sql,columnIndexes);
+			return this.prepareCached(new PreparedStatementCache.Key(sql,ResultSet.TYPE_FORWARD_ONLY,ResultSet.CONCUR_READ_ONLY,NO_HOLDABILITY,
+					columnIndexes),() -> this.connection.prepareStatement(sql,columnIndexes));
 		}
 		
 		
@@ -442,8 +629,8 @@ public class ConnectionPool implements ConnectionProvider
 		public PreparedStatement prepareStatement(String sql, String[] columnNames)
 				throws SQLException
 		{
-			this.statementCount++;
-			return this.connection.prepareStatement(sql,columnNames);
+			return this.prepareCached(new PreparedStatementCache.Key(sql,ResultSet.TYPE_FORWARD_ONLY,ResultSet.CONCUR_READ_ONLY,NO_HOLDABILITY,
+					columnNames),() -> this.connection.prepareStatement(sql,columnNames));
 		}
 		
 		
@@ -454,8 +641,9 @@ public class ConnectionPool implements ConnectionProvider
 		public PreparedStatement prepareStatement(String sql, int resultSetType,
 				int resultSetConcurrency) throws SQLException
 		{
-			this.statementCount++;
-			return this.connection.prepareStatement(sql,resultSetType,resultSetConcurrency);
+			return this.prepareCached(new PreparedStatementCache.Key(sql,resultSetType,
+					resultSetConcurrency,NO_HOLDABILITY,null),() -> this.connection
+					.prepareStatement(sql,resultSetType,resultSetConcurrency));
 		}
 		
 		
@@ -466,12 +654,34 @@ public class ConnectionPool implements ConnectionProvider
 		public PreparedStatement prepareStatement(String sql, int resultSetType,
 				int resultSetConcurrency, int resultSetHoldability) throws SQLException
 		{
-			this.statementCount++;
-			return this.connection.prepareStatement(sql,resultSetType,resultSetConcurrency,
-					resultSetHoldability);
+			return this.prepareCached(new PreparedStatementCache.Key(sql,resultSetType,
+					resultSetConcurrency,resultSetHoldability,null),() -> this.connection
+					.prepareStatement(sql,resultSetType,resultSetConcurrency,resultSetHoldability));
+		}
+		
+		
+		private PreparedStatement prepareCached(final PreparedStatementCache.Key key,
+				final PreparedStatementCache.StatementFactory factory) throws SQLException
+		{
+			final PreparedStatementCache.StatementFactory countingFactory = () -> {
+				this.statementCount++;
+				return factory.create();
+			};
+			
+			if(this.statementCache == null)
+			{
+				return countingFactory.create();
+			}
+			
+			return this.statementCache.prepare(key,countingFactory);
 		}
 		
-		synchronized boolean lease()
+		/**
+		 * @param trackLessee
+		 *            <code>false</code> for internal leases of the pool,
+		 *            which are not recorded for debugging
+		 */
+		synchronized boolean lease(final boolean trackLessee)
 		{		
 			if(this.inuse)
 			{
@@ -480,6 +690,12 @@ public class ConnectionPool implements ConnectionProvider
 			else
 			{
 				this.inuse = true;
+				
+				if(!trackLessee)
+				{
+					return true;
+				}
+				
 				this.initTimestamp = System.currentTimeMillis();
 				
 				if(ConnectionPool.this.isConnectionDebugMode)
@@ -497,7 +713,7 @@ public class ConnectionPool implements ConnectionProvider
 					this.leaseStack = sb.toString();
 					
 					this.stacktraceTimeOut = new StacktraceTimeOut(LOGGER,this);
-					ConnectionPool.this.stacktraceTimer.schedule(this.stacktraceTimeOut,ConnectionPool.this.stackTraceTimeOutDelay);
+					ConnectionPool.this.timer.schedule(this.stacktraceTimeOut,ConnectionPool.this.stackTraceTimeOutDelay);
 				}				
 				
 				return true;
@@ -505,31 +721,83 @@ public class ConnectionPool implements ConnectionProvider
 		}
 		
 		
+		/**
+		 * @return <code>true</code> if this connection executed more than the
+		 *         allowed statements and has to be replaced
+		 */
+		boolean isExhausted()
+		{
+			return this.maxStatementsPerConnection > UNLIMITED_STATEMENTS_PER_CONNECTION
+					&& this.statementCount > this.maxStatementsPerConnection;
+		}
+		
+		
 		boolean validate()
 		{
-			if(this.maxStatementsPerConnection > UNLIMITED_STATEMENTS_PER_CONNECTION && this.statementCount > this.maxStatementsPerConnection) {				
+			if(this.isExhausted())
+			{
 				return false;
-			} else {
-				return ConnectionPool.this.info.isConnectionValid(this.connection);
 			}
+			
+			if(ConnectionPool.this.info.isConnectionValid(this.connection))
+			{
+				this.lastValidated = System.currentTimeMillis();
+				return true;
+			}
+			
+			return false;
 		}
 		
 		
-		@Override
-		public void close()
+		/**
+		 * Ends the lease of this connection.
+		 * 
+		 * @param reuse
+		 *            <code>true</code> to hand this connection to the next
+		 *            lessee
+		 * @return <code>false</code> if this connection was not leased
+		 */
+		boolean release(final boolean reuse)
 		{
-			this.inuse = false;
+			synchronized(this)
+			{
+				if(!this.inuse)
+				{
+					return false;
+				}
+				
+				this.inuse = false;
+			}
 			
 			if(this.stacktraceTimeOut != null)
 			{
 				this.stacktraceTimeOut.cancel();
+				this.stacktraceTimeOut = null;
 			}
 			
-			ConnectionPool.this.usedConnections--;
+			ConnectionPool.this.usedConnections.decrementAndGet();
 			
-			if(!ConnectionPool.this.keepConnectionsAlive)
+			if(reuse)
 			{
-				this.closeDefinite();
+				// offer before the permit is released, so the next lessee sees it
+				ConnectionPool.this.idle.offerFirst(this);
+			}
+			
+			releasePermit();
+			
+			return true;
+		}
+		
+		
+		@Override
+		public void close()
+		{
+			final boolean reuse = ConnectionPool.this.keepConnectionsAlive
+					&& !ConnectionPool.this.closed && !this.isExhausted();
+			
+			if(this.release(reuse) && !reuse)
+			{
+				retire(this);
 			}
 		}
 		
@@ -538,6 +806,11 @@ public class ConnectionPool implements ConnectionProvider
 		{
 			this.inuse = false;
 			
+			if(this.statementCache != null)
+			{
+				this.statementCache.close();
+			}
+			
 			try
 			{
 				this.connection.close();
@@ -35,7 +35,7 @@ import xdev.db.sql.WritingQuery;
  * @author XDEV Software
  * @since 3.1
  */
-public abstract class DelegatingDBConnection implements DBConnection
+public abstract class DelegatingDBConnection implements DBConnection, BatchWriteSupport
 {
 	private final DBConnection	delegate;
 	
@@ -198,6 +198,18 @@ public abstract class DelegatingDBConnection implements DBConnection
 	}
 	
 	
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * @since 6.0.3
+	 */
+	@Override
+	public WriteResult[] writeBatch(BatchWriteRequest request, int batchSize) throws DBException
+	{
+		return request.execute(delegate,batchSize);
+	}
+	
+	
 	/**
 	 * {@inheritDoc}
 	 */
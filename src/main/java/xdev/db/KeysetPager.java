@@ -0,0 +1,485 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package xdev.db;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import xdev.db.sql.Condition;
+import xdev.db.sql.Functions;
+import xdev.db.sql.SELECT;
+import xdev.db.sql.WHERE;
+import xdev.lang.NotNull;
+import xdev.util.MathUtils;
+import xdev.vt.VirtualTableColumn;
+
+
+/**
+ * A {@link DBPager} which orders the rows by a unique key and fetches the
+ * neighbouring pages of the current page with a condition on the key of the
+ * first or last row of the current page (seek method). This way the database
+ * doesn't have to skip the preceding rows, the costs of a page request don't
+ * depend on its position.
+ * <p>
+ * Random page jumps ({@link #gotoPage(int)}, {@link #gotoRow(int)}) use
+ * OFFSET queries, the connection decides how they are executed, see
+ * {@link QueryInfo#getPagingStrategy()}.
+ * </p>
+ * <p>
+ * The connection is closed when the pager is closed.
+ * </p>
+ *
+ * @see PagingStrategy#KEYSET
+ * @author XDEV Software
+ * @since 6.0.3
+ */
+public class KeysetPager implements DBPager
+{
+	private final DBConnection<?>			connection;
+	private final SELECT					select;
+	private final VirtualTableColumn<?>[]	keyColumns;
+	private final Object[]					params;
+
+	private int								rowsPerPage;
+	private final int						totalRows;
+	private int								maxPageIndex;
+	private int								currentPageIndex	= -1;
+	private int								currentRowIndex		= -1;
+	private int								currentRowCount		= 0;
+
+	private Object[]						firstKey;
+	private Object[]						lastKey;
+	private DBDataSource<?>					dataSource;
+	private boolean							closed;
+
+
+	/**
+	 * Creates a new keyset pager.
+	 *
+	 * @param connection
+	 *            the connection to execute the page queries with
+	 * @param rowsPerPage
+	 *            the page size
+	 * @param select
+	 *            the base query, must not have an ORDER BY, OFFSET or FETCH
+	 *            FIRST clause
+	 * @param keyColumns
+	 *            the columns which identify a row uniquely
+	 * @param params
+	 *            the parameters of the base query
+	 * @throws DBException
+	 *             if the row count couldn't be queried
+	 */
+	public KeysetPager(final @NotNull DBConnection<?> connection, final int rowsPerPage,
+			final @NotNull SELECT select, final @NotNull VirtualTableColumn<?>[] keyColumns,
+			final Object... params) throws DBException
+	{
+		if(keyColumns.length == 0)
+		{
+			throw new IllegalArgumentException("no key columns");
+		}
+
+		this.connection = connection;
+		this.select = select;
+		this.keyColumns = keyColumns;
+		this.params = params != null ? params : new Object[0];
+
+		this.totalRows = queryRowCount();
+		setRowsPerPageValues(rowsPerPage);
+	}
+
+
+	private int queryRowCount() throws DBException
+	{
+		final SELECT count = new SELECT().columns(Functions.COUNT()).FROM(
+				this.select.clone().AS("_RESULT_COUNT_"));
+		final Result result = this.connection.query(count,this.params);
+		try
+		{
+			this.dataSource = result.getDataSource();
+			return result.next() ? result.getInt(0) : 0;
+		}
+		finally
+		{
+			result.close();
+		}
+	}
+
+
+	@Override
+	public DBDataSource<?> getDataSource()
+	{
+		return this.dataSource;
+	}
+
+
+	@Override
+	public Result setRowsPerPage(final int rowsPerPage) throws DBException
+	{
+		setRowsPerPageValues(rowsPerPage);
+
+		if(this.currentRowIndex == -1)
+		{
+			return nextPage();
+		}
+
+		return gotoPage(rowsPerPage == 0 ? 0 : this.currentRowIndex / rowsPerPage);
+	}
+
+
+	private void setRowsPerPageValues(final int rowsPerPage)
+	{
+		this.rowsPerPage = rowsPerPage;
+
+		if(rowsPerPage > 0)
+		{
+			this.maxPageIndex = this.totalRows / rowsPerPage;
+			if(this.totalRows % rowsPerPage == 0)
+			{
+				this.maxPageIndex--;
+			}
+		}
+		else
+		{
+			this.maxPageIndex = 0;
+		}
+	}
+
+
+	@Override
+	public int getRowsPerPage()
+	{
+		return this.rowsPerPage;
+	}
+
+
+	@Override
+	public int getTotalRows()
+	{
+		return this.totalRows;
+	}
+
+
+	@Override
+	public int getCurrentPageIndex()
+	{
+		return this.currentPageIndex;
+	}
+
+
+	@Override
+	public int getMaxPageIndex()
+	{
+		return this.maxPageIndex;
+	}
+
+
+	@Override
+	public boolean hasNextPage()
+	{
+		return Math.max(this.currentRowIndex,0) + this.rowsPerPage < this.totalRows;
+	}
+
+
+	@Override
+	public boolean hasPreviousPage()
+	{
+		return this.currentRowIndex > 0;
+	}
+
+
+	@Override
+	public Result nextPage() throws DBException
+	{
+		if(!hasNextPage())
+		{
+			return null;
+		}
+
+		if(this.currentRowIndex == -1 || this.currentPageIndex == -1)
+		{
+			this.currentRowIndex = this.currentPageIndex = 0;
+			return queryFirstRows();
+		}
+
+		final int expectedRow = this.currentRowIndex + this.currentRowCount;
+		this.currentRowIndex += this.rowsPerPage;
+		this.currentPageIndex++;
+
+		if(this.lastKey != null && expectedRow == this.currentRowIndex)
+		{
+			return querySeek(this.lastKey,false);
+		}
+		return queryOffset();
+	}
+
+
+	@Override
+	public Result previousPage() throws DBException
+	{
+		if(!hasPreviousPage())
+		{
+			return null;
+		}
+
+		this.currentRowIndex -= this.rowsPerPage;
+		this.currentPageIndex--;
+
+		if(this.currentRowIndex <= 0)
+		{
+			this.currentRowIndex = 0;
+			return queryFirstRows();
+		}
+		if(this.firstKey != null)
+		{
+			return querySeek(this.firstKey,true);
+		}
+		return queryOffset();
+	}
+
+
+	@Override
+	public Result firstPage() throws DBException
+	{
+		if(this.currentRowIndex == 0 || this.totalRows <= 0)
+		{
+			return null;
+		}
+
+		this.currentRowIndex = this.currentPageIndex = 0;
+
+		return queryFirstRows();
+	}
+
+
+	@Override
+	public Result lastPage() throws DBException
+	{
+		if(!hasNextPage())
+		{
+			return null;
+		}
+
+		this.currentRowIndex = this.maxPageIndex * this.rowsPerPage;
+		this.currentPageIndex = this.maxPageIndex;
+
+		// the last rows in reverse order
+		final SELECT page = this.select.clone();
+		orderByKey(page,true);
+		page.FETCH_FIRST(this.totalRows - this.currentRowIndex);
+		return fetch(page,this.params,true,PagingStrategy.KEYSET);
+	}
+
+
+	@Override
+	public Result gotoPage(final int page) throws DBException
+	{
+		MathUtils.checkRange(page,0,this.maxPageIndex);
+
+		this.currentRowIndex = page * this.rowsPerPage;
+		this.currentPageIndex = page;
+
+		return this.currentRowIndex == 0 ? queryFirstRows() : queryOffset();
+	}
+
+
+	@Override
+	public Result gotoRow(final int row) throws DBException
+	{
+		MathUtils.checkRange(row,0,this.totalRows - 1);
+
+		this.currentRowIndex = row;
+		this.currentPageIndex = row / this.rowsPerPage;
+
+		return this.currentRowIndex == 0 ? queryFirstRows() : queryOffset();
+	}
+
+
+	private Result queryFirstRows() throws DBException
+	{
+		final SELECT page = this.select.clone();
+		orderByKey(page,false);
+		limit(page);
+		return fetch(page,this.params,false,PagingStrategy.KEYSET);
+	}
+
+
+	private Result queryOffset() throws DBException
+	{
+		final SELECT page = this.select.clone();
+		orderByKey(page,false);
+		page.OFFSET(this.currentRowIndex);
+		limit(page);
+		return fetch(page,this.params,false,null);
+	}
+
+
+	/**
+	 * Fetches the rows after (or before if <code>backwards</code> is
+	 * <code>true</code>) the row with the key <code>key</code>.
+	 */
+	private Result querySeek(final Object[] key, final boolean backwards) throws DBException
+	{
+		final List<Object> values = new ArrayList<Object>(Arrays.asList(this.params));
+
+		// (k1 > ?) OR (k1 = ? AND k2 > ?) OR ...
+		Condition seek = null;
+		for(int i = 0; i < this.keyColumns.length; i++)
+		{
+			Condition term = null;
+			for(int j = 0; j < i; j++)
+			{
+				final Condition eq = this.keyColumns[j].eq("?");
+				term = term == null ? eq : term.AND(eq);
+				values.add(key[j]);
+			}
+			final Condition cmp = backwards ? this.keyColumns[i].lt("?") : this.keyColumns[i]
+					.gt("?");
+			term = term == null ? cmp : term.AND(cmp);
+			values.add(key[i]);
+
+			seek = seek == null ? Condition.par(term) : seek.OR(Condition.par(term));
+		}
+
+		final SELECT page = this.select.clone();
+		WHERE where = page.getWhere();
+		if(where == null)
+		{
+			page.WHERE(Condition.par(seek));
+		}
+		else
+		{
+			if(!where.isEmpty())
+			{
+				where.encloseWithPars();
+			}
+			where.and(Condition.par(seek));
+		}
+		orderByKey(page,backwards);
+		limit(page);
+
+		return fetch(page,values.toArray(),backwards,PagingStrategy.KEYSET);
+	}
+
+
+	private void orderByKey(final SELECT page, final boolean descending)
+	{
+		for(final VirtualTableColumn<?> column : this.keyColumns)
+		{
+			page.ORDER_BY(column,descending);
+		}
+	}
+
+
+	private void limit(final SELECT page)
+	{
+		if(this.rowsPerPage > 0)
+		{
+			page.FETCH_FIRST(this.rowsPerPage);
+		}
+	}
+
+
+	private Result fetch(final SELECT page, final Object[] params, final boolean reverse,
+			PagingStrategy strategy) throws DBException
+	{
+		PrefetchedResult result;
+		final Result source = this.connection.query(page,params);
+		try
+		{
+			result = new PrefetchedResult(source);
+			if(strategy == null)
+			{
+				final QueryInfo info = source.getQueryInfo();
+				strategy = info != null ? info.getPagingStrategy() : null;
+			}
+		}
+		finally
+		{
+			source.close();
+		}
+
+		if(reverse)
+		{
+			result = result.reverse();
+		}
+
+		this.currentRowCount = result.getRowCount();
+		rememberKeys(result);
+
+		final QueryInfo queryInfo = new QueryInfo(page,params);
+		queryInfo.setPagingStrategy(strategy);
+		result.setQueryInfo(queryInfo);
+		result.setDataSource(getDataSource());
+		return result;
+	}
+
+
+	private void rememberKeys(final PrefetchedResult result)
+	{
+		this.firstKey = this.lastKey = null;
+
+		final int rowCount = result.getRowCount();
+		if(rowCount == 0)
+		{
+			return;
+		}
+
+		final int[] indices = new int[this.keyColumns.length];
+		for(int i = 0; i < indices.length; i++)
+		{
+			try
+			{
+				indices[i] = result.getColumnIndex(this.keyColumns[i].getName());
+			}
+			catch(final DBException e)
+			{
+				// key not selected, only offset queries possible
+				return;
+			}
+		}
+
+		this.firstKey = new Object[indices.length];
+		this.lastKey = new Object[indices.length];
+		for(int i = 0; i < indices.length; i++)
+		{
+			this.firstKey[i] = result.getObject(0,indices[i]);
+			this.lastKey[i] = result.getObject(rowCount - 1,indices[i]);
+		}
+	}
+
+
+	@Override
+	public void close() throws DBException
+	{
+		if(!this.closed)
+		{
+			this.closed = true;
+			this.connection.close();
+		}
+	}
+
+
+	@Override
+	public boolean isClosed() throws DBException
+	{
+		return this.closed;
+	}
+}
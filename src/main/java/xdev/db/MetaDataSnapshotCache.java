@@ -0,0 +1,507 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package xdev.db;
+
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import xdev.db.DBConnection.Query;
+import xdev.util.ProgressMonitor;
+import xdev.util.logging.LoggerFactory;
+import xdev.util.logging.XdevLogger;
+import xdev.vt.EntityRelationshipModel;
+
+
+/**
+ * A {@link DBMetaData} which keeps the {@link TableMetaData}, the
+ * {@link StoredProcedure}s and the {@link EntityRelationshipModel}s of its
+ * delegate in a local snapshot file.
+ * <p>
+ * On the first access the snapshot is validated with the fingerprints of a
+ * {@link FingerprintProvider}, e.g. a {@link xdev.db.jdbc.JDBCMetaData}, which
+ * reads them with one cheap query. Only the tables whose fingerprint changed
+ * are read from the delegate again, the snapshot file is updated afterwards.
+ * </p>
+ * <p>
+ * The fingerprints cover the columns of the tables. Changes of indices or
+ * foreign keys only are not detected, call {@link #clear()} after such
+ * changes. Row counts are never cached.
+ * </p>
+ *
+ * @author XDEV Software
+ * @since 6.0.3
+ */
+public class MetaDataSnapshotCache extends DelegatingDBMetaData
+{
+	/**
+	 * Provides the fingerprints which are used to validate a snapshot.
+	 */
+	public static interface FingerprintProvider
+	{
+		/**
+		 * Returns the fingerprints of all tables, a fingerprint changes when
+		 * the structure of the table changes.
+		 *
+		 * @param monitor
+		 *            the {@link ProgressMonitor} to use
+		 * @return the fingerprints by table
+		 * @throws DBException
+		 *             if a database access error occurs
+		 */
+		public Map<TableInfo, Long> getTableFingerprints(ProgressMonitor monitor)
+				throws DBException;
+
+
+		/**
+		 * Returns the fingerprint of all stored procedures, it changes when a
+		 * stored procedure or its parameters change.
+		 *
+		 * @param monitor
+		 *            the {@link ProgressMonitor} to use
+		 * @return the fingerprint of the stored procedures
+		 * @throws DBException
+		 *             if a database access error occurs
+		 */
+		public long getStoredProceduresFingerprint(ProgressMonitor monitor) throws DBException;
+	}
+
+	private static final XdevLogger		LOG	= LoggerFactory
+													.getLogger(MetaDataSnapshotCache.class);
+
+	private final File					file;
+	private final FingerprintProvider	fingerprintProvider;
+
+	private Snapshot					snapshot;
+	private Map<TableInfo, Long>		tableFingerprints;
+	private Long						storedProceduresFingerprint;
+
+
+	/**
+	 * Creates a snapshot cache for <code>delegate</code>, which has to be a
+	 * {@link FingerprintProvider} to enable the cache.
+	 *
+	 * @param delegate
+	 *            the metadata to cache
+	 * @param file
+	 *            the snapshot file
+	 */
+	public MetaDataSnapshotCache(DBMetaData delegate, File file)
+	{
+		this(delegate,file,delegate instanceof FingerprintProvider ? (FingerprintProvider)delegate
+				: null);
+	}
+
+
+	/**
+	 * Creates a snapshot cache for <code>delegate</code>.
+	 *
+	 * @param delegate
+	 *            the metadata to cache
+	 * @param file
+	 *            the snapshot file
+	 * @param fingerprintProvider
+	 *            validates the snapshot, <code>null</code> disables the cache
+	 */
+	public MetaDataSnapshotCache(DBMetaData delegate, File file,
+			FingerprintProvider fingerprintProvider)
+	{
+		super(delegate);
+
+		this.file = file;
+		this.fingerprintProvider = fingerprintProvider;
+	}
+
+
+	/**
+	 * @return the snapshot file
+	 */
+	public File getFile()
+	{
+		return file;
+	}
+
+
+	/**
+	 * Validates the snapshot again on the next access, e.g. after the schema
+	 * has been changed by another application.
+	 */
+	public synchronized void refresh()
+	{
+		tableFingerprints = null;
+		storedProceduresFingerprint = null;
+	}
+
+
+	/**
+	 * Discards the snapshot and deletes the snapshot file.
+	 */
+	public synchronized void clear()
+	{
+		refresh();
+		snapshot = null;
+		file.delete();
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public synchronized TableMetaData[] getTableMetaData(ProgressMonitor monitor, int flags,
+			TableInfo... tables) throws DBException
+	{
+		Map<TableInfo, Long> fingerprints;
+		if((flags & ROW_COUNT) != 0 || (fingerprints = getTableFingerprints(monitor)) == null)
+		{
+			return super.getTableMetaData(monitor,flags,tables);
+		}
+
+		Map<TableInfo, TableMetaData> result = new HashMap();
+		List<TableInfo> missing = new ArrayList();
+		for(TableInfo table : tables)
+		{
+			TableEntry entry = snapshot.tables.get(table);
+			if(entry != null && (entry.flags & flags) == flags
+					&& entry.fingerprint.equals(fingerprints.get(table)))
+			{
+				// the snapshot stays untouched by the caller
+				result.put(table,entry.table.clone());
+			}
+			else
+			{
+				missing.add(table);
+			}
+		}
+
+		if(missing.size() > 0)
+		{
+			TableMetaData[] read = super.getTableMetaData(monitor,flags,
+					missing.toArray(new TableInfo[missing.size()]));
+			for(TableMetaData table : read)
+			{
+				if(table == null)
+				{
+					continue;
+				}
+
+				TableInfo info = table.getTableInfo();
+				result.put(info,table);
+
+				Long fingerprint = fingerprints.get(info);
+				if(fingerprint != null)
+				{
+					snapshot.tables.put(info,new TableEntry(fingerprint,flags,table.clone()));
+				}
+			}
+
+			save();
+		}
+
+		List<TableMetaData> list = new ArrayList(tables.length);
+		for(TableInfo table : tables)
+		{
+			TableMetaData metaData = result.get(table);
+			if(metaData != null)
+			{
+				list.add(metaData);
+			}
+		}
+		return list.toArray(new TableMetaData[list.size()]);
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public synchronized StoredProcedure[] getStoredProcedures(ProgressMonitor monitor)
+			throws DBException
+	{
+		if(getTableFingerprints(monitor) == null)
+		{
+			return super.getStoredProcedures(monitor);
+		}
+
+		if(storedProceduresFingerprint == null)
+		{
+			storedProceduresFingerprint = fingerprintProvider
+					.getStoredProceduresFingerprint(monitor);
+		}
+
+		if(snapshot.storedProcedures == null
+				|| !storedProceduresFingerprint.equals(snapshot.storedProceduresFingerprint))
+		{
+			snapshot.storedProcedures = super.getStoredProcedures(monitor);
+			snapshot.storedProceduresFingerprint = storedProceduresFingerprint;
+			save();
+		}
+
+		return snapshot.storedProcedures.clone();
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public EntityRelationshipModel getEntityRelationshipModel(ProgressMonitor monitor)
+			throws DBException
+	{
+		return getEntityRelationshipModel(monitor,
+				getTableInfos(monitor,TableType.TABLES_AND_VIEWS));
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public synchronized EntityRelationshipModel getEntityRelationshipModel(
+			ProgressMonitor monitor, TableInfo... tables) throws DBException
+	{
+		Map<TableInfo, Long> fingerprints = getTableFingerprints(monitor);
+		if(fingerprints == null)
+		{
+			return super.getEntityRelationshipModel(monitor,tables);
+		}
+
+		// the model depends on the requested tables
+		Map<TableInfo, Long> tableFingerprints = new HashMap();
+		Set<String> tableNames = new TreeSet();
+		for(TableInfo table : tables)
+		{
+			tableFingerprints.put(table,fingerprints.get(table));
+			tableNames.add(table.toString());
+		}
+		if(tableFingerprints.containsValue(null))
+		{
+			return super.getEntityRelationshipModel(monitor,tables);
+		}
+		String key = tableNames.toString();
+
+		RelationshipEntry entry = snapshot.relationships.get(key);
+		if(entry == null || !entry.fingerprints.equals(tableFingerprints))
+		{
+			entry = new RelationshipEntry(tableFingerprints,super.getEntityRelationshipModel(
+					monitor,tables));
+			snapshot.relationships.put(key,entry);
+			save();
+		}
+
+		return entry.model.clone();
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Query[] synchronizeTables(ProgressMonitor monitor, TableChange... changes)
+			throws DBException
+	{
+		try
+		{
+			return super.synchronizeTables(monitor,changes);
+		}
+		finally
+		{
+			refresh();
+		}
+	}
+
+
+	/**
+	 * Loads the snapshot and reads the current table fingerprints if not done
+	 * yet.
+	 *
+	 * @return the current fingerprints or <code>null</code> if the snapshot
+	 *         can't be validated
+	 */
+	private Map<TableInfo, Long> getTableFingerprints(ProgressMonitor monitor)
+	{
+		if(fingerprintProvider == null)
+		{
+			return null;
+		}
+
+		if(tableFingerprints == null)
+		{
+			try
+			{
+				tableFingerprints = fingerprintProvider.getTableFingerprints(monitor);
+			}
+			catch(DBException e)
+			{
+				LOG.error(e);
+				return null;
+			}
+
+			if(snapshot == null)
+			{
+				snapshot = load();
+			}
+		}
+
+		return tableFingerprints;
+	}
+
+
+	private Snapshot load()
+	{
+		String database = getDatabase();
+
+		if(file.exists())
+		{
+			try
+			{
+				ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(
+						new FileInputStream(file)));
+				try
+				{
+					Snapshot snapshot = (Snapshot)in.readObject();
+					if(database.equals(snapshot.database))
+					{
+						return snapshot;
+					}
+				}
+				finally
+				{
+					in.close();
+				}
+			}
+			catch(Exception e)
+			{
+				// outdated or damaged, start with an empty snapshot
+				LOG.debug(e);
+			}
+		}
+
+		return new Snapshot(database);
+	}
+
+
+	private void save()
+	{
+		File tempFile = new File(file.getPath() + ".tmp");
+		try
+		{
+			File dir = file.getAbsoluteFile().getParentFile();
+			if(dir != null)
+			{
+				dir.mkdirs();
+			}
+
+			ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(
+					new FileOutputStream(tempFile)));
+			try
+			{
+				out.writeObject(snapshot);
+			}
+			finally
+			{
+				out.close();
+			}
+
+			// readers never see a partially written snapshot
+			Files.move(tempFile.toPath(),file.toPath(),StandardCopyOption.REPLACE_EXISTING);
+		}
+		catch(IOException e)
+		{
+			LOG.error(e);
+			tempFile.delete();
+		}
+	}
+
+
+	private String getDatabase()
+	{
+		return getName() + " " + getVersion();
+	}
+
+
+
+	private static class Snapshot implements Serializable
+	{
+		private static final long							serialVersionUID	= 1L;
+
+		final String										database;
+		final Map<TableInfo, TableEntry>					tables				= new HashMap();
+		final Map<String, RelationshipEntry>				relationships		= new LinkedHashMap();
+		Long												storedProceduresFingerprint;
+		StoredProcedure[]									storedProcedures;
+
+
+		Snapshot(String database)
+		{
+			this.database = database;
+		}
+	}
+
+
+
+	private static class TableEntry implements Serializable
+	{
+		private static final long	serialVersionUID	= 1L;
+
+		final Long					fingerprint;
+		final int					flags;
+		final TableMetaData			table;
+
+
+		TableEntry(Long fingerprint, int flags, TableMetaData table)
+		{
+			this.fingerprint = fingerprint;
+			this.flags = flags;
+			this.table = table;
+		}
+	}
+
+
+
+	private static class RelationshipEntry implements Serializable
+	{
+		private static final long		serialVersionUID	= 2L;
+
+		final Map<TableInfo, Long>		fingerprints;
+		final EntityRelationshipModel	model;
+
+
+		RelationshipEntry(Map<TableInfo, Long> fingerprints, EntityRelationshipModel model)
+		{
+			this.fingerprints = fingerprints;
+			this.model = model;
+		}
+	}
+}
@@ -0,0 +1,54 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package xdev.db;
+
+
+/**
+ * The ways to fetch a page of a query result, from the most to the least
+ * efficient one.
+ *
+ * @see QueryInfo#getPagingStrategy()
+ * @author XDEV Software
+ * @since 6.0.3
+ */
+public enum PagingStrategy
+{
+	/**
+	 * The page is selected by the database with OFFSET / FETCH FIRST.
+	 */
+	NATIVE,
+
+	/**
+	 * The page is selected by the database with a condition on the key of the
+	 * last row of the preceding page (seek method).
+	 *
+	 * @see KeysetPager
+	 */
+	KEYSET,
+
+	/**
+	 * The cursor of a scrollable result set is positioned at the first row of
+	 * the page by {@link java.sql.ResultSet#absolute(int)}.
+	 */
+	ABSOLUTE,
+
+	/**
+	 * All preceding rows are fetched and discarded by the client.
+	 */
+	CLIENT_SKIP
+}
@@ -19,6 +19,7 @@ package xdev.db;
 
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 
@@ -59,6 +60,14 @@ public class PrefetchedResult extends Result
 	}
 	
 	
+	private PrefetchedResult(Result result, int columnCount, List<Object[]> data)
+	{
+		this.result = result;
+		this.columnCount = columnCount;
+		this.data = data;
+	}
+	
+	
 	/**
 	 * {@inheritDoc}
 	 */
@@ -130,6 +139,57 @@ public class PrefetchedResult extends Result
 	}
 	
 	
+	/**
+	 * Returns a new {@link PrefetchedResult} with the rows
+	 * <code>fromRow</code> (inclusive) to <code>toRow</code> (exclusive) of
+	 * this result.
+	 * 
+	 * @param fromRow
+	 *            the first row
+	 * @param toRow
+	 *            the row after the last row
+	 * @return the sub result
+	 * @since 6.0.3
+	 */
+	public PrefetchedResult subResult(int fromRow, int toRow)
+	{
+		return new PrefetchedResult(result,columnCount,
+				new ArrayList(data.subList(fromRow,toRow)));
+	}
+	
+	
+	/**
+	 * Returns a new {@link PrefetchedResult} with the rows of this result in
+	 * reverse order.
+	 *
+	 * @return the reversed result
+	 * @since 6.0.3
+	 */
+	public PrefetchedResult reverse()
+	{
+		List<Object[]> reversed = new ArrayList(data);
+		Collections.reverse(reversed);
+		return new PrefetchedResult(result,columnCount,reversed);
+	}
+
+
+	/**
+	 * Returns the value of the column <code>col</code> in the row
+	 * <code>row</code>.
+	 *
+	 * @param row
+	 *            the row index
+	 * @param col
+	 *            the column index
+	 * @return the value
+	 * @since 6.0.3
+	 */
+	public Object getObject(int row, int col)
+	{
+		return data.get(row)[col];
+	}
+
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -0,0 +1,421 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package xdev.db;
+
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * LRU cache of the {@link PreparedStatement}s of one physical connection.
+ * <p>
+ * Statements are keyed by their SQL text, result set type, concurrency and
+ * holdability and the generated keys mode. A cached statement is handed out to
+ * one caller at a time, wrapped in a proxy whose {@link PreparedStatement#close()
+ * close()} returns the statement to the cache instead of closing it. Result
+ * sets of the proxy report the proxy as their statement, so closing a result
+ * together with its statement returns the statement as well.
+ * </p>
+ * <p>
+ * If the statement for a key is already in use, a new uncached statement is
+ * created.
+ * </p>
+ *
+ * @author XDEV Software
+ * @since 6.0.3
+ */
+final class PreparedStatementCache
+{
+	/**
+	 * Creates the physical statement on a cache miss.
+	 */
+	static interface StatementFactory
+	{
+		PreparedStatement create() throws SQLException;
+	}
+
+
+
+	/**
+	 * The key of a cached statement.
+	 */
+	static final class Key
+	{
+		private final String	sql;
+		private final int		resultSetType;
+		private final int		resultSetConcurrency;
+		private final int		resultSetHoldability;
+		private final Object	generatedKeys;
+		private final int		hash;
+
+
+		/**
+		 * @param generatedKeys
+		 *            <code>null</code>, the auto generated keys flag or the
+		 *            column indexes or names
+		 */
+		Key(final String sql, final int resultSetType, final int resultSetConcurrency,
+				final int resultSetHoldability, final Object generatedKeys)
+		{
+			this.sql = sql;
+			this.resultSetType = resultSetType;
+			this.resultSetConcurrency = resultSetConcurrency;
+			this.resultSetHoldability = resultSetHoldability;
+			this.generatedKeys = toComparable(generatedKeys);
+
+			int hash = sql.hashCode();
+			hash = 31 * hash + resultSetType;
+			hash = 31 * hash + resultSetConcurrency;
+			hash = 31 * hash + resultSetHoldability;
+			hash = 31 * hash + (this.generatedKeys == null ? 0 : this.generatedKeys.hashCode());
+			this.hash = hash;
+		}
+
+
+		private static Object toComparable(final Object generatedKeys)
+		{
+			if(generatedKeys instanceof int[])
+			{
+				final int[] indexes = (int[])generatedKeys;
+				final List<Integer> list = new ArrayList<>(indexes.length);
+				for(final int index : indexes)
+				{
+					list.add(index);
+				}
+				return list;
+			}
+			if(generatedKeys instanceof Object[])
+			{
+				return Arrays.asList(((Object[])generatedKeys).clone());
+			}
+			return generatedKeys;
+		}
+
+
+		@Override
+		public int hashCode()
+		{
+			return this.hash;
+		}
+
+
+		@Override
+		public boolean equals(final Object obj)
+		{
+			if(obj == this)
+			{
+				return true;
+			}
+			if(!(obj instanceof Key))
+			{
+				return false;
+			}
+
+			final Key other = (Key)obj;
+			return this.hash == other.hash && this.resultSetType == other.resultSetType
+					&& this.resultSetConcurrency == other.resultSetConcurrency
+					&& this.resultSetHoldability == other.resultSetHoldability
+					&& this.sql.equals(other.sql)
+					&& (this.generatedKeys == null ? other.generatedKeys == null
+							: this.generatedKeys.equals(other.generatedKeys));
+		}
+	}
+
+	private final Connection					owner;
+	private final int							maxSize;
+	private final StatementCacheStatistics		statistics;
+	private final LinkedHashMap<Key, Entry>		entries;
+	private boolean								closed	= false;
+
+
+	/**
+	 * @param owner
+	 *            the connection returned by the statements'
+	 *            {@link PreparedStatement#getConnection()}
+	 * @param maxSize
+	 *            the maximum count of cached statements
+	 * @param statistics
+	 *            the counters to update
+	 */
+	PreparedStatementCache(final Connection owner, final int maxSize,
+			final StatementCacheStatistics statistics)
+	{
+		this.owner = owner;
+		this.maxSize = maxSize;
+		this.statistics = statistics;
+		this.entries = new LinkedHashMap<Key, Entry>(16,0.75f,true)
+		{
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<Key, Entry> eldest)
+			{
+				if(size() > PreparedStatementCache.this.maxSize)
+				{
+					eldest.getValue().evict();
+					PreparedStatementCache.this.statistics.evictions.incrementAndGet();
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+
+	/**
+	 * Returns the cached statement for <code>key</code>, or creates it with
+	 * <code>factory</code>.
+	 */
+	synchronized PreparedStatement prepare(final Key key, final StatementFactory factory)
+			throws SQLException
+	{
+		final Entry entry = this.entries.get(key);
+		if(entry != null && !entry.inUse)
+		{
+			if(!entry.statement.isClosed())
+			{
+				this.statistics.hits.incrementAndGet();
+				return entry.lease();
+			}
+
+			// closed behind our back, e.g. via unwrap
+			this.entries.remove(key);
+		}
+
+		this.statistics.misses.incrementAndGet();
+
+		final PreparedStatement statement = factory.create();
+		if(this.closed || entry != null)
+		{
+			// the cached one is in use, don't replace it
+			return statement;
+		}
+
+		final Entry newEntry = new Entry(statement);
+		this.entries.put(key,newEntry);
+		return newEntry.lease();
+	}
+
+
+	/**
+	 * @return the count of cached statements
+	 */
+	synchronized int size()
+	{
+		return this.entries.size();
+	}
+
+
+	/**
+	 * Closes all cached statements, used when the connection is retired.
+	 */
+	synchronized void close()
+	{
+		this.closed = true;
+
+		for(final Entry entry : this.entries.values())
+		{
+			entry.evict();
+		}
+		this.entries.clear();
+	}
+
+
+
+	private final class Entry
+	{
+		final PreparedStatement	statement;
+		boolean					inUse;
+		boolean					cached	= true;
+
+
+		Entry(final PreparedStatement statement)
+		{
+			this.statement = statement;
+		}
+
+
+		PreparedStatement lease()
+		{
+			this.inUse = true;
+			return (PreparedStatement)Proxy.newProxyInstance(
+					PreparedStatementCache.class.getClassLoader(),
+					new Class<?>[]{PreparedStatement.class},new Lease(this));
+		}
+
+
+		/**
+		 * Called with the cache's lock held.
+		 */
+		void evict()
+		{
+			this.cached = false;
+			if(!this.inUse)
+			{
+				closeSilent(this.statement);
+			}
+		}
+
+
+		void release()
+		{
+			synchronized(PreparedStatementCache.this)
+			{
+				this.inUse = false;
+
+				if(this.cached)
+				{
+					try
+					{
+						this.statement.clearParameters();
+						this.statement.clearWarnings();
+						return;
+					}
+					catch(final SQLException e)
+					{
+						// not reusable
+						PreparedStatementCache.this.entries.values().remove(this);
+					}
+				}
+
+				closeSilent(this.statement);
+			}
+		}
+	}
+
+
+
+	/**
+	 * Handler of one statement lease, invalid after it has been closed.
+	 */
+	private final class Lease implements InvocationHandler
+	{
+		private final Entry	entry;
+		private boolean		released	= false;
+
+
+		Lease(final Entry entry)
+		{
+			this.entry = entry;
+		}
+
+
+		@Override
+		public Object invoke(final Object proxy, final Method method, final Object[] args)
+				throws Throwable
+		{
+			final String name = method.getName();
+			switch(name)
+			{
+				case "close":
+					if(!this.released)
+					{
+						this.released = true;
+						this.entry.release();
+					}
+					return null;
+
+				case "isClosed":
+					return this.released || this.entry.statement.isClosed();
+
+				case "equals":
+					return proxy == args[0];
+
+				case "hashCode":
+					return System.identityHashCode(proxy);
+
+				case "toString":
+					return "Cached " + this.entry.statement.toString();
+			}
+
+			if(this.released)
+			{
+				throw new SQLException("Statement is closed");
+			}
+
+			if(name.equals("getConnection"))
+			{
+				return PreparedStatementCache.this.owner;
+			}
+
+			final Object result;
+			try
+			{
+				result = method.invoke(this.entry.statement,args);
+			}
+			catch(final InvocationTargetException e)
+			{
+				throw e.getCause();
+			}
+
+			if(result instanceof ResultSet)
+			{
+				return wrap((ResultSet)result,(PreparedStatement)proxy);
+			}
+			return result;
+		}
+	}
+
+
+	private static ResultSet wrap(final ResultSet resultSet, final PreparedStatement statement)
+	{
+		return (ResultSet)Proxy.newProxyInstance(PreparedStatementCache.class.getClassLoader(),
+				new Class<?>[]{ResultSet.class},(proxy, method, args) -> {
+					switch(method.getName())
+					{
+						case "getStatement":
+							return statement;
+						case "equals":
+							return proxy == args[0];
+						case "hashCode":
+							return System.identityHashCode(proxy);
+					}
+					try
+					{
+						return method.invoke(resultSet,args);
+					}
+					catch(final InvocationTargetException e)
+					{
+						throw e.getCause();
+					}
+				});
+	}
+
+
+	private static void closeSilent(final PreparedStatement statement)
+	{
+		try
+		{
+			statement.close();
+		}
+		catch(final Throwable t)
+		{
+			// swallow
+		}
+	}
+}
@@ -37,6 +37,7 @@ public class QueryInfo implements Copyable<QueryInfo>
 	private final SELECT		select;
 	private final Object[]		params;
 	private Map<Object, Object>	clientProperties;
+	private PagingStrategy		pagingStrategy;
 	
 
 	/**
@@ -78,6 +79,32 @@ public class QueryInfo implements Copyable<QueryInfo>
 	}
 	
 
+	/**
+	 * Returns the way the rows of this query's page have been fetched.
+	 * 
+	 * @return the paging strategy, or <code>null</code> if the query isn't
+	 *         paged
+	 * @since 6.0.3
+	 */
+	public PagingStrategy getPagingStrategy()
+	{
+		return pagingStrategy;
+	}
+	
+
+	/**
+	 * Sets the way the rows of this query's page have been fetched.
+	 * 
+	 * @param pagingStrategy
+	 *            the paging strategy
+	 * @since 6.0.3
+	 */
+	public void setPagingStrategy(PagingStrategy pagingStrategy)
+	{
+		this.pagingStrategy = pagingStrategy;
+	}
+	
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -85,6 +112,7 @@ public class QueryInfo implements Copyable<QueryInfo>
 	public QueryInfo clone()
 	{
 		QueryInfo clone = new QueryInfo(select.clone(),params);
+		clone.pagingStrategy = pagingStrategy;
 		if(clientProperties != null)
 		{
 			clone.clientProperties = new HashMap(clientProperties);
@@ -0,0 +1,75 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package xdev.db;
+
+
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Counters of the prepared statement caches of a {@link ConnectionPool}.
+ *
+ * @author XDEV Software
+ * @since 6.0.3
+ */
+public final class StatementCacheStatistics
+{
+	final AtomicLong	hits		= new AtomicLong();
+	final AtomicLong	misses		= new AtomicLong();
+	final AtomicLong	evictions	= new AtomicLong();
+
+
+	StatementCacheStatistics()
+	{
+	}
+
+
+	/**
+	 * @return the count of statements taken from the cache
+	 */
+	public long getHits()
+	{
+		return this.hits.get();
+	}
+
+
+	/**
+	 * @return the count of statements which had to be prepared
+	 */
+	public long getMisses()
+	{
+		return this.misses.get();
+	}
+
+
+	/**
+	 * @return the count of statements removed from a full cache
+	 */
+	public long getEvictions()
+	{
+		return this.evictions.get();
+	}
+
+
+	@Override
+	public String toString()
+	{
+		return "hits / misses / evictions: " + getHits() + " / " + getMisses() + " / "
+				+ getEvictions();
+	}
+}
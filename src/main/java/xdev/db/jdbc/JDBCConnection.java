@@ -22,6 +22,7 @@ import java.sql.Blob;
 import java.sql.CallableStatement;
 import java.sql.Clob;
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -32,12 +33,16 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
 
 import xdev.db.AbstractDBConnection;
+import xdev.db.BatchWriteRequest;
+import xdev.db.BatchWriteSupport;
 import xdev.db.DBException;
 import xdev.db.DBPager;
 import xdev.db.DBUtils;
+import xdev.db.PagingStrategy;
 import xdev.db.PrefetchedResult;
 import xdev.db.QueryInfo;
 import xdev.db.Result;
@@ -53,6 +58,8 @@ import xdev.io.ByteHolder;
 import xdev.io.CharHolder;
 import xdev.util.logging.LoggerFactory;
 import xdev.util.logging.XdevLogger;
+import xdev.util.systemproperty.XdevSystemPropertyKeys;
+import xdev.util.systemproperty.XdevSystemPropertyUtils;
 import xdev.vt.XdevBlob;
 import xdev.vt.XdevClob;
 
@@ -61,7 +68,7 @@ import com.xdev.jadoth.sqlengine.internal.DatabaseGateway;
 
 
 public abstract class JDBCConnection<DS extends JDBCDataSource<DS, A>, A extends DbmsAdaptor<A>>
-		extends AbstractDBConnection<DS>
+		extends AbstractDBConnection<DS> implements BatchWriteSupport
 {
 	/**
 	 * Logger instance for this class.
@@ -70,6 +77,8 @@ public abstract class JDBCConnection<DS extends JDBCDataSource<DS, A>, A extends
 											
 	protected final DatabaseGateway<A>	gateway;
 	private Connection					connection;
+	private Boolean						scrollableResults;
+	private Integer						fetchSize;
 										
 										
 	public JDBCConnection(DS dataSource)
@@ -141,7 +150,16 @@ public abstract class JDBCConnection<DS extends JDBCDataSource<DS, A>, A extends
 		
 		String sql = select.toString();
 		JDBCResult result = query(sql,offset,limit,params);
-		result.setQueryInfo(new QueryInfo(select,params));
+		QueryInfo queryInfo = new QueryInfo(select,params);
+		if(result.pagingStrategy != null)
+		{
+			queryInfo.setPagingStrategy(result.pagingStrategy);
+		}
+		else if(offset != null && offset > 0 && gateway.getDbmsAdaptor().supportsOFFSET_ROWS())
+		{
+			queryInfo.setPagingStrategy(PagingStrategy.NATIVE);
+		}
+		result.setQueryInfo(queryInfo);
 		return result;
 	}
 	
@@ -158,16 +176,30 @@ public abstract class JDBCConnection<DS extends JDBCDataSource<DS, A>, A extends
 	{
 		try
 		{
-			ResultSet rs = queryJDBC(sql,params);
-			
 			JDBCResult result;
 			if((offset != null || maxRowCount != null)
 					&& !gateway.getDbmsAdaptor().supportsOFFSET_ROWS())
 			{
-				result = new JDBCResult(rs,offset != null ? offset : 0,0,maxRowCount);
+				result = null;
+				
+				if(offset != null && offset > 0 && supportsScrollableResults())
+				{
+					result = queryAbsolute(sql,offset,maxRowCount,params);
+				}
+				
+				if(result == null)
+				{
+					ResultSet rs = queryJDBC(sql,params);
+					result = new JDBCResult(rs,offset != null ? offset : 0,0,maxRowCount);
+					if(offset != null && offset > 0)
+					{
+						result.pagingStrategy = PagingStrategy.CLIENT_SKIP;
+					}
+				}
 			}
 			else
 			{
+				ResultSet rs = queryJDBC(sql,params);
 				result = new JDBCResult(rs);
 			}
 			result.setDataSource(dataSource);
@@ -184,6 +216,78 @@ public abstract class JDBCConnection<DS extends JDBCDataSource<DS, A>, A extends
 	}
 	
 	
+	/**
+	 * Positions a scrollable result set at <code>offset</code> with
+	 * {@link ResultSet#absolute(int)}, so the driver can skip the rows without
+	 * transferring them.
+	 * 
+	 * @return the result, or <code>null</code> if the driver can't position
+	 *         the result set
+	 * @since 6.0.3
+	 */
+	protected JDBCResult queryAbsolute(String sql, int offset, Integer maxRowCount,
+			Object... params) throws DBException, SQLException
+	{
+		ResultSet rs;
+		try
+		{
+			rs = queryJDBC(sql,params,ResultSet.TYPE_SCROLL_INSENSITIVE);
+		}
+		catch(DBException e)
+		{
+			if(e.getCause() instanceof SQLFeatureNotSupportedException)
+			{
+				scrollableResults = false;
+				return null;
+			}
+			throw e;
+		}
+		
+		try
+		{
+			if(rs.getType() == ResultSet.TYPE_FORWARD_ONLY)
+			{
+				// the driver downgraded the result set type
+				scrollableResults = false;
+				JDBCResult result = new JDBCResult(rs,offset,0,maxRowCount);
+				result.pagingStrategy = PagingStrategy.CLIENT_SKIP;
+				return result;
+			}
+			
+			rs.absolute(offset);
+		}
+		catch(SQLException e)
+		{
+			JDBCUtils.closeSilent(rs);
+			scrollableResults = false;
+			return null;
+		}
+		
+		JDBCResult result = new JDBCResult(rs,0,0,maxRowCount);
+		result.pagingStrategy = PagingStrategy.ABSOLUTE;
+		return result;
+	}
+	
+	
+	private boolean supportsScrollableResults()
+	{
+		if(scrollableResults == null)
+		{
+			try
+			{
+				scrollableResults = getConnection().getMetaData().supportsResultSetType(
+						ResultSet.TYPE_SCROLL_INSENSITIVE);
+			}
+			catch(Exception e)
+			{
+				scrollableResults = false;
+			}
+		}
+		
+		return scrollableResults;
+	}
+	
+	
 	@Override
 	public int getQueryRowCount(String select) throws DBException
 	{
@@ -256,6 +360,7 @@ public abstract class JDBCConnection<DS extends JDBCDataSource<DS, A>, A extends
 				prepareParams(connection,params);
 				PreparedStatement ps = connection.prepareStatement(sql,resultSetType,
 						ResultSet.CONCUR_READ_ONLY);
+				applyFetchSize(ps);
 				for(int i = 0; i < params.length; i++)
 				{
 					setPreparedStatementParameter(ps,params[i],i + 1);
@@ -264,8 +369,10 @@ public abstract class JDBCConnection<DS extends JDBCDataSource<DS, A>, A extends
 			}
 			else
 			{
-				rs = connection.createStatement(resultSetType,ResultSet.CONCUR_READ_ONLY)
-						.executeQuery(sql);
+				Statement statement = connection.createStatement(resultSetType,
+						ResultSet.CONCUR_READ_ONLY);
+				applyFetchSize(statement);
+				rs = statement.executeQuery(sql);
 			}
 			
 			return rs;
@@ -281,6 +388,36 @@ public abstract class JDBCConnection<DS extends JDBCDataSource<DS, A>, A extends
 	}
 	
 	
+	private void applyFetchSize(Statement statement) throws SQLException
+	{
+		int fetchSize = getFetchSize();
+		if(fetchSize > 0)
+		{
+			statement.setFetchSize(fetchSize);
+		}
+	}
+	
+	
+	/**
+	 * Returns the number of rows the JDBC driver fetches per round trip when a
+	 * query result is read.
+	 * 
+	 * @return the fetch size, 0 if the driver's default is used
+	 * @see XdevSystemPropertyKeys#FETCH_SIZE
+	 * @see DbmsAdaptor#getFetchSize()
+	 * @since 6.0.3
+	 */
+	public int getFetchSize()
+	{
+		if(fetchSize == null)
+		{
+			fetchSize = XdevSystemPropertyUtils.getIntegerValue(XdevSystemPropertyKeys.FETCH_SIZE,
+					gateway.getDbmsAdaptor().getFetchSize());
+		}
+		return fetchSize;
+	}
+	
+	
 	@Override
 	public DBPager getPager(int rowsPerPage, SELECT select, Object... params) throws DBException
 	{
@@ -297,6 +434,7 @@ public abstract class JDBCConnection<DS extends JDBCDataSource<DS, A>, A extends
 		}
 		
 		QueryInfo queryInfo = new QueryInfo(select,params);
+		queryInfo.setPagingStrategy(PagingStrategy.ABSOLUTE);
 		String sql = select.toString();
 		ResultSet resultSet;
 		try
@@ -549,6 +687,195 @@ public abstract class JDBCConnection<DS extends JDBCDataSource<DS, A>, A extends
 	}
 	
 	
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The statement is prepared once and executed with
+	 * {@link PreparedStatement#executeBatch()}. Every parameter set is written
+	 * separately if the driver doesn't support batch updates, or if generated
+	 * keys are requested and the driver is not known to return one key per
+	 * parameter set, see {@link #isBatchGeneratedKeysSupported(DatabaseMetaData)}.
+	 * </p>
+	 * 
+	 * @since 6.0.3
+	 */
+	@Override
+	public WriteResult[] writeBatch(BatchWriteRequest request, int batchSize) throws DBException
+	{
+		String sql = request.getSQL();
+		if(sql == null)
+		{
+			WritingQuery query = request.getQuery();
+			decorateDelegate(query,gateway);
+			sql = query.toString();
+		}
+		
+		String[] columnNames = request.getColumnNames();
+		boolean returnGeneratedKeys = columnNames != null ? columnNames.length > 0
+				: request.isReturnGeneratedKeys();
+		try
+		{
+			DatabaseMetaData metaData = getConnection().getMetaData();
+			if(!metaData.supportsBatchUpdates()
+					|| (returnGeneratedKeys && !isBatchGeneratedKeysSupported(metaData)))
+			{
+				return request.executeSingly(this);
+			}
+		}
+		catch(SQLException e)
+		{
+			throw new DBException(dataSource,e);
+		}
+		
+		List<Object[]> paramsList = request.getParams();
+		int count = paramsList.size();
+		WriteResult[] results = new WriteResult[count];
+		
+		for(int start = 0; start < count; start += batchSize)
+		{
+			int end = Math.min(start + batchSize,count);
+			List<Object[]> chunk = paramsList.subList(start,end);
+			
+			DBException exception = null;
+			try
+			{
+				writeBatchImpl(sql,request,chunk,results,start);
+			}
+			catch(DBException e)
+			{
+				exception = e;
+				throw e;
+			}
+			finally
+			{
+				for(Object[] params : chunk)
+				{
+					queryPerformed(sql,params,exception);
+				}
+			}
+		}
+		
+		return results;
+	}
+	
+	
+	/**
+	 * Returns if the driver returns one generated key per parameter set after
+	 * {@link PreparedStatement#executeBatch()}. Many drivers return only the
+	 * key of the last statement of a batch, or none at all, so batches with
+	 * generated keys are only used for drivers known to support them.
+	 * 
+	 * @param metaData
+	 *            the meta data of the current connection
+	 * @return <code>true</code> if generated keys of batches are supported
+	 * @throws SQLException
+	 *             if a database access error occurs
+	 * @since 6.0.3
+	 */
+	protected boolean isBatchGeneratedKeysSupported(DatabaseMetaData metaData)
+			throws SQLException
+	{
+		String driverName = metaData.getDriverName();
+		return driverName != null
+				&& (driverName.startsWith("PostgreSQL") || driverName.startsWith("MySQL Connector"));
+	}
+	
+	
+	protected void writeBatchImpl(String sql, BatchWriteRequest request, List<Object[]> chunk,
+			WriteResult[] results, int resultOffset) throws DBException
+	{
+		try
+		{
+			Connection connection = getConnection();
+			
+			String[] columnNames = request.getColumnNames();
+			boolean returnGeneratedKeys = columnNames != null ? columnNames.length > 0
+					: request.isReturnGeneratedKeys();
+			PreparedStatement ps;
+			try
+			{
+				if(!returnGeneratedKeys)
+				{
+					ps = connection.prepareStatement(sql);
+				}
+				else if(columnNames != null)
+				{
+					ps = connection.prepareStatement(sql,columnNames);
+				}
+				else
+				{
+					ps = connection.prepareStatement(sql,Statement.RETURN_GENERATED_KEYS);
+				}
+			}
+			catch(Exception e)
+			{
+				// return generated keys is not supported by driver
+				
+				returnGeneratedKeys = false;
+				ps = connection.prepareStatement(sql);
+			}
+			
+			try
+			{
+				for(Object[] params : chunk)
+				{
+					if(params != null && params.length > 0)
+					{
+						prepareParams(connection,params);
+						for(int i = 0; i < params.length; i++)
+						{
+							setPreparedStatementParameter(ps,params[i],i + 1);
+						}
+					}
+					ps.addBatch();
+				}
+				
+				int[] affectedRows = ps.executeBatch();
+				
+				PrefetchedResult generatedKeys = null;
+				if(returnGeneratedKeys)
+				{
+					ResultSet rs = ps.getGeneratedKeys();
+					if(rs != null)
+					{
+						JDBCResult keys = new JDBCResult(rs);
+						keys.setDataSource(dataSource);
+						generatedKeys = new PrefetchedResult(keys);
+					}
+				}
+				
+				int keyCount = generatedKeys != null ? generatedKeys.getRowCount() : 0;
+				if(returnGeneratedKeys && keyCount != chunk.size())
+				{
+					// keys can't be assigned to the parameter sets
+					throw new DBException(dataSource,"Driver returned " + keyCount
+							+ " generated keys for a batch of " + chunk.size() + " statements: "
+							+ sql);
+				}
+				
+				for(int i = 0, c = chunk.size(); i < c; i++)
+				{
+					int affected = i < affectedRows.length ? affectedRows[i] : 0;
+					Result keys = i < keyCount ? generatedKeys.subResult(i,i + 1) : null;
+					results[resultOffset + i] = new WriteResult(affected,keys);
+				}
+			}
+			finally
+			{
+				ps.close();
+			}
+		}
+		catch(DBException e)
+		{
+			throw e;
+		}
+		catch(Exception e)
+		{
+			throw new DBException(dataSource,e);
+		}
+	}
+	
+	
 	@Override
 	public final void write(String sql) throws DBException
 	{
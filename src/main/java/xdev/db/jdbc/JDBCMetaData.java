@@ -24,7 +24,6 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.text.DateFormat;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -38,6 +37,17 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.xdev.jadoth.sqlengine.interfaces.ConnectionProvider;
 
@@ -48,6 +58,7 @@ import xdev.db.DBException;
 import xdev.db.DataType;
 import xdev.db.Index;
 import xdev.db.Index.IndexType;
+import xdev.db.MetaDataSnapshotCache;
 import xdev.db.Result;
 import xdev.db.StoredProcedure;
 import xdev.db.StoredProcedure.Param;
@@ -56,19 +67,36 @@ import xdev.db.StoredProcedure.ReturnTypeFlavor;
 import xdev.db.sql.Functions;
 import xdev.db.sql.SELECT;
 import xdev.db.sql.Table;
+import xdev.ui.text.FormatterPool;
 import xdev.util.ProgressMonitor;
 import xdev.util.logging.LoggerFactory;
 import xdev.util.logging.XdevLogger;
+import xdev.util.systemproperty.XdevSystemPropertyKeys;
+import xdev.util.systemproperty.XdevSystemPropertyUtils;
 import xdev.vt.Cardinality;
 import xdev.vt.EntityRelationship;
 import xdev.vt.EntityRelationship.Entity;
 import xdev.vt.EntityRelationshipModel;
 
 
-public abstract class JDBCMetaData extends AbstractDBMetaData
+public abstract class JDBCMetaData extends AbstractDBMetaData implements
+		MetaDataSnapshotCache.FingerprintProvider
 {
 	private static final XdevLogger LOG = LoggerFactory.getLogger(JDBCMetaData.class);
 	
+	private static final int		DEFAULT_METADATA_THREADS	= 4;
+	
+	/**
+	 * Minimum number of tables to read the column defaults of the whole schema
+	 * at once
+	 */
+	private static final int		BULK_METADATA_TABLE_COUNT	= 50;
+	
+	/**
+	 * FNV-1a offset basis of the table and stored procedure fingerprints
+	 */
+	private static final long		FINGERPRINT_SEED			= 0xcbf29ce484222325L;
+	
 	protected final transient JDBCDataSource	dataSource;
 	protected final String						name;
 	protected final String						version;
@@ -199,23 +227,7 @@ public abstract class JDBCMetaData extends AbstractDBMetaData
 				ResultSet rs = meta.getTables(catalog,schema,null,castTypes);
 				while(rs.next() && !monitor.isCanceled())
 				{
-					String tableTypeName = rs.getString("TABLE_TYPE");
-					TableType type;
-					if(tableTypeName != null
-							&& tableTypeName.equalsIgnoreCase(TableType.TABLE.name()))
-					{
-						type = TableType.TABLE;
-					}
-					else if(tableTypeName != null
-							&& tableTypeName.equalsIgnoreCase(TableType.VIEW.name()))
-					{
-						type = TableType.VIEW;
-					}
-					else
-					{
-						type = TableType.OTHER;
-					}
-					
+					TableType type = getTableType(rs.getString("TABLE_TYPE"));
 					if(types.contains(type))
 					{
 						list.add(new TableInfo(type,rs.getString("TABLE_SCHEM"),rs
@@ -242,6 +254,21 @@ public abstract class JDBCMetaData extends AbstractDBMetaData
 	}
 	
 	
+	private static TableType getTableType(String tableTypeName)
+	{
+		if(tableTypeName != null && tableTypeName.equalsIgnoreCase(TableType.TABLE.name()))
+		{
+			return TableType.TABLE;
+		}
+		else if(tableTypeName != null && tableTypeName.equalsIgnoreCase(TableType.VIEW.name()))
+		{
+			return TableType.VIEW;
+		}
+		
+		return TableType.OTHER;
+	}
+	
+	
 	protected String[] castEnumSetToStringArray(EnumSet<TableType> types)
 	{
 		
@@ -298,8 +325,8 @@ public abstract class JDBCMetaData extends AbstractDBMetaData
 	
 	
 	@Override
-	public TableMetaData[] getTableMetaData(ProgressMonitor monitor, int flags, TableInfo... tables)
-			throws DBException
+	public TableMetaData[] getTableMetaData(ProgressMonitor monitor, final int flags,
+			final TableInfo... tables) throws DBException
 	{
 		monitor.beginTask("",tables.length);
 		
@@ -308,36 +335,238 @@ public abstract class JDBCMetaData extends AbstractDBMetaData
 			return new TableMetaData[0];
 		}
 		
-		List<TableMetaData> list = new ArrayList(tables.length);
+		// one bulk call instead of one per table
+		final Map<String, Map<String, Object>> defaultValues = tables.length >= BULK_METADATA_TABLE_COUNT
+				? getDefaultValues(tables) : null;
+		
+		String[] taskNames = new String[tables.length];
+		for(int i = 0; i < tables.length; i++)
+		{
+			taskNames[i] = tables[i].getName();
+		}
+		
+		List<TableMetaData> list = harvest(monitor,taskNames,new MetaDataTask<TableMetaData>()
+		{
+			@Override
+			public TableMetaData run(JDBCConnection jdbcConnection, DatabaseMetaData meta,
+					int index)
+			{
+				TableInfo table = tables[index];
+				try
+				{
+					if(defaultValues != null)
+					{
+						Map<String, Object> tableDefaultValues = defaultValues.get(table.getName());
+						return getTableMetaData(jdbcConnection,meta,flags,table,
+								tableDefaultValues != null ? tableDefaultValues
+										: Collections.<String, Object> emptyMap());
+					}
+					return getTableMetaData(jdbcConnection,meta,flags,table);
+				}
+				catch(Exception e)
+				{
+					LOG.error(e);
+					return null;
+				}
+			}
+		});
+		
+		monitor.done();
+		
+		return list.toArray(new TableMetaData[list.size()]);
+	}
+	
+	
+	/**
+	 * Reads the default values of all columns of the schema with one call and
+	 * keeps those of <code>tables</code>.
+	 * 
+	 * @return the default values by table and column name, <code>null</code>
+	 *         if the driver doesn't support it
+	 */
+	private Map<String, Map<String, Object>> getDefaultValues(TableInfo[] tables)
+	{
+		Map<String, Map<String, Object>> defaultValues = new HashMap();
+		for(TableInfo table : tables)
+		{
+			defaultValues.put(table.getName(),new HashMap());
+		}
 		
 		try
 		{
 			JDBCConnection jdbcConnection = (JDBCConnection)dataSource.openConnection();
-			
 			try
 			{
 				DatabaseMetaData meta = jdbcConnection.getConnection().getMetaData();
-				int done = 0;
+				ResultSet rs = meta.getColumns(getCatalog(dataSource),getSchema(dataSource),null,
+						null);
+				try
+				{
+					while(rs.next())
+					{
+						Map<String, Object> tableDefaultValues = defaultValues.get(rs
+								.getString("TABLE_NAME"));
+						if(tableDefaultValues != null)
+						{
+							tableDefaultValues.put(rs.getString("COLUMN_NAME"),
+									rs.getObject("COLUMN_DEF"));
+						}
+					}
+				}
+				finally
+				{
+					rs.close();
+				}
+			}
+			finally
+			{
+				jdbcConnection.close();
+			}
+		}
+		catch(Exception e)
+		{
+			// not supported by the driver, read per table
+			LOG.debug(e);
+			return null;
+		}
+		
+		return defaultValues;
+	}
+	
+	
+	/**
+	 * Reads the columns of the whole schema with one call and hashes them per
+	 * table.
+	 * 
+	 * @since 6.0.3
+	 */
+	@Override
+	public Map<TableInfo, Long> getTableFingerprints(ProgressMonitor monitor) throws DBException
+	{
+		final Map<TableInfo, Long> fingerprints = new HashMap();
+		
+		readFingerprints(new FingerprintReader()
+		{
+			@Override
+			public void read(DatabaseMetaData meta, String catalog, String schema)
+					throws SQLException
+			{
+				// the columns don't carry the table type
+				Map<List<String>, TableInfo> tables = new HashMap();
+				ResultSet rs = meta.getTables(catalog,schema,null,null);
+				try
+				{
+					while(rs.next())
+					{
+						String tableSchema = rs.getString("TABLE_SCHEM");
+						String tableName = rs.getString("TABLE_NAME");
+						tables.put(Arrays.asList(tableSchema,tableName),new TableInfo(
+								getTableType(rs.getString("TABLE_TYPE")),tableSchema,tableName));
+					}
+				}
+				finally
+				{
+					rs.close();
+				}
 				
-				for(TableInfo table : tables)
+				rs = meta.getColumns(catalog,schema,null,null);
+				try
 				{
-					if(monitor.isCanceled())
+					while(rs.next())
 					{
-						break;
+						TableInfo table = tables.get(Arrays.asList(rs.getString("TABLE_SCHEM"),
+								rs.getString("TABLE_NAME")));
+						if(table == null)
+						{
+							continue;
+						}
+						
+						Long fingerprint = fingerprints.get(table);
+						fingerprints.put(table,fingerprint(fingerprint != null ? fingerprint
+								: FINGERPRINT_SEED,rs,"COLUMN_NAME","DATA_TYPE","TYPE_NAME",
+								"COLUMN_SIZE","DECIMAL_DIGITS","NULLABLE","COLUMN_DEF",
+								"ORDINAL_POSITION"));
 					}
-					
-					monitor.setTaskName(table.getName());
-					try
+				}
+				finally
+				{
+					rs.close();
+				}
+			}
+		});
+		
+		return fingerprints;
+	}
+	
+	
+	/**
+	 * Reads the procedures and their parameters of the whole schema with one
+	 * call each and hashes them.
+	 * 
+	 * @since 6.0.3
+	 */
+	@Override
+	public long getStoredProceduresFingerprint(ProgressMonitor monitor) throws DBException
+	{
+		final long[] fingerprint = {FINGERPRINT_SEED};
+		
+		readFingerprints(new FingerprintReader()
+		{
+			@Override
+			public void read(DatabaseMetaData meta, String catalog, String schema)
+					throws SQLException
+			{
+				ResultSet rs = meta.getProcedures(catalog,schema,null);
+				try
+				{
+					while(rs.next())
 					{
-						list.add(getTableMetaData(jdbcConnection,meta,flags,table));
+						fingerprint[0] = fingerprint(fingerprint[0],rs,"PROCEDURE_NAME",
+								"PROCEDURE_TYPE","REMARKS");
 					}
-					catch(Exception e)
+				}
+				finally
+				{
+					rs.close();
+				}
+				
+				rs = meta.getProcedureColumns(catalog,schema,null,null);
+				try
+				{
+					while(rs.next())
 					{
-						LOG.error(e);
+						fingerprint[0] = fingerprint(fingerprint[0],rs,"PROCEDURE_NAME",
+								"COLUMN_NAME","COLUMN_TYPE","DATA_TYPE");
 					}
-					monitor.worked(++done);
+				}
+				finally
+				{
+					rs.close();
 				}
 			}
+		});
+		
+		return fingerprint[0];
+	}
+	
+	
+	private static interface FingerprintReader
+	{
+		public void read(DatabaseMetaData meta, String catalog, String schema)
+				throws SQLException;
+	}
+	
+	
+	private void readFingerprints(FingerprintReader reader) throws DBException
+	{
+		try
+		{
+			JDBCConnection jdbcConnection = (JDBCConnection)dataSource.openConnection();
+			try
+			{
+				reader.read(jdbcConnection.getConnection().getMetaData(),getCatalog(dataSource),
+						getSchema(dataSource));
+			}
 			finally
 			{
 				jdbcConnection.close();
@@ -347,15 +576,47 @@ public abstract class JDBCMetaData extends AbstractDBMetaData
 		{
 			throw new DBException(dataSource,e);
 		}
-		
-		monitor.done();
-		
-		return list.toArray(new TableMetaData[list.size()]);
+	}
+	
+	
+	private static long fingerprint(long hash, ResultSet rs, String... columns)
+			throws SQLException
+	{
+		for(String column : columns)
+		{
+			String value = rs.getString(column);
+			if(value != null)
+			{
+				for(int i = 0, length = value.length(); i < length; i++)
+				{
+					hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+				}
+			}
+			// separator, distinguishes null from ""
+			hash = (hash ^ (value != null ? 0x1f : 0x1e)) * 0x100000001b3L;
+		}
+		return hash;
 	}
 	
 	
 	protected TableMetaData getTableMetaData(JDBCConnection jdbcConnection, DatabaseMetaData meta,
 			int flags, TableInfo table) throws DBException, SQLException
+	{
+		return getTableMetaData(jdbcConnection,meta,flags,table,null);
+	}
+	
+	
+	/**
+	 * Reads the metadata of <code>table</code>.
+	 * 
+	 * @param defaultValues
+	 *            the default values of the table's columns by column name,
+	 *            <code>null</code> to read them with <code>meta</code>
+	 * @since 6.0.3
+	 */
+	protected TableMetaData getTableMetaData(JDBCConnection jdbcConnection, DatabaseMetaData meta,
+			int flags, TableInfo table, Map<String, Object> defaultValues) throws DBException,
+			SQLException
 	{
 		String catalog = getCatalog(dataSource);
 		String schema = getSchema(dataSource);
@@ -363,15 +624,18 @@ public abstract class JDBCMetaData extends AbstractDBMetaData
 		String tableName = table.getName();
 		Table tableIdentity = new Table(tableName,"META_DUMMY");
 		
-		Map<String, Object> defaultValues = new HashMap();
-		ResultSet rs = meta.getColumns(catalog,schema,tableName,null);
-		while(rs.next())
+		if(defaultValues == null)
 		{
-			String columnName = rs.getString("COLUMN_NAME");
-			Object defaultValue = rs.getObject("COLUMN_DEF");
-			defaultValues.put(columnName,defaultValue);
+			defaultValues = new HashMap();
+			ResultSet rs = meta.getColumns(catalog,schema,tableName,null);
+			while(rs.next())
+			{
+				String columnName = rs.getString("COLUMN_NAME");
+				Object defaultValue = rs.getObject("COLUMN_DEF");
+				defaultValues.put(columnName,defaultValue);
+			}
+			rs.close();
 		}
-		rs.close();
 		
 		SELECT select = new SELECT().FROM(tableIdentity).WHERE("1 = 0");
 		Result result = jdbcConnection.query(select);
@@ -400,7 +664,7 @@ public abstract class JDBCMetaData extends AbstractDBMetaData
 		if(table.getType() == TableType.TABLE)
 		{
 			Set<String> primaryKeyColumns = new HashSet();
-			rs = meta.getPrimaryKeys(catalog,schema,tableName);
+			ResultSet rs = meta.getPrimaryKeys(catalog,schema,tableName);
 			while(rs.next())
 			{
 				primaryKeyColumns.add(rs.getString("COLUMN_NAME"));
@@ -470,6 +734,210 @@ public abstract class JDBCMetaData extends AbstractDBMetaData
 	}
 	
 	
+	/**
+	 * The work for one table of
+	 * {@link JDBCMetaData#harvest(ProgressMonitor, String[], MetaDataTask)}.
+	 */
+	private static interface MetaDataTask<T>
+	{
+		/**
+		 * @return the result for the table <code>index</code>, may be
+		 *         <code>null</code>
+		 */
+		public T run(JDBCConnection jdbcConnection, DatabaseMetaData meta, int index)
+				throws Exception;
+	}
+	
+	
+	/**
+	 * Returns the number of connections which read metadata in parallel.
+	 * 
+	 * @param tableCount
+	 *            the number of tables to read
+	 * @return the number of parallel workers, at least 1
+	 * @see XdevSystemPropertyKeys#METADATA_THREADS
+	 * @since 6.0.3
+	 */
+	protected int getMetaDataWorkerCount(int tableCount)
+	{
+		int workers = XdevSystemPropertyUtils.getIntegerValue(
+				XdevSystemPropertyKeys.METADATA_THREADS,DEFAULT_METADATA_THREADS);
+		
+		int poolSize = dataSource.getConnectionPoolSize();
+		if(poolSize > 0)
+		{
+			workers = Math.min(workers,poolSize);
+		}
+		
+		return Math.max(1,Math.min(workers,tableCount));
+	}
+	
+	
+	/**
+	 * Runs <code>task</code> for every name in <code>taskNames</code>. The
+	 * tasks are spread over {@link #getMetaDataWorkerCount(int)} connections,
+	 * progress is reported and cancellation is checked in the calling thread.
+	 * 
+	 * @return the non-<code>null</code> results in task order
+	 */
+	private <T> List<T> harvest(ProgressMonitor monitor, String[] taskNames,
+			final MetaDataTask<T> task) throws DBException
+	{
+		final int count = taskNames.length;
+		final Object[] results = new Object[count];
+		if(count == 0)
+		{
+			return new ArrayList();
+		}
+		
+		int workers = getMetaDataWorkerCount(count);
+		
+		if(workers <= 1)
+		{
+			JDBCConnection jdbcConnection = (JDBCConnection)dataSource.openConnection();
+			
+			try
+			{
+				DatabaseMetaData meta = jdbcConnection.getConnection().getMetaData();
+				int done = 0;
+				
+				for(int i = 0; i < count; i++)
+				{
+					if(monitor.isCanceled())
+					{
+						break;
+					}
+					
+					monitor.setTaskName(taskNames[i]);
+					results[i] = task.run(jdbcConnection,meta,i);
+					monitor.worked(++done);
+				}
+			}
+			catch(DBException e)
+			{
+				throw e;
+			}
+			catch(Exception e)
+			{
+				throw new DBException(dataSource,e);
+			}
+			finally
+			{
+				jdbcConnection.close();
+			}
+		}
+		else
+		{
+			final AtomicInteger next = new AtomicInteger();
+			final AtomicBoolean canceled = new AtomicBoolean();
+			final BlockingQueue<Integer> finished = new LinkedBlockingQueue<Integer>();
+			
+			ExecutorService executor = Executors.newFixedThreadPool(workers,new ThreadFactory()
+			{
+				@Override
+				public Thread newThread(Runnable r)
+				{
+					Thread thread = new Thread(r,"JDBCMetaData");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			
+			try
+			{
+				List<Future<?>> futures = new ArrayList(workers);
+				for(int w = 0; w < workers; w++)
+				{
+					futures.add(executor.submit(new Callable<Object>()
+					{
+						@Override
+						public Object call() throws Exception
+						{
+							JDBCConnection jdbcConnection = (JDBCConnection)dataSource
+									.openConnection();
+							try
+							{
+								DatabaseMetaData meta = jdbcConnection.getConnection()
+										.getMetaData();
+								int i;
+								while(!canceled.get() && (i = next.getAndIncrement()) < count)
+								{
+									results[i] = task.run(jdbcConnection,meta,i);
+									finished.add(i);
+								}
+							}
+							catch(Exception e)
+							{
+								canceled.set(true);
+								throw e;
+							}
+							finally
+							{
+								jdbcConnection.close();
+							}
+							return null;
+						}
+					}));
+				}
+				executor.shutdown();
+				
+				int done = 0;
+				boolean terminated = false;
+				while(!terminated)
+				{
+					terminated = executor.awaitTermination(50,TimeUnit.MILLISECONDS);
+					
+					Integer index;
+					while((index = finished.poll()) != null)
+					{
+						monitor.setTaskName(taskNames[index]);
+						monitor.worked(++done);
+					}
+					
+					if(monitor.isCanceled())
+					{
+						canceled.set(true);
+					}
+				}
+				
+				for(Future<?> future : futures)
+				{
+					future.get();
+				}
+			}
+			catch(ExecutionException e)
+			{
+				Throwable cause = e.getCause();
+				if(cause instanceof DBException)
+				{
+					throw (DBException)cause;
+				}
+				throw new DBException(dataSource,cause);
+			}
+			catch(InterruptedException e)
+			{
+				canceled.set(true);
+				Thread.currentThread().interrupt();
+				throw new DBException(dataSource,e);
+			}
+			finally
+			{
+				executor.shutdownNow();
+			}
+		}
+		
+		List<T> list = new ArrayList(count);
+		for(Object result : results)
+		{
+			if(result != null)
+			{
+				list.add((T)result);
+			}
+		}
+		return list;
+	}
+	
+	
 	protected Object checkDefaultValue(Object defaultValue, ColumnMetaData column)
 	{
 		if(defaultValue != null)
@@ -527,14 +995,6 @@ public abstract class JDBCMetaData extends AbstractDBMetaData
 		return defaultValue;
 	}
 	
-	private static SimpleDateFormat	DATETIME_FORMAT	= new SimpleDateFormat("yyyy-MM-dd HH:mm:ss",
-															Locale.ENGLISH);
-	private static SimpleDateFormat	DATE_FORMAT		= new SimpleDateFormat("yyyy-MM-dd",
-															Locale.ENGLISH);
-	private static SimpleDateFormat	TIME_FORMAT		= new SimpleDateFormat("HH:mm:ss",
-															Locale.ENGLISH);
-	
-	
 	protected Date convertToDate(String str)
 	{
 		try
@@ -557,19 +1017,22 @@ public abstract class JDBCMetaData extends AbstractDBMetaData
 				{
 					try
 					{
-						return DATETIME_FORMAT.parse(str);
+						return (Date)FormatterPool.getDateFormat("yyyy-MM-dd HH:mm:ss",
+								Locale.ENGLISH).parseObject(str);
 					}
 					catch(ParseException noDateTime)
 					{
 						try
 						{
-							return DATE_FORMAT.parse(str);
+							return (Date)FormatterPool.getDateFormat("yyyy-MM-dd",Locale.ENGLISH)
+									.parseObject(str);
 						}
 						catch(ParseException noDate)
 						{
 							try
 							{
-								return TIME_FORMAT.parse(str);
+								return (Date)FormatterPool.getDateFormat("HH:mm:ss",Locale.ENGLISH)
+										.parseObject(str);
 							}
 							catch(ParseException noTime)
 							{
@@ -726,105 +1189,101 @@ public abstract class JDBCMetaData extends AbstractDBMetaData
 		
 		EntityRelationshipModel model = new EntityRelationshipModel();
 		
-		try
+		List<String> tables = new ArrayList();
+		for(TableInfo table : tableInfos)
 		{
-			List<String> tables = new ArrayList();
-			for(TableInfo table : tableInfos)
+			if(table.getType() == TableType.TABLE)
 			{
-				if(table.getType() == TableType.TABLE)
+				tables.add(table.getName());
+			}
+		}
+		Collections.sort(tables);
+		
+		final String[] tableNames = tables.toArray(new String[tables.size()]);
+		final Set<String> tableSet = new HashSet(tables);
+		final String catalog = getCatalog(dataSource);
+		final String schema = getSchema(dataSource);
+		
+		List<List<EntityRelationship>> relations = harvest(monitor,tableNames,
+				new MetaDataTask<List<EntityRelationship>>()
 				{
-					tables.add(table.getName());
-				}
+					@Override
+					public List<EntityRelationship> run(JDBCConnection jdbcConnection,
+							DatabaseMetaData meta, int index) throws SQLException
+					{
+						return getExportedRelations(meta,catalog,schema,tableNames[index],
+								tableSet);
+					}
+				});
+		
+		for(List<EntityRelationship> list : relations)
+		{
+			for(EntityRelationship relation : list)
+			{
+				model.add(relation);
 			}
-			Collections.sort(tables);
-			
-			ConnectionProvider connectionProvider = dataSource.getConnectionProvider();
-			Connection connection = connectionProvider.getConnection();
+		}
+		
+		monitor.done();
+		
+		return model;
+	}
+	
+	
+	private List<EntityRelationship> getExportedRelations(DatabaseMetaData meta, String catalog,
+			String schema, String table, Set<String> tables) throws SQLException
+	{
+		List<EntityRelationship> relations = new ArrayList();
+		
+		ResultSet rs = meta.getExportedKeys(catalog,schema,table);
+		try
+		{
+			String pkTable = null;
+			String fkTable = null;
+			List<String> pkColumns = new ArrayList();
+			List<String> fkColumns = new ArrayList();
 			
-			try
+			while(rs.next())
 			{
-				DatabaseMetaData meta = connection.getMetaData();
-				String catalog = getCatalog(dataSource);
-				String schema = getSchema(dataSource);
-				int done = 0;
+				short keySeq = rs.getShort("KEY_SEQ");
 				
-				for(String table : tables)
+				if(keySeq == 1 && pkColumns.size() > 0)
 				{
-					if(monitor.isCanceled())
+					if(tables.contains(pkTable) && tables.contains(fkTable))
 					{
-						break;
+						relations.add(new EntityRelationship(new Entity(pkTable,pkColumns
+								.toArray(new String[pkColumns.size()]),Cardinality.ONE),
+								new Entity(fkTable,fkColumns.toArray(new String[fkColumns
+										.size()]),Cardinality.MANY)));
+						pkColumns.clear();
+						fkColumns.clear();
 					}
-					
-					monitor.setTaskName(table);
-					
-					ResultSet rs = meta.getExportedKeys(catalog,schema,table);
-					try
-					{
-						String pkTable = null;
-						String fkTable = null;
-						List<String> pkColumns = new ArrayList();
-						List<String> fkColumns = new ArrayList();
-						
-						while(rs.next())
-						{
-							short keySeq = rs.getShort("KEY_SEQ");
-							
-							if(keySeq == 1 && pkColumns.size() > 0)
-							{
-								if(tables.contains(pkTable) && tables.contains(fkTable))
-								{
-									model.add(new EntityRelationship(
-											new Entity(pkTable,pkColumns
-													.toArray(new String[pkColumns.size()]),
-													Cardinality.ONE),new Entity(fkTable,fkColumns
-													.toArray(new String[fkColumns.size()]),
-													Cardinality.MANY)));
-									pkColumns.clear();
-									fkColumns.clear();
-								}
-							}
-							
-							pkTable = rs.getString("PKTABLE_NAME");
-							fkTable = rs.getString("FKTABLE_NAME");
-							
-							pkColumns.add(rs.getString("PKCOLUMN_NAME"));
-							fkColumns.add(rs.getString("FKCOLUMN_NAME"));
-						}
-						
-						if(pkColumns.size() > 0)
-						{
-							if(tables.contains(pkTable) && tables.contains(fkTable))
-							{
-								model.add(new EntityRelationship(new Entity(pkTable,pkColumns
-										.toArray(new String[pkColumns.size()]),Cardinality.ONE),
-										new Entity(fkTable,fkColumns.toArray(new String[fkColumns
-												.size()]),Cardinality.MANY)));
-								pkColumns.clear();
-								fkColumns.clear();
-							}
-						}
-					}
-					finally
-					{
-						rs.close();
-					}
-					
-					monitor.worked(++done);
 				}
+				
+				pkTable = rs.getString("PKTABLE_NAME");
+				fkTable = rs.getString("FKTABLE_NAME");
+				
+				pkColumns.add(rs.getString("PKCOLUMN_NAME"));
+				fkColumns.add(rs.getString("FKCOLUMN_NAME"));
 			}
-			finally
+			
+			if(pkColumns.size() > 0)
 			{
-				connection.close();
+				if(tables.contains(pkTable) && tables.contains(fkTable))
+				{
+					relations.add(new EntityRelationship(new Entity(pkTable,pkColumns
+							.toArray(new String[pkColumns.size()]),Cardinality.ONE),new Entity(
+							fkTable,fkColumns.toArray(new String[fkColumns.size()]),
+							Cardinality.MANY)));
+				}
 			}
 		}
-		catch(SQLException e)
+		finally
 		{
-			throw new DBException(dataSource,e);
+			rs.close();
 		}
 		
-		monitor.done();
-		
-		return model;
+		return relations;
 	}
 	
 	
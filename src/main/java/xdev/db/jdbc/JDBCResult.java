@@ -25,6 +25,7 @@ import java.sql.SQLException;
 import xdev.db.ColumnMetaData;
 import xdev.db.DBException;
 import xdev.db.DataType;
+import xdev.db.PagingStrategy;
 import xdev.db.Result;
 
 
@@ -44,6 +45,12 @@ public class JDBCResult extends Result
 	
 	private int					currentRow	= 0;
 	
+	/**
+	 * How the rows before the first row of this result have been skipped,
+	 * <code>null</code> if unknown
+	 */
+	PagingStrategy				pagingStrategy;
+	
 	
 	/**
 	 * @param rs
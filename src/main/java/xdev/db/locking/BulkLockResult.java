@@ -0,0 +1,95 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package xdev.db.locking;
+
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * The outcome of a bulk lock operation, see
+ * {@link VirtualTableLockingUtils#lockRows(xdev.db.jdbc.JDBCDataSource, String, java.util.Collection, UserIdentifier, String, long)}
+ * .
+ *
+ * @author XDEV Software
+ * @since 6.0.3
+ */
+public class BulkLockResult
+{
+	private final Set<String>								lockedRows	= new LinkedHashSet<String>();
+	private final Map<String, RowAlreadyLockedException>	conflicts	= new LinkedHashMap<String, RowAlreadyLockedException>();
+
+
+	void addLocked(String rowIdentifier)
+	{
+		lockedRows.add(rowIdentifier);
+	}
+
+
+	void addConflict(String rowIdentifier, RowAlreadyLockedException conflict)
+	{
+		conflicts.put(rowIdentifier,conflict);
+	}
+
+
+	/**
+	 * Returns the identifiers of the rows which are locked by the user now.
+	 *
+	 * @return the locked rows
+	 */
+	public Set<String> getLockedRows()
+	{
+		return Collections.unmodifiableSet(lockedRows);
+	}
+
+
+	/**
+	 * Returns the rows which are locked by other users, the exceptions carry
+	 * the information about the acquiring and the blocking lock.
+	 *
+	 * @return the conflicts by row identifier
+	 */
+	public Map<String, RowAlreadyLockedException> getConflicts()
+	{
+		return Collections.unmodifiableMap(conflicts);
+	}
+
+
+	/**
+	 * @param rowIdentifier
+	 *            the row identifier
+	 * @return <code>true</code> if the row is locked by the user
+	 */
+	public boolean isLocked(String rowIdentifier)
+	{
+		return lockedRows.contains(rowIdentifier);
+	}
+
+
+	/**
+	 * @return <code>true</code> if all rows have been locked
+	 */
+	public boolean isComplete()
+	{
+		return conflicts.isEmpty();
+	}
+}
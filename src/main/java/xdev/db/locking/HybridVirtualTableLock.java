@@ -22,12 +22,15 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
 
+import xdev.db.BatchWriteRequest;
 import xdev.db.DBConnection;
 import xdev.db.DBException;
 import xdev.db.DBUtils;
@@ -59,6 +62,10 @@ import com.xdev.jadoth.sqlengine.SQL;
  * concurrency rules and hence causes the system to disregard any update
  * request.
  * 
+ * <p>
+ * Timeout notifications of all locks are scheduled on one shared thread, see
+ * {@link #scheduleRenewal(long)} for renewals which are written in batches.
+ * 
  * @author XDEV Software (RHHF)
  * @author XDEV Software jwill
  * @since 4.0
@@ -91,13 +98,13 @@ public class HybridVirtualTableLock implements PessimisticLock
 	protected List<LockTimeoutChangeListener>		lockListenerList				= new ArrayList<LockTimeoutChangeListener>();
 	
 	private final JDBCDataSource					dataSource;
-	private Timer									timer;
+	/**
+	 * <code>true</code> between {@link #getLock()} and the removal of the lock
+	 */
+	private volatile boolean						scheduling;
 	
-	private final Map<LockTimeoutListener, Timer>	listenerTimerMap				= new HashMap<LockTimeoutListener, Timer>();
 	private LockConstructionState					constructionState;
 	
-	private static final String						TIMER_NAME_PREFIX				= "db-lock-timer: ";
-	
 	
 	public HybridVirtualTableLock(JDBCDataSource dataSource, VirtualTableRow row)
 	{
@@ -155,8 +162,9 @@ public class HybridVirtualTableLock implements PessimisticLock
 					if(isEditable())
 					{
 						updateLockDuration(additionalTime);
-						updateTimeoutListenerNotificationThreshold();
-						notifyTimeOutListeners(getRemainingTime(),lastValidUntil.getTime(),false);
+						long remainingTime = getRemainingTime();
+						updateTimeoutListenerNotificationThreshold(remainingTime);
+						notifyTimeOutListeners(remainingTime,lastValidUntil.getTime(),false);
 					}
 				}
 			};
@@ -170,28 +178,31 @@ public class HybridVirtualTableLock implements PessimisticLock
 	}
 	
 	
-	private void updateTimeoutListenerNotificationThreshold() throws LockingException
+	private void updateTimeoutListenerNotificationThreshold(long remainingTime)
+			throws LockingException
 	{
-		LockTimeoutListener[] lockTimeoutListeners = lockTimeoutListenerMap.keySet().toArray(
-				new LockTimeoutListener[lockTimeoutListenerMap.size()]);
+		LockTimeoutListener[] lockTimeoutListeners;
+		synchronized(lockTimeoutListenerMap)
+		{
+			lockTimeoutListeners = lockTimeoutListenerMap.keySet().toArray(
+					new LockTimeoutListener[lockTimeoutListenerMap.size()]);
+		}
 		for(LockTimeoutListener listener : lockTimeoutListeners)
 		{
-			TimerTask task = createTask(listener);
-			this.timerNotificationThresholdSchedule(listener,task);
+			NotificationTask task = createTask(listener);
+			this.timerNotificationThresholdSchedule(listener,task,remainingTime);
 		}
 	}
 	
 	
-	private void timerNotificationThresholdSchedule(LockTimeoutListener listener, TimerTask task)
-			throws LockingException
+	private void timerNotificationThresholdSchedule(LockTimeoutListener listener,
+			NotificationTask task, long remainingTime) throws LockingException
 	{
-		if(this.timer != null)
+		if(this.scheduling)
 		{
-			long remainingTime = getRemainingTime();
-			
 			if(remainingTime > listener.getNotificationThreshold())
 			{
-				this.timer.schedule(task,remainingTime - listener.getNotificationThreshold());
+				task.schedule(remainingTime - listener.getNotificationThreshold());
 			}
 			else
 			{
@@ -226,7 +237,7 @@ public class HybridVirtualTableLock implements PessimisticLock
 	public LockConstructionState getLock() throws LockingException, RowAlreadyLockedException
 	{
 		this.clearRemainingTimeOutDependencies();
-		this.timer = new Timer(this.getTimerName());
+		this.scheduling = true;
 		Transaction lockTransaction = null;
 		try
 		{
@@ -423,9 +434,16 @@ public class HybridVirtualTableLock implements PessimisticLock
 	
 	private void clearRemainingTimeOutDependencies()
 	{
-		if(this.timer != null)
+		if(this.scheduling)
 		{
-			this.timer.cancel();
+			this.scheduling = false;
+			synchronized(lockTimeoutListenerMap)
+			{
+				for(TimerTask task : lockTimeoutListenerMap.values())
+				{
+					task.cancel();
+				}
+			}
 			this.notifyTimeOutListeners(0,this.getTimeout(),true);
 		}
 	}
@@ -539,41 +557,83 @@ public class HybridVirtualTableLock implements PessimisticLock
 	@Override
 	public void addLockTimeoutListener(final LockTimeoutListener listener) throws LockingException
 	{
-		if(this.timer != null)
+		if(this.scheduling)
 		{
-			final TimerTask task = createTask(listener);
-			this.timerNotificationThresholdSchedule(listener,task);
+			final NotificationTask task = createTask(listener);
+			this.timerNotificationThresholdSchedule(listener,task,getRemainingTime());
 		}
 	}
 	
 	
-	private TimerTask createTask(final LockTimeoutListener listener)
+	private NotificationTask createTask(final LockTimeoutListener listener)
 	{
-		final TimerTask task = new TimerTask()
+		final NotificationTask task = new NotificationTask(listener);
+		TimerTask previous;
+		synchronized(lockTimeoutListenerMap)
 		{
-			@Override
-			public void run()
-			{
-				listener.timeoutImminent(new LockTimeoutEvent(HybridVirtualTableLock.this));
-				HybridVirtualTableLock.this.listenerTimerMap.remove(listener);
-			}
-		};
-		this.lockTimeoutListenerMap.put(listener,task);
+			previous = this.lockTimeoutListenerMap.put(listener,task);
+		}
+		if(previous != null)
+		{
+			previous.cancel();
+		}
 		return task;
 	}
 	
 	
+	
+	/**
+	 * Notifies a {@link LockTimeoutListener} on the shared
+	 * {@link LockScheduler}.
+	 */
+	private class NotificationTask extends TimerTask
+	{
+		private final LockTimeoutListener	listener;
+		private ScheduledFuture<?>			future;
+		
+		
+		NotificationTask(LockTimeoutListener listener)
+		{
+			this.listener = listener;
+		}
+		
+		
+		synchronized void schedule(long delay)
+		{
+			future = LockScheduler.getInstance().schedule(this,delay);
+		}
+		
+		
+		@Override
+		public void run()
+		{
+			listener.timeoutImminent(new LockTimeoutEvent(HybridVirtualTableLock.this));
+		}
+		
+		
+		@Override
+		public synchronized boolean cancel()
+		{
+			super.cancel();
+			return future != null && future.cancel(false);
+		}
+	}
+	
+	
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
 	public void removeLockTimeoutListener(final LockTimeoutListener listener)
 	{
-		final TimerTask task = this.lockTimeoutListenerMap.get(listener);
+		final TimerTask task;
+		synchronized(lockTimeoutListenerMap)
+		{
+			task = this.lockTimeoutListenerMap.remove(listener);
+		}
 		if(task != null)
 		{
 			task.cancel();
-			this.lockTimeoutListenerMap.remove(listener);
 		}
 		
 	}
@@ -585,7 +645,10 @@ public class HybridVirtualTableLock implements PessimisticLock
 	@Override
 	public Set<LockTimeoutListener> getLockTimeoutListener()
 	{
-		return new HashSet<LockTimeoutListener>(this.lockTimeoutListenerMap.keySet());
+		synchronized(lockTimeoutListenerMap)
+		{
+			return new HashSet<LockTimeoutListener>(this.lockTimeoutListenerMap.keySet());
+		}
 	}
 	
 	
@@ -688,20 +751,201 @@ public class HybridVirtualTableLock implements PessimisticLock
 	}
 	
 	
-	private String getTimerName()
+	/**
+	 * Renews this lock asynchronously. Renewals of locks with the same data
+	 * source which are requested within a short time are written with one
+	 * batched <code>UPDATE</code> on the shared lock scheduler thread.
+	 * <p>
+	 * Locks which already expired are renewed like {@link #renewLock(long)}
+	 * does, including the check for blocking locks of other users.
+	 * </p>
+	 * 
+	 * @param additionalTime
+	 *            the time in ms to add to the remaining time of the lock
+	 * @return a {@link Future} which completes when the renewal has been
+	 *         written, it fails with a {@link LockingException} if the renewal
+	 *         failed
+	 * @since 6.0.3
+	 */
+	public Future<Void> scheduleRenewal(long additionalTime)
 	{
-		return TIMER_NAME_PREFIX + this.toString();
+		return LockScheduler.getInstance().requestRenewal(this.dataSource,this,additionalTime);
 	}
 	
 	
-	protected void updateLockDuration(long additionalTime) throws LockingException
+	/**
+	 * Renews a batch of locks, the locks of one data source are renewed with
+	 * one query for the server time and their current lock entries and one
+	 * batched <code>UPDATE</code>. The future of each renewal is completed
+	 * separately, a failure only affects the renewals it belongs to.
+	 */
+	static void renewLocks(List<LockScheduler.Renewal> renewals)
 	{
-		Date updatedDate = new Date(this.calculateUpdatedRemainingTime(additionalTime));
-		UPDATE update = new UPDATE(this.lockVt);
+		Map<JDBCDataSource, List<LockScheduler.Renewal>> byDataSource = new LinkedHashMap();
+		for(LockScheduler.Renewal renewal : renewals)
+		{
+			List<LockScheduler.Renewal> list = byDataSource.get(renewal.lock.dataSource);
+			if(list == null)
+			{
+				byDataSource.put(renewal.lock.dataSource,
+						list = new ArrayList<LockScheduler.Renewal>());
+			}
+			list.add(renewal);
+		}
+		
+		for(Map.Entry<JDBCDataSource, List<LockScheduler.Renewal>> entry : byDataSource
+				.entrySet())
+		{
+			try
+			{
+				renewLocks(entry.getKey(),entry.getValue());
+			}
+			catch(LockingException e)
+			{
+				for(LockScheduler.Renewal renewal : entry.getValue())
+				{
+					renewal.future.completeExceptionally(e);
+				}
+			}
+		}
+	}
+	
+	
+	private static void renewLocks(JDBCDataSource dataSource,
+			List<LockScheduler.Renewal> renewals) throws LockingException
+	{
+		Date serverTime;
+		Map<String, Date> validUntil = new HashMap<String, Date>();
+		PessimisticLockTable lockVt = new PessimisticLockTable(dataSource);
+		try
+		{
+			serverTime = VirtualTableLockingUtils.getServerTime(dataSource);
+			
+			Set<Long> userIds = new HashSet<Long>();
+			for(LockScheduler.Renewal renewal : renewals)
+			{
+				userIds.add(renewal.lock.userId);
+			}
+			
+			for(Long userId : userIds)
+			{
+				SELECT select = new SELECT();
+				select.columns(SQL.STAR);
+				select.FROM(lockVt);
+				select.WHERE(PessimisticLockTable.userID.eq("?"));
+				lockVt.clearData();
+				DBUtils.query(lockVt,select,userId);
+				
+				for(int i = 0, c = lockVt.getRowCount(); i < c; i++)
+				{
+					VirtualTableRow row = lockVt.getRow(i);
+					validUntil.put(getLockKey(row.get(PessimisticLockTable.tableName),
+							row.get(PessimisticLockTable.tableRowIdentifier),userId),row
+							.get(PessimisticLockTable.validUntil));
+				}
+			}
+			lockVt.clearData();
+		}
+		catch(DBException e)
+		{
+			throw new LockingException("Could not renew locks",e);
+		}
+		
+		BatchWriteRequest request = new BatchWriteRequest(createUpdateLockDuration(lockVt),false);
+		List<LockScheduler.Renewal> renewed = new ArrayList<LockScheduler.Renewal>();
+		List<Date> updatedDates = new ArrayList<Date>();
+		List<LockScheduler.Renewal> expired = new ArrayList<LockScheduler.Renewal>();
+		for(LockScheduler.Renewal renewal : renewals)
+		{
+			HybridVirtualTableLock lock = renewal.lock;
+			Date current = validUntil.get(getLockKey(lock.tableName,lock.rowIdentifier,
+					lock.userId));
+			if(current == null || current.getTime() < serverTime.getTime())
+			{
+				// may be blocked by another user meanwhile
+				expired.add(renewal);
+			}
+			else
+			{
+				Date updatedDate = new Date(current.getTime() + renewal.additionalTime);
+				request.addParams(updatedDate,lock.tableName,lock.rowIdentifier,lock.userId);
+				renewed.add(renewal);
+				updatedDates.add(updatedDate);
+			}
+		}
+		
+		if(request.size() > 0)
+		{
+			try
+			{
+				DBConnection<?> connection = dataSource.openConnection();
+				try
+				{
+					request.execute(connection,request.size());
+				}
+				finally
+				{
+					connection.close();
+				}
+			}
+			catch(DBException e)
+			{
+				LockingException exception = new LockingException("Could not renew locks",e);
+				for(LockScheduler.Renewal renewal : renewed)
+				{
+					renewal.future.completeExceptionally(exception);
+				}
+				renewed.clear();
+			}
+		}
+		
+		for(int i = 0, c = renewed.size(); i < c; i++)
+		{
+			LockScheduler.Renewal renewal = renewed.get(i);
+			HybridVirtualTableLock lock = renewal.lock;
+			lock.lastValidUntil = updatedDates.get(i);
+			long remainingTime = lock.lastValidUntil.getTime() - serverTime.getTime();
+			lock.updateTimeoutListenerNotificationThreshold(remainingTime);
+			lock.notifyTimeOutListeners(remainingTime,lock.lastValidUntil.getTime(),false);
+			renewal.future.complete(null);
+		}
+		
+		for(LockScheduler.Renewal renewal : expired)
+		{
+			try
+			{
+				renewal.lock.renewLock(renewal.additionalTime);
+				renewal.future.complete(null);
+			}
+			catch(LockingException e)
+			{
+				renewal.future.completeExceptionally(e);
+			}
+		}
+	}
+	
+	
+	private static String getLockKey(String tableName, String rowIdentifier, long userId)
+	{
+		return tableName + '\0' + rowIdentifier + '\0' + userId;
+	}
+	
+	
+	private static UPDATE createUpdateLockDuration(PessimisticLockTable lockVt)
+	{
+		UPDATE update = new UPDATE(lockVt);
 		update.SET(PessimisticLockTable.validUntil,"?");
 		update.WHERE(PessimisticLockTable.tableName.eq("?"))
 				.AND(PessimisticLockTable.tableRowIdentifier.eq("?"))
 				.AND(PessimisticLockTable.userID.eq("?"));
+		return update;
+	}
+	
+	
+	protected void updateLockDuration(long additionalTime) throws LockingException
+	{
+		Date updatedDate = new Date(this.calculateUpdatedRemainingTime(additionalTime));
+		UPDATE update = createUpdateLockDuration(this.lockVt);
 		
 		Object[] paramsInsert = new Object[4];
 		paramsInsert[0] = updatedDate;
@@ -0,0 +1,236 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package xdev.db.locking;
+
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import xdev.util.logging.LoggerFactory;
+import xdev.util.logging.XdevLogger;
+
+
+/**
+ * Schedules the timeout notifications and renewals of all
+ * {@link HybridVirtualTableLock}s on one shared daemon thread.
+ * <p>
+ * Renewals which are requested within {@link #DEFAULT_RENEWAL_DELAY} for the
+ * same key, e.g. the data source of the locks, are handed over together to the
+ * {@link RenewalHandler}, which writes them as one batch. Each renewal has its
+ * own future, so a failed renewal doesn't affect the others of the batch.
+ * </p>
+ *
+ * @author XDEV Software
+ * @since 6.0.3
+ */
+class LockScheduler
+{
+	/**
+	 * Time in ms renewals are collected before they are written
+	 */
+	static final long	DEFAULT_RENEWAL_DELAY	= 50;
+
+
+
+	/**
+	 * Writes a batch of renewals. The handler may complete the future of each
+	 * renewal itself; futures which are still pending afterwards are completed
+	 * normally, or exceptionally if the handler throws.
+	 */
+	static interface RenewalHandler
+	{
+		void renew(List<Renewal> renewals) throws LockingException;
+	}
+
+
+
+	static class Renewal
+	{
+		final HybridVirtualTableLock	lock;
+		long							additionalTime;
+		final CompletableFuture<Void>	future	= new CompletableFuture();
+
+
+		Renewal(HybridVirtualTableLock lock, long additionalTime)
+		{
+			this.lock = lock;
+			this.additionalTime = additionalTime;
+		}
+	}
+
+
+
+	private static class PendingRenewals
+	{
+		final Map<HybridVirtualTableLock, Renewal>	renewals	= new LinkedHashMap();
+	}
+
+	private static final XdevLogger		LOG			= LoggerFactory
+															.getLogger(LockScheduler.class);
+
+	private static LockScheduler		instance;
+
+
+	/**
+	 * @return the scheduler shared by all locks
+	 */
+	static synchronized LockScheduler getInstance()
+	{
+		if(instance == null)
+		{
+			instance = new LockScheduler(DEFAULT_RENEWAL_DELAY,new RenewalHandler()
+			{
+				@Override
+				public void renew(List<Renewal> renewals) throws LockingException
+				{
+					HybridVirtualTableLock.renewLocks(renewals);
+				}
+			});
+		}
+		return instance;
+	}
+
+	private final ScheduledThreadPoolExecutor		executor;
+	private final long								renewalDelay;
+	private final RenewalHandler					renewalHandler;
+	private final Map<Object, PendingRenewals>	pendingRenewals	= new HashMap();
+
+
+	LockScheduler(long renewalDelay, RenewalHandler renewalHandler)
+	{
+		this.renewalDelay = renewalDelay;
+		this.renewalHandler = renewalHandler;
+
+		executor = new ScheduledThreadPoolExecutor(1,new ThreadFactory()
+		{
+			@Override
+			public Thread newThread(Runnable r)
+			{
+				Thread thread = new Thread(r,"db-lock-scheduler");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		executor.setRemoveOnCancelPolicy(true);
+	}
+
+
+	/**
+	 * Runs <code>task</code> after <code>delay</code> ms. Exceptions thrown by
+	 * the task are logged and don't affect other tasks.
+	 */
+	ScheduledFuture<?> schedule(final Runnable task, long delay)
+	{
+		return executor.schedule(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				try
+				{
+					task.run();
+				}
+				catch(Throwable t)
+				{
+					LOG.error(t);
+				}
+			}
+		},delay,TimeUnit.MILLISECONDS);
+	}
+
+
+	/**
+	 * Requests a renewal of <code>lock</code>, it is written together with all
+	 * other renewals of the same <code>key</code> which are requested until
+	 * the batch is due. Repeated requests for the same lock within one batch
+	 * are merged, their additional times are summed up.
+	 *
+	 * @return completes when the renewal of <code>lock</code> has been written
+	 */
+	CompletableFuture<Void> requestRenewal(final Object key, HybridVirtualTableLock lock,
+			long additionalTime)
+	{
+		synchronized(pendingRenewals)
+		{
+			PendingRenewals pending = pendingRenewals.get(key);
+			if(pending == null)
+			{
+				pendingRenewals.put(key,pending = new PendingRenewals());
+				schedule(new Runnable()
+				{
+					@Override
+					public void run()
+					{
+						flushRenewals(key);
+					}
+				},renewalDelay);
+			}
+
+			Renewal renewal = pending.renewals.get(lock);
+			if(renewal == null)
+			{
+				pending.renewals.put(lock,renewal = new Renewal(lock,additionalTime));
+			}
+			else
+			{
+				renewal.additionalTime += additionalTime;
+			}
+			return renewal.future;
+		}
+	}
+
+
+	private void flushRenewals(Object key)
+	{
+		PendingRenewals pending;
+		synchronized(pendingRenewals)
+		{
+			pending = pendingRenewals.remove(key);
+		}
+
+		if(pending == null)
+		{
+			return;
+		}
+
+		List<Renewal> renewals = new ArrayList(pending.renewals.values());
+		try
+		{
+			renewalHandler.renew(renewals);
+			for(Renewal renewal : renewals)
+			{
+				renewal.future.complete(null);
+			}
+		}
+		catch(Throwable t)
+		{
+			for(Renewal renewal : renewals)
+			{
+				renewal.future.completeExceptionally(t);
+			}
+		}
+	}
+}
@@ -19,17 +19,30 @@ package xdev.db.locking;
 
 
 import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import com.xdev.jadoth.sqlengine.SQL;
 
+import xdev.db.BatchWriteRequest;
+import xdev.db.DBConnection;
 import xdev.db.DBException;
 import xdev.db.DBUtils;
 import xdev.db.Result;
+import xdev.db.Transaction;
 import xdev.db.jdbc.JDBCConnection;
 import xdev.db.jdbc.JDBCDataSource;
 import xdev.db.sql.DELETE;
+import xdev.db.sql.INSERT;
 import xdev.db.sql.SELECT;
+import xdev.db.sql.UPDATE;
 import xdev.vt.VirtualTable;
 import xdev.vt.VirtualTable.VirtualTableRow;
 
@@ -41,6 +54,12 @@ import xdev.vt.VirtualTable.VirtualTableRow;
  */
 public class VirtualTableLockingUtils
 {
+	/**
+	 * Maximum count of row identifiers in one <code>IN</code> list
+	 */
+	private static final int	IN_LIST_SIZE	= 100;
+	
+	
 	/**
 	 * Examines for the optimistic lock case that another user possibly already
 	 * holds a lock for a specific row.
@@ -251,4 +270,399 @@ public class VirtualTableLockingUtils
 		
 		return serverTime;
 	}
+	
+	
+	/**
+	 * Locks the rows of a {@link VirtualTable} for the current user, see
+	 * {@link #lockRows(JDBCDataSource, String, Collection, UserIdentifier, String, long)}
+	 * .
+	 * 
+	 * @param dataSource
+	 *            the data source of the {@link PessimisticLockTable}
+	 * @param rows
+	 *            the rows to lock, all of the same {@link VirtualTable}
+	 * @param timeout
+	 *            the lock duration in ms
+	 * @return the locked rows and the conflicts
+	 * @throws LockingException
+	 *             if the lock table could not be accessed
+	 * @since 6.0.3
+	 */
+	public static BulkLockResult lockRows(JDBCDataSource dataSource,
+			Collection<VirtualTableRow> rows, long timeout) throws LockingException
+	{
+		if(rows.isEmpty())
+		{
+			return new BulkLockResult();
+		}
+		
+		List<RowIdentifier> identifiers = new ArrayList<RowIdentifier>(rows.size());
+		for(VirtualTableRow row : rows)
+		{
+			identifiers.add(new DefaultVirtualTableRowIdentifier(row));
+		}
+		
+		String userName = ClientSession.getUserName();
+		return lockRows(dataSource,rows.iterator().next().getVirtualTable().getDatabaseAlias(),
+				identifiers,new UserNameIdentifier(userName),userName,timeout);
+	}
+	
+	
+	/**
+	 * Locks a set of rows in one transaction with a few set-based statements:
+	 * one <code>SELECT</code> of the existing lock entries, one
+	 * <code>DELETE</code> of expired entries of other users and batched
+	 * <code>UPDATE</code>s and <code>INSERT</code>s, per
+	 * {@value #IN_LIST_SIZE} rows.
+	 * <p>
+	 * Rows which are locked by other users are not locked, they are reported
+	 * as conflicts. Rows the user already holds a lock for are renewed.
+	 * </p>
+	 * 
+	 * @param dataSource
+	 *            the data source of the {@link PessimisticLockTable}
+	 * @param tableName
+	 *            the name of the table the rows belong to
+	 * @param rows
+	 *            the rows to lock
+	 * @param user
+	 *            the user who acquires the locks
+	 * @param userString
+	 *            the displayed name of the user
+	 * @param timeout
+	 *            the lock duration in ms
+	 * @return the locked rows and the conflicts
+	 * @throws LockingException
+	 *             if the lock table could not be accessed
+	 * @since 6.0.3
+	 */
+	public static BulkLockResult lockRows(final JDBCDataSource dataSource,
+			final String tableName, Collection<? extends RowIdentifier> rows,
+			final UserIdentifier user, final String userString, final long timeout)
+			throws LockingException
+	{
+		final List<String> rowIdentifiers = getRowIdentifiers(rows);
+		final BulkLockResult[] result = new BulkLockResult[1];
+		
+		try
+		{
+			final Date serverTime = getServerTime(dataSource);
+			final PessimisticLockTable lockVT = new PessimisticLockTable(dataSource);
+			
+			new Transaction(dataSource)
+			{
+				@Override
+				protected void write(DBConnection<?> connection) throws DBException
+				{
+					List<LockEntry> entries = new ArrayList<LockEntry>();
+					for(List<String> chunk : chunk(rowIdentifiers))
+					{
+						readLockEntries(connection,lockVT,tableName,chunk,entries);
+					}
+					
+					LockPlan plan = planLocks(tableName,rowIdentifiers,entries,serverTime,
+							user.getUserId(),userString,timeout);
+					
+					for(List<String> chunk : chunk(plan.expired))
+					{
+						DELETE delete = new DELETE();
+						delete.FROM(lockVT);
+						delete.WHERE(PessimisticLockTable.tableName.eq("?"))
+								.AND(PessimisticLockTable.validUntil.lt("?"))
+								.AND(PessimisticLockTable.userID.ne("?"))
+								.AND(PessimisticLockTable.tableRowIdentifier.IN(placeholders(chunk
+										.size())));
+						
+						List<Object> params = new ArrayList<Object>();
+						params.add(tableName);
+						params.add(serverTime);
+						params.add(user.getUserId());
+						params.addAll(chunk);
+						connection.write(delete,false,params.toArray());
+					}
+					
+					Date validUntil = new Date(serverTime.getTime() + timeout);
+					
+					if(plan.updates.size() > 0)
+					{
+						UPDATE update = new UPDATE(lockVT);
+						update.SET(PessimisticLockTable.validUntil,"?");
+						update.WHERE(PessimisticLockTable.tableName.eq("?"))
+								.AND(PessimisticLockTable.tableRowIdentifier.eq("?"))
+								.AND(PessimisticLockTable.userID.eq("?"));
+						BatchWriteRequest request = new BatchWriteRequest(update,false);
+						for(String row : plan.updates)
+						{
+							request.addParams(validUntil,tableName,row,user.getUserId());
+						}
+						request.execute(connection,IN_LIST_SIZE);
+					}
+					
+					if(plan.inserts.size() > 0)
+					{
+						INSERT insert = new INSERT();
+						insert.INTO(lockVT);
+						insert.columns(PessimisticLockTable.tableName,
+								PessimisticLockTable.tableRowIdentifier,
+								PessimisticLockTable.validUntil,PessimisticLockTable.userString,
+								PessimisticLockTable.userID);
+						insert.VALUES("?","?","?","?","?");
+						BatchWriteRequest request = new BatchWriteRequest(insert,false);
+						for(String row : plan.inserts)
+						{
+							request.addParams(tableName,row,validUntil,userString,
+									user.getUserId());
+						}
+						request.execute(connection,IN_LIST_SIZE);
+					}
+					
+					result[0] = plan.result;
+				}
+			}.execute();
+		}
+		catch(DBException e)
+		{
+			throw new LockingException("Could not obtain locks for table: " + tableName,e);
+		}
+		
+		return result[0];
+	}
+	
+	
+	/**
+	 * Releases the locks of a set of rows which are held by <code>user</code>,
+	 * with one <code>DELETE</code> per {@value #IN_LIST_SIZE} rows in one
+	 * transaction.
+	 * 
+	 * @param dataSource
+	 *            the data source of the {@link PessimisticLockTable}
+	 * @param tableName
+	 *            the name of the table the rows belong to
+	 * @param rows
+	 *            the rows to release
+	 * @param user
+	 *            the user who holds the locks
+	 * @return the count of removed lock entries
+	 * @throws LockingException
+	 *             if the lock table could not be accessed
+	 * @since 6.0.3
+	 */
+	public static int releaseRows(JDBCDataSource dataSource, final String tableName,
+			Collection<? extends RowIdentifier> rows, final UserIdentifier user)
+			throws LockingException
+	{
+		final List<String> rowIdentifiers = getRowIdentifiers(rows);
+		final int[] count = {0};
+		
+		try
+		{
+			final PessimisticLockTable lockVT = new PessimisticLockTable(dataSource);
+			
+			new Transaction(dataSource)
+			{
+				@Override
+				protected void write(DBConnection<?> connection) throws DBException
+				{
+					for(List<String> chunk : chunk(rowIdentifiers))
+					{
+						DELETE delete = new DELETE();
+						delete.FROM(lockVT);
+						delete.WHERE(PessimisticLockTable.tableName.eq("?"))
+								.AND(PessimisticLockTable.userID.eq("?"))
+								.AND(PessimisticLockTable.tableRowIdentifier.IN(placeholders(chunk
+										.size())));
+						
+						List<Object> params = new ArrayList<Object>();
+						params.add(tableName);
+						params.add(user.getUserId());
+						params.addAll(chunk);
+						count[0] += connection.write(delete,false,params.toArray())
+								.getAffectedRows();
+					}
+				}
+			}.execute();
+		}
+		catch(DBException e)
+		{
+			throw new LockingException("Could not remove locks for table: " + tableName,e);
+		}
+		
+		return count[0];
+	}
+	
+	
+	private static List<String> getRowIdentifiers(Collection<? extends RowIdentifier> rows)
+	{
+		Set<String> set = new LinkedHashSet<String>();
+		for(RowIdentifier row : rows)
+		{
+			set.add(row.getRowIdentifierString());
+		}
+		return new ArrayList<String>(set);
+	}
+	
+	
+	private static List<List<String>> chunk(List<String> list)
+	{
+		List<List<String>> chunks = new ArrayList<List<String>>();
+		for(int start = 0; start < list.size(); start += IN_LIST_SIZE)
+		{
+			chunks.add(list.subList(start,Math.min(start + IN_LIST_SIZE,list.size())));
+		}
+		return chunks;
+	}
+	
+	
+	private static Object[] placeholders(int count)
+	{
+		Object[] placeholders = new Object[count];
+		Arrays.fill(placeholders,"?");
+		return placeholders;
+	}
+	
+	
+	private static void readLockEntries(DBConnection<?> connection, PessimisticLockTable lockVT,
+			String tableName, List<String> rows, List<LockEntry> entries) throws DBException
+	{
+		SELECT select = new SELECT();
+		select.columns(PessimisticLockTable.tableRowIdentifier,PessimisticLockTable.validUntil,
+				PessimisticLockTable.userString,PessimisticLockTable.userID);
+		select.FROM(lockVT);
+		select.WHERE(PessimisticLockTable.tableName.eq("?")).AND(
+				PessimisticLockTable.tableRowIdentifier.IN(placeholders(rows.size())));
+		
+		List<Object> params = new ArrayList<Object>();
+		params.add(tableName);
+		params.addAll(rows);
+		
+		Result result = connection.query(select,params.toArray());
+		try
+		{
+			while(result.next())
+			{
+				entries.add(new LockEntry((String)result.getObject(0),(Date)result.getObject(1),
+						(String)result.getObject(2),((Number)result.getObject(3)).longValue()));
+			}
+		}
+		finally
+		{
+			result.close();
+		}
+	}
+	
+	
+	
+	/**
+	 * An entry of the {@link PessimisticLockTable}.
+	 */
+	static class LockEntry
+	{
+		final String	rowIdentifier;
+		final Date		validUntil;
+		final String	userString;
+		final long		userId;
+		
+		
+		LockEntry(String rowIdentifier, Date validUntil, String userString, long userId)
+		{
+			this.rowIdentifier = rowIdentifier;
+			this.validUntil = validUntil;
+			this.userString = userString;
+			this.userId = userId;
+		}
+	}
+	
+	
+	
+	/**
+	 * The statements of a bulk lock.
+	 */
+	static class LockPlan
+	{
+		final List<String>		inserts	= new ArrayList<String>();
+		final List<String>		updates	= new ArrayList<String>();
+		/**
+		 * Rows with expired entries of other users
+		 */
+		final List<String>		expired	= new ArrayList<String>();
+		final BulkLockResult	result	= new BulkLockResult();
+	}
+	
+	
+	/**
+	 * Decides for every row whether it is inserted, renewed or in conflict
+	 * with the lock of another user.
+	 */
+	static LockPlan planLocks(String tableName, List<String> rows, List<LockEntry> entries,
+			Date serverTime, long userId, String userString, long timeout)
+	{
+		Map<String, List<LockEntry>> entriesByRow = new HashMap<String, List<LockEntry>>();
+		for(LockEntry entry : entries)
+		{
+			List<LockEntry> list = entriesByRow.get(entry.rowIdentifier);
+			if(list == null)
+			{
+				entriesByRow.put(entry.rowIdentifier,list = new ArrayList<LockEntry>(1));
+			}
+			list.add(entry);
+		}
+		
+		LockPlan plan = new LockPlan();
+		for(String row : rows)
+		{
+			LockEntry own = null;
+			LockEntry blocking = null;
+			boolean expired = false;
+			
+			List<LockEntry> rowEntries = entriesByRow.get(row);
+			if(rowEntries != null)
+			{
+				for(LockEntry entry : rowEntries)
+				{
+					if(entry.userId == userId)
+					{
+						own = entry;
+					}
+					else if(entry.validUntil.getTime() >= serverTime.getTime())
+					{
+						blocking = entry;
+					}
+					else
+					{
+						expired = true;
+					}
+				}
+			}
+			
+			if(blocking != null)
+			{
+				long millisToTimeout = blocking.validUntil.getTime() - serverTime.getTime();
+				PessimisticLockInfo blockingInfo = new DefaultPessimisticLockInfo(tableName,
+						new Date(System.currentTimeMillis() + millisToTimeout),
+						blocking.userString,blocking.userId,row);
+				PessimisticLockInfo acquiringInfo = new DefaultPessimisticLockInfo(tableName,
+						new Date(System.currentTimeMillis() + timeout),userString,userId,row);
+				plan.result.addConflict(row,new RowAlreadyLockedException("Could not acquire lock "
+						+ tableName + "[" + row + "]",acquiringInfo,blockingInfo));
+				continue;
+			}
+			
+			if(expired)
+			{
+				plan.expired.add(row);
+			}
+			
+			if(own != null)
+			{
+				plan.updates.add(row);
+			}
+			else
+			{
+				plan.inserts.add(row);
+			}
+			plan.result.addLocked(row);
+		}
+		
+		return plan;
+	}
 }
@@ -0,0 +1,704 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package xdev.db.servlet;
+
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import xdev.db.Result;
+import xdev.io.XdevObjectIOConstants;
+import xdev.io.XdevObjectInputStream;
+import xdev.io.XdevObjectOutputStream;
+
+
+/**
+ * The column-major wire format of {@link ServletResult}s (
+ * {@link ServletServiceConstants#WIRE_FORMAT_COLUMNAR}).
+ * <p>
+ * The rows are sent in blocks of up to {@link #BLOCK_SIZE} rows. A block
+ * contains the values column by column, each column starts with a type
+ * header ({@link XdevObjectIOConstants}) and a null bitmap:
+ * <ul>
+ * <li>integers, longs and dates are written as zigzag varints of the
+ * difference to the previous value</li>
+ * <li>strings are dictionary encoded</li>
+ * <li>booleans are written as a bitmap</li>
+ * <li>columns with mixed or other types fall back to
+ * {@link XdevObjectOutputStream#writeObject(Object)}</li>
+ * </ul>
+ * Blocks are Deflate compressed if it pays off.
+ * </p>
+ *
+ * @author XDEV Software
+ * @since 6.0.3
+ */
+final class ColumnarResultFormat implements XdevObjectIOConstants
+{
+	static final int			BLOCK_SIZE				= 1024;
+
+	static final byte			COMPRESSION_NONE		= 0;
+	static final byte			COMPRESSION_DEFLATE		= 1;
+
+	/**
+	 * Smaller blocks are not compressed
+	 */
+	private static final int	MIN_COMPRESSION_SIZE	= 256;
+
+
+	private ColumnarResultFormat()
+	{
+	}
+
+
+	/**
+	 * Writes the remaining rows of <code>result</code> in blocks, terminated
+	 * by an empty block.
+	 */
+	static void write(final Result result, final XdevObjectOutputStream out,
+			final boolean compress) throws Exception
+	{
+		final int colCount = result.getColumnCount();
+		final Object[][] columns = new Object[colCount][BLOCK_SIZE];
+		final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		final Deflater deflater = compress ? new Deflater(Deflater.BEST_SPEED) : null;
+
+		try
+		{
+			int rows = 0;
+			while(result.next())
+			{
+				for(int col = 0; col < colCount; col++)
+				{
+					columns[col][rows] = result.getObject(col);
+				}
+				if(++rows == BLOCK_SIZE)
+				{
+					writeBlock(columns,rows,buffer,deflater,out);
+					rows = 0;
+				}
+			}
+			if(rows > 0)
+			{
+				writeBlock(columns,rows,buffer,deflater,out);
+			}
+			out.writeInt(0);
+		}
+		finally
+		{
+			if(deflater != null)
+			{
+				deflater.end();
+			}
+		}
+	}
+
+
+	private static void writeBlock(final Object[][] columns, final int rowCount,
+			final ByteArrayOutputStream buffer, final Deflater deflater,
+			final XdevObjectOutputStream out) throws Exception
+	{
+		buffer.reset();
+		final XdevObjectOutputStream body = new XdevObjectOutputStream(buffer);
+		for(final Object[] values : columns)
+		{
+			writeColumn(values,rowCount,body);
+		}
+		body.flush();
+
+		final byte[] raw = buffer.toByteArray();
+		byte compression = COMPRESSION_NONE;
+		byte[] data = raw;
+		int length = raw.length;
+
+		if(deflater != null && raw.length >= MIN_COMPRESSION_SIZE)
+		{
+			deflater.reset();
+			deflater.setInput(raw);
+			deflater.finish();
+			final byte[] compressed = new byte[raw.length];
+			final int compressedLength = deflater.deflate(compressed);
+			if(deflater.finished() && compressedLength < raw.length)
+			{
+				compression = COMPRESSION_DEFLATE;
+				data = compressed;
+				length = compressedLength;
+			}
+		}
+
+		out.writeInt(rowCount);
+		out.writeByte(compression);
+		out.writeInt(raw.length);
+		out.writeInt(length);
+		out.write(data,0,length);
+
+		for(final Object[] values : columns)
+		{
+			Arrays.fill(values,0,rowCount,null);
+		}
+	}
+
+
+	private static void writeColumn(final Object[] values, final int rowCount,
+			final XdevObjectOutputStream out) throws Exception
+	{
+		final byte type = getColumnType(values,rowCount);
+		out.writeByte(type);
+
+		switch(type)
+		{
+			case NULL:
+				return;
+
+			case OTHER:
+			{
+				for(int row = 0; row < rowCount; row++)
+				{
+					out.writeObject(values[row]);
+				}
+				return;
+			}
+		}
+
+		writeNullBitmap(values,rowCount,out);
+
+		switch(type)
+		{
+			case BYTE:
+			case SHORT:
+			case INTEGER:
+			case LONG:
+			{
+				long previous = 0;
+				for(int row = 0; row < rowCount; row++)
+				{
+					if(values[row] != null)
+					{
+						final long value = ((Number)values[row]).longValue();
+						writeVarLong(out,value - previous);
+						previous = value;
+					}
+				}
+			}
+			break;
+
+			case FLOAT:
+			{
+				for(int row = 0; row < rowCount; row++)
+				{
+					if(values[row] != null)
+					{
+						out.writeFloat((Float)values[row]);
+					}
+				}
+			}
+			break;
+
+			case DOUBLE:
+			{
+				for(int row = 0; row < rowCount; row++)
+				{
+					if(values[row] != null)
+					{
+						out.writeDouble((Double)values[row]);
+					}
+				}
+			}
+			break;
+
+			case BOOLEAN:
+			{
+				final byte[] bits = new byte[(rowCount + 7) >> 3];
+				for(int row = 0; row < rowCount; row++)
+				{
+					if(Boolean.TRUE.equals(values[row]))
+					{
+						bits[row >> 3] |= 1 << (row & 7);
+					}
+				}
+				out.write(bits);
+			}
+			break;
+
+			case STRING:
+			{
+				// code == dictionary size: a new string follows
+				final Map<String, Integer> dictionary = new HashMap<String, Integer>();
+				for(int row = 0; row < rowCount; row++)
+				{
+					if(values[row] != null)
+					{
+						final String value = (String)values[row];
+						final Integer code = dictionary.get(value);
+						if(code != null)
+						{
+							writeVarLong(out,code);
+						}
+						else
+						{
+							final int newCode = dictionary.size();
+							writeVarLong(out,newCode);
+							out.writeUTF(value);
+							dictionary.put(value,newCode);
+						}
+					}
+				}
+			}
+			break;
+
+			case SQL_DATE:
+			case SQL_TIME:
+			case UTIL_DATE:
+			case SQL_TIMESTAMP:
+			{
+				long previous = 0;
+				for(int row = 0; row < rowCount; row++)
+				{
+					if(values[row] != null)
+					{
+						final java.util.Date date = (java.util.Date)values[row];
+						final long time = date.getTime();
+						writeVarLong(out,time - previous);
+						previous = time;
+						if(type == SQL_TIMESTAMP)
+						{
+							// sub-millisecond part, the millis are in the time
+							writeVarLong(out,((java.sql.Timestamp)date).getNanos() % 1000000);
+						}
+					}
+				}
+			}
+			break;
+		}
+	}
+
+
+	private static byte getColumnType(final Object[] values, final int rowCount)
+	{
+		byte type = NULL;
+		for(int row = 0; row < rowCount; row++)
+		{
+			if(values[row] != null)
+			{
+				final byte valueType = getType(values[row]);
+				if(type == NULL)
+				{
+					type = valueType;
+				}
+				else if(valueType != type)
+				{
+					return OTHER;
+				}
+			}
+		}
+		return type;
+	}
+
+
+	private static byte getType(final Object value)
+	{
+		final Class<?> clazz = value.getClass();
+		if(clazz == Integer.class)
+		{
+			return INTEGER;
+		}
+		if(clazz == String.class)
+		{
+			return STRING;
+		}
+		if(clazz == Long.class)
+		{
+			return LONG;
+		}
+		if(clazz == Double.class)
+		{
+			return DOUBLE;
+		}
+		if(clazz == java.sql.Timestamp.class)
+		{
+			return SQL_TIMESTAMP;
+		}
+		if(clazz == java.sql.Date.class)
+		{
+			return SQL_DATE;
+		}
+		if(clazz == java.sql.Time.class)
+		{
+			return SQL_TIME;
+		}
+		if(clazz == java.util.Date.class)
+		{
+			return UTIL_DATE;
+		}
+		if(clazz == Boolean.class)
+		{
+			return BOOLEAN;
+		}
+		if(clazz == Short.class)
+		{
+			return SHORT;
+		}
+		if(clazz == Byte.class)
+		{
+			return BYTE;
+		}
+		if(clazz == Float.class)
+		{
+			return FLOAT;
+		}
+		return OTHER;
+	}
+
+
+	private static void writeNullBitmap(final Object[] values, final int rowCount,
+			final DataOutput out) throws IOException
+	{
+		byte[] bits = null;
+		for(int row = 0; row < rowCount; row++)
+		{
+			if(values[row] == null)
+			{
+				if(bits == null)
+				{
+					bits = new byte[(rowCount + 7) >> 3];
+				}
+				bits[row >> 3] |= 1 << (row & 7);
+			}
+		}
+
+		out.writeBoolean(bits != null);
+		if(bits != null)
+		{
+			out.write(bits);
+		}
+	}
+
+
+	/**
+	 * Reads the blocks written by
+	 * {@link #write(Result, XdevObjectOutputStream, boolean)}, the blocks are
+	 * not decoded yet.
+	 */
+	static List<Block> read(final XdevObjectInputStream in) throws IOException
+	{
+		final List<Block> blocks = new ArrayList<Block>();
+		int firstRow = 0;
+		int rowCount;
+		while((rowCount = in.readInt()) > 0)
+		{
+			final byte compression = in.readByte();
+			final int rawLength = in.readInt();
+			final byte[] data = new byte[in.readInt()];
+			in.readFully(data);
+			blocks.add(new Block(firstRow,rowCount,compression,rawLength,data));
+			firstRow += rowCount;
+		}
+		return blocks;
+	}
+
+
+
+	/**
+	 * A received block of rows.
+	 */
+	static final class Block
+	{
+		final int		firstRow;
+		final int		rowCount;
+		final byte		compression;
+		final int		rawLength;
+		final byte[]	data;
+
+
+		Block(final int firstRow, final int rowCount, final byte compression,
+				final int rawLength, final byte[] data)
+		{
+			this.firstRow = firstRow;
+			this.rowCount = rowCount;
+			this.compression = compression;
+			this.rawLength = rawLength;
+			this.data = data;
+		}
+
+
+		/**
+		 * Decodes the block.
+		 *
+		 * @param colCount
+		 *            the column count of the result
+		 * @param context
+		 *            the class loader context for serialized objects
+		 * @return the values as [column][row]
+		 */
+		Object[][] decode(final int colCount, final Object context) throws Exception
+		{
+			byte[] raw = this.data;
+			if(this.compression == COMPRESSION_DEFLATE)
+			{
+				raw = inflate();
+			}
+
+			final XdevObjectInputStream in = new XdevObjectInputStream(new ByteArrayInputStream(
+					raw),context);
+			final Object[][] columns = new Object[colCount][];
+			for(int col = 0; col < colCount; col++)
+			{
+				columns[col] = readColumn(in,this.rowCount);
+			}
+			return columns;
+		}
+
+
+		private byte[] inflate() throws DataFormatException
+		{
+			final byte[] raw = new byte[this.rawLength];
+			final Inflater inflater = new Inflater();
+			try
+			{
+				inflater.setInput(this.data);
+				int length = 0;
+				while(length < raw.length && !inflater.finished())
+				{
+					final int read = inflater.inflate(raw,length,raw.length - length);
+					if(read == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+					{
+						throw new DataFormatException("truncated block");
+					}
+					length += read;
+				}
+				return raw;
+			}
+			finally
+			{
+				inflater.end();
+			}
+		}
+	}
+
+
+	private static Object[] readColumn(final XdevObjectInputStream in, final int rowCount)
+			throws Exception
+	{
+		final Object[] values = new Object[rowCount];
+		final byte type = in.readByte();
+
+		switch(type)
+		{
+			case NULL:
+				return values;
+
+			case OTHER:
+			{
+				for(int row = 0; row < rowCount; row++)
+				{
+					values[row] = in.readObject();
+				}
+				return values;
+			}
+		}
+
+		byte[] nulls = null;
+		if(in.readBoolean())
+		{
+			nulls = new byte[(rowCount + 7) >> 3];
+			in.readFully(nulls);
+		}
+
+		switch(type)
+		{
+			case BYTE:
+			case SHORT:
+			case INTEGER:
+			case LONG:
+			{
+				long previous = 0;
+				for(int row = 0; row < rowCount; row++)
+				{
+					if(!isSet(nulls,row))
+					{
+						previous += readVarLong(in);
+						switch(type)
+						{
+							case BYTE:
+								values[row] = (byte)previous;
+							break;
+							case SHORT:
+								values[row] = (short)previous;
+							break;
+							case INTEGER:
+								values[row] = (int)previous;
+							break;
+							default:
+								values[row] = previous;
+						}
+					}
+				}
+			}
+			break;
+
+			case FLOAT:
+			{
+				for(int row = 0; row < rowCount; row++)
+				{
+					if(!isSet(nulls,row))
+					{
+						values[row] = in.readFloat();
+					}
+				}
+			}
+			break;
+
+			case DOUBLE:
+			{
+				for(int row = 0; row < rowCount; row++)
+				{
+					if(!isSet(nulls,row))
+					{
+						values[row] = in.readDouble();
+					}
+				}
+			}
+			break;
+
+			case BOOLEAN:
+			{
+				final byte[] bits = new byte[(rowCount + 7) >> 3];
+				in.readFully(bits);
+				for(int row = 0; row < rowCount; row++)
+				{
+					if(!isSet(nulls,row))
+					{
+						values[row] = isSet(bits,row);
+					}
+				}
+			}
+			break;
+
+			case STRING:
+			{
+				final List<String> dictionary = new ArrayList<String>();
+				for(int row = 0; row < rowCount; row++)
+				{
+					if(!isSet(nulls,row))
+					{
+						final int code = (int)readVarLong(in);
+						if(code == dictionary.size())
+						{
+							dictionary.add(in.readUTF());
+						}
+						values[row] = dictionary.get(code);
+					}
+				}
+			}
+			break;
+
+			case SQL_DATE:
+			case SQL_TIME:
+			case UTIL_DATE:
+			case SQL_TIMESTAMP:
+			{
+				long previous = 0;
+				for(int row = 0; row < rowCount; row++)
+				{
+					if(!isSet(nulls,row))
+					{
+						previous += readVarLong(in);
+						switch(type)
+						{
+							case SQL_DATE:
+								values[row] = new java.sql.Date(previous);
+							break;
+							case SQL_TIME:
+								values[row] = new java.sql.Time(previous);
+							break;
+							case UTIL_DATE:
+								values[row] = new java.util.Date(previous);
+							break;
+							default:
+							{
+								final java.sql.Timestamp timestamp = new java.sql.Timestamp(
+										previous);
+								timestamp.setNanos(timestamp.getNanos()
+										+ (int)readVarLong(in));
+								values[row] = timestamp;
+							}
+						}
+					}
+				}
+			}
+			break;
+
+			default:
+				throw new IOException("Unknown column type: " + type);
+		}
+
+		return values;
+	}
+
+
+	private static boolean isSet(final byte[] bits, final int index)
+	{
+		return bits != null && (bits[index >> 3] & (1 << (index & 7))) != 0;
+	}
+
+
+	/**
+	 * Writes a zigzag encoded varint.
+	 */
+	static void writeVarLong(final DataOutput out, final long value) throws IOException
+	{
+		long v = (value << 1) ^ (value >> 63);
+		while((v & ~0x7FL) != 0)
+		{
+			out.writeByte((int)((v & 0x7F) | 0x80));
+			v >>>= 7;
+		}
+		out.writeByte((int)v);
+	}
+
+
+	static long readVarLong(final DataInput in) throws IOException
+	{
+		long v = 0;
+		int shift = 0;
+		byte b;
+		do
+		{
+			if(shift > 63)
+			{
+				throw new IOException("Malformed varint");
+			}
+			b = in.readByte();
+			v |= (long)(b & 0x7F) << shift;
+			shift += 7;
+		}
+		while((b & 0x80) != 0);
+		return (v >>> 1) ^ -(v & 1);
+	}
+}
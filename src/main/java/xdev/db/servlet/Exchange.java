@@ -36,6 +36,7 @@ abstract class Exchange<Response> implements ServletServiceConstants
 	private URLConnection			con;
 	private XdevObjectInputStream	in;
 	private XdevObjectOutputStream	out;
+	private int						wireFormat	= WIRE_FORMAT_ROWS;
 	
 	
 	Exchange(SessionInfo info) throws Exception
@@ -53,6 +54,10 @@ abstract class Exchange<Response> implements ServletServiceConstants
 		sb.append(SESSIONID_PARAM);
 		sb.append("=");
 		sb.append(info.getSessionID());
+		sb.append("&");
+		sb.append(WIRE_FORMAT_PARAM);
+		sb.append("=");
+		sb.append(WIRE_FORMAT_COLUMNAR);
 		
 		con = new URL(sb.toString()).openConnection();
 		con.setDoOutput(true);
@@ -77,15 +82,20 @@ abstract class Exchange<Response> implements ServletServiceConstants
 			
 			InputStream conin = con.getInputStream();
 			byte responseType = (byte)conin.read();
+			// servers without the columnar format answer with type 0 or 1
+			wireFormat = responseType == RESPONSE_TYPE_2 || responseType == RESPONSE_TYPE_3
+					? WIRE_FORMAT_COLUMNAR : WIRE_FORMAT_ROWS;
 			switch(responseType)
 			{
 				case RESPONSE_TYPE_0:
+				case RESPONSE_TYPE_2:
 				{
 					in = new XdevObjectInputStream(conin);
 				}
 				break;
 				
 				case RESPONSE_TYPE_1:
+				case RESPONSE_TYPE_3:
 				{
 					Cipher cipher = Cipher.getInstance(MAC_ALGORITHM);
 					cipher.init(Cipher.DECRYPT_MODE,info.getSecretKey());
@@ -129,6 +139,15 @@ abstract class Exchange<Response> implements ServletServiceConstants
 	}
 	
 	
+	/**
+	 * Reads a result in the wire format of the current response.
+	 */
+	ServletResult readResult(XdevObjectInputStream in) throws Exception
+	{
+		return new ServletResult(in,wireFormat);
+	}
+	
+	
 	abstract void sendRequest(XdevObjectOutputStream out) throws Exception;
 	
 	
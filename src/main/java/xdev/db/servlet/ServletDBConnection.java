@@ -460,7 +460,7 @@ public class ServletDBConnection extends AbstractDBConnection<ServletDBDataSourc
 					Result generatedKeys = null;
 					if(in.readBoolean())
 					{
-						generatedKeys = new ServletResult(in);
+						generatedKeys = readResult(in);
 					}
 					
 					return new WriteResult(affectedRows,generatedKeys);
@@ -538,7 +538,7 @@ public class ServletDBConnection extends AbstractDBConnection<ServletDBDataSourc
 					Result generatedKeys = null;
 					if(in.readBoolean())
 					{
-						generatedKeys = new ServletResult(in);
+						generatedKeys = readResult(in);
 					}
 					
 					return new WriteResult(affectedRows,generatedKeys);
@@ -635,7 +635,7 @@ public class ServletDBConnection extends AbstractDBConnection<ServletDBDataSourc
 					{
 						case RESPONSE_STORED_PROCEDURE_RESULT:
 						{
-							procedure.setReturnValue(new ServletResult(in));
+							procedure.setReturnValue(readResult(in));
 						}
 						break;
 						
@@ -872,7 +872,7 @@ public class ServletDBConnection extends AbstractDBConnection<ServletDBDataSourc
 		@Override
 		ServletResult readResponse(XdevObjectInputStream in) throws Exception
 		{
-			return new ServletResult(in);
+			return readResult(in);
 		}
 	}
 	
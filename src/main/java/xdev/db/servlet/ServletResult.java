@@ -22,6 +22,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import xdev.db.ColumnMetaData;
+import xdev.db.DBException;
 import xdev.db.Result;
 import xdev.io.XdevObjectInputStream;
 import xdev.io.XdevObjectOutputStream;
@@ -50,15 +51,78 @@ public class ServletResult extends Result
 		out.writeBoolean(false);
 	}
 
-	private int					colCount;
-	private ColumnMetaData[]	metadata;
 
-	private Object[][]			data;
-	private int					currentRow		= -1;
-	private int					traversedRows	= 0;
+	/**
+	 * Writes <code>result</code> in the wire format negotiated with the client.
+	 *
+	 * @param result
+	 *            the result to write
+	 * @param out
+	 *            the response stream
+	 * @param wireFormat
+	 *            the negotiated wire format, see
+	 *            {@link ServletUtils#getWireFormat(String)}
+	 * @throws Exception
+	 *             if the result couldn't be read or written
+	 * @since 6.0.3
+	 */
+	public static void write(Result result, XdevObjectOutputStream out, int wireFormat)
+			throws Exception
+	{
+		if(wireFormat < ServletServiceConstants.WIRE_FORMAT_COLUMNAR)
+		{
+			write(result,out);
+			return;
+		}
+
+		int colCount = result.getColumnCount();
+		out.writeInt(colCount);
+
+		for(int i = 0; i < colCount; i++)
+		{
+			out.writeObject(result.getMetadata(i));
+		}
+
+		ColumnarResultFormat.write(result,out,true);
+	}
+
+	private int									colCount;
+	private ColumnMetaData[]					metadata;
+
+	private Object[][]							data;
+	private int									currentRow		= -1;
+	private int									traversedRows	= 0;
+
+	// columnar wire format: the received blocks, decoded on demand
+	private List<ColumnarResultFormat.Block>	blocks;
+	private int									rowCount;
+	private Object								context;
+	private ColumnarResultFormat.Block			currentBlock;
+	private Object[][]							currentBlockData;
 
 
 	public ServletResult(XdevObjectInputStream in) throws Exception
+	{
+		this(in,ServletServiceConstants.WIRE_FORMAT_ROWS);
+	}
+
+
+	/**
+	 * Reads a result in the wire format <code>wireFormat</code>.
+	 * <p>
+	 * In the columnar wire format the rows are not decoded before they are
+	 * traversed, only the compressed blocks are held in memory.
+	 * </p>
+	 *
+	 * @param in
+	 *            the response stream
+	 * @param wireFormat
+	 *            the wire format negotiated with the server
+	 * @throws Exception
+	 *             if the result couldn't be read
+	 * @since 6.0.3
+	 */
+	public ServletResult(XdevObjectInputStream in, int wireFormat) throws Exception
 	{
 		colCount = in.readInt();
 
@@ -68,6 +132,18 @@ public class ServletResult extends Result
 			metadata[i] = (ColumnMetaData)in.readObject();
 		}
 
+		if(wireFormat >= ServletServiceConstants.WIRE_FORMAT_COLUMNAR)
+		{
+			blocks = ColumnarResultFormat.read(in);
+			context = in.getContext();
+			if(!blocks.isEmpty())
+			{
+				ColumnarResultFormat.Block last = blocks.get(blocks.size() - 1);
+				rowCount = last.firstRow + last.rowCount;
+			}
+			return;
+		}
+
 		List<Object[]> list = new ArrayList();
 		while(in.readBoolean())
 		{
@@ -80,6 +156,7 @@ public class ServletResult extends Result
 		}
 		this.data = new Object[list.size()][];
 		list.toArray(this.data);
+		this.rowCount = this.data.length;
 	}
 
 
@@ -92,7 +169,7 @@ public class ServletResult extends Result
 			return false;
 		}
 
-		if(++currentRow < data.length)
+		if(++currentRow < rowCount)
 		{
 			traversedRows++;
 			return true;
@@ -111,9 +188,49 @@ public class ServletResult extends Result
 
 
 	@Override
-	public Object getObject(int col)
+	public Object getObject(int col) throws DBException
+	{
+		if(data != null)
+		{
+			return data[currentRow][col];
+		}
+
+		ColumnarResultFormat.Block block = currentBlock;
+		if(block == null || currentRow < block.firstRow
+				|| currentRow >= block.firstRow + block.rowCount)
+		{
+			block = findBlock(currentRow);
+			try
+			{
+				currentBlockData = block.decode(colCount,context);
+			}
+			catch(Exception e)
+			{
+				throw new DBException(getDataSource(),e);
+			}
+			currentBlock = block;
+		}
+		return currentBlockData[col][currentRow - block.firstRow];
+	}
+
+
+	private ColumnarResultFormat.Block findBlock(int row)
 	{
-		return data[currentRow][col];
+		int low = 0;
+		int high = blocks.size() - 1;
+		while(low < high)
+		{
+			int mid = (low + high + 1) >>> 1;
+			if(blocks.get(mid).firstRow <= row)
+			{
+				low = mid;
+			}
+			else
+			{
+				high = mid - 1;
+			}
+		}
+		return blocks.get(low);
 	}
 
 
@@ -136,5 +253,8 @@ public class ServletResult extends Result
 	{
 		metadata = null;
 		data = null;
+		blocks = null;
+		currentBlock = null;
+		currentBlockData = null;
 	}
 }
@@ -26,6 +26,23 @@ interface ServletServiceConstants
 	String	KEY_PARAM							= "key";
 	String	KEY_FROM_CERT						= "$CERT";
 	
+	/**
+	 * Request parameter with the highest wire format the client understands,
+	 * ignored by old servers.
+	 */
+	String	WIRE_FORMAT_PARAM					= "wf";
+	
+	/**
+	 * Results as rows of tagged values.
+	 */
+	int		WIRE_FORMAT_ROWS					= 1;
+	
+	/**
+	 * Results in compressed column-major blocks, see
+	 * {@link ColumnarResultFormat}.
+	 */
+	int		WIRE_FORMAT_COLUMNAR				= 2;
+	
 	String	SECRET_KEY_ALGORITHM				= "DESede";
 	String	KEY_EXCHANGE_ALGORITHM				= "DH";
 	String	MAC_ALGORITHM						= "DESede/ECB/PKCS5Padding";
@@ -59,6 +76,9 @@ interface ServletServiceConstants
 	
 	byte	RESPONSE_TYPE_0						= 0;
 	byte	RESPONSE_TYPE_1						= 1;
+	// like 0 and 1, with results in the columnar wire format
+	byte	RESPONSE_TYPE_2						= 2;
+	byte	RESPONSE_TYPE_3						= 3;
 	
 	byte	RESPONSE_OK							= 0;
 	byte	RESPONSE_EXCEPTION					= 1;
@@ -25,7 +25,13 @@ import java.security.ProtectionDomain;
 import java.security.cert.Certificate;
 
 
-class ServletUtils
+/**
+ * Utilities shared by the servlet database client and the servlet on the
+ * server side.
+ * 
+ * @author XDEV Software
+ */
+public final class ServletUtils
 {
 	private ServletUtils()
 	{
@@ -78,4 +84,62 @@ class ServletUtils
 			return key;
 		}
 	}
+	
+
+	/**
+	 * Negotiates the wire format of a request.
+	 * <p>
+	 * The servlet on the server side must call this method with the value of
+	 * the request parameter <code>wf</code>, answer with the response type of
+	 * {@link #getResponseType(boolean, int)} and write results with
+	 * {@link ServletResult#write(xdev.db.Result, xdev.io.XdevObjectOutputStream, int)}
+	 * in the negotiated format. Servers which don't, answer with the response types of
+	 * the row format, which the client falls back to.
+	 * </p>
+	 * 
+	 * @param requested
+	 *            the value of the request parameter <code>wf</code>,
+	 *            <code>null</code> for old clients
+	 * @return the highest wire format supported by both sides
+	 * @since 6.0.3
+	 */
+	public static int getWireFormat(String requested)
+	{
+		if(requested != null)
+		{
+			try
+			{
+				return Math.min(Integer.parseInt(requested),
+						ServletServiceConstants.WIRE_FORMAT_COLUMNAR);
+			}
+			catch(NumberFormatException e)
+			{
+			}
+		}
+		
+		return ServletServiceConstants.WIRE_FORMAT_ROWS;
+	}
+	
+
+	/**
+	 * Returns the response type, the first byte of the response, which the
+	 * servlet on the server side must write for the negotiated wire format.
+	 * 
+	 * @param encrypted
+	 *            <code>true</code> if the rest of the response is encrypted
+	 * @param wireFormat
+	 *            the wire format of {@link #getWireFormat(String)}
+	 * @return the response type byte for the negotiated wire format
+	 * @since 6.0.3
+	 */
+	public static byte getResponseType(boolean encrypted, int wireFormat)
+	{
+		if(wireFormat >= ServletServiceConstants.WIRE_FORMAT_COLUMNAR)
+		{
+			return encrypted ? ServletServiceConstants.RESPONSE_TYPE_3
+					: ServletServiceConstants.RESPONSE_TYPE_2;
+		}
+		return encrypted ? ServletServiceConstants.RESPONSE_TYPE_1
+				: ServletServiceConstants.RESPONSE_TYPE_0;
+	}
 }
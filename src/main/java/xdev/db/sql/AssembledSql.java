@@ -0,0 +1,175 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package xdev.db.sql;
+
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.xdev.jadoth.sqlengine.SQL;
+import com.xdev.jadoth.sqlengine.internal.DatabaseGateway;
+import com.xdev.jadoth.sqlengine.types.Query;
+
+
+/**
+ * The assembled SQL strings of a query object, one per DBMS adaptor and
+ * formatting mode.
+ * <p>
+ * A holder belongs to a query object as long as the query is not modified, on
+ * modification the query drops its holder. Structurally identical queries may
+ * share one holder, see {@link #shared(Object)}.
+ * </p>
+ * <p>
+ * Modifications of nested objects whose parent is unknown can't be traced back
+ * to the affected queries, they invalidate all holders, see
+ * {@link #invalidateAll()}.
+ * </p>
+ *
+ * @author XDEV Software
+ * @since 6.0.3
+ */
+final class AssembledSql
+{
+	private static final int					MAX_SHARED		= 256;
+
+	private static final AtomicInteger			generation		= new AtomicInteger();
+
+	/**
+	 * Holders of structurally identical queries, least recently used ones are
+	 * dropped
+	 */
+	private static final Map<Object, AssembledSql>	sharedHolders	= new LinkedHashMap<Object, AssembledSql>(
+			16,0.75f,true)
+	{
+		@Override
+		protected boolean removeEldestEntry(final Map.Entry<Object, AssembledSql> eldest)
+		{
+			return size() > MAX_SHARED;
+		}
+	};
+
+
+	/**
+	 * Returns the holder for all queries with the structure identified by
+	 * <code>structureKey</code>.
+	 */
+	static AssembledSql shared(final Object structureKey)
+	{
+		synchronized(sharedHolders)
+		{
+			AssembledSql holder = sharedHolders.get(structureKey);
+			if(holder == null)
+			{
+				sharedHolders.put(structureKey,holder = new AssembledSql());
+			}
+			return holder;
+		}
+	}
+
+
+	/**
+	 * Invalidates the assembled SQL of all queries.
+	 */
+	static void invalidateAll()
+	{
+		generation.incrementAndGet();
+	}
+
+
+
+	private static final class Entry
+	{
+		final Object	dbms;
+		final boolean	singleLine;
+		final boolean	packed;
+		final int		generation;
+		final String	sql;
+
+
+		Entry(final Object dbms, final boolean singleLine, final boolean packed,
+				final int generation, final String sql)
+		{
+			this.dbms = dbms;
+			this.singleLine = singleLine;
+			this.packed = packed;
+			this.generation = generation;
+			this.sql = sql;
+		}
+	}
+
+	private volatile Entry[]	entries	= new Entry[0];
+
+
+	/**
+	 * Returns the assembled SQL of <code>query</code>, assembles it only if
+	 * it's not present yet.
+	 */
+	String get(final Query query)
+	{
+		final DatabaseGateway<?> gateway = query.getDatabaseGatewayForExecution();
+		final Object dbms = gateway != null ? gateway.getDbmsAdaptor() : SQL
+				.getDefaultDMLAssembler();
+		final boolean singleLine = query.isSingleLineMode();
+		final boolean packed = query.isPacked();
+		final int generation = AssembledSql.generation.get();
+
+		for(final Entry entry : this.entries)
+		{
+			if(entry.dbms == dbms && entry.singleLine == singleLine && entry.packed == packed
+					&& entry.generation == generation)
+			{
+				return entry.sql;
+			}
+		}
+
+		final String sql = query.toString();
+		add(new Entry(dbms,singleLine,packed,generation,sql));
+		return sql;
+	}
+
+
+	private synchronized void add(final Entry newEntry)
+	{
+		final Entry[] entries = this.entries;
+		final Entry[] newEntries = new Entry[entries.length + 1];
+		int count = 0;
+		for(final Entry entry : entries)
+		{
+			// replace outdated ones
+			if(entry.generation == newEntry.generation
+					&& !(entry.dbms == newEntry.dbms && entry.singleLine == newEntry.singleLine
+							&& entry.packed == newEntry.packed))
+			{
+				newEntries[count++] = entry;
+			}
+		}
+		newEntries[count++] = newEntry;
+
+		if(count < newEntries.length)
+		{
+			final Entry[] trimmed = new Entry[count];
+			System.arraycopy(newEntries,0,trimmed,0,count);
+			this.entries = trimmed;
+		}
+		else
+		{
+			this.entries = newEntries;
+		}
+	}
+}
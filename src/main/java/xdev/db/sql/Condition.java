@@ -91,7 +91,7 @@ public class Condition extends SqlObject
 	 */
 	public static Condition EXISTS(SELECT subquery)
 	{
-		return new Condition(SQL.EXISTS(subquery.delegate()));
+		return new Condition(SQL.EXISTS((com.xdev.jadoth.sqlengine.SELECT)expose(subquery)));
 	}
 	
 	private final SqlCondition	delegate;
@@ -44,62 +44,71 @@ public class DELETE extends WritingQuery implements Copyable<DELETE>
 	public DELETE FROM(Table table)
 	{
 		delegate.FROM(table.delegate());
+		modified();
 		return this;
 	}
 	
 	
 	public DELETE FROM(SELECT select)
 	{
-		delegate.FROM(select.delegate());
+		delegate.FROM((com.xdev.jadoth.sqlengine.SELECT)nest(select));
+		modified();
 		return this;
 	}
 	
 	
 	public DELETE AND(Object condition)
 	{
-		delegate.AND(expose(condition));
+		delegate.AND(nest(condition));
+		modified();
 		return this;
 	}
 	
 	
 	public DELETE OR(Object condition)
 	{
-		delegate.OR(expose(condition));
+		delegate.OR(nest(condition));
+		modified();
 		return this;
 	}
 	
 	
 	public DELETE INNER_JOIN(Table table, Object condition)
 	{
-		delegate.INNER_JOIN(table.delegate(),expose(condition));
+		delegate.INNER_JOIN(table.delegate(),nest(condition));
+		modified();
 		return this;
 	}
 	
 	
 	public DELETE OUTER_JOIN(Table table, Object condition)
 	{
-		delegate.OUTER_JOIN(table.delegate(),expose(condition));
+		delegate.OUTER_JOIN(table.delegate(),nest(condition));
+		modified();
 		return this;
 	}
 	
 	
 	public DELETE LEFT_JOIN(Table table, Object condition)
 	{
-		delegate.LEFT_JOIN(table.delegate(),expose(condition));
+		delegate.LEFT_JOIN(table.delegate(),nest(condition));
+		modified();
 		return this;
 	}
 	
 	
 	public DELETE RIGHT_JOIN(Table table, Object condition)
 	{
-		delegate.RIGHT_JOIN(table.delegate(),expose(condition));
+		delegate.RIGHT_JOIN(table.delegate(),nest(condition));
+		modified();
 		return this;
 	}
 	
 	
 	public DELETE WHERE(Object condition)
 	{
-		delegate.WHERE(expose(condition));
+		delegate.WHERE(nest(condition));
+		modified();
 		return this;
 	}
 	
@@ -107,6 +116,6 @@ public class DELETE extends WritingQuery implements Copyable<DELETE>
 	@Override
 	public DELETE clone()
 	{
-		return new DELETE(delegate.copy());
+		return copyAssemblyTo(new DELETE(delegate.copy()));
 	}
 }
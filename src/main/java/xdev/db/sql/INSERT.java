@@ -44,41 +44,47 @@ public class INSERT extends WritingQuery implements Copyable<INSERT>
 	public INSERT INTO(Table table)
 	{
 		delegate.INTO(table.delegate());
+		modified();
 		return this;
 	}
 	
 	
 	public INSERT columns(Object... columns)
 	{
-		delegate.columns(expose(columns));
+		delegate.columns(nest(columns));
+		modified();
 		return this;
 	}
 	
 	
 	public INSERT VALUES(Object... columns)
 	{
-		delegate.VALUES(expose(columns));
+		delegate.VALUES(nest(columns));
+		modified();
 		return this;
 	}
 	
 	
 	public INSERT assign(Object column, Object value)
 	{
-		delegate.assign(expose(column),expose(value));
+		delegate.assign(nest(column),nest(value));
+		modified();
 		return this;
 	}
 	
 	
 	public INSERT select(SELECT select)
 	{
-		delegate.select(select.delegate());
+		delegate.select((com.xdev.jadoth.sqlengine.SELECT)nest(select));
+		modified();
 		return this;
 	}
 	
 	
 	public INSERT filter(Object... fields)
 	{
-		delegate.filter(expose(fields));
+		delegate.filter(nest(fields));
+		modified();
 		return this;
 	}
 	
@@ -86,6 +92,6 @@ public class INSERT extends WritingQuery implements Copyable<INSERT>
 	@Override
 	public INSERT clone()
 	{
-		return new INSERT(delegate.copy());
+		return copyAssemblyTo(new INSERT(delegate.copy()));
 	}
 }
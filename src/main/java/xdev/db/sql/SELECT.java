@@ -18,8 +18,11 @@
 package xdev.db.sql;
 
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
+import com.xdev.jadoth.sqlengine.internal.JoinClause;
 import com.xdev.jadoth.sqlengine.internal.ORDER_BY;
 import com.xdev.jadoth.sqlengine.internal.SqlColumn;
 import com.xdev.jadoth.sqlengine.internal.SqlExpression;
@@ -83,6 +86,7 @@ public class SELECT extends SqlObject implements Copyable<SELECT>
 	public SELECT DISTINCT()
 	{
 		delegate.DISTINCT();
+		modified();
 		return this;
 	}
 	
@@ -95,7 +99,8 @@ public class SELECT extends SqlObject implements Copyable<SELECT>
 	 */
 	public SELECT columns(Object... columns)
 	{
-		delegate.columns(expose(columns));
+		delegate.columns(nest(columns));
+		modified();
 		return this;
 	}
 	
@@ -111,6 +116,37 @@ public class SELECT extends SqlObject implements Copyable<SELECT>
 	}
 	
 	
+	/**
+	 * Checks if this SELECT selects the column <code>name</code>, either by a
+	 * select item for the column or by selecting all columns.
+	 * 
+	 * @param name
+	 *            the name of the column
+	 * @return <code>true</code> if the column is part of the result
+	 * @since 6.0.3
+	 */
+	public boolean selectsColumn(String name)
+	{
+		List<SelectItem> items = delegate.getSelectItems();
+		if(items == null || items.isEmpty())
+		{
+			// SELECT *
+			return true;
+		}
+		
+		for(SelectItem item : items)
+		{
+			if(item instanceof SqlColumn
+					&& name.equalsIgnoreCase(((SqlColumn)item).getColumnName()))
+			{
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
+	
 	public void ensureNameOfLastColumn(String name)
 	{
 		List<SelectItem> items = delegate.getSelectItems();
@@ -143,6 +179,7 @@ public class SELECT extends SqlObject implements Copyable<SELECT>
 				{
 					// Don't add alias if it has the same name
 					items.set(index,((SqlExpression)item).AS(name));
+					modified();
 				}
 			}
 		}
@@ -152,62 +189,71 @@ public class SELECT extends SqlObject implements Copyable<SELECT>
 	public SELECT FROM(Table table)
 	{
 		delegate.FROM(table.delegate());
+		modified();
 		return this;
 	}
 	
 	
 	public SELECT FROM(SELECT select)
 	{
-		delegate.FROM(select.delegate);
+		delegate.FROM((com.xdev.jadoth.sqlengine.SELECT)nest(select));
+		modified();
 		return this;
 	}
 	
 	
 	public SELECT AND(Object condition)
 	{
-		delegate.AND(expose(condition));
+		delegate.AND(nest(condition));
+		modified();
 		return this;
 	}
 	
 	
 	public SELECT OR(Object condition)
 	{
-		delegate.OR(expose(condition));
+		delegate.OR(nest(condition));
+		modified();
 		return this;
 	}
 	
 	
 	public SELECT INNER_JOIN(Table table, Object condition)
 	{
-		delegate.INNER_JOIN(table.delegate(),expose(condition));
+		delegate.INNER_JOIN(table.delegate(),nest(condition));
+		modified();
 		return this;
 	}
 	
 	
 	public SELECT OUTER_JOIN(Table table, Object condition)
 	{
-		delegate.OUTER_JOIN(table.delegate(),expose(condition));
+		delegate.OUTER_JOIN(table.delegate(),nest(condition));
+		modified();
 		return this;
 	}
 	
 	
 	public SELECT LEFT_JOIN(Table table, Object condition)
 	{
-		delegate.LEFT_JOIN(table.delegate(),expose(condition));
+		delegate.LEFT_JOIN(table.delegate(),nest(condition));
+		modified();
 		return this;
 	}
 	
 	
 	public SELECT RIGHT_JOIN(Table table, Object condition)
 	{
-		delegate.RIGHT_JOIN(table.delegate(),expose(condition));
+		delegate.RIGHT_JOIN(table.delegate(),nest(condition));
+		modified();
 		return this;
 	}
 	
 	
 	public SELECT WHERE(Object condition)
 	{
-		delegate.WHERE(expose(condition));
+		delegate.WHERE(nest(condition));
+		modified();
 		return this;
 	}
 	
@@ -215,7 +261,15 @@ public class SELECT extends SqlObject implements Copyable<SELECT>
 	public WHERE getWhere()
 	{
 		com.xdev.jadoth.sqlengine.internal.WHERE where = delegate.getWhereClause();
-		return where != null ? new WHERE(where) : null;
+		if(where == null)
+		{
+			return null;
+		}
+		
+		// modifications of the view are changes of this select
+		WHERE view = new WHERE(where);
+		view.adopt(this);
+		return view;
 	}
 	
 	
@@ -233,7 +287,7 @@ public class SELECT extends SqlObject implements Copyable<SELECT>
 	
 	public SELECT ORDER_BY(Object item, Boolean desc, Boolean nullsFirst)
 	{
-		return orderByImpl(new SqlOrderItem(expose(item),desc,nullsFirst));
+		return orderByImpl(new SqlOrderItem(nest(item),desc,nullsFirst));
 	}
 	
 	
@@ -244,39 +298,65 @@ public class SELECT extends SqlObject implements Copyable<SELECT>
 		{
 			delegate.setOrderByClause(orderBy = new ORDER_BY());
 		}
-		orderBy.add(expose(item));
+		orderBy.add(nest(item));
+		modified();
 		return this;
 	}
 	
 	
+	/**
+	 * @return <code>true</code> if this SELECT has an ORDER BY clause
+	 * @since 6.0.3
+	 */
+	public boolean hasOrderBy()
+	{
+		ORDER_BY orderBy = delegate.getOrderByClause();
+		return orderBy != null && !orderBy.isEmpty();
+	}
+	
+	
 	/**
 	 * @since 4.0
 	 */
 	public void clear_ORDER_BY()
 	{
 		delegate.setOrderByClause(null);
+		modified();
 	}
 	
 	
 	public SELECT GROUP_BY(Object... fields)
 	{
-		delegate.GROUP_BY(expose(fields));
+		delegate.GROUP_BY(nest(fields));
+		modified();
 		return this;
 	}
 	
 	
+	/**
+	 * @return <code>true</code> if this SELECT has a GROUP BY clause
+	 * @since 6.0.3
+	 */
+	public boolean hasGroupBy()
+	{
+		return delegate.getGroupByClause() != null;
+	}
+	
+	
 	/**
 	 * @since 4.0
 	 */
 	public void clear_GROUP_BY()
 	{
 		delegate.setGroupByClause(null);
+		modified();
 	}
 	
 	
 	public SELECT HAVING(Object condition)
 	{
-		delegate.HAVING(expose(condition));
+		delegate.HAVING(nest(condition));
+		modified();
 		return this;
 	}
 	
@@ -290,6 +370,7 @@ public class SELECT extends SqlObject implements Copyable<SELECT>
 		if(having != null)
 		{
 			having.getBody().clear();
+			modified();
 		}
 	}
 	
@@ -297,6 +378,7 @@ public class SELECT extends SqlObject implements Copyable<SELECT>
 	public SELECT OFFSET(Integer offset)
 	{
 		delegate.OFFSET(offset);
+		modified();
 		return this;
 	}
 	
@@ -310,6 +392,7 @@ public class SELECT extends SqlObject implements Copyable<SELECT>
 	public SELECT FETCH_FIRST(Integer limit)
 	{
 		delegate.FETCH_FIRST(limit);
+		modified();
 		return this;
 	}
 	
@@ -322,21 +405,111 @@ public class SELECT extends SqlObject implements Copyable<SELECT>
 	
 	public SELECT UNION(SELECT unionSelect)
 	{
-		delegate.UNION(unionSelect.delegate);
+		delegate.UNION((com.xdev.jadoth.sqlengine.SELECT)nest(unionSelect));
+		modified();
 		return this;
 	}
 	
 	
 	public SELECT UNION_All(SELECT unionAllSelect)
 	{
-		delegate.UNION_All(unionAllSelect.delegate);
+		delegate.UNION_All((com.xdev.jadoth.sqlengine.SELECT)nest(unionAllSelect));
+		modified();
 		return this;
 	}
 	
 	
+	/**
+	 * @return <code>true</code> if this SELECT is a SELECT DISTINCT
+	 * @since 6.0.3
+	 */
+	public boolean isDistinct()
+	{
+		return delegate.isDistinct();
+	}
+	
+	
+	/**
+	 * @return <code>true</code> if this SELECT joins other tables
+	 * @since 6.0.3
+	 */
+	public boolean hasJoins()
+	{
+		return delegate.getJoinCount() > 0;
+	}
+	
+	
+	/**
+	 * Checks if every join of this SELECT is also a join of
+	 * <code>select</code>, with the same table, alias and condition. The kind
+	 * of the joins is not compared.
+	 * 
+	 * @param select
+	 *            the SELECT to compare with
+	 * @return <code>true</code> if this SELECT only has joins of
+	 *         <code>select</code>
+	 * @since 6.0.3
+	 */
+	public boolean hasOnlyJoinsOf(SELECT select)
+	{
+		if(!hasJoins())
+		{
+			return true;
+		}
+		
+		Set<String> joins = new HashSet();
+		if(select.hasJoins())
+		{
+			for(JoinClause join : select.delegate.getJoins())
+			{
+				joins.add(getJoinKey(join));
+			}
+		}
+		
+		for(JoinClause join : delegate.getJoins())
+		{
+			if(!joins.contains(getJoinKey(join)))
+			{
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	
+	private static String getJoinKey(JoinClause join)
+	{
+		return join.getTable() + " " + join.getAlias() + " ON " + join.getJoinCondition();
+	}
+	
+	
+	/**
+	 * @return <code>true</code> if this SELECT reads from a sub select
+	 * @since 6.0.3
+	 */
+	public boolean isFromSelect()
+	{
+		return delegate.getTable() instanceof com.xdev.jadoth.sqlengine.SELECT;
+	}
+	
+	
+	/**
+	 * @return <code>true</code> if this SELECT is combined with another one,
+	 *         e.g. by UNION
+	 * @since 6.0.3
+	 */
+	public boolean isCompound()
+	{
+		return delegate.getUnionSelect() != null || delegate.getUnionAllSelect() != null
+				|| delegate.getIntersectSelect() != null || delegate.getExceptSelect() != null;
+	}
+	
+	
 	public SELECT AS(String newAlias)
 	{
 		delegate.AS(newAlias);
+		modified();
 		return this;
 	}
 	
@@ -347,13 +520,49 @@ public class SELECT extends SqlObject implements Copyable<SELECT>
 	@Override
 	public SELECT clone()
 	{
-		return new SELECT(delegate.copy());
+		return copyAssemblyTo(new SELECT(delegate.copy()));
+	}
+	
+	
+	/**
+	 * Declares this SELECT to be structurally identical to all other SELECT
+	 * objects which are marked with an equal <code>structureKey</code>, so the
+	 * SQL string is assembled only once for all of them.
+	 * <p>
+	 * As soon as this SELECT is modified it is no longer bound to the shared
+	 * SQL.
+	 * </p>
+	 * 
+	 * @param structureKey
+	 *            a key which identifies the structure of this SELECT, e.g. the
+	 *            table and column names, must implement
+	 *            {@link Object#equals(Object)} and {@link Object#hashCode()}
+	 * @return this SELECT
+	 * @since 6.0.3
+	 */
+	public SELECT shareAssembledSql(Object structureKey)
+	{
+		shareAssembly(structureKey);
+		return this;
 	}
 	
 	
+	@Override
+	boolean isModifiable()
+	{
+		return true;
+	}
+	
+	
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The assembled SQL is cached per DBMS until this SELECT is modified.
+	 * </p>
+	 */
 	@Override
 	public String toString()
 	{
-		return delegate.toString();
+		return assemble(delegate);
 	}
 }
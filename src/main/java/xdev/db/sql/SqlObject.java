@@ -20,6 +20,8 @@ package xdev.db.sql;
 
 import java.io.Serializable;
 
+import com.xdev.jadoth.sqlengine.types.Query;
+
 import xdev.lang.NotNull;
 
 
@@ -35,10 +37,172 @@ import xdev.lang.NotNull;
  */
 public abstract class SqlObject implements Serializable
 {
+	/**
+	 * The query this object is nested in, modifications are reported to it.
+	 */
+	private SqlObject					owner;
+	
+	/**
+	 * <code>true</code> if the queries this object is nested in are unknown
+	 */
+	private boolean						shared;
+	
+	/**
+	 * <code>true</code> if other modifiable objects are nested in this one
+	 */
+	private boolean						composite;
+	
+	/**
+	 * <code>true</code> if nested objects don't report their modifications to
+	 * this one, the assembled SQL isn't cached then
+	 */
+	private boolean						untracked;
+	
+	private transient AssembledSql		assembly;
+	
+	
 	abstract @NotNull
 	Object delegate();
 	
 	
+	/**
+	 * @return <code>true</code> if this object can be modified after it has
+	 *         been created
+	 */
+	boolean isModifiable()
+	{
+		return false;
+	}
+	
+	
+	/**
+	 * Has to be called after every structural change of this object.
+	 */
+	void modified()
+	{
+		this.assembly = null;
+		
+		if(this.shared)
+		{
+			AssembledSql.invalidateAll();
+		}
+		else if(this.owner != null)
+		{
+			this.owner.modified();
+		}
+	}
+	
+	
+	void adopt(final SqlObject parent)
+	{
+		if(this.owner == null && !this.shared)
+		{
+			this.owner = parent;
+		}
+		else if(this.owner != parent)
+		{
+			this.owner = null;
+			this.shared = true;
+		}
+	}
+	
+	
+	/**
+	 * Like {@link #expose(Object)}, but records <code>obj</code> as part of
+	 * this object.
+	 */
+	Object nest(final Object obj)
+	{
+		if(obj instanceof SqlObject)
+		{
+			final SqlObject part = (SqlObject)obj;
+			if(part.isModifiable())
+			{
+				part.adopt(this);
+				this.composite = true;
+			}
+			return part.delegate();
+		}
+		
+		return obj;
+	}
+	
+	
+	Object[] nest(final Object... objects)
+	{
+		if(objects == null)
+		{
+			return null;
+		}
+		
+		int c = objects.length;
+		Object[] nested = new Object[c];
+		for(int i = 0; i < c; i++)
+		{
+			nested[i] = nest(objects[i]);
+		}
+		return nested;
+	}
+	
+	
+	/**
+	 * Hands the assembled SQL of this object to <code>copy</code>, which has
+	 * to be structurally identical.
+	 */
+	<T extends SqlObject> T copyAssemblyTo(final T copy)
+	{
+		final SqlObject target = copy;
+		if(this.composite || this.untracked)
+		{
+			// the copy shares the nested objects, which don't know it
+			target.untracked = true;
+		}
+		else
+		{
+			if(this.assembly == null)
+			{
+				this.assembly = new AssembledSql();
+			}
+			target.assembly = this.assembly;
+		}
+		
+		return copy;
+	}
+	
+	
+	/**
+	 * Uses the assembled SQL of all objects with the same
+	 * <code>structureKey</code>.
+	 */
+	void shareAssembly(final Object structureKey)
+	{
+		if(!this.composite && !this.untracked)
+		{
+			this.assembly = AssembledSql.shared(structureKey);
+		}
+	}
+	
+	
+	/**
+	 * Returns the SQL of <code>query</code>, which is the delegate of this
+	 * object. It is assembled only once as long as this object isn't modified.
+	 */
+	String assemble(final Query query)
+	{
+		if(this.untracked)
+		{
+			return query.toString();
+		}
+		
+		AssembledSql assembly = this.assembly;
+		if(assembly == null)
+		{
+			this.assembly = assembly = new AssembledSql();
+		}
+		return assembly.get(query);
+	}
+	
+	
 	/**
 	 * {@inheritDoc}
 	 */
@@ -53,7 +217,14 @@ public abstract class SqlObject implements Serializable
 	{
 		if(obj instanceof SqlObject)
 		{
-			return ((SqlObject)obj).delegate();
+			final SqlObject part = (SqlObject)obj;
+			if(part.isModifiable())
+			{
+				// nested somewhere we don't know
+				part.owner = null;
+				part.shared = true;
+			}
+			return part.delegate();
 		}
 		
 		return obj;
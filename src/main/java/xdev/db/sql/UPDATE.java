@@ -43,63 +43,72 @@ public class UPDATE extends WritingQuery implements Copyable<UPDATE>
 	
 	public UPDATE SET(Object column, Object value)
 	{
-		delegate.SET(expose(column),expose(value));
+		delegate.SET(nest(column),nest(value));
+		modified();
 		return this;
 	}
 	
 	
 	public UPDATE AND(Object condition)
 	{
-		delegate.AND(expose(condition));
+		delegate.AND(nest(condition));
+		modified();
 		return this;
 	}
 	
 	
 	public UPDATE OR(Object condition)
 	{
-		delegate.OR(expose(condition));
+		delegate.OR(nest(condition));
+		modified();
 		return this;
 	}
 	
 	
 	public UPDATE FROM(SELECT select)
 	{
-		delegate.FROM(select.delegate());
+		delegate.FROM((com.xdev.jadoth.sqlengine.SELECT)nest(select));
+		modified();
 		return this;
 	}
 	
 	
 	public UPDATE INNER_JOIN(Table table, Object condition)
 	{
-		delegate.INNER_JOIN(table.delegate(),expose(condition));
+		delegate.INNER_JOIN(table.delegate(),nest(condition));
+		modified();
 		return this;
 	}
 	
 	
 	public UPDATE OUTER_JOIN(Table table, Object condition)
 	{
-		delegate.OUTER_JOIN(table.delegate(),expose(condition));
+		delegate.OUTER_JOIN(table.delegate(),nest(condition));
+		modified();
 		return this;
 	}
 	
 	
 	public UPDATE LEFT_JOIN(Table table, Object condition)
 	{
-		delegate.LEFT_JOIN(table.delegate(),expose(condition));
+		delegate.LEFT_JOIN(table.delegate(),nest(condition));
+		modified();
 		return this;
 	}
 	
 	
 	public UPDATE RIGHT_JOIN(Table table, Object condition)
 	{
-		delegate.RIGHT_JOIN(table.delegate(),expose(condition));
+		delegate.RIGHT_JOIN(table.delegate(),nest(condition));
+		modified();
 		return this;
 	}
 	
 	
 	public UPDATE WHERE(Object condition)
 	{
-		delegate.WHERE(expose(condition));
+		delegate.WHERE(nest(condition));
+		modified();
 		return this;
 	}
 	
@@ -107,6 +116,6 @@ public class UPDATE extends WritingQuery implements Copyable<UPDATE>
 	@Override
 	public UPDATE clone()
 	{
-		return new UPDATE(delegate.copy());
+		return copyAssemblyTo(new UPDATE(delegate.copy()));
 	}
 }
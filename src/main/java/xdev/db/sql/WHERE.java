@@ -60,14 +60,16 @@ public class WHERE extends SqlObject implements Copyable<WHERE>
 	
 	public WHERE and(Object condition)
 	{
-		delegate.AND(expose(condition));
+		delegate.AND(nest(condition));
+		modified();
 		return this;
 	}
 	
 	
 	public WHERE or(Object condition)
 	{
-		delegate.OR(expose(condition));
+		delegate.OR(nest(condition));
+		modified();
 		return this;
 	}
 	
@@ -84,10 +86,18 @@ public class WHERE extends SqlObject implements Copyable<WHERE>
 		List<SqlCondition> body = delegate.getBody();
 		body.clear();
 		body.add(par);
+		modified();
 		return this;
 	}
 	
 	
+	@Override
+	boolean isModifiable()
+	{
+		return true;
+	}
+	
+	
 	@Override
 	public WHERE clone()
 	{
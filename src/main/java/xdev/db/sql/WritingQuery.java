@@ -41,9 +41,22 @@ public abstract class WritingQuery extends SqlObject
 	}
 	
 	
+	@Override
+	boolean isModifiable()
+	{
+		return true;
+	}
+	
+	
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The assembled SQL is cached per DBMS until this query is modified.
+	 * </p>
+	 */
 	@Override
 	public String toString()
 	{
-		return delegate.toString();
+		return assemble(delegate);
 	}
 }
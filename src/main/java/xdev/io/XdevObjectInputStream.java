@@ -50,6 +50,17 @@ public class XdevObjectInputStream extends DataInputStream implements XdevObject
 	}
 
 
+	/**
+	 * @return the class loader context for de-serialization, may be
+	 *         <code>null</code>
+	 * @since 6.0.3
+	 */
+	public Object getContext()
+	{
+		return this.context;
+	}
+
+
 	public Object readObject() throws Exception
 	{
 		Object o = null;
@@ -43,6 +43,7 @@ public class CSVParser
 	
 	private String				pending;
 	private boolean				inField								= false;
+	private boolean				scanPending							= false;
 	
 	private final boolean		ignoreLeadingWhiteSpace;
 	
@@ -234,6 +235,12 @@ public class CSVParser
 			pending = null;
 			inQuotes = true;
 		}
+		else
+		{
+			// a new record starts, the field state of the last one doesn't
+			// matter
+			inField = false;
+		}
 		int len = nextLine.length();
 		for(int i = 0; i < len; i++)
 		{			
@@ -342,6 +349,104 @@ public class CSVParser
 	}
 	
 
+	/**
+	 * Parses the lines of one record like {@link CSVReader#readNext()}, e.g.
+	 * the lines read by {@link CSVReader#readRawRecords(int)}.
+	 * 
+	 * @param lines
+	 *            the lines of the record
+	 * @return the elements of the record, or <code>null</code> if the record
+	 *         contains no complete element
+	 * @throws IOException
+	 *             if bad things happen during the read
+	 * @since 6.0.3
+	 */
+	public String[] parseRecord(String[] lines) throws IOException
+	{
+		pending = null;
+		
+		String[] result = null;
+		for(String line : lines)
+		{
+			String[] r = parseLineMulti(line);
+			if(r.length > 0)
+			{
+				if(result == null)
+				{
+					result = r;
+				}
+				else
+				{
+					String[] t = new String[result.length + r.length];
+					System.arraycopy(result,0,t,0,result.length);
+					System.arraycopy(r,0,t,result.length,r.length);
+					result = t;
+				}
+			}
+		}
+		
+		pending = null;
+		return result;
+	}
+	
+
+	/**
+	 * Follows the quote state of a line like {@link #parseLineMulti(String)},
+	 * but doesn't create any tokens. Used to split a stream into records
+	 * before they are parsed.
+	 * 
+	 * @param nextLine
+	 *            the line to scan
+	 * @return <code>true</code> if the line ends in a quoted section, the
+	 *         record continues on the next line
+	 * @since 6.0.3
+	 */
+	public boolean scanLineMulti(String nextLine)
+	{
+		boolean inQuotes = scanPending;
+		if(!inQuotes)
+		{
+			inField = false;
+		}
+		
+		int len = nextLine.length();
+		for(int i = 0; i < len; i++)
+		{
+			char c = nextLine.charAt(i);
+			if(c == this.escape)
+			{
+				if(isNextCharacterEscapable(nextLine,inQuotes || inField,i))
+				{
+					i++;
+				}
+			}
+			else if(c == quotechar)
+			{
+				if(isNextCharacterEscapedQuote(nextLine,inQuotes || inField,i))
+				{
+					i++;
+				}
+				else
+				{
+					inQuotes = !inQuotes;
+				}
+				inField = !inField;
+			}
+			else if(c == separator && !inQuotes)
+			{
+				inField = false;
+			}
+			else if(!strictQuotes || inQuotes)
+			{
+				inField = true;
+			}
+		}
+		
+		scanPending = inQuotes;
+		return inQuotes;
+	}
+	
+
 	/**
 	 * precondition: the current character is a quote or an escape.
 	 * 
@@ -40,6 +40,8 @@ public class CSVReader implements Closeable
 	
 	private CSVParser		parser;
 	
+	private CSVParser		scanner;
+	
 	private int				skipLines;
 	
 	private boolean			linesSkiped;
@@ -220,6 +222,8 @@ public class CSVReader implements Closeable
 	{
 		this.br = new BufferedReader(reader);
 		this.parser = new CSVParser(separator,quotechar,escape,strictQuotes,ignoreLeadingWhiteSpace);
+		this.scanner = new CSVParser(separator,quotechar,escape,strictQuotes,
+				ignoreLeadingWhiteSpace);
 		this.skipLines = line;
 	}
 	
@@ -289,6 +293,57 @@ public class CSVReader implements Closeable
 	}
 	
 
+	/**
+	 * Reads the lines of the next records without parsing them. A record
+	 * consists of more than one line if a quoted section contains line breaks.
+	 * The records can be parsed independently with
+	 * {@link CSVParser#parseRecord(String[])}, e.g. in parallel.
+	 * 
+	 * @param maxRecords
+	 *            the maximum count of records to read
+	 * @return the lines of the records, an empty list at the end of the stream
+	 * @throws IOException
+	 *             if bad things happen during the read
+	 * @since 6.0.3
+	 */
+	public List<String[]> readRawRecords(int maxRecords) throws IOException
+	{
+		List<String[]> records = new ArrayList<String[]>(maxRecords);
+		String[] record = null;
+		while(record != null || (records.size() < maxRecords && hasNext))
+		{
+			String nextLine = getNextLine();
+			if(!hasNext)
+			{
+				if(record != null)
+				{
+					records.add(record);
+				}
+				break;
+			}
+			
+			if(record == null)
+			{
+				record = new String[]{nextLine};
+			}
+			else
+			{
+				String[] t = new String[record.length + 1];
+				System.arraycopy(record,0,t,0,record.length);
+				t[record.length] = nextLine;
+				record = t;
+			}
+			
+			if(!scanner.scanLineMulti(nextLine))
+			{
+				records.add(record);
+				record = null;
+			}
+		}
+		return records;
+	}
+	
+
 	/**
 	 * Reads the next line from the file.
 	 * 
@@ -0,0 +1,524 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package xdev.io.csv;
+
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+
+
+/**
+ * A CSV tokenizer which works directly on a reusable character buffer.
+ * <p>
+ * Unlike {@link CSVReader} no line strings and no token strings are created.
+ * The fields of the current record are unescaped in place and are only
+ * materialized if they are requested, e.g. by {@link #getField(int)}. The
+ * result is the same as of {@link CSVReader#readNext()} with the same
+ * settings.
+ * </p>
+ *
+ * <pre>
+ * CSVTokenizer tokenizer = new CSVTokenizer(reader,';');
+ * while(tokenizer.next())
+ * {
+ * 	if(!tokenizer.fieldEquals(0,&quot;null&quot;))
+ * 	{
+ * 		String name = tokenizer.getField(0);
+ * 	}
+ * }
+ * </pre>
+ *
+ * @author XDEV Software
+ * @since 6.0.3
+ */
+public class CSVTokenizer implements Closeable
+{
+	/**
+	 * Initial size of the character buffer
+	 */
+	public static final int		DEFAULT_BUFFER_SIZE	= 8192;
+
+	private final Reader		reader;
+	private final char			separator;
+	private final char			quotechar;
+	private final char			escape;
+	private final boolean		strictQuotes;
+	private final boolean		ignoreLeadingWhiteSpace;
+	private int					skipLines;
+
+	private char[]				buf;
+	private int					limit;
+	private boolean				eof;
+
+	/**
+	 * Read position
+	 */
+	private int					pos;
+	/**
+	 * Write position of the unescaped field characters, never behind the
+	 * read position
+	 */
+	private int					out;
+	private int					recordStart;
+	private int					lineStart;
+	private int					fieldBegin;
+
+	private int[]				fieldStarts			= new int[16];
+	private int[]				fieldEnds			= new int[16];
+	private int					fieldCount;
+
+
+	public CSVTokenizer(Reader reader)
+	{
+		this(reader,CSVParser.DEFAULT_SEPARATOR);
+	}
+
+
+	public CSVTokenizer(Reader reader, char separator)
+	{
+		this(reader,separator,CSVParser.DEFAULT_QUOTE_CHARACTER);
+	}
+
+
+	public CSVTokenizer(Reader reader, char separator, char quotechar)
+	{
+		this(reader,separator,quotechar,CSVParser.DEFAULT_ESCAPE_CHARACTER,
+				CSVReader.DEFAULT_SKIP_LINES,CSVParser.DEFAULT_STRICT_QUOTES,
+				CSVParser.DEFAULT_IGNORE_LEADING_WHITESPACE);
+	}
+
+
+	/**
+	 * Constructs a tokenizer with the same settings as
+	 * {@link CSVReader#CSVReader(Reader, char, char, char, int, boolean, boolean)}
+	 * .
+	 *
+	 * @param reader
+	 *            the reader to an underlying CSV source
+	 * @param separator
+	 *            the delimiter to use for separating entries
+	 * @param quotechar
+	 *            the character to use for quoted elements
+	 * @param escape
+	 *            the character to use for escaping a separator or quote
+	 * @param line
+	 *            the count of lines to skip before reading
+	 * @param strictQuotes
+	 *            if true, characters outside the quotes are ignored
+	 * @param ignoreLeadingWhiteSpace
+	 *            if true, white space in front of a quote in a field is ignored
+	 */
+	public CSVTokenizer(Reader reader, char separator, char quotechar, char escape, int line,
+			boolean strictQuotes, boolean ignoreLeadingWhiteSpace)
+	{
+		this(reader,separator,quotechar,escape,line,strictQuotes,ignoreLeadingWhiteSpace,
+				DEFAULT_BUFFER_SIZE);
+	}
+
+
+	CSVTokenizer(Reader reader, char separator, char quotechar, char escape, int line,
+			boolean strictQuotes, boolean ignoreLeadingWhiteSpace, int bufferSize)
+	{
+		this.reader = reader;
+		this.separator = separator;
+		this.quotechar = quotechar;
+		this.escape = escape;
+		this.skipLines = line;
+		this.strictQuotes = strictQuotes;
+		this.ignoreLeadingWhiteSpace = ignoreLeadingWhiteSpace;
+		this.buf = new char[Math.max(bufferSize,2)];
+	}
+
+
+	/**
+	 * Reads the next record. The fields of the previous record are invalid
+	 * afterwards.
+	 *
+	 * @return <code>false</code> at the end of the stream
+	 * @throws IOException
+	 *             if bad things happen during the read
+	 */
+	public boolean next() throws IOException
+	{
+		fieldCount = 0;
+		recordStart = lineStart = fieldBegin = out = pos;
+
+		while(skipLines > 0)
+		{
+			skipLines--;
+			skipLine();
+		}
+
+		if(!ensure(0))
+		{
+			return false;
+		}
+
+		recordStart = lineStart = fieldBegin = out = pos;
+		boolean inQuotes = false;
+		boolean inField = false;
+		char last = 0;
+
+		while(true)
+		{
+			if(!ensure(0))
+			{
+				// last line without line break
+				if(inQuotes)
+				{
+					return fieldCount > 0;
+				}
+				addField();
+				return true;
+			}
+
+			char c = buf[pos];
+			if(c == '\n' || c == '\r')
+			{
+				pos++;
+				if(c == '\r' && ensure(0) && buf[pos] == '\n')
+				{
+					pos++;
+				}
+
+				if(!inQuotes)
+				{
+					addField();
+					return true;
+				}
+
+				// continuing a quoted section
+				if(!ensure(0))
+				{
+					return fieldCount > 0;
+				}
+				buf[out++] = '\n';
+				lineStart = pos;
+				last = 0;
+				continue;
+			}
+
+			int i = pos - lineStart;
+			if(c == escape)
+			{
+				int next = peek();
+				if((inQuotes || inField) && (next == quotechar || next == escape))
+				{
+					buf[out++] = (char)next;
+					pos++;
+					c = (char)next;
+				}
+			}
+			else if(c == quotechar)
+			{
+				int next = peek();
+				if((inQuotes || inField) && next == quotechar)
+				{
+					buf[out++] = (char)next;
+					pos++;
+				}
+				else
+				{
+					inQuotes = !inQuotes;
+
+					// the tricky case of an embedded quote in the middle:
+					// a,bc"d"ef,g
+					if(!strictQuotes && i > 2 && last != separator && next >= 0
+							&& next != separator)
+					{
+						if(ignoreLeadingWhiteSpace && out > fieldBegin && isAllWhiteSpace())
+						{
+							out = fieldBegin;
+						}
+						else
+						{
+							buf[out++] = c;
+						}
+					}
+				}
+				inField = !inField;
+			}
+			else if(c == separator && !inQuotes)
+			{
+				addField();
+				fieldBegin = out;
+				inField = false;
+			}
+			else if(!strictQuotes || inQuotes)
+			{
+				buf[out++] = c;
+				inField = true;
+			}
+
+			last = c;
+			pos++;
+		}
+	}
+
+
+	/**
+	 * @return the character after the current one in the same line, -1 if
+	 *         there is none
+	 */
+	private int peek() throws IOException
+	{
+		if(!ensure(1))
+		{
+			return -1;
+		}
+		char c = buf[pos + 1];
+		return c == '\n' || c == '\r' ? -1 : c;
+	}
+
+
+	private boolean isAllWhiteSpace()
+	{
+		for(int i = fieldBegin; i < out; i++)
+		{
+			if(!Character.isWhitespace(buf[i]))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	private void addField()
+	{
+		if(fieldCount == fieldStarts.length)
+		{
+			int[] starts = new int[fieldCount * 2];
+			System.arraycopy(fieldStarts,0,starts,0,fieldCount);
+			fieldStarts = starts;
+			int[] ends = new int[fieldCount * 2];
+			System.arraycopy(fieldEnds,0,ends,0,fieldCount);
+			fieldEnds = ends;
+		}
+		fieldStarts[fieldCount] = fieldBegin;
+		fieldEnds[fieldCount] = out;
+		fieldCount++;
+	}
+
+
+	private void skipLine() throws IOException
+	{
+		while(ensure(0))
+		{
+			recordStart = out = pos;
+			char c = buf[pos++];
+			if(c == '\n')
+			{
+				return;
+			}
+			if(c == '\r')
+			{
+				if(ensure(0) && buf[pos] == '\n')
+				{
+					pos++;
+				}
+				return;
+			}
+		}
+	}
+
+
+	/**
+	 * Makes sure that the character at <code>pos + offset</code> is in the
+	 * buffer. The current record is moved to the start of the buffer if
+	 * necessary, all positions are adjusted.
+	 *
+	 * @return <code>false</code> if the end of the stream has been reached
+	 */
+	private boolean ensure(int offset) throws IOException
+	{
+		while(pos + offset >= limit)
+		{
+			if(eof)
+			{
+				return false;
+			}
+
+			int start = recordStart;
+			if(start > 0)
+			{
+				System.arraycopy(buf,start,buf,0,limit - start);
+				limit -= start;
+				pos -= start;
+				out -= start;
+				recordStart -= start;
+				lineStart -= start;
+				fieldBegin -= start;
+				for(int i = 0; i < fieldCount; i++)
+				{
+					fieldStarts[i] -= start;
+					fieldEnds[i] -= start;
+				}
+			}
+
+			if(limit == buf.length)
+			{
+				char[] newBuf = new char[buf.length * 2];
+				System.arraycopy(buf,0,newBuf,0,limit);
+				buf = newBuf;
+			}
+
+			int read = reader.read(buf,limit,buf.length - limit);
+			if(read < 0)
+			{
+				eof = true;
+			}
+			else
+			{
+				limit += read;
+			}
+		}
+		return true;
+	}
+
+
+	/**
+	 * @return the count of fields of the current record
+	 */
+	public int getFieldCount()
+	{
+		return fieldCount;
+	}
+
+
+	/**
+	 * @param index
+	 *            the index of the field
+	 * @return the length of the field
+	 */
+	public int getFieldLength(int index)
+	{
+		checkIndex(index);
+		return fieldEnds[index] - fieldStarts[index];
+	}
+
+
+	/**
+	 * Creates a string of a field.
+	 *
+	 * @param index
+	 *            the index of the field
+	 * @return the value of the field
+	 */
+	public String getField(int index)
+	{
+		checkIndex(index);
+		return new String(buf,fieldStarts[index],fieldEnds[index] - fieldStarts[index]);
+	}
+
+
+	/**
+	 * Returns a read-only view of a field without copying it. The view is only
+	 * valid until the next call of {@link #next()}.
+	 *
+	 * @param index
+	 *            the index of the field
+	 * @return the view of the field
+	 */
+	public CharBuffer getFieldBuffer(int index)
+	{
+		checkIndex(index);
+		return CharBuffer.wrap(buf,fieldStarts[index],fieldEnds[index] - fieldStarts[index])
+				.asReadOnlyBuffer();
+	}
+
+
+	/**
+	 * Appends a field to <code>sb</code>.
+	 *
+	 * @param index
+	 *            the index of the field
+	 * @param sb
+	 *            the target
+	 * @return <code>sb</code>
+	 */
+	public StringBuilder appendField(int index, StringBuilder sb)
+	{
+		checkIndex(index);
+		return sb.append(buf,fieldStarts[index],fieldEnds[index] - fieldStarts[index]);
+	}
+
+
+	/**
+	 * Compares a field with a string without creating a string of the field.
+	 *
+	 * @param index
+	 *            the index of the field
+	 * @param str
+	 *            the string to compare with
+	 * @return <code>true</code> if the field equals <code>str</code>
+	 */
+	public boolean fieldEquals(int index, String str)
+	{
+		checkIndex(index);
+		int start = fieldStarts[index];
+		int length = fieldEnds[index] - start;
+		if(str.length() != length)
+		{
+			return false;
+		}
+		for(int i = 0; i < length; i++)
+		{
+			if(buf[start + i] != str.charAt(i))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	/**
+	 * Creates strings of all fields of the current record, like
+	 * {@link CSVReader#readNext()}.
+	 *
+	 * @return the fields of the current record
+	 */
+	public String[] toArray()
+	{
+		String[] fields = new String[fieldCount];
+		for(int i = 0; i < fieldCount; i++)
+		{
+			fields[i] = getField(i);
+		}
+		return fields;
+	}
+
+
+	private void checkIndex(int index)
+	{
+		if(index < 0 || index >= fieldCount)
+		{
+			throw new IndexOutOfBoundsException("field: " + index);
+		}
+	}
+
+
+	@Override
+	public void close() throws IOException
+	{
+		reader.close();
+	}
+}
@@ -19,12 +19,16 @@ package xdev.ui;
 
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Hashtable;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import xdev.db.DBConnection;
 import xdev.db.DBException;
@@ -40,6 +44,7 @@ import xdev.util.IntList;
 import xdev.vt.EntityRelationship;
 import xdev.vt.EntityRelationship.Entity;
 import xdev.vt.EntityRelationships;
+import xdev.vt.KeyHashTable;
 import xdev.vt.KeyValues;
 import xdev.vt.TableColumnLink;
 import xdev.vt.VirtualTable;
@@ -138,7 +143,7 @@ public final class ManyToMany
 		int[] fillUpNMTable(VirtualTable nmTable, VirtualTable nmClone) throws DBException,
 				VirtualTableException
 		{
-			IntList indices = new IntList();
+			final IntList indices = new IntList();
 			
 			nmTable.clear();
 			
@@ -181,38 +186,22 @@ public final class ManyToMany
 			
 			mTable.queryAndFill(mTable.getDefaultSelect());
 			
-			int cc;
-			if(mRelationColumns != null && (cc = mRelationColumns.length) > 0)
+			if(mRelationColumns != null && mRelationColumns.length > 0)
 			{
-				int nmc = nmClone.getRowCount();
+				KeyHashTable.join(mTable,mRelationColumns,nmClone,nmRelationColumns,
+						new KeyHashTable.JoinHandler()
+						{
+							@Override
+							public void rowsJoined(int mRow, int nmRow)
+							{
+								indices.add(mRow);
+							}
+						});
+				indices.sort();
 				
 				int rc = mTable.getRowCount();
-				Object[] mValues = new Object[cc];
 				for(int r = 0; r < rc; r++)
 				{
-					for(int c = 0; c < cc; c++)
-					{
-						mValues[c] = mRelationColumns[c].getValueAt(r);
-					}
-					for(int nmr = 0; nmr < nmc; nmr++)
-					{
-						boolean equal = true;
-						for(int c = 0; c < cc; c++)
-						{
-							Object nmValue = nmRelationColumns[c].getValueAt(nmr);
-							if(!VirtualTable.equals(mValues[c],nmValue,
-									nmRelationColumns[c].getType()))
-							{
-								equal = false;
-								break;
-							}
-						}
-						if(equal)
-						{
-							indices.add(r);
-						}
-					}
-					
 					Map<String, Object> map = new HashMap();
 					for(VirtualTableColumn mColumn : columnMap.keySet())
 					{
@@ -240,42 +229,65 @@ public final class ManyToMany
 			}
 		});
 		
+		VirtualTableColumn[] columns = new VirtualTableColumn[columnIndices.length];
+		for(int i = 0; i < columns.length; i++)
+		{
+			columns[i] = oldState.getColumnAt(columnIndices[i]);
+		}
+		
+		KeyHashTable<VirtualTableRow> newRowTable = new KeyHashTable<VirtualTableRow>(columns);
+		for(VirtualTableRow row : newRows)
+		{
+			newRowTable.put(getValues(row,columnIndices),row);
+		}
+		
+		Set<VirtualTableRow> matched = Collections
+				.newSetFromMap(new IdentityHashMap<VirtualTableRow, Boolean>());
+		
 		int oc = oldState.getRowCount();
 		for(int oi = 0; oi < oc; oi++)
 		{
 			VirtualTableRow oldRow = oldState.getRow(oi);
-			Map<String, Object> values = new HashMap();
-			for(int col : columnIndices)
+			VirtualTableRow newRow = newRowTable.removeFirst(getValues(oldRow,columnIndices));
+			
+			if(newRow == null)
 			{
-				values.put(oldState.getColumnName(col),oldRow.get(col));
+				deleted.add(oldRow);
 			}
-			KeyValues kv = new KeyValues(oldState,values);
-			
-			VirtualTableRow newRow = null;
-			int nc = newRows.size();
-			for(int ni = 0; ni < nc; ni++)
+			else
 			{
-				VirtualTableRow row = newRows.get(ni);
-				if(kv.equals(row))
+				matched.add(newRow);
+				if(!equals(oldRow,newRow,columnIndices))
 				{
-					newRow = row;
-					newRows.remove(ni);
-					break;
+					changed.add(newRow);
 				}
 			}
-			
-			if(newRow == null)
-			{
-				deleted.add(oldRow);
-			}
-			else if(!equals(oldRow,newRow,columnIndices))
+		}
+		
+		if(!matched.isEmpty())
+		{
+			for(Iterator<VirtualTableRow> it = newRows.iterator(); it.hasNext();)
 			{
-				changed.add(newRow);
+				if(matched.contains(it.next()))
+				{
+					it.remove();
+				}
 			}
 		}
 	}
 	
 	
+	private static Object[] getValues(VirtualTableRow row, int[] indices)
+	{
+		Object[] values = new Object[indices.length];
+		for(int i = 0; i < indices.length; i++)
+		{
+			values[i] = row.get(indices[i]);
+		}
+		return values;
+	}
+	
+	
 	private static boolean equals(VirtualTableRow row1, VirtualTableRow row2, int[] indices)
 	{
 		for(int index : indices)
@@ -663,6 +675,9 @@ public final class ManyToMany
 	{
 		KeyValues masterKeyValues = MasterDetail.getForeignKeyValues(masterRow,masterDetailVT);
 		
+		VirtualTable masterRowsFromDB = null;
+		Map<List<String>, KeyHashTable<VirtualTableRow>> existingRows = new HashMap();
+		
 		List<VirtualTableRow> rowsToAdd = new ArrayList<VirtualTable.VirtualTableRow>();
 		for(VirtualTableRow detailRow : detailRows)
 		{
@@ -671,21 +686,32 @@ public final class ManyToMany
 				KeyValues detailKeyValues = MasterDetail.getForeignKeyValues(detailRow,
 						masterDetailVT);
 				
-				boolean alreadyExists = false;
-				
-				VirtualTable masterRowsFromDB = getMasterRowsFromDB(masterDetailVT,masterKeyValues);
+				if(masterRowsFromDB == null)
+				{
+					// one query for all details
+					masterRowsFromDB = getMasterRowsFromDB(masterDetailVT,masterKeyValues);
+				}
 				
-				for(int i = 0; i < masterRowsFromDB.getRowCount(); i++)
+				String[] columnNames = detailKeyValues.getColumnNames();
+				KeyHashTable<VirtualTableRow> existing = existingRows.get(Arrays
+						.asList(columnNames));
+				if(existing == null)
 				{
-					VirtualTableRow existingRow = masterRowsFromDB.getRow(i);
-					if(rowHasKeyValues(masterKeyValues,existingRow)
-							&& rowHasKeyValues(detailKeyValues,existingRow))
+					existing = new KeyHashTable<VirtualTableRow>(
+							masterRowsFromDB.getColumns(columnNames));
+					for(int i = 0; i < masterRowsFromDB.getRowCount(); i++)
 					{
-						alreadyExists = true;
-						break;
+						VirtualTableRow existingRow = masterRowsFromDB.getRow(i);
+						if(rowHasKeyValues(masterKeyValues,existingRow))
+						{
+							existing.put(existing.getKey(existingRow),existingRow);
+						}
 					}
+					existingRows.put(Arrays.asList(columnNames),existing);
 				}
 				
+				boolean alreadyExists = existing.containsKey(existing.getKey(detailKeyValues));
+				
 				if(!alreadyExists)
 				{
 					VirtualTableRow nmRow = masterDetailVT.createRow();
@@ -1149,6 +1175,27 @@ public final class ManyToMany
 		
 		VirtualTable masterRowsFromDB = getMasterRowsFromDB(masterDetailVT,masterKeyValues);
 		
+		Map<List<String>, KeyHashTable<KeyValues>> detailKeys = new HashMap();
+		if(!deleteAllDetails)
+		{
+			for(VirtualTableRow detailRow : detailRows)
+			{
+				if(detailRow != null)
+				{
+					KeyValues detailKeyValues = MasterDetail.getForeignKeyValues(detailRow,
+							masterRowsFromDB);
+					String[] columnNames = detailKeyValues.getColumnNames();
+					KeyHashTable<KeyValues> keys = detailKeys.get(Arrays.asList(columnNames));
+					if(keys == null)
+					{
+						keys = new KeyHashTable<KeyValues>(masterRowsFromDB.getColumns(columnNames));
+						detailKeys.put(Arrays.asList(columnNames),keys);
+					}
+					keys.put(keys.getKey(detailKeyValues),detailKeyValues);
+				}
+			}
+		}
+		
 		List<VirtualTableRow> rowsToDelete = new ArrayList<VirtualTable.VirtualTableRow>();
 		for(int i = 0; i < masterRowsFromDB.getRowCount(); i++)
 		{
@@ -1159,17 +1206,12 @@ public final class ManyToMany
 			{
 				if(!deleteAllDetails)
 				{
-					for(VirtualTableRow detailRow : detailRows)
+					for(KeyHashTable<KeyValues> keys : detailKeys.values())
 					{
-						if(detailRow != null)
+						if(keys.containsKey(keys.getKey(row)))
 						{
-							KeyValues detailKeyValues = MasterDetail.getForeignKeyValues(detailRow,
-									masterRowsFromDB);
-							if(rowHasKeyValues(detailKeyValues,row))
-							{
-								rowToBeDeleted = true;
-								break;
-							}
+							rowToBeDeleted = true;
+							break;
 						}
 					}
 				}
@@ -184,8 +184,7 @@ public abstract class AbstractPageControl<C extends JComponent> implements PageC
 		}
 		
 		lastQuery = new QueryInfo(select,params);
-		pager = getVirtualTable().getDataSource().openConnection()
-				.getPager(getActualRowCount(),select,params);
+		pager = getVirtualTable().getPager(getActualRowCount(),select,params);
 		Result result = showPageIndex == 0 ? pager.firstPage() : pager.gotoPage(Math.min(
 				showPageIndex,getMaxPageIndex()));
 		if(result != null)
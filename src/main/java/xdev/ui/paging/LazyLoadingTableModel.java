@@ -42,6 +42,7 @@ import javax.swing.table.AbstractTableModel;
 import javax.swing.table.TableModel;
 import javax.swing.table.TableRowSorter;
 
+import xdev.db.ColumnMetaData;
 import xdev.db.DBException;
 import xdev.db.DBPager;
 import xdev.db.QueryInfo;
@@ -61,6 +62,12 @@ import xdev.vt.VirtualTableWrapper;
 /**
  * {@link VirtualTable}-based {@link TableModel} which uses a {@link DBPager} to
  * lazy load the viewed rows.
+ * <p>
+ * Loaded rows are kept in a block cache, the size of the blocks adapts to the
+ * viewport height and the query latency. After the visible rows the next block
+ * in scroll direction is prefetched. The total row count is read concurrently
+ * with the first rows.
+ * </p>
  * 
  * @author XDEV Software
  * 
@@ -73,6 +80,13 @@ public class LazyLoadingTableModel<T extends JTable & MasterDetailComponent<T>>
 	public static final XdevLogger	log				= LoggerFactory
 															.getLogger(LazyLoadingTableModel.class);
 	
+	/**
+	 * Default maximum count of cached values (rows * columns)
+	 * 
+	 * @since 6.0.3
+	 */
+	public static final int			DEFAULT_CACHE_CAPACITY	= 100000;
+	
 	private T						table;
 	private VirtualTable			vt;
 	private int[]					columnIndices;
@@ -83,6 +97,7 @@ public class LazyLoadingTableModel<T extends JTable & MasterDetailComponent<T>>
 	private int						totalRowCount	= -1;
 	private Timer					loadTimer;
 	private ThreadPoolExecutor		executor;
+	private ThreadPoolExecutor		countExecutor;
 	private SortKey					sortKey;
 	private int						requestedFirst	= -1;
 	
@@ -90,6 +105,19 @@ public class LazyLoadingTableModel<T extends JTable & MasterDetailComponent<T>>
 	private int						loadedFirst		= -1;
 	private int						loadedLast		= -1;
 	
+	private final RowBlockCache		cache			= new RowBlockCache(
+															DEFAULT_CACHE_CAPACITY);
+	/**
+	 * Incremented with every new viewport, pending loads of older viewports
+	 * are dropped
+	 */
+	private int						generation;
+	private int						previousFirst	= -1;
+	/**
+	 * Model column to result column of the cached rows
+	 */
+	private int[]					cachedColumnIndices;
+	
 	
 	public LazyLoadingTableModel(T t)
 	{
@@ -127,6 +155,7 @@ public class LazyLoadingTableModel<T extends JTable & MasterDetailComponent<T>>
 				{
 					final int first = requestedFirst;
 					final int last = requestedLast;
+					final int generation = LazyLoadingTableModel.this.generation;
 					executor.execute(new Runnable()
 					{
 						@Override
@@ -134,7 +163,7 @@ public class LazyLoadingTableModel<T extends JTable & MasterDetailComponent<T>>
 						{
 							try
 							{
-								loadRequestedData(first,last);
+								loadRequestedData(first,last,generation);
 							}
 							catch(Exception e)
 							{
@@ -149,6 +178,34 @@ public class LazyLoadingTableModel<T extends JTable & MasterDetailComponent<T>>
 		
 		executor = new ThreadPoolExecutor(0,1,10L,TimeUnit.SECONDS,
 				new LinkedBlockingQueue<Runnable>());
+		countExecutor = new ThreadPoolExecutor(0,1,10L,TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>());
+	}
+	
+	
+	/**
+	 * Sets the maximum count of values (rows * columns) which are kept in the
+	 * block cache, least recently used blocks are evicted first.
+	 * 
+	 * @param capacity
+	 *            the new capacity
+	 * @since 6.0.3
+	 */
+	public void setCacheCapacity(int capacity)
+	{
+		cache.setCapacity(capacity);
+	}
+	
+	
+	/**
+	 * Returns the maximum count of values which are kept in the block cache.
+	 * 
+	 * @return the cache capacity
+	 * @since 6.0.3
+	 */
+	public int getCacheCapacity()
+	{
+		return cache.getCapacity();
 	}
 	
 	
@@ -182,7 +239,13 @@ public class LazyLoadingTableModel<T extends JTable & MasterDetailComponent<T>>
 	
 	public void refresh()
 	{
-		requestedFirst = requestedLast = loadedFirst = loadedLast = -1;
+		synchronized(this)
+		{
+			requestedFirst = requestedLast = loadedFirst = loadedLast = previousFirst = -1;
+			generation++;
+			cachedColumnIndices = null;
+			cache.clear();
+		}
 		
 		if(sortKey != null)
 		{
@@ -273,7 +336,8 @@ public class LazyLoadingTableModel<T extends JTable & MasterDetailComponent<T>>
 		{
 			totalRowCount = 0;
 			
-			executor.execute(new Runnable()
+			// concurrently with the first rows
+			countExecutor.execute(new Runnable()
 			{
 				@Override
 				public void run()
@@ -291,8 +355,16 @@ public class LazyLoadingTableModel<T extends JTable & MasterDetailComponent<T>>
 	{
 		try
 		{
-			pager = getVirtualTable().getDataSource().openConnection().getPager(10,select,params);
-			totalRowCount = pager.getTotalRows();
+			DBPager countPager = getVirtualTable().getDataSource().openConnection()
+					.getPager(10,select,params);
+			try
+			{
+				totalRowCount = countPager.getTotalRows();
+			}
+			finally
+			{
+				countPager.close();
+			}
 			
 			SwingUtilities.invokeLater(new Runnable()
 			{
@@ -337,11 +409,23 @@ public class LazyLoadingTableModel<T extends JTable & MasterDetailComponent<T>>
 					{
 						this.requestedFirst = requestedFirst;
 						this.requestedLast = requestedLast;
+						generation++;
 						
 						loadTimer.restart();
 					}
 				}
 				
+				// show cached rows while scrolling
+				Object[] values = cache.getRow(row);
+				if(values != null)
+				{
+					int index = getCachedColumnIndex(col);
+					if(index != -1)
+					{
+						return values[index];
+					}
+				}
+				
 				return " ";
 			}
 		}
@@ -350,36 +434,99 @@ public class LazyLoadingTableModel<T extends JTable & MasterDetailComponent<T>>
 	}
 	
 	
-	private void loadRequestedData(int requestedFirst, int requestedLast) throws Exception
+	private int getCachedColumnIndex(int col)
 	{
-		if(pager != null)
+		if(cachedColumnIndices == null)
 		{
-			if(pager.isClosed())
+			ColumnMetaData[] metadata = cache.getMetadata();
+			if(metadata == null)
 			{
-				refresh();
-				return;
+				return -1;
 			}
 			
-			try
+			// same mapping as VirtualTable.addData
+			cachedColumnIndices = new int[columnIndices.length];
+			for(int i = 0; i < columnIndices.length; i++)
 			{
-				table.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
-				
-				pager.setRowsPerPage(requestedLast - requestedFirst + 1);
-				Result result = pager.gotoRow(requestedFirst);
-				QueryInfo lastQuery = vt.getLastQuery();
-				vt.addData(result,VirtualTableFillMethod.OVERWRITE);
-				vt.setLastQuery(lastQuery); // restore query before paging
+				cachedColumnIndices[i] = -1;
+				for(int c = 0; c < metadata.length && cachedColumnIndices[i] == -1; c++)
+				{
+					String caption = metadata[c].getCaption();
+					int index = caption != null ? vt.getColumnIndex(caption) : -1;
+					if(index == -1 && metadata[c].getName() != null)
+					{
+						index = vt.getColumnIndex(metadata[c].getName());
+					}
+					if(index == columnIndices[i])
+					{
+						cachedColumnIndices[i] = c;
+					}
+				}
 			}
-			finally
+		}
+		
+		return cachedColumnIndices[col];
+	}
+	
+	
+	private synchronized boolean isStale(int generation)
+	{
+		return generation != this.generation;
+	}
+	
+	
+	private void loadRequestedData(int requestedFirst, int requestedLast, int generation)
+			throws Exception
+	{
+		if(isStale(generation))
+		{
+			return;
+		}
+		
+		if(pager == null)
+		{
+			pager = getVirtualTable().getDataSource().openConnection().getPager(10,select,params);
+		}
+		
+		if(pager.isClosed())
+		{
+			refresh();
+			return;
+		}
+		
+		requestedFirst = Math.max(requestedFirst,0);
+		int viewportRows = requestedLast - requestedFirst + 1;
+		int blockSize = cache.getBlockSize(viewportRows);
+		
+		try
+		{
+			table.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+			
+			requestedLast = loadBlocks(requestedFirst,requestedLast,blockSize,requestedFirst,
+					requestedLast,generation);
+			if(requestedLast < requestedFirst)
 			{
-				table.setCursor(Cursor.getDefaultCursor());
+				// stale or no data
+				return;
 			}
+			
+			QueryInfo lastQuery = vt.getLastQuery();
+			vt.addData(cache.createResult(requestedFirst,requestedLast),
+					VirtualTableFillMethod.OVERWRITE);
+			vt.setLastQuery(lastQuery); // restore query before paging
+		}
+		finally
+		{
+			table.setCursor(Cursor.getDefaultCursor());
 		}
 		
+		int previousFirst;
 		synchronized(this)
 		{
 			loadedFirst = requestedFirst;
 			loadedLast = requestedLast;
+			previousFirst = this.previousFirst;
+			this.previousFirst = requestedFirst;
 		}
 		
 		SwingUtilities.invokeLater(new Runnable()
@@ -394,6 +541,55 @@ public class LazyLoadingTableModel<T extends JTable & MasterDetailComponent<T>>
 				table.restoreState();
 			}
 		});
+		
+		// read ahead in scroll direction
+		if(previousFirst != -1 && requestedFirst < previousFirst)
+		{
+			loadBlocks(Math.max(requestedFirst - blockSize,0),requestedFirst - 1,blockSize,
+					requestedFirst,requestedLast,generation);
+		}
+		else
+		{
+			loadBlocks(requestedLast + 1,requestedLast + blockSize,blockSize,requestedFirst,
+					requestedLast,generation);
+		}
+	}
+	
+	
+	/**
+	 * Loads the missing rows of the range <code>first</code> to
+	 * <code>last</code> into the cache.
+	 * 
+	 * @return the last available row of the range, less than
+	 *         <code>first</code> if the request became stale
+	 */
+	private int loadBlocks(int first, int last, int blockSize, int pinFirst, int pinLast,
+			int generation) throws DBException
+	{
+		last = Math.min(last,pager.getTotalRows() - 1);
+		
+		int[] missing;
+		while((missing = cache.getMissingRows(first,last,blockSize)) != null)
+		{
+			if(isStale(generation))
+			{
+				return first - 1;
+			}
+			
+			long start = System.currentTimeMillis();
+			pager.setRowsPerPage(missing[1]);
+			Result result = pager.gotoRow(missing[0]);
+			int count = cache.put(missing[0],missing[1],result,pinFirst,pinLast);
+			cache.recordLatency(System.currentTimeMillis() - start);
+			
+			if(count < missing[1])
+			{
+				// end of data
+				return Math.min(last,missing[0] + count - 1);
+			}
+		}
+		
+		return last;
 	}
 	
 	
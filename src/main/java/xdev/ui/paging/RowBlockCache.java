@@ -0,0 +1,363 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package xdev.ui.paging;
+
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import xdev.db.ColumnMetaData;
+import xdev.db.DBException;
+import xdev.db.Result;
+
+
+/**
+ * Cache of row blocks for the {@link LazyLoadingTableModel}.
+ * <p>
+ * Blocks never overlap and are evicted least recently used if the count of
+ * cached values exceeds the capacity. The size of new blocks adapts to the
+ * viewport height and the observed query latency: the slower a query, the more
+ * rows are fetched at once.
+ * </p>
+ *
+ * @author XDEV Software
+ * @since 6.0.3
+ */
+class RowBlockCache
+{
+	/**
+	 * Latency which is considered fast enough to fetch two viewports per query
+	 */
+	private static final long					TARGET_LATENCY		= 100;
+	private static final int					MAX_BLOCK_SIZE		= 1000;
+	private static final double					LATENCY_SMOOTHING	= 0.3;
+
+
+
+	private static class Block
+	{
+		final int		firstRow;
+		final Object[][]	rows;
+		long			lastAccess;
+
+
+		Block(int firstRow, Object[][] rows)
+		{
+			this.firstRow = firstRow;
+			this.rows = rows;
+		}
+
+
+		int lastRow()
+		{
+			return firstRow + rows.length - 1;
+		}
+	}
+
+	private final TreeMap<Integer, Block>	blocks				= new TreeMap();
+	private int								capacity;
+	private ColumnMetaData[]				metadata;
+	private int								cachedValues;
+	private long							accessCount;
+	private double							latency				= -1;
+
+
+	RowBlockCache(int capacity)
+	{
+		this.capacity = capacity;
+	}
+
+
+	synchronized void setCapacity(int capacity)
+	{
+		this.capacity = capacity;
+		evict(-1,-1);
+	}
+
+
+	synchronized int getCapacity()
+	{
+		return capacity;
+	}
+
+
+	synchronized void clear()
+	{
+		blocks.clear();
+		cachedValues = 0;
+	}
+
+
+	/**
+	 * @return the metadata of the cached result, <code>null</code> if nothing
+	 *         has been cached yet
+	 */
+	synchronized ColumnMetaData[] getMetadata()
+	{
+		return metadata;
+	}
+
+
+	/**
+	 * @return the values of <code>row</code> or <code>null</code> if it is not
+	 *         cached
+	 */
+	synchronized Object[] getRow(int row)
+	{
+		Block block = getBlock(row);
+		if(block == null)
+		{
+			return null;
+		}
+
+		block.lastAccess = ++accessCount;
+		return block.rows[row - block.firstRow];
+	}
+
+
+	private Block getBlock(int row)
+	{
+		Map.Entry<Integer, Block> entry = blocks.floorEntry(row);
+		if(entry != null && entry.getValue().lastRow() >= row)
+		{
+			return entry.getValue();
+		}
+		return null;
+	}
+
+
+	/**
+	 * Returns the first gap in the range <code>first</code> to
+	 * <code>last</code>, at most <code>maxRows</code> long.
+	 *
+	 * @return <code>{firstRow, rowCount}</code> of the gap or <code>null</code>
+	 *         if the range is cached completely
+	 */
+	synchronized int[] getMissingRows(int first, int last, int maxRows)
+	{
+		for(int row = first; row <= last; row++)
+		{
+			Block block = getBlock(row);
+			if(block != null)
+			{
+				row = block.lastRow();
+			}
+			else
+			{
+				Integer next = blocks.higherKey(row);
+				int end = Math.min(row + maxRows,next != null ? next : Integer.MAX_VALUE);
+				return new int[]{row,end - row};
+			}
+		}
+
+		return null;
+	}
+
+
+	/**
+	 * Reads <code>result</code> into a new block starting at
+	 * <code>firstRow</code>. Blocks overlapping the range <code>pinFirst</code>
+	 * to <code>pinLast</code> are not evicted.
+	 *
+	 * @return the count of read rows
+	 */
+	int put(int firstRow, int maxRows, Result result, int pinFirst, int pinLast)
+			throws DBException
+	{
+		int columnCount = result.getColumnCount();
+		ColumnMetaData[] metadata = new ColumnMetaData[columnCount];
+		for(int col = 0; col < columnCount; col++)
+		{
+			metadata[col] = result.getMetadata(col);
+		}
+
+		List<Object[]> rows = new ArrayList(maxRows);
+		while(rows.size() < maxRows && result.next())
+		{
+			Object[] row = new Object[columnCount];
+			for(int col = 0; col < columnCount; col++)
+			{
+				row[col] = result.getObject(col);
+			}
+			rows.add(row);
+		}
+
+		synchronized(this)
+		{
+			this.metadata = metadata;
+
+			if(rows.size() > 0 && getMissingRows(firstRow,firstRow,1) != null)
+			{
+				Block block = new Block(firstRow,rows.toArray(new Object[rows.size()][]));
+				block.lastAccess = ++accessCount;
+				blocks.put(firstRow,block);
+				cachedValues += rows.size() * columnCount;
+
+				evict(pinFirst,pinLast);
+			}
+		}
+
+		return rows.size();
+	}
+
+
+	private void evict(int pinFirst, int pinLast)
+	{
+		while(cachedValues > capacity)
+		{
+			Block lru = null;
+			for(Block block : blocks.values())
+			{
+				if((block.lastRow() < pinFirst || block.firstRow > pinLast)
+						&& (lru == null || block.lastAccess < lru.lastAccess))
+				{
+					lru = block;
+				}
+			}
+
+			if(lru == null)
+			{
+				return;
+			}
+
+			blocks.remove(lru.firstRow);
+			cachedValues -= lru.rows.length * (lru.rows.length > 0 ? lru.rows[0].length : 0);
+		}
+	}
+
+
+	/**
+	 * @return the count of cached values
+	 */
+	synchronized int getCachedValueCount()
+	{
+		return cachedValues;
+	}
+
+
+	/**
+	 * Creates a {@link Result} of the cached rows <code>first</code> to
+	 * <code>last</code>, all of them have to be cached.
+	 */
+	synchronized Result createResult(int first, int last)
+	{
+		final ColumnMetaData[] metadata = this.metadata;
+		final List<Object[]> rows = new ArrayList(last - first + 1);
+		for(int row = first; row <= last; row++)
+		{
+			Object[] values = getRow(row);
+			if(values == null)
+			{
+				throw new IllegalStateException("row " + row + " is not cached");
+			}
+			rows.add(values);
+		}
+
+		return new Result()
+		{
+			Iterator<Object[]>	iterator	= rows.iterator();
+			Object[]			current;
+
+
+			@Override
+			public int getColumnCount()
+			{
+				return metadata.length;
+			}
+
+
+			@Override
+			public ColumnMetaData getMetadata(int col)
+			{
+				return metadata[col];
+			}
+
+
+			@Override
+			public boolean next()
+			{
+				if(iterator.hasNext())
+				{
+					current = iterator.next();
+					return true;
+				}
+				return false;
+			}
+
+
+			@Override
+			public int skip(int count)
+			{
+				int skipped = 0;
+				while(skipped < count && next())
+				{
+					skipped++;
+				}
+				return skipped;
+			}
+
+
+			@Override
+			public Object getObject(int col)
+			{
+				return current[col];
+			}
+
+
+			@Override
+			public void close()
+			{
+			}
+		};
+	}
+
+
+	/**
+	 * Records the duration of a query.
+	 *
+	 * @param millis
+	 *            the duration in milliseconds
+	 */
+	synchronized void recordLatency(long millis)
+	{
+		latency = latency < 0 ? millis : latency + LATENCY_SMOOTHING * (millis - latency);
+	}
+
+
+	/**
+	 * Returns the count of rows to fetch per query: at least two viewports and
+	 * one more for every {@link #TARGET_LATENCY} of the average query duration.
+	 *
+	 * @param viewportRows
+	 *            the count of visible rows
+	 */
+	synchronized int getBlockSize(int viewportRows)
+	{
+		int viewports = 2;
+		if(latency > 0)
+		{
+			viewports += (int)(latency / TARGET_LATENCY);
+		}
+
+		long size = (long)Math.max(viewportRows,1) * viewports;
+		return (int)Math.min(Math.max(size,viewportRows),Math.max(MAX_BLOCK_SIZE,viewportRows));
+	}
+}
@@ -106,8 +106,7 @@ public class VirtualFormularPageControl implements PageControl
 		}
 		
 		lastQuery = new QueryInfo(select,params);
-		pager = getVirtualTable().getDataSource().openConnection()
-				.getPager(getActualRowCount(),select,params);
+		pager = getVirtualTable().getPager(getActualRowCount(),select,params);
 		Result result = showPageIndex == 0 ? pager.firstPage() : pager.gotoPage(Math.min(
 				showPageIndex,getMaxPageIndex()));
 		if(result != null)
@@ -0,0 +1,425 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package xdev.ui.text;
+
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.Format;
+import java.text.NumberFormat;
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+
+
+/**
+ * Immutable formatter for the common cases of a {@link Format}, produces the
+ * same output as the format itself.
+ *
+ * @author XDEV Software
+ * @since 6.0.3
+ */
+abstract class FastFormat
+{
+	/**
+	 * Creates the fast path of <code>format</code>.
+	 *
+	 * @return the fast path or <code>null</code> if <code>format</code> is not
+	 *         supported
+	 */
+	static FastFormat create(final Format format)
+	{
+		if(format instanceof DecimalFormat)
+		{
+			return DecimalFastFormat.create((DecimalFormat)format);
+		}
+		if(format instanceof SimpleDateFormat)
+		{
+			return DateFastFormat.create((SimpleDateFormat)format);
+		}
+		return null;
+	}
+
+
+	/**
+	 * Appends the formatted <code>value</code> to <code>sb</code>.
+	 *
+	 * @return <code>false</code> if the value is not supported, nothing has
+	 *         been appended then
+	 */
+	abstract boolean format(Object value, StringBuilder sb);
+
+
+
+	/**
+	 * Integer and decimal numbers without prefix and suffix, e.g.
+	 * <code>#,##0.00</code>.
+	 */
+	static class DecimalFastFormat extends FastFormat
+	{
+		/**
+		 * Maximum count of fraction digits of a double in {@link DecimalFormat}
+		 */
+		private static final int	MAX_FRACTION_DIGITS	= 340;
+
+
+		static DecimalFastFormat create(final DecimalFormat format)
+		{
+			final DecimalFormatSymbols symbols = format.getDecimalFormatSymbols();
+			if(format.getPositivePrefix().length() > 0 || format.getPositiveSuffix().length() > 0
+					|| format.getNegativeSuffix().length() > 0
+					|| !format.getNegativePrefix().equals(String.valueOf(symbols.getMinusSign()))
+					|| format.getMultiplier() != 1 || format.isDecimalSeparatorAlwaysShown()
+					|| format.getMinimumIntegerDigits() != 1
+					|| format.getMaximumIntegerDigits() != Integer.MAX_VALUE
+					|| format.getMaximumFractionDigits() > MAX_FRACTION_DIGITS
+					|| format.getRoundingMode() != RoundingMode.HALF_EVEN
+					|| format.toPattern().indexOf('E') >= 0)
+			{
+				return null;
+			}
+
+			return new DecimalFastFormat(symbols,format.isGroupingUsed() ? format.getGroupingSize()
+					: 0,format.getMinimumFractionDigits(),format.getMaximumFractionDigits());
+		}
+
+		private final char	zeroDigit;
+		private final char	groupingSeparator;
+		private final char	decimalSeparator;
+		private final char	minusSign;
+		/**
+		 * 0 if no grouping is used
+		 */
+		private final int	groupingSize;
+		private final int	minFractionDigits;
+		private final int	maxFractionDigits;
+
+
+		private DecimalFastFormat(final DecimalFormatSymbols symbols, final int groupingSize,
+				final int minFractionDigits, final int maxFractionDigits)
+		{
+			this.zeroDigit = symbols.getZeroDigit();
+			this.groupingSeparator = symbols.getGroupingSeparator();
+			this.decimalSeparator = symbols.getDecimalSeparator();
+			this.minusSign = symbols.getMinusSign();
+			this.groupingSize = groupingSize;
+			this.minFractionDigits = minFractionDigits;
+			this.maxFractionDigits = maxFractionDigits;
+		}
+
+
+		@Override
+		boolean format(final Object value, final StringBuilder sb)
+		{
+			if(value instanceof Integer || value instanceof Long || value instanceof Short
+					|| value instanceof Byte)
+			{
+				final long l = ((Number)value).longValue();
+				if(l == Long.MIN_VALUE)
+				{
+					return false;
+				}
+
+				if(l < 0)
+				{
+					sb.append(minusSign);
+				}
+				appendInteger(l < 0 ? -l : l,sb);
+				appendFraction(null,sb);
+				return true;
+			}
+
+			if(value instanceof Double || value instanceof Float)
+			{
+				final double d = ((Number)value).doubleValue();
+				if(Double.isNaN(d) || Double.isInfinite(d))
+				{
+					return false;
+				}
+
+				// DecimalFormat prints the shortest representation of a
+				// double, but rounds by its exact value
+				final double abs = Math.abs(d);
+				BigDecimal decimal = new BigDecimal(Double.toString(abs));
+				if(decimal.scale() > maxFractionDigits)
+				{
+					decimal = new BigDecimal(abs).setScale(maxFractionDigits,RoundingMode.HALF_EVEN);
+				}
+				appendDecimal(d < 0 || (d == 0 && 1 / d < 0),decimal,sb);
+				return true;
+			}
+
+			if(value instanceof BigDecimal)
+			{
+				final BigDecimal decimal = (BigDecimal)value;
+				BigDecimal abs = decimal.abs();
+				if(abs.scale() > maxFractionDigits)
+				{
+					abs = abs.setScale(maxFractionDigits,RoundingMode.HALF_EVEN);
+				}
+				appendDecimal(decimal.signum() < 0,abs,sb);
+				return true;
+			}
+
+			return false;
+		}
+
+
+		private void appendDecimal(final boolean negative, final BigDecimal abs,
+				final StringBuilder sb)
+		{
+			if(negative)
+			{
+				sb.append(minusSign);
+			}
+
+			final String plain = abs.toPlainString();
+			final int point = plain.indexOf('.');
+			final int integerDigits = point >= 0 ? point : plain.length();
+
+			for(int i = 0; i < integerDigits; i++)
+			{
+				if(i > 0 && groupingSize > 0 && (integerDigits - i) % groupingSize == 0)
+				{
+					sb.append(groupingSeparator);
+				}
+				sb.append((char)(zeroDigit + plain.charAt(i) - '0'));
+			}
+
+			if(point >= 0)
+			{
+				int end = plain.length();
+				while(end - point - 1 > minFractionDigits && plain.charAt(end - 1) == '0')
+				{
+					end--;
+				}
+				appendFraction(plain.substring(point + 1,end),sb);
+			}
+			else
+			{
+				appendFraction(null,sb);
+			}
+		}
+
+
+		private void appendInteger(long value, final StringBuilder sb)
+		{
+			final int start = sb.length();
+			int count = 0;
+			do
+			{
+				if(count > 0 && groupingSize > 0 && count % groupingSize == 0)
+				{
+					sb.append(groupingSeparator);
+				}
+				sb.append((char)(zeroDigit + (int)(value % 10)));
+				value /= 10;
+				count++;
+			}
+			while(value != 0);
+
+			for(int i = start, j = sb.length() - 1; i < j; i++, j--)
+			{
+				final char c = sb.charAt(i);
+				sb.setCharAt(i,sb.charAt(j));
+				sb.setCharAt(j,c);
+			}
+		}
+
+
+		/**
+		 * Appends the fraction <code>digits</code>, filled up with zeros to the
+		 * minimum count of fraction digits.
+		 */
+		private void appendFraction(final String digits, final StringBuilder sb)
+		{
+			final int length = digits != null ? digits.length() : 0;
+			final int count = Math.max(length,minFractionDigits);
+			if(count == 0)
+			{
+				return;
+			}
+
+			sb.append(decimalSeparator);
+			for(int i = 0; i < count; i++)
+			{
+				sb.append(i < length ? (char)(zeroDigit + digits.charAt(i) - '0') : zeroDigit);
+			}
+		}
+	}
+
+
+
+	/**
+	 * Numeric date patterns of the gregorian calendar, e.g.
+	 * <code>yyyy-MM-dd HH:mm:ss</code>.
+	 */
+	static class DateFastFormat extends FastFormat
+	{
+		static DateFastFormat create(final SimpleDateFormat format)
+		{
+			final Calendar calendar = format.getCalendar();
+			if(calendar.getClass() != GregorianCalendar.class)
+			{
+				return null;
+			}
+
+			final NumberFormat numberFormat = format.getNumberFormat();
+			if(!(numberFormat instanceof DecimalFormat)
+					|| ((DecimalFormat)numberFormat).getDecimalFormatSymbols().getZeroDigit() != '0')
+			{
+				return null;
+			}
+
+			final TimeZone zone = calendar.getTimeZone();
+			if(!TimeZone.getTimeZone(zone.getID()).hasSameRules(zone))
+			{
+				return null;
+			}
+
+			final String pattern = format.toPattern();
+			if(!isSupported(pattern))
+			{
+				return null;
+			}
+
+			try
+			{
+				return new DateFastFormat(DateTimeFormatter.ofPattern(pattern).withZone(
+						zone.toZoneId()),((GregorianCalendar)calendar).getGregorianChange()
+						.getTime());
+			}
+			catch(final RuntimeException e)
+			{
+				return null;
+			}
+		}
+
+
+		/**
+		 * Only numeric fields are supported whose meaning is the same in
+		 * {@link SimpleDateFormat} and {@link DateTimeFormatter}.
+		 */
+		static boolean isSupported(final String pattern)
+		{
+			final int length = pattern.length();
+			boolean quoted = false;
+			for(int i = 0; i < length; i++)
+			{
+				final char c = pattern.charAt(i);
+				if(c == '\'')
+				{
+					quoted = !quoted;
+				}
+				else if(quoted)
+				{
+					continue;
+				}
+				else if((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z'))
+				{
+					int count = 1;
+					while(i + 1 < length && pattern.charAt(i + 1) == c)
+					{
+						count++;
+						i++;
+					}
+
+					switch(c)
+					{
+						case 'y':
+						break;
+
+						case 'M':
+						case 'd':
+						case 'H':
+						case 'h':
+						case 'm':
+						case 's':
+							if(count > 2)
+							{
+								return false;
+							}
+						break;
+
+						case 'S':
+							if(count != 3)
+							{
+								return false;
+							}
+						break;
+
+						default:
+							return false;
+					}
+				}
+				else if(c == '[' || c == ']' || c == '{' || c == '}' || c == '#')
+				{
+					return false;
+				}
+			}
+
+			return !quoted;
+		}
+
+		private final DateTimeFormatter	formatter;
+		/**
+		 * Dates before the gregorian change are julian dates
+		 */
+		private final long				gregorianChange;
+
+
+		private DateFastFormat(final DateTimeFormatter formatter, final long gregorianChange)
+		{
+			this.formatter = formatter;
+			this.gregorianChange = gregorianChange;
+		}
+
+
+		@Override
+		boolean format(final Object value, final StringBuilder sb)
+		{
+			long millis;
+			if(value instanceof Date)
+			{
+				millis = ((Date)value).getTime();
+			}
+			else if(value instanceof Long || value instanceof Integer)
+			{
+				millis = ((Number)value).longValue();
+			}
+			else
+			{
+				return false;
+			}
+
+			if(millis < gregorianChange)
+			{
+				return false;
+			}
+
+			formatter.formatTo(Instant.ofEpochMilli(millis),sb);
+			return true;
+		}
+	}
+}
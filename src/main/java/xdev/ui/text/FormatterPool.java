@@ -0,0 +1,223 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package xdev.ui.text;
+
+
+import java.text.DateFormat;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.Format;
+import java.text.NumberFormat;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+
+/**
+ * Cache of thread-safe {@link PooledFormat}s, keyed by pattern, locale and
+ * style.
+ * <p>
+ * Example:
+ * </p>
+ *
+ * <pre>
+ * String s = FormatterPool.getDateFormat(&quot;yyyy-MM-dd&quot;,Locale.ENGLISH).format(date);
+ * </pre>
+ *
+ * @author XDEV Software
+ * @since 6.0.3
+ */
+public final class FormatterPool
+{
+	/**
+	 * Maximum count of cached formats, the cache is cleared if it is exceeded
+	 */
+	private static final int							MAX_SIZE	= 1000;
+
+	private static final ConcurrentMap<Object, PooledFormat>	pool		= new ConcurrentHashMap<Object, PooledFormat>();
+
+
+	private FormatterPool()
+	{
+	}
+
+
+	/**
+	 * Returns the pooled format for <code>key</code>, it is created by
+	 * <code>factory</code> if it is not cached yet.
+	 *
+	 * @param key
+	 *            the key of the format, has to implement equals and hashCode
+	 * @param factory
+	 *            creates the format, its result must not be modified
+	 *            afterwards
+	 * @return the pooled format or <code>null</code> if <code>factory</code>
+	 *         returns <code>null</code>
+	 */
+	public static PooledFormat get(final Object key, final Supplier<? extends Format> factory)
+	{
+		PooledFormat pooledFormat = pool.get(key);
+		if(pooledFormat == null)
+		{
+			final Format format = factory.get();
+			if(format == null)
+			{
+				return null;
+			}
+
+			if(pool.size() >= MAX_SIZE)
+			{
+				pool.clear();
+			}
+
+			pooledFormat = new PooledFormat(format);
+			final PooledFormat existing = pool.putIfAbsent(key,pooledFormat);
+			if(existing != null)
+			{
+				pooledFormat = existing;
+			}
+		}
+		return pooledFormat;
+	}
+
+
+	/**
+	 * Returns a pooled {@link SimpleDateFormat}.
+	 *
+	 * @param pattern
+	 *            the date pattern
+	 * @param locale
+	 *            the locale
+	 * @return the pooled format
+	 */
+	public static PooledFormat getDateFormat(final String pattern, final Locale locale)
+	{
+		return get(Arrays.asList(SimpleDateFormat.class,pattern,locale),
+				new Supplier<Format>()
+				{
+					@Override
+					public Format get()
+					{
+						return new SimpleDateFormat(pattern,locale);
+					}
+				});
+	}
+
+
+	/**
+	 * Returns a pooled date and time format of the given styles.
+	 *
+	 * @param dateStyle
+	 *            the date style, e.g. {@link DateFormat#MEDIUM}
+	 * @param timeStyle
+	 *            the time style, e.g. {@link DateFormat#MEDIUM}
+	 * @param locale
+	 *            the locale
+	 * @return the pooled format
+	 * @see DateFormat#getDateTimeInstance(int, int, Locale)
+	 */
+	public static PooledFormat getDateTimeFormat(final int dateStyle, final int timeStyle,
+			final Locale locale)
+	{
+		return get(Arrays.asList(DateFormat.class,dateStyle,timeStyle,locale),
+				new Supplier<Format>()
+				{
+					@Override
+					public Format get()
+					{
+						return DateFormat.getDateTimeInstance(dateStyle,timeStyle,locale);
+					}
+				});
+	}
+
+
+	/**
+	 * Returns a pooled {@link DecimalFormat}.
+	 *
+	 * @param pattern
+	 *            the number pattern
+	 * @param locale
+	 *            the locale
+	 * @return the pooled format
+	 */
+	public static PooledFormat getNumberFormat(final String pattern, final Locale locale)
+	{
+		return get(Arrays.asList(DecimalFormat.class,pattern,locale),new Supplier<Format>()
+		{
+			@Override
+			public Format get()
+			{
+				return new DecimalFormat(pattern,DecimalFormatSymbols.getInstance(locale));
+			}
+		});
+	}
+
+
+	/**
+	 * Returns a pooled integer format of <code>locale</code>.
+	 *
+	 * @param locale
+	 *            the locale
+	 * @return the pooled format
+	 * @see NumberFormat#getIntegerInstance(Locale)
+	 */
+	public static PooledFormat getIntegerFormat(final Locale locale)
+	{
+		return get(Arrays.asList(NumberFormat.class,"integer",locale),new Supplier<Format>()
+		{
+			@Override
+			public Format get()
+			{
+				return NumberFormat.getIntegerInstance(locale);
+			}
+		});
+	}
+
+
+	/**
+	 * Returns a pooled general-purpose number format of <code>locale</code>.
+	 *
+	 * @param locale
+	 *            the locale
+	 * @return the pooled format
+	 * @see NumberFormat#getNumberInstance(Locale)
+	 */
+	public static PooledFormat getNumberFormat(final Locale locale)
+	{
+		return get(Arrays.asList(NumberFormat.class,"number",locale),new Supplier<Format>()
+		{
+			@Override
+			public Format get()
+			{
+				return NumberFormat.getNumberInstance(locale);
+			}
+		});
+	}
+
+
+	/**
+	 * Removes all cached formats.
+	 */
+	public static void clear()
+	{
+		pool.clear();
+	}
+}
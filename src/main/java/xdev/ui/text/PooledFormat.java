@@ -0,0 +1,154 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package xdev.ui.text;
+
+
+import java.text.Format;
+import java.text.ParseException;
+
+
+/**
+ * A thread-safe wrapper of a {@link Format}.
+ * <p>
+ * Every thread works with its own copy of the format. Common integer, decimal
+ * and date patterns are formatted by an immutable fast path which writes
+ * directly into a {@link StringBuilder}.
+ * </p>
+ * <p>
+ * Instances are obtained by the {@link FormatterPool}.
+ * </p>
+ *
+ * @author XDEV Software
+ * @since 6.0.3
+ */
+public class PooledFormat
+{
+	private final Format						prototype;
+	private final FastFormat					fastFormat;
+	private final ThreadLocal<Format>			formats;
+	private final ThreadLocal<StringBuilder>	buffers;
+
+
+	PooledFormat(final Format prototype)
+	{
+		this.prototype = prototype;
+		this.fastFormat = FastFormat.create(prototype);
+		this.formats = new ThreadLocal<Format>()
+		{
+			@Override
+			protected Format initialValue()
+			{
+				return (Format)prototype.clone();
+			}
+		};
+		this.buffers = new ThreadLocal<StringBuilder>()
+		{
+			@Override
+			protected StringBuilder initialValue()
+			{
+				return new StringBuilder(32);
+			}
+		};
+	}
+
+
+	/**
+	 * Returns the copy of the format of the current thread. It must not be
+	 * handed over to other threads.
+	 *
+	 * @return the format of the current thread
+	 */
+	public Format getFormat()
+	{
+		return formats.get();
+	}
+
+
+	/**
+	 * @return <code>true</code> if common values are formatted without the
+	 *         {@link Format}
+	 */
+	public boolean hasFastPath()
+	{
+		return fastFormat != null;
+	}
+
+
+	/**
+	 * Formats <code>value</code>.
+	 *
+	 * @param value
+	 *            the value to format
+	 * @return the formatted string
+	 * @throws IllegalArgumentException
+	 *             if the format cannot format the given value
+	 */
+	public String format(final Object value) throws IllegalArgumentException
+	{
+		StringBuilder sb = buffers.get();
+		sb.setLength(0);
+		format(value,sb);
+		return sb.toString();
+	}
+
+
+	/**
+	 * Formats <code>value</code> and appends the result to <code>sb</code>.
+	 *
+	 * @param value
+	 *            the value to format
+	 * @param sb
+	 *            the target
+	 * @return <code>sb</code>
+	 * @throws IllegalArgumentException
+	 *             if the format cannot format the given value
+	 */
+	public StringBuilder format(final Object value, final StringBuilder sb)
+			throws IllegalArgumentException
+	{
+		if(fastFormat == null || !fastFormat.format(value,sb))
+		{
+			sb.append(getFormat().format(value));
+		}
+		return sb;
+	}
+
+
+	/**
+	 * Parses <code>source</code> with the format of the current thread.
+	 *
+	 * @param source
+	 *            the string to parse
+	 * @return the parsed object
+	 * @throws ParseException
+	 *             if <code>source</code> cannot be parsed
+	 */
+	public Object parseObject(final String source) throws ParseException
+	{
+		return getFormat().parseObject(source);
+	}
+
+
+	/**
+	 * @return a new copy of the underlying format
+	 */
+	public Format createFormat()
+	{
+		return (Format)prototype.clone();
+	}
+}
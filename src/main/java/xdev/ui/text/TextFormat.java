@@ -26,9 +26,11 @@ import java.text.Format;
 import java.text.NumberFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.Locale;
+import java.util.function.Supplier;
 
 import xdev.db.DataType;
 import xdev.lang.Copyable;
@@ -70,6 +72,7 @@ public class TextFormat implements Serializable, Copyable<TextFormat>
 	private boolean				suppressZero		= false;
 	private Color				signedColor			= Color.red;
 	private transient Format	format				= null;
+	private transient volatile PooledFormat	pooledFormat		= null;
 	
 
 	public TextFormat(VirtualTableColumn col)
@@ -383,6 +386,7 @@ public class TextFormat implements Serializable, Copyable<TextFormat>
 	{
 		this.type = type;
 		this.format = null;
+		this.pooledFormat = null;
 	}
 	
 
@@ -396,6 +400,7 @@ public class TextFormat implements Serializable, Copyable<TextFormat>
 	{
 		this.locale = locale;
 		this.format = null;
+		this.pooledFormat = null;
 	}
 	
 
@@ -409,6 +414,7 @@ public class TextFormat implements Serializable, Copyable<TextFormat>
 	{
 		this.pattern = pattern;
 		this.format = null;
+		this.pooledFormat = null;
 	}
 	
 
@@ -423,6 +429,37 @@ public class TextFormat implements Serializable, Copyable<TextFormat>
 	}
 	
 
+	/**
+	 * Returns the thread-safe variant of {@link #getFormat()}, shared by all
+	 * text formats with the same settings.
+	 * 
+	 * @return the pooled format or <code>null</code> if this format is
+	 *         {@link #PLAIN}
+	 * @since 6.0.3
+	 */
+	public PooledFormat getPooledFormat()
+	{
+		PooledFormat pooledFormat = this.pooledFormat;
+		if(pooledFormat == null)
+		{
+			final int type = this.type;
+			pooledFormat = FormatterPool.get(Arrays.asList(getClass(),type,dateUse,dateStyle,
+					timeStyle,minFractionDigits,maxFractionDigits,pattern,locale,groupingUsed),
+					new Supplier<Format>()
+					{
+						@Override
+						public Format get()
+						{
+							return createFormat(type);
+						}
+					});
+			this.pooledFormat = pooledFormat;
+		}
+		
+		return pooledFormat;
+	}
+	
+
 	public boolean getSuppressZero()
 	{
 		return suppressZero;
@@ -433,6 +470,7 @@ public class TextFormat implements Serializable, Copyable<TextFormat>
 	{
 		this.suppressZero = suppressZero;
 		this.format = null;
+		this.pooledFormat = null;
 	}
 	
 
@@ -446,6 +484,7 @@ public class TextFormat implements Serializable, Copyable<TextFormat>
 	{
 		this.dateStyle = dateStyle;
 		this.format = null;
+		this.pooledFormat = null;
 	}
 	
 
@@ -459,6 +498,7 @@ public class TextFormat implements Serializable, Copyable<TextFormat>
 	{
 		this.timeStyle = timeStyle;
 		this.format = null;
+		this.pooledFormat = null;
 	}
 	
 
@@ -472,6 +512,7 @@ public class TextFormat implements Serializable, Copyable<TextFormat>
 	{
 		this.dateUse = dateUse;
 		this.format = null;
+		this.pooledFormat = null;
 	}
 	
 
@@ -503,6 +544,7 @@ public class TextFormat implements Serializable, Copyable<TextFormat>
 	{
 		this.minFractionDigits = minFractionDigits;
 		this.format = null;
+		this.pooledFormat = null;
 	}
 	
 
@@ -516,6 +558,7 @@ public class TextFormat implements Serializable, Copyable<TextFormat>
 	{
 		this.maxFractionDigits = maxFractionDigits;
 		this.format = null;
+		this.pooledFormat = null;
 	}
 	
 
@@ -529,12 +572,13 @@ public class TextFormat implements Serializable, Copyable<TextFormat>
 	{
 		this.groupingUsed = groupingUsed;
 		this.format = null;
+		this.pooledFormat = null;
 	}
 	
 
 	public Date parseDate(String str) throws ParseException, DateFormatException
 	{
-		Object o = getFormat().parseObject(str);
+		Object o = getPooledFormat().parseObject(str);
 		if(o instanceof Date)
 		{
 			return (Date)o;
@@ -582,7 +626,7 @@ public class TextFormat implements Serializable, Copyable<TextFormat>
 			// {
 			try
 			{
-				return getFormat().parseObject(str);
+				return getPooledFormat().parseObject(str);
 			}
 			catch(Exception e3)
 			{
@@ -614,13 +658,15 @@ public class TextFormat implements Serializable, Copyable<TextFormat>
 			return "";
 		}
 		
-		Format format = getFormat();
+		PooledFormat pooledFormat = getPooledFormat();
 		
-		if(format == null)
+		if(pooledFormat == null)
 		{
 			return String.valueOf(o);
 		}
 		
+		Format format = pooledFormat.getFormat();
+		
 		if(suppressZero && o != null && o instanceof Number && ((Number)o).doubleValue() == 0.0)
 		{
 			return "";
@@ -655,7 +701,7 @@ public class TextFormat implements Serializable, Copyable<TextFormat>
 		
 		try
 		{
-			String value = format.format(o);
+			String value = pooledFormat.format(o);
 			
 			if(suppressZero && format instanceof NumberFormat)
 			{
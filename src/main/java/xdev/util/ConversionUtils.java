@@ -36,11 +36,11 @@ import java.text.DecimalFormatSymbols;
 import java.text.NumberFormat;
 import java.text.ParseException;
 import java.text.ParsePosition;
-import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Date;
 import java.util.Hashtable;
+import java.util.Locale;
 import java.util.Map;
 
 import javax.swing.Icon;
@@ -54,6 +54,7 @@ import xdev.lang.LibraryMember;
 import xdev.lang.NotNull;
 import xdev.ui.GraphicUtils;
 import xdev.ui.XdevImage;
+import xdev.ui.text.FormatterPool;
 import xdev.vt.XdevBlob;
 import xdev.vt.XdevClob;
 
@@ -1409,10 +1410,6 @@ public final class ConversionUtils
 	// Default Implementations
 	// *******************************************************************************
 	
-	private final static NumberFormat	integerFormat	= NumberFormat.getIntegerInstance();
-	private final static NumberFormat	decimalFormat	= NumberFormat.getNumberInstance();
-	
-	
 	/**
 	 * Workaround to avoid {@link NumberFormat}'s parsing issues.
 	 * 
@@ -1476,13 +1473,13 @@ public final class ConversionUtils
 			decimalFormat.setGroupingUsed(false);
 			format = decimalFormat;
 		}
-		else if(decimal)
-		{
-			format = decimalFormat;
-		}
 		else
 		{
-			format = integerFormat;
+			// the format of the current thread, NumberFormats are not
+			// thread-safe
+			Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+			format = (NumberFormat)(decimal ? FormatterPool.getNumberFormat(locale)
+					: FormatterPool.getIntegerFormat(locale)).getFormat();
 		}
 		
 		ParsePosition pos = new ParsePosition(0);
@@ -1922,14 +1919,8 @@ public final class ConversionUtils
 	
 	private static class DateConverter implements ObjectConverter<Date>
 	{
-		final SimpleDateFormat	SIMPLE_DATETIME_FORMAT;
-		final SimpleDateFormat	SIMPLE_DATE_FORMAT;
-		final SimpleDateFormat	SIMPLE_TIME_FORMAT;
-		final int[]				DATE_STYLE_CHECK_ORDER;
+		final int[]	DATE_STYLE_CHECK_ORDER;
 		{
-			SIMPLE_DATETIME_FORMAT = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-			SIMPLE_DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd");
-			SIMPLE_TIME_FORMAT = new SimpleDateFormat("HH:mm:ss");
 			DATE_STYLE_CHECK_ORDER = new int[]{DateFormat.MEDIUM,DateFormat.SHORT,DateFormat.LONG,
 					DateFormat.FULL};
 		}
@@ -1960,7 +1951,8 @@ public final class ConversionUtils
 			
 			try
 			{
-				return SIMPLE_DATETIME_FORMAT.parse(s);
+				return (Date)FormatterPool.getDateFormat("yyyy-MM-dd HH:mm:ss",
+						Locale.getDefault()).parseObject(s);
 			}
 			catch(ParseException e)
 			{
@@ -1968,7 +1960,8 @@ public final class ConversionUtils
 			
 			try
 			{
-				return SIMPLE_DATE_FORMAT.parse(s);
+				return (Date)FormatterPool.getDateFormat("yyyy-MM-dd",Locale.getDefault())
+						.parseObject(s);
 			}
 			catch(ParseException e)
 			{
@@ -1976,7 +1969,8 @@ public final class ConversionUtils
 			
 			try
 			{
-				return SIMPLE_TIME_FORMAT.parse(s);
+				return (Date)FormatterPool.getDateFormat("HH:mm:ss",Locale.getDefault())
+						.parseObject(s);
 			}
 			catch(ParseException e)
 			{
@@ -1988,7 +1982,8 @@ public final class ConversionUtils
 				{
 					try
 					{
-						return DateFormat.getDateTimeInstance(date,time).parse(s);
+						return (Date)FormatterPool.getDateTimeFormat(date,time,Locale.getDefault())
+								.parseObject(s);
 					}
 					catch(ParseException e)
 					{
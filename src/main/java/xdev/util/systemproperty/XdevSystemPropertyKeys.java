@@ -59,7 +59,68 @@ public class XdevSystemPropertyKeys
 	 */
 	public static final String	CONNECTION_TIMEOUT							= XDEV_DB_PROPERTY_PATTERN
 																					.concat("CONNECTIONTIMEOUT");
-	
+
+	/**
+	 * System property to set the maximum time in ms a request waits for a
+	 * pooled connection before it fails. default value:
+	 * XDEV_DB_CONNECTIONACQUIRETIMEOUT=30000
+	 *
+	 * @since 6.0.3
+	 */
+	public static final String	CONNECTION_ACQUIRE_TIMEOUT					= XDEV_DB_PROPERTY_PATTERN
+																					.concat("CONNECTIONACQUIRETIMEOUT");
+
+	/**
+	 * System property to limit the number of requests waiting for a pooled
+	 * connection, further requests fail immediately. default value:
+	 * XDEV_DB_CONNECTIONMAXWAITINGREQUESTS=0 (unlimited)
+	 *
+	 * @since 6.0.3
+	 */
+	public static final String	CONNECTION_MAX_WAITING_REQUESTS				= XDEV_DB_PROPERTY_PATTERN
+																					.concat("CONNECTIONMAXWAITINGREQUESTS");
+
+	/**
+	 * System property to set the interval in ms in which idle pooled
+	 * connections are validated. A connection which has been validated within
+	 * this interval is leased without another check. default value:
+	 * XDEV_DB_CONNECTIONVALIDATIONINTERVAL=30000
+	 *
+	 * @since 6.0.3
+	 */
+	public static final String	CONNECTION_VALIDATION_INTERVAL				= XDEV_DB_PROPERTY_PATTERN
+																					.concat("CONNECTIONVALIDATIONINTERVAL");
+
+	/**
+	 * System property to set the maximum count of prepared statements which
+	 * are cached per pooled connection, 0 disables the cache. default value:
+	 * XDEV_DB_STATEMENTCACHESIZE=100
+	 *
+	 * @since 6.0.3
+	 */
+	public static final String	STATEMENT_CACHE_SIZE						= XDEV_DB_PROPERTY_PATTERN
+																					.concat("STATEMENTCACHESIZE");
+
+	/**
+	 * System property to set the number of rows the JDBC driver fetches per
+	 * round trip, 0 uses the driver's default. default value: the fetch size
+	 * of the DBMS adaptor
+	 *
+	 * @since 6.0.3
+	 */
+	public static final String	FETCH_SIZE									= XDEV_DB_PROPERTY_PATTERN
+																					.concat("FETCHSIZE");
+
+	/**
+	 * System property to set the number of connections which read the
+	 * metadata of tables in parallel, 1 reads the tables one after another.
+	 * The connection pool size is an upper bound. default value: 4
+	 *
+	 * @since 6.0.3
+	 */
+	public static final String	METADATA_THREADS							= XDEV_DB_PROPERTY_PATTERN
+																					.concat("METADATATHREADS");
+
 	/**
 	 * System property to change location of database property file.
 	 * XDEV_DB_DBPROPERTYFILE=C:/xdev_workspace/db_location
@@ -0,0 +1,837 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package xdev.vt;
+
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import xdev.db.DataType;
+
+
+/**
+ * The values of one column of a {@link VirtualTable} in
+ * {@link VirtualTableStorage#COLUMNAR} mode.
+ * <p>
+ * Numbers and dates are held in primitive arrays with a bitmap of the present
+ * (non-null) values, strings are dictionary encoded. If a value doesn't fit
+ * the store, e.g. a {@link java.sql.Timestamp} in a date column,
+ * {@link #set(int, Object)} returns an {@link ObjectStore} with all values as
+ * replacement.
+ * </p>
+ *
+ * @author XDEV Software
+ * @since 6.0.3
+ */
+abstract class ColumnStore implements Serializable
+{
+	private static final long	serialVersionUID	= 1L;
+
+
+	/**
+	 * Creates the store for values of the type <code>type</code>.
+	 */
+	static ColumnStore create(final DataType type, final int capacity)
+	{
+		switch(type)
+		{
+			case TINYINT:
+				return new IntStore(capacity,Byte.class);
+
+			case SMALLINT:
+				return new IntStore(capacity,Short.class);
+
+			case INTEGER:
+				return new IntStore(capacity,Integer.class);
+
+			case BIGINT:
+				return new LongStore(capacity);
+
+			case REAL:
+				return new DoubleStore(capacity,Float.class);
+
+			case FLOAT:
+			case DOUBLE:
+			case NUMERIC:
+			case DECIMAL:
+				return new DoubleStore(capacity,Double.class);
+
+			case DATE:
+			case TIME:
+			case TIMESTAMP:
+				return new DateStore(capacity);
+
+			case CHAR:
+			case VARCHAR:
+				return new DictionaryStore(capacity);
+
+			default:
+				return new ObjectStore(capacity);
+		}
+	}
+
+
+	abstract Object get(int row);
+
+
+	/**
+	 * Sets the value at <code>row</code>.
+	 *
+	 * @return this store, or a replacement if <code>value</code> doesn't fit
+	 *         into this store
+	 */
+	abstract ColumnStore set(int row, Object value);
+
+
+	abstract int capacity();
+
+
+	abstract void ensureCapacity(int capacity);
+
+
+	/**
+	 * Moves <code>length</code> values from <code>from</code> to
+	 * <code>to</code>, like {@link System#arraycopy}.
+	 */
+	abstract void move(int from, int to, int length);
+
+
+	/**
+	 * Reorders the values, the new value at <code>i</code> is the old value at
+	 * <code>order[i]</code>.
+	 */
+	abstract void permute(int[] order, int size);
+
+
+	/**
+	 * Compares the values at <code>row1</code> and <code>row2</code>,
+	 * <code>null</code> is lower than any value.
+	 */
+	abstract int compare(int row1, int row2);
+
+
+	/**
+	 * Returns a copy of this store without dictionary encoding or primitive
+	 * values.
+	 */
+	ObjectStore toObjectStore()
+	{
+		final int capacity = capacity();
+		final ObjectStore store = new ObjectStore(capacity);
+		for(int i = 0; i < capacity; i++)
+		{
+			store.values[i] = get(i);
+		}
+		return store;
+	}
+
+
+	/**
+	 * Sorts <code>indices</code> stable by the values of this store.
+	 */
+	void sort(final int[] indices, final int size, final boolean ascending)
+	{
+		final int sign = ascending ? 1 : -1;
+		IndexSort.sort(indices,size,new IndexSort.IndexComparator()
+		{
+			@Override
+			public int compare(final int index1, final int index2)
+			{
+				return sign * ColumnStore.this.compare(index1,index2);
+			}
+		});
+	}
+
+
+	static int newCapacity(final int oldCapacity, final int minCapacity)
+	{
+		final int newCapacity = (oldCapacity * 3) / 2 + 1;
+		return newCapacity < minCapacity ? minCapacity : newCapacity;
+	}
+
+
+	static void moveBits(final BitSet bits, final int from, final int to, final int length)
+	{
+		if(from > to)
+		{
+			for(int i = 0; i < length; i++)
+			{
+				bits.set(to + i,bits.get(from + i));
+			}
+		}
+		else
+		{
+			for(int i = length - 1; i >= 0; i--)
+			{
+				bits.set(to + i,bits.get(from + i));
+			}
+		}
+	}
+
+
+	static BitSet permuteBits(final BitSet bits, final int[] order, final int size)
+	{
+		final BitSet permuted = new BitSet(size);
+		for(int i = 0; i < size; i++)
+		{
+			if(bits.get(order[i]))
+			{
+				permuted.set(i);
+			}
+		}
+		return permuted;
+	}
+
+
+
+	/**
+	 * Boxed values, used for all types without a primitive representation.
+	 */
+	static class ObjectStore extends ColumnStore
+	{
+		private static final long	serialVersionUID	= 1L;
+
+		Object[]					values;
+
+
+		ObjectStore(final int capacity)
+		{
+			this.values = new Object[capacity];
+		}
+
+
+		@Override
+		Object get(final int row)
+		{
+			return this.values[row];
+		}
+
+
+		@Override
+		ColumnStore set(final int row, final Object value)
+		{
+			this.values[row] = value;
+			return this;
+		}
+
+
+		@Override
+		int capacity()
+		{
+			return this.values.length;
+		}
+
+
+		@Override
+		void ensureCapacity(final int capacity)
+		{
+			if(capacity > this.values.length)
+			{
+				this.values = Arrays.copyOf(this.values,newCapacity(this.values.length,capacity));
+			}
+		}
+
+
+		@Override
+		void move(final int from, final int to, final int length)
+		{
+			System.arraycopy(this.values,from,this.values,to,length);
+		}
+
+
+		@Override
+		void permute(final int[] order, final int size)
+		{
+			final Object[] permuted = new Object[this.values.length];
+			for(int i = 0; i < size; i++)
+			{
+				permuted[i] = this.values[order[i]];
+			}
+			this.values = permuted;
+		}
+
+
+		@Override
+		int compare(final int row1, final int row2)
+		{
+			final Object o1 = this.values[row1];
+			final Object o2 = this.values[row2];
+			if(o1 == null)
+			{
+				return o2 == null ? 0 : -1;
+			}
+			if(o2 == null)
+			{
+				return 1;
+			}
+			return ((Comparable)o1).compareTo(o2);
+		}
+
+
+		@Override
+		ObjectStore toObjectStore()
+		{
+			return this;
+		}
+	}
+
+
+
+	/**
+	 * Base class for stores with primitive values and a bitmap of the present
+	 * values.
+	 */
+	static abstract class PrimitiveStore extends ColumnStore
+	{
+		private static final long	serialVersionUID	= 1L;
+
+		BitSet						present	= new BitSet();
+
+
+		boolean isNull(final int row)
+		{
+			return !this.present.get(row);
+		}
+
+
+		@Override
+		Object get(final int row)
+		{
+			return this.present.get(row) ? box(row) : null;
+		}
+
+
+		@Override
+		ColumnStore set(final int row, final Object value)
+		{
+			if(value == null)
+			{
+				this.present.clear(row);
+				return this;
+			}
+			if(!accept(row,value))
+			{
+				return toObjectStore().set(row,value);
+			}
+			this.present.set(row);
+			return this;
+		}
+
+
+		@Override
+		void move(final int from, final int to, final int length)
+		{
+			moveValues(from,to,length);
+			moveBits(this.present,from,to,length);
+		}
+
+
+		@Override
+		void permute(final int[] order, final int size)
+		{
+			permuteValues(order,size);
+			this.present = permuteBits(this.present,order,size);
+		}
+
+
+		@Override
+		int compare(final int row1, final int row2)
+		{
+			final boolean present1 = this.present.get(row1);
+			final boolean present2 = this.present.get(row2);
+			if(!present1)
+			{
+				return present2 ? -1 : 0;
+			}
+			if(!present2)
+			{
+				return 1;
+			}
+			return compareValues(row1,row2);
+		}
+
+
+		abstract Object box(int row);
+
+
+		/**
+		 * Stores <code>value</code> at <code>row</code> if it fits.
+		 */
+		abstract boolean accept(int row, Object value);
+
+
+		abstract void moveValues(int from, int to, int length);
+
+
+		abstract void permuteValues(int[] order, int size);
+
+
+		abstract int compareValues(int row1, int row2);
+	}
+
+
+
+	static class IntStore extends PrimitiveStore
+	{
+		private static final long	serialVersionUID	= 1L;
+
+		private final Class<?>		type;
+		int[]						values;
+
+
+		IntStore(final int capacity, final Class<?> type)
+		{
+			this.values = new int[capacity];
+			this.type = type;
+		}
+
+
+		int getInt(final int row)
+		{
+			return this.values[row];
+		}
+
+
+		@Override
+		Object box(final int row)
+		{
+			final int value = this.values[row];
+			if(this.type == Byte.class)
+			{
+				return (byte)value;
+			}
+			if(this.type == Short.class)
+			{
+				return (short)value;
+			}
+			return value;
+		}
+
+
+		@Override
+		boolean accept(final int row, final Object value)
+		{
+			if(value.getClass() != this.type)
+			{
+				return false;
+			}
+			this.values[row] = ((Number)value).intValue();
+			return true;
+		}
+
+
+		@Override
+		int capacity()
+		{
+			return this.values.length;
+		}
+
+
+		@Override
+		void ensureCapacity(final int capacity)
+		{
+			if(capacity > this.values.length)
+			{
+				this.values = Arrays.copyOf(this.values,newCapacity(this.values.length,capacity));
+			}
+		}
+
+
+		@Override
+		void moveValues(final int from, final int to, final int length)
+		{
+			System.arraycopy(this.values,from,this.values,to,length);
+		}
+
+
+		@Override
+		void permuteValues(final int[] order, final int size)
+		{
+			final int[] permuted = new int[this.values.length];
+			for(int i = 0; i < size; i++)
+			{
+				permuted[i] = this.values[order[i]];
+			}
+			this.values = permuted;
+		}
+
+
+		@Override
+		int compareValues(final int row1, final int row2)
+		{
+			return Integer.compare(this.values[row1],this.values[row2]);
+		}
+	}
+
+
+
+	static class LongStore extends PrimitiveStore
+	{
+		private static final long	serialVersionUID	= 1L;
+
+		long[]						values;
+
+
+		LongStore(final int capacity)
+		{
+			this.values = new long[capacity];
+		}
+
+
+		long getLong(final int row)
+		{
+			return this.values[row];
+		}
+
+
+		@Override
+		Object box(final int row)
+		{
+			return this.values[row];
+		}
+
+
+		@Override
+		boolean accept(final int row, final Object value)
+		{
+			if(value.getClass() != Long.class)
+			{
+				return false;
+			}
+			this.values[row] = (Long)value;
+			return true;
+		}
+
+
+		@Override
+		int capacity()
+		{
+			return this.values.length;
+		}
+
+
+		@Override
+		void ensureCapacity(final int capacity)
+		{
+			if(capacity > this.values.length)
+			{
+				this.values = Arrays.copyOf(this.values,newCapacity(this.values.length,capacity));
+			}
+		}
+
+
+		@Override
+		void moveValues(final int from, final int to, final int length)
+		{
+			System.arraycopy(this.values,from,this.values,to,length);
+		}
+
+
+		@Override
+		void permuteValues(final int[] order, final int size)
+		{
+			final long[] permuted = new long[this.values.length];
+			for(int i = 0; i < size; i++)
+			{
+				permuted[i] = this.values[order[i]];
+			}
+			this.values = permuted;
+		}
+
+
+		@Override
+		int compareValues(final int row1, final int row2)
+		{
+			return Long.compare(this.values[row1],this.values[row2]);
+		}
+	}
+
+
+
+	/**
+	 * Dates as milliseconds, the class of the first stored date is used for
+	 * all values. {@link java.sql.Timestamp}s with nanoseconds don't fit.
+	 */
+	static class DateStore extends LongStore
+	{
+		private static final long	serialVersionUID	= 1L;
+
+		private Class<?>			type;
+
+
+		DateStore(final int capacity)
+		{
+			super(capacity);
+		}
+
+
+		@Override
+		Object box(final int row)
+		{
+			final long time = this.values[row];
+			if(this.type == java.sql.Date.class)
+			{
+				return new java.sql.Date(time);
+			}
+			if(this.type == java.sql.Time.class)
+			{
+				return new java.sql.Time(time);
+			}
+			return new java.util.Date(time);
+		}
+
+
+		@Override
+		boolean accept(final int row, final Object value)
+		{
+			final Class<?> valueType = value.getClass();
+			if(this.type == null)
+			{
+				if(valueType != java.util.Date.class && valueType != java.sql.Date.class
+						&& valueType != java.sql.Time.class)
+				{
+					return false;
+				}
+				this.type = valueType;
+			}
+			else if(valueType != this.type)
+			{
+				return false;
+			}
+			this.values[row] = ((java.util.Date)value).getTime();
+			return true;
+		}
+	}
+
+
+
+	static class DoubleStore extends PrimitiveStore
+	{
+		private static final long	serialVersionUID	= 1L;
+
+		private final Class<?>		type;
+		double[]					values;
+
+
+		DoubleStore(final int capacity, final Class<?> type)
+		{
+			this.values = new double[capacity];
+			this.type = type;
+		}
+
+
+		double getDouble(final int row)
+		{
+			return this.values[row];
+		}
+
+
+		@Override
+		Object box(final int row)
+		{
+			final double value = this.values[row];
+			if(this.type == Float.class)
+			{
+				return (float)value;
+			}
+			return value;
+		}
+
+
+		@Override
+		boolean accept(final int row, final Object value)
+		{
+			if(value.getClass() != this.type)
+			{
+				return false;
+			}
+			this.values[row] = ((Number)value).doubleValue();
+			return true;
+		}
+
+
+		@Override
+		int capacity()
+		{
+			return this.values.length;
+		}
+
+
+		@Override
+		void ensureCapacity(final int capacity)
+		{
+			if(capacity > this.values.length)
+			{
+				this.values = Arrays.copyOf(this.values,newCapacity(this.values.length,capacity));
+			}
+		}
+
+
+		@Override
+		void moveValues(final int from, final int to, final int length)
+		{
+			System.arraycopy(this.values,from,this.values,to,length);
+		}
+
+
+		@Override
+		void permuteValues(final int[] order, final int size)
+		{
+			final double[] permuted = new double[this.values.length];
+			for(int i = 0; i < size; i++)
+			{
+				permuted[i] = this.values[order[i]];
+			}
+			this.values = permuted;
+		}
+
+
+		@Override
+		int compareValues(final int row1, final int row2)
+		{
+			return Double.compare(this.values[row1],this.values[row2]);
+		}
+	}
+
+
+
+	/**
+	 * Strings as codes into a dictionary of the distinct values. If the
+	 * dictionary grows beyond {@link #MAX_DICTIONARY_SIZE} the column is not
+	 * considered low-cardinality anymore and an {@link ObjectStore} is used.
+	 */
+	static class DictionaryStore extends ColumnStore
+	{
+		private static final long			serialVersionUID	= 1L;
+
+		static final int					MAX_DICTIONARY_SIZE	= 1 << 16;
+
+		private int[]						codes;
+		private final List<String>			dictionary			= new ArrayList<String>();
+		private final Map<String, Integer>	lookup				= new HashMap<String, Integer>();
+
+
+		DictionaryStore(final int capacity)
+		{
+			this.codes = new int[capacity];
+			Arrays.fill(this.codes,-1);
+		}
+
+
+		@Override
+		Object get(final int row)
+		{
+			final int code = this.codes[row];
+			return code == -1 ? null : this.dictionary.get(code);
+		}
+
+
+		@Override
+		ColumnStore set(final int row, final Object value)
+		{
+			if(value == null)
+			{
+				this.codes[row] = -1;
+				return this;
+			}
+			if(value.getClass() != String.class)
+			{
+				return toObjectStore().set(row,value);
+			}
+
+			Integer code = this.lookup.get(value);
+			if(code == null)
+			{
+				if(this.dictionary.size() >= MAX_DICTIONARY_SIZE)
+				{
+					return toObjectStore().set(row,value);
+				}
+				code = this.dictionary.size();
+				this.dictionary.add((String)value);
+				this.lookup.put((String)value,code);
+			}
+			this.codes[row] = code;
+			return this;
+		}
+
+
+		@Override
+		int capacity()
+		{
+			return this.codes.length;
+		}
+
+
+		@Override
+		void ensureCapacity(final int capacity)
+		{
+			final int oldCapacity = this.codes.length;
+			if(capacity > oldCapacity)
+			{
+				this.codes = Arrays.copyOf(this.codes,newCapacity(oldCapacity,capacity));
+				Arrays.fill(this.codes,oldCapacity,this.codes.length,-1);
+			}
+		}
+
+
+		@Override
+		void move(final int from, final int to, final int length)
+		{
+			System.arraycopy(this.codes,from,this.codes,to,length);
+		}
+
+
+		@Override
+		void permute(final int[] order, final int size)
+		{
+			final int[] permuted = new int[this.codes.length];
+			Arrays.fill(permuted,-1);
+			for(int i = 0; i < size; i++)
+			{
+				permuted[i] = this.codes[order[i]];
+			}
+			this.codes = permuted;
+		}
+
+
+		@Override
+		int compare(final int row1, final int row2)
+		{
+			final int code1 = this.codes[row1];
+			final int code2 = this.codes[row2];
+			if(code1 == code2)
+			{
+				return 0;
+			}
+			if(code1 == -1)
+			{
+				return -1;
+			}
+			if(code2 == -1)
+			{
+				return 1;
+			}
+			return this.dictionary.get(code1).compareTo(this.dictionary.get(code2));
+		}
+	}
+}
@@ -0,0 +1,277 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package xdev.vt;
+
+
+import java.io.Serializable;
+
+
+/**
+ * Open addressing hash table which stores the composite keys of a unique
+ * index.
+ * <p>
+ * The keys are the values of the key columns of a row, the caller reads only
+ * these columns, so rows in the columnar storage don't have to be
+ * materialized. Collisions are resolved by linear probing and verified with
+ * {@link Object#equals(Object)}, integral numbers are compared by their value
+ * regardless of their class. Removed slots are closed by shifting the
+ * following entries back, so no tombstones are needed.
+ * </p>
+ * <p>
+ * Every table guards its state with its own monitor, there is no lock shared
+ * between different tables.
+ * </p>
+ *
+ * @author XDEV Software
+ * @since 6.0.3
+ */
+final class IndexKeyTable implements Serializable
+{
+	private static final long	serialVersionUID	= -2914626128839536707L;
+
+	private static final int	MIN_CAPACITY		= 16;
+
+	private Object[][]			keys;
+	private int[]				hashes;
+	private int					size;
+	private int					threshold;
+
+
+	IndexKeyTable()
+	{
+		init(MIN_CAPACITY);
+	}
+
+
+	private void init(final int capacity)
+	{
+		this.keys = new Object[capacity][];
+		this.hashes = new int[capacity];
+		this.threshold = (capacity >> 1) + (capacity >> 2);
+	}
+
+
+	/**
+	 * Stores <code>key</code>, the array is kept by this table and must not be
+	 * modified afterwards.
+	 *
+	 * @param key
+	 *            the values of the key columns
+	 * @return <code>true</code> if the key is new, <code>false</code> if it was
+	 *         already present
+	 */
+	synchronized boolean add(final Object[] key)
+	{
+		final int hash = hash(key);
+		final int slot = find(hash,key);
+		if(this.keys[slot] != null)
+		{
+			return false;
+		}
+
+		this.keys[slot] = key;
+		this.hashes[slot] = hash;
+
+		if(++this.size > this.threshold)
+		{
+			rehash(this.keys.length << 1);
+		}
+
+		return true;
+	}
+
+
+	/**
+	 * @return <code>true</code> if <code>key</code> is stored in this table
+	 */
+	synchronized boolean contains(final Object[] key)
+	{
+		return this.keys[find(hash(key),key)] != null;
+	}
+
+
+	/**
+	 * Removes <code>key</code>.
+	 *
+	 * @return <code>true</code> if the key was present
+	 */
+	synchronized boolean remove(final Object[] key)
+	{
+		int slot = find(hash(key),key);
+		if(this.keys[slot] == null)
+		{
+			return false;
+		}
+
+		final Object[][] keys = this.keys;
+		final int[] hashes = this.hashes;
+		final int mask = keys.length - 1;
+
+		// backward shift deletion
+		int next = slot;
+		while(true)
+		{
+			next = (next + 1) & mask;
+			final Object[] entry = keys[next];
+			if(entry == null)
+			{
+				break;
+			}
+
+			final int home = hashes[next] & mask;
+			if(((next - home) & mask) >= ((next - slot) & mask))
+			{
+				keys[slot] = entry;
+				hashes[slot] = hashes[next];
+				slot = next;
+			}
+		}
+
+		keys[slot] = null;
+		hashes[slot] = 0;
+		this.size--;
+
+		return true;
+	}
+
+
+	synchronized int size()
+	{
+		return this.size;
+	}
+
+
+	synchronized void clear()
+	{
+		init(MIN_CAPACITY);
+		this.size = 0;
+	}
+
+
+	/**
+	 * @return the slot of the matching key or the empty slot where it would be
+	 *         inserted
+	 */
+	private int find(final int hash, final Object[] key)
+	{
+		final Object[][] keys = this.keys;
+		final int mask = keys.length - 1;
+		int slot = hash & mask;
+		Object[] entry;
+		while((entry = keys[slot]) != null)
+		{
+			if(this.hashes[slot] == hash && matches(entry,key))
+			{
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+
+	private void rehash(final int newCapacity)
+	{
+		final Object[][] oldKeys = this.keys;
+		final int[] oldHashes = this.hashes;
+
+		init(newCapacity);
+
+		final Object[][] keys = this.keys;
+		final int[] hashes = this.hashes;
+		final int mask = newCapacity - 1;
+		for(int i = 0; i < oldKeys.length; i++)
+		{
+			final Object[] key = oldKeys[i];
+			if(key != null)
+			{
+				int slot = oldHashes[i] & mask;
+				while(keys[slot] != null)
+				{
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = key;
+				hashes[slot] = oldHashes[i];
+			}
+		}
+	}
+
+
+	private static boolean matches(final Object[] entry, final Object[] key)
+	{
+		for(int i = 0; i < key.length; i++)
+		{
+			final Object value = key[i];
+			final Object other = entry[i];
+			if(value != other && (value == null || !valueEquals(value,other)))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	/**
+	 * Integral numbers of different classes are equal if their values are
+	 * equal, e.g. <code>Integer 1</code> and <code>Long 1</code>.
+	 */
+	private static boolean valueEquals(final Object value, final Object other)
+	{
+		if(isIntegral(value) && isIntegral(other))
+		{
+			return ((Number)value).longValue() == ((Number)other).longValue();
+		}
+		return value.equals(other);
+	}
+
+
+	private static boolean isIntegral(final Object value)
+	{
+		return value instanceof Long || value instanceof Integer || value instanceof Short
+				|| value instanceof Byte;
+	}
+
+
+	private static int valueHashCode(final Object value)
+	{
+		if(value == null)
+		{
+			return 0;
+		}
+		if(isIntegral(value))
+		{
+			return Long.hashCode(((Number)value).longValue());
+		}
+		return value.hashCode();
+	}
+
+
+	static int hash(final Object[] key)
+	{
+		int hash = 1;
+		for(int i = 0; i < key.length; i++)
+		{
+			hash = 31 * hash + valueHashCode(key[i]);
+		}
+
+		// spread the bits, sequential keys would cluster otherwise
+		hash *= 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+}
@@ -0,0 +1,179 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package xdev.vt;
+
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+
+/**
+ * Stable merge sort of row indices, ranges of at least
+ * {@link #PARALLEL_THRESHOLD} indices are sorted in the common
+ * {@link ForkJoinPool} unless a sequential sort is requested.
+ *
+ * @author XDEV Software
+ * @since 6.0.3
+ */
+final class IndexSort
+{
+	/**
+	 * Compares two rows by their indices.
+	 */
+	static interface IndexComparator
+	{
+		int compare(int index1, int index2);
+	}
+
+	/**
+	 * Ranges shorter than this are sorted sequentially
+	 */
+	static final int	PARALLEL_THRESHOLD	= 1 << 13;
+
+
+	private IndexSort()
+	{
+	}
+
+
+	/**
+	 * Sorts the first <code>size</code> indices stable by
+	 * <code>comparator</code>. The comparator has to be thread-safe.
+	 */
+	static void sort(final int[] indices, final int size, final IndexComparator comparator)
+	{
+		sort(indices,size,comparator,true);
+	}
+
+
+	/**
+	 * Sorts the first <code>size</code> indices stable by
+	 * <code>comparator</code>, in the calling thread if <code>parallel</code>
+	 * is <code>false</code>. Otherwise the comparator has to be thread-safe.
+	 */
+	static void sort(final int[] indices, final int size, final IndexComparator comparator,
+			final boolean parallel)
+	{
+		final int[] buffer = new int[size];
+		System.arraycopy(indices,0,buffer,0,size);
+
+		if(!parallel || size < PARALLEL_THRESHOLD)
+		{
+			mergeSort(buffer,indices,0,size,comparator);
+		}
+		else
+		{
+			final int granularity = Math.max(size / (ForkJoinPool.getCommonPoolParallelism() * 4),
+					PARALLEL_THRESHOLD);
+			ForkJoinPool.commonPool().invoke(
+					new SortTask(buffer,indices,0,size,comparator,granularity));
+		}
+	}
+
+
+	private static void mergeSort(final int[] src, final int[] dest, final int low,
+			final int high, final IndexComparator comparator)
+	{
+		final int length = high - low;
+		if(length < 7)
+		{
+			// insertion sort for small ranges
+			for(int i = low + 1; i < high; i++)
+			{
+				for(int j = i; j > low && comparator.compare(dest[j - 1],dest[j]) > 0; j--)
+				{
+					final int t = dest[j];
+					dest[j] = dest[j - 1];
+					dest[j - 1] = t;
+				}
+			}
+			return;
+		}
+
+		final int mid = (low + high) >>> 1;
+		mergeSort(dest,src,low,mid,comparator);
+		mergeSort(dest,src,mid,high,comparator);
+		merge(src,dest,low,mid,high,comparator);
+	}
+
+
+	/**
+	 * Merges the sorted halves of <code>src</code> into <code>dest</code>.
+	 */
+	private static void merge(final int[] src, final int[] dest, final int low, final int mid,
+			final int high, final IndexComparator comparator)
+	{
+		if(comparator.compare(src[mid - 1],src[mid]) <= 0)
+		{
+			System.arraycopy(src,low,dest,low,high - low);
+			return;
+		}
+
+		for(int i = low, p = low, q = mid; i < high; i++)
+		{
+			if(q >= high || p < mid && comparator.compare(src[p],src[q]) <= 0)
+			{
+				dest[i] = src[p++];
+			}
+			else
+			{
+				dest[i] = src[q++];
+			}
+		}
+	}
+
+
+
+	private static class SortTask extends RecursiveAction
+	{
+		private final int[]				src;
+		private final int[]				dest;
+		private final int				low;
+		private final int				high;
+		private final IndexComparator	comparator;
+		private final int				granularity;
+
+
+		SortTask(final int[] src, final int[] dest, final int low, final int high,
+				final IndexComparator comparator, final int granularity)
+		{
+			this.src = src;
+			this.dest = dest;
+			this.low = low;
+			this.high = high;
+			this.comparator = comparator;
+			this.granularity = granularity;
+		}
+
+
+		@Override
+		protected void compute()
+		{
+			if(high - low <= granularity)
+			{
+				mergeSort(src,dest,low,high,comparator);
+				return;
+			}
+
+			final int mid = (low + high) >>> 1;
+			invokeAll(new SortTask(dest,src,low,mid,comparator,granularity),new SortTask(dest,
+					src,mid,high,comparator,granularity));
+			merge(src,dest,low,mid,high,comparator);
+		}
+	}
+}
@@ -0,0 +1,407 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package xdev.vt;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import xdev.db.DataType;
+import xdev.io.ByteHolder;
+import xdev.io.CharHolder;
+import xdev.util.ConversionUtils;
+import xdev.util.ObjectConversionException;
+import xdev.vt.VirtualTable.VirtualTableRow;
+
+
+/**
+ * A hash table which maps the values of key columns to elements, e.g. the rows
+ * of a {@link VirtualTable}.
+ * <p>
+ * Keys are compared like {@link VirtualTable#equals(Object, Object, DataType)}
+ * does with the types of the key columns: values of numeric columns by their
+ * number value, other values by their string representation. Build the table once on the smaller
+ * side and probe it with the rows of the other side, see
+ * {@link #join(VirtualTable, VirtualTableColumn[], VirtualTable, VirtualTableColumn[], JoinHandler)}
+ * .
+ * </p>
+ *
+ * @param <E>
+ *            the element type
+ *
+ * @author XDEV Software
+ * @since 6.0.3
+ */
+public class KeyHashTable<E>
+{
+	/**
+	 * Receives the matching row pairs of a join.
+	 *
+	 * @see KeyHashTable#join(VirtualTable, VirtualTableColumn[], VirtualTable,
+	 *      VirtualTableColumn[], JoinHandler)
+	 */
+	public static interface JoinHandler
+	{
+		/**
+		 * Called for every pair of rows with equal key values.
+		 *
+		 * @param leftRow
+		 *            the row index in the left {@link VirtualTable}
+		 * @param rightRow
+		 *            the row index in the right {@link VirtualTable}
+		 */
+		public void rowsJoined(int leftRow, int rightRow);
+	}
+
+
+	/**
+	 * Joins the rows of two {@link VirtualTable}s with equal key values. A
+	 * {@link KeyHashTable} is built on the smaller table and probed with the
+	 * rows of the other one, the order of the reported pairs is undefined.
+	 *
+	 * @param left
+	 *            the left {@link VirtualTable}
+	 * @param leftColumns
+	 *            the key columns of <code>left</code>
+	 * @param right
+	 *            the right {@link VirtualTable}
+	 * @param rightColumns
+	 *            the key columns of <code>right</code>, in the same order as
+	 *            <code>leftColumns</code>
+	 * @param handler
+	 *            receives the matching row pairs
+	 */
+	public static void join(final VirtualTable left, final VirtualTableColumn<?>[] leftColumns,
+			final VirtualTable right, final VirtualTableColumn<?>[] rightColumns,
+			final JoinHandler handler)
+	{
+		if(leftColumns.length != rightColumns.length)
+		{
+			throw new IllegalArgumentException("different key column count");
+		}
+
+		final boolean buildLeft = left.getRowCount() <= right.getRowCount();
+		final VirtualTable build = buildLeft ? left : right;
+		final VirtualTable probe = buildLeft ? right : left;
+		final VirtualTableColumn<?>[] buildColumns = buildLeft ? leftColumns : rightColumns;
+		final int[] probeIndices = getColumnIndices(probe,buildLeft ? rightColumns
+				: leftColumns);
+
+		final KeyHashTable<Integer> table = new KeyHashTable<Integer>(buildColumns);
+		final int[] buildIndices = getColumnIndices(build,buildColumns);
+		for(int row = 0, count = build.getRowCount(); row < count; row++)
+		{
+			table.put(getKey(build,row,buildIndices),row);
+		}
+
+		for(int row = 0, count = probe.getRowCount(); row < count; row++)
+		{
+			for(final Integer match : table.get(getKey(probe,row,probeIndices)))
+			{
+				if(buildLeft)
+				{
+					handler.rowsJoined(match,row);
+				}
+				else
+				{
+					handler.rowsJoined(row,match);
+				}
+			}
+		}
+	}
+
+
+	private static int[] getColumnIndices(final VirtualTable vt,
+			final VirtualTableColumn<?>[] columns)
+	{
+		final int[] indices = new int[columns.length];
+		for(int i = 0; i < columns.length; i++)
+		{
+			indices[i] = vt.getColumnIndex(columns[i]);
+			if(indices[i] == -1)
+			{
+				indices[i] = vt.getColumnIndex(columns[i].getName());
+			}
+		}
+		return indices;
+	}
+
+
+	private static Object[] getKey(final VirtualTable vt, final int row, final int[] indices)
+	{
+		final Object[] key = new Object[indices.length];
+		for(int i = 0; i < indices.length; i++)
+		{
+			key[i] = vt.getValueAt(row,indices[i]);
+		}
+		return key;
+	}
+
+	private final String[]			columnNames;
+	private final DataType[]		types;
+	private final Map<Key, List<E>>	buckets	= new HashMap<Key, List<E>>();
+	private int						size;
+
+
+	/**
+	 * Creates an empty table for the key <code>columns</code>.
+	 *
+	 * @param columns
+	 *            the key columns, their types are used to compare the values
+	 */
+	public KeyHashTable(final VirtualTableColumn<?>... columns)
+	{
+		this.columnNames = new String[columns.length];
+		this.types = new DataType[columns.length];
+		for(int i = 0; i < columns.length; i++)
+		{
+			this.columnNames[i] = columns[i].getName();
+			this.types[i] = columns[i].getType();
+		}
+	}
+
+
+	/**
+	 * @return the names of the key columns
+	 */
+	public String[] getColumnNames()
+	{
+		return this.columnNames.clone();
+	}
+
+
+	/**
+	 * Returns the values of the key columns of <code>row</code>, the columns
+	 * are looked up by name in the row's {@link VirtualTable}.
+	 *
+	 * @param row
+	 *            the row
+	 * @return the key of <code>row</code>
+	 */
+	public Object[] getKey(final VirtualTableRow row)
+	{
+		final VirtualTable vt = row.getVirtualTable();
+		final Object[] key = new Object[this.columnNames.length];
+		for(int i = 0; i < key.length; i++)
+		{
+			key[i] = row.get(vt.getColumnIndex(this.columnNames[i]));
+		}
+		return key;
+	}
+
+
+	/**
+	 * Returns the values of the key columns in <code>keyValues</code>.
+	 *
+	 * @param keyValues
+	 *            the key values
+	 * @return the key of <code>keyValues</code>
+	 */
+	public Object[] getKey(final KeyValues keyValues)
+	{
+		return keyValues.getValues(this.columnNames);
+	}
+
+
+	/**
+	 * Adds an element with the key <code>key</code>. Elements with equal keys
+	 * are kept in insertion order.
+	 *
+	 * @param key
+	 *            the values of the key columns
+	 * @param element
+	 *            the element to add
+	 */
+	public void put(final Object[] key, final E element)
+	{
+		final Key k = new Key(key);
+		List<E> bucket = this.buckets.get(k);
+		if(bucket == null)
+		{
+			this.buckets.put(k,bucket = new ArrayList<E>(1));
+		}
+		bucket.add(element);
+		this.size++;
+	}
+
+
+	/**
+	 * Returns all elements with a key equal to <code>key</code>.
+	 *
+	 * @param key
+	 *            the values of the key columns
+	 * @return the matching elements in insertion order, an empty list if there
+	 *         are none
+	 */
+	public List<E> get(final Object[] key)
+	{
+		final List<E> bucket = this.buckets.get(new Key(key));
+		return bucket != null ? Collections.unmodifiableList(bucket) : Collections
+				.<E> emptyList();
+	}
+
+
+	/**
+	 * @param key
+	 *            the values of the key columns
+	 * @return <code>true</code> if an element with a key equal to
+	 *         <code>key</code> exists
+	 */
+	public boolean containsKey(final Object[] key)
+	{
+		return this.buckets.containsKey(new Key(key));
+	}
+
+
+	/**
+	 * Removes the first element with a key equal to <code>key</code>.
+	 *
+	 * @param key
+	 *            the values of the key columns
+	 * @return the removed element or <code>null</code> if there is none
+	 */
+	public E removeFirst(final Object[] key)
+	{
+		final Key k = new Key(key);
+		final List<E> bucket = this.buckets.get(k);
+		if(bucket == null)
+		{
+			return null;
+		}
+
+		final E element = bucket.remove(0);
+		if(bucket.isEmpty())
+		{
+			this.buckets.remove(k);
+		}
+		this.size--;
+		return element;
+	}
+
+
+	/**
+	 * @return the number of elements in this table
+	 */
+	public int size()
+	{
+		return this.size;
+	}
+
+
+	/**
+	 * @return <code>true</code> if this table contains no elements
+	 */
+	public boolean isEmpty()
+	{
+		return this.size == 0;
+	}
+
+
+	/**
+	 * Maps a value to an object whose <code>equals</code> and
+	 * <code>hashCode</code> match
+	 * {@link VirtualTable#equals(Object, Object, DataType)}.
+	 */
+	private static Object normalize(final Object value, final DataType type)
+	{
+		if(value == null || value instanceof ByteHolder || value instanceof CharHolder)
+		{
+			return value;
+		}
+
+		if(type == DataType.BOOLEAN)
+		{
+			try
+			{
+				return ConversionUtils.convert(value,Boolean.class);
+			}
+			catch(final ObjectConversionException e)
+			{
+			}
+		}
+
+		if(type != null && type.isNumeric())
+		{
+			if(value instanceof Number)
+			{
+				return normalize(((Number)value).doubleValue());
+			}
+
+			try
+			{
+				return normalize(Double.parseDouble(value.toString().trim()));
+			}
+			catch(final NumberFormatException e)
+			{
+			}
+		}
+
+		return value.toString();
+	}
+
+
+	private static Double normalize(final double value)
+	{
+		// -0.0 == 0.0
+		return value == 0d ? 0d : value;
+	}
+
+
+
+	private final class Key
+	{
+		private final Object[]	values;
+		private final int		hash;
+
+
+		Key(final Object[] key)
+		{
+			if(key.length != KeyHashTable.this.types.length)
+			{
+				throw new IllegalArgumentException("Expected " + KeyHashTable.this.types.length
+						+ " key values, got " + key.length);
+			}
+
+			this.values = new Object[key.length];
+			for(int i = 0; i < key.length; i++)
+			{
+				this.values[i] = normalize(key[i],KeyHashTable.this.types[i]);
+			}
+			this.hash = Arrays.hashCode(this.values);
+		}
+
+
+		@Override
+		public int hashCode()
+		{
+			return this.hash;
+		}
+
+
+		@Override
+		public boolean equals(final Object obj)
+		{
+			return obj instanceof KeyHashTable.Key
+					&& Arrays.equals(this.values,((KeyHashTable<?>.Key)obj).values);
+		}
+	}
+}
@@ -49,8 +49,7 @@ public class KeyValues implements Serializable
 	
 	private final VirtualTable					virtualTable;
 	private final LinkedHashMap<String, Object>	values;
-	private boolean								isPrimaryKey		= false;
-	private String								hash;
+	private transient int						hash;
 	
 	
 	/**
@@ -79,8 +78,6 @@ public class KeyValues implements Serializable
 		{
 			values.put(col.getName(),record.get(col));
 		}
-		
-		this.isPrimaryKey = true;
 	}
 	
 	
@@ -301,11 +298,6 @@ public class KeyValues implements Serializable
 	 */
 	public boolean equals(VirtualTableRow record)
 	{
-		if(isPrimaryKey)
-		{
-			return hash().equals(record.primaryKeyHash);
-		}
-		
 		for(String name : values.keySet())
 		{
 			Object thisVal = values.get(name);
@@ -411,24 +403,18 @@ public class KeyValues implements Serializable
 	}
 	
 	
-	private String hash()
-	{
-		if(hash == null)
-		{
-			hash = HashComputer.computeHash(values,
-					virtualTable.getAllowMultipleNullsInUniqueIndices());
-		}
-		
-		return hash;
-	}
-	
-	
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
 	public int hashCode()
 	{
-		return hash().hashCode();
+		int hash = this.hash;
+		if(hash == 0)
+		{
+			this.hash = hash = values.hashCode();
+		}
+		
+		return hash;
 	}
 }
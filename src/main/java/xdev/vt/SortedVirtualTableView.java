@@ -0,0 +1,664 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package xdev.vt;
+
+
+import java.sql.Timestamp;
+import java.util.Comparator;
+import java.util.Date;
+
+import xdev.db.DataType;
+import xdev.vt.VirtualTable.VirtualTableRow;
+
+
+/**
+ * A sorted view of a {@link VirtualTable}.
+ * <p>
+ * The view keeps a permutation of the row indices of the {@link VirtualTable}
+ * instead of reordering its rows, so several views can show the same
+ * {@link VirtualTable} in different orders. The permutation is recomputed
+ * lazily after the sort keys or the data of the {@link VirtualTable} have
+ * changed.
+ * </p>
+ * <p>
+ * Before sorting, the values of each sort column are copied into an array of
+ * the column's {@link DataType}, e.g. a <code>long[]</code> for integer
+ * columns, so the comparisons don't need casts or boxing. Columns with a custom
+ * {@link Comparator} are compared with it. Large tables are sorted in
+ * parallel, unless a sort column has a custom {@link Comparator}: these are
+ * only called from the thread which accesses the view, so they don't need to
+ * be thread-safe.
+ * </p>
+ *
+ * <pre>
+ * SortedVirtualTableView view = new SortedVirtualTableView(vt,
+ * 		new SortedVirtualTableView.SortKey(nameColumn,true),
+ * 		new SortedVirtualTableView.SortKey(dateColumn,false));
+ * Object value = view.getValueAt(0,nameColumn);
+ * </pre>
+ *
+ * @author XDEV Software
+ * @since 6.0.3
+ * @see VirtualTableModel#VirtualTableModel(VirtualTable, int[],
+ *      SortedVirtualTableView)
+ */
+public class SortedVirtualTableView
+{
+	/**
+	 * A column to sort by and its sort order.
+	 */
+	public static final class SortKey
+	{
+		private final int		columnIndex;
+		private final boolean	ascending;
+
+
+		/**
+		 * @param columnIndex
+		 *            the index of the column to sort by
+		 * @param ascending
+		 *            if set to <code>true</code>, sort order will be
+		 *            ascending, else descending
+		 */
+		public SortKey(final int columnIndex, final boolean ascending)
+		{
+			this.columnIndex = columnIndex;
+			this.ascending = ascending;
+		}
+
+
+		public int getColumnIndex()
+		{
+			return columnIndex;
+		}
+
+
+		public boolean isAscending()
+		{
+			return ascending;
+		}
+	}
+
+	private final VirtualTable			vt;
+	private final VirtualTableListener	listener;
+	private SortKey[]					sortKeys;
+	/**
+	 * The model row index of every view row, <code>null</code> if it has to
+	 * be recomputed
+	 */
+	private int[]						viewToModel;
+	private int[]						modelToView;
+
+
+	/**
+	 * Creates a sorted view of <code>vt</code>.
+	 *
+	 * @param vt
+	 *            the {@link VirtualTable} to show
+	 * @param sortKeys
+	 *            the columns to sort by, the first key has the highest
+	 *            priority
+	 */
+	public SortedVirtualTableView(final VirtualTable vt, final SortKey... sortKeys)
+	{
+		this.vt = vt;
+		this.sortKeys = sortKeys.clone();
+		this.listener = new VirtualTableAdapter()
+		{
+			@Override
+			public void virtualTableDataChanged(final VirtualTableEvent event)
+			{
+				invalidate();
+			}
+
+
+			@Override
+			public void virtualTableRowDeleted(final VirtualTableEvent event)
+			{
+				invalidate();
+			}
+
+
+			@Override
+			public void virtualTableRowInserted(final VirtualTableEvent event)
+			{
+				invalidate();
+			}
+
+
+			@Override
+			public void virtualTableRowUpdated(final VirtualTableEvent event)
+			{
+				invalidate();
+			}
+
+
+			@Override
+			public void virtualTableStructureChanged(final VirtualTableEvent event)
+			{
+				invalidate();
+			}
+		};
+		vt.addVirtualTableListener(this.listener);
+	}
+
+
+	/**
+	 * @return the {@link VirtualTable} of this view
+	 */
+	public VirtualTable getVirtualTable()
+	{
+		return vt;
+	}
+
+
+	/**
+	 * Sets the columns to sort by.
+	 *
+	 * @param sortKeys
+	 *            the columns to sort by, the first key has the highest
+	 *            priority; no keys for the order of the {@link VirtualTable}
+	 */
+	public synchronized void setSortKeys(final SortKey... sortKeys)
+	{
+		this.sortKeys = sortKeys.clone();
+		invalidate();
+	}
+
+
+	/**
+	 * @return the columns to sort by
+	 */
+	public synchronized SortKey[] getSortKeys()
+	{
+		return sortKeys.clone();
+	}
+
+
+	/**
+	 * Discards the current order, it is recomputed on the next access.
+	 */
+	public synchronized void invalidate()
+	{
+		viewToModel = null;
+		modelToView = null;
+	}
+
+
+	/**
+	 * @return the row count of the {@link VirtualTable}
+	 */
+	public synchronized int getRowCount()
+	{
+		return order().length;
+	}
+
+
+	/**
+	 * @param viewRow
+	 *            the index of a row in this view
+	 * @return the index of the row in the {@link VirtualTable}
+	 * @throws IndexOutOfBoundsException
+	 *             if <code>viewRow</code> is not within range of row indices
+	 */
+	public synchronized int convertRowIndexToModel(final int viewRow)
+			throws IndexOutOfBoundsException
+	{
+		final int[] order = order();
+		if(viewRow < 0 || viewRow >= order.length)
+		{
+			throw new IndexOutOfBoundsException("row: " + viewRow);
+		}
+		return order[viewRow];
+	}
+
+
+	/**
+	 * @param modelRow
+	 *            the index of a row in the {@link VirtualTable}
+	 * @return the index of the row in this view
+	 * @throws IndexOutOfBoundsException
+	 *             if <code>modelRow</code> is not within range of row indices
+	 */
+	public synchronized int convertRowIndexToView(final int modelRow)
+			throws IndexOutOfBoundsException
+	{
+		final int[] order = order();
+		if(modelRow < 0 || modelRow >= order.length)
+		{
+			throw new IndexOutOfBoundsException("row: " + modelRow);
+		}
+
+		if(modelToView == null)
+		{
+			modelToView = new int[order.length];
+			for(int i = 0; i < order.length; i++)
+			{
+				modelToView[order[i]] = i;
+			}
+		}
+		return modelToView[modelRow];
+	}
+
+
+	/**
+	 * Returns the value at a position of this view.
+	 *
+	 * @param viewRow
+	 *            the index of a row in this view
+	 * @param col
+	 *            the index of the column
+	 * @return the value of the cell
+	 */
+	public Object getValueAt(final int viewRow, final int col)
+	{
+		return vt.getValueAt(convertRowIndexToModel(viewRow),col);
+	}
+
+
+	/**
+	 * Returns the {@link VirtualTableRow} at a position of this view.
+	 *
+	 * @param viewRow
+	 *            the index of a row in this view
+	 * @return the {@link VirtualTableRow}
+	 */
+	public VirtualTableRow getRow(final int viewRow)
+	{
+		return vt.getRow(convertRowIndexToModel(viewRow));
+	}
+
+
+	/**
+	 * Stops listening to the {@link VirtualTable}, the view must not be used
+	 * afterwards.
+	 */
+	public void dispose()
+	{
+		vt.removeVirtualTableListener(listener);
+	}
+
+
+	private int[] order()
+	{
+		if(viewToModel == null)
+		{
+			viewToModel = sort();
+		}
+		return viewToModel;
+	}
+
+
+	private int[] sort()
+	{
+		final int rowCount = vt.getRowCount();
+		final int[] order = new int[rowCount];
+		for(int i = 0; i < rowCount; i++)
+		{
+			order[i] = i;
+		}
+
+		final int keyCount = sortKeys.length;
+		if(keyCount == 0 || rowCount < 2)
+		{
+			return order;
+		}
+
+		final IndexSort.IndexComparator[] comparators = new IndexSort.IndexComparator[keyCount];
+		boolean parallel = true;
+		for(int i = 0; i < keyCount; i++)
+		{
+			comparators[i] = createComparator(sortKeys[i],rowCount);
+			if(!isDefaultComparator(vt.getColumnAt(sortKeys[i].getColumnIndex())
+					.getComparator()))
+			{
+				// custom comparators may not be thread-safe
+				parallel = false;
+			}
+		}
+
+		if(keyCount == 1)
+		{
+			IndexSort.sort(order,rowCount,comparators[0],parallel);
+		}
+		else
+		{
+			IndexSort.sort(order,rowCount,new IndexSort.IndexComparator()
+			{
+				@Override
+				public int compare(final int index1, final int index2)
+				{
+					for(final IndexSort.IndexComparator comparator : comparators)
+					{
+						final int result = comparator.compare(index1,index2);
+						if(result != 0)
+						{
+							return result;
+						}
+					}
+					return 0;
+				}
+			},parallel);
+		}
+
+		return order;
+	}
+
+
+	/**
+	 * Copies the values of the sort column into an array of its type and
+	 * returns a comparator of the row indices.
+	 */
+	private IndexSort.IndexComparator createComparator(final SortKey key, final int rowCount)
+	{
+		final int col = key.getColumnIndex();
+		final int sign = key.isAscending() ? 1 : -1;
+		final VirtualTableColumn column = vt.getColumnAt(col);
+
+		final Object[] values = new Object[rowCount];
+		Class valueClass = null;
+		boolean uniform = true;
+		for(int i = 0; i < rowCount; i++)
+		{
+			final Object value = vt.getValueAt(i,col);
+			values[i] = value;
+			if(value != null)
+			{
+				if(valueClass == null)
+				{
+					valueClass = value.getClass();
+				}
+				else if(valueClass != value.getClass())
+				{
+					uniform = false;
+				}
+			}
+		}
+
+		final Comparator comparator = column.getComparator();
+		if(!uniform || valueClass == null || !isDefaultComparator(comparator))
+		{
+			return new ObjectComparator(values,comparator,sign);
+		}
+
+		final DataType type = column.getType();
+		if(type.isInt()
+				&& (valueClass == Byte.class || valueClass == Short.class
+						|| valueClass == Integer.class || valueClass == Long.class))
+		{
+			final long[] longs = new long[rowCount];
+			for(int i = 0; i < rowCount; i++)
+			{
+				if(values[i] != null)
+				{
+					longs[i] = ((Number)values[i]).longValue();
+				}
+			}
+			return new LongComparator(longs,nulls(values),sign);
+		}
+
+		if(type.isDecimal() && (valueClass == Double.class || valueClass == Float.class))
+		{
+			final double[] doubles = new double[rowCount];
+			for(int i = 0; i < rowCount; i++)
+			{
+				if(values[i] != null)
+				{
+					doubles[i] = ((Number)values[i]).doubleValue();
+				}
+			}
+			return new DoubleComparator(doubles,nulls(values),sign);
+		}
+
+		if(type.isDate() && Date.class.isAssignableFrom(valueClass))
+		{
+			final boolean timestamp = valueClass == Timestamp.class;
+			final long[] times = new long[rowCount];
+			final int[] nanos = timestamp ? new int[rowCount] : null;
+			for(int i = 0; i < rowCount; i++)
+			{
+				if(values[i] != null)
+				{
+					times[i] = ((Date)values[i]).getTime();
+					if(timestamp)
+					{
+						nanos[i] = ((Timestamp)values[i]).getNanos();
+					}
+				}
+			}
+			return timestamp ? new TimestampComparator(times,nanos,nulls(values),sign)
+					: new LongComparator(times,nulls(values),sign);
+		}
+
+		if(type == DataType.BOOLEAN && valueClass == Boolean.class)
+		{
+			final long[] longs = new long[rowCount];
+			for(int i = 0; i < rowCount; i++)
+			{
+				if(values[i] != null)
+				{
+					longs[i] = ((Boolean)values[i]).booleanValue() ? 1 : 0;
+				}
+			}
+			return new LongComparator(longs,nulls(values),sign);
+		}
+
+		if(type.isString() && valueClass == String.class)
+		{
+			final String[] strings = new String[rowCount];
+			System.arraycopy(values,0,strings,0,rowCount);
+			return new StringComparator(strings,sign);
+		}
+
+		return new ObjectComparator(values,comparator,sign);
+	}
+
+
+	private static boolean isDefaultComparator(final Comparator comparator)
+	{
+		return comparator.getClass() == VirtualTableColumn.NullAwareComparator.class
+				&& ((VirtualTableColumn.NullAwareComparator)comparator).actualComparator
+						.getClass() == VirtualTableColumn.DefaultComparator.class;
+	}
+
+
+	/**
+	 * @return the null flags of <code>values</code>, <code>null</code> if
+	 *         there are no null values
+	 */
+	private static boolean[] nulls(final Object[] values)
+	{
+		boolean[] nulls = null;
+		for(int i = 0; i < values.length; i++)
+		{
+			if(values[i] == null)
+			{
+				if(nulls == null)
+				{
+					nulls = new boolean[values.length];
+				}
+				nulls[i] = true;
+			}
+		}
+		return nulls;
+	}
+
+
+
+	/**
+	 * Base class of the comparators of primitive values, <code>null</code> is
+	 * lower than any value.
+	 */
+	private static abstract class PrimitiveComparator implements IndexSort.IndexComparator
+	{
+		private final boolean[]	nulls;
+		final int				sign;
+
+
+		PrimitiveComparator(final boolean[] nulls, final int sign)
+		{
+			this.nulls = nulls;
+			this.sign = sign;
+		}
+
+
+		@Override
+		public int compare(final int index1, final int index2)
+		{
+			if(nulls != null)
+			{
+				final boolean null1 = nulls[index1];
+				final boolean null2 = nulls[index2];
+				if(null1 || null2)
+				{
+					return null1 == null2 ? 0 : null1 ? -sign : sign;
+				}
+			}
+			return sign * compareValues(index1,index2);
+		}
+
+
+		abstract int compareValues(int index1, int index2);
+	}
+
+
+
+	private static class LongComparator extends PrimitiveComparator
+	{
+		private final long[]	values;
+
+
+		LongComparator(final long[] values, final boolean[] nulls, final int sign)
+		{
+			super(nulls,sign);
+			this.values = values;
+		}
+
+
+		@Override
+		int compareValues(final int index1, final int index2)
+		{
+			return Long.compare(values[index1],values[index2]);
+		}
+	}
+
+
+
+	private static class DoubleComparator extends PrimitiveComparator
+	{
+		private final double[]	values;
+
+
+		DoubleComparator(final double[] values, final boolean[] nulls, final int sign)
+		{
+			super(nulls,sign);
+			this.values = values;
+		}
+
+
+		@Override
+		int compareValues(final int index1, final int index2)
+		{
+			return Double.compare(values[index1],values[index2]);
+		}
+	}
+
+
+
+	/**
+	 * Milliseconds and nanoseconds, like {@link Timestamp#compareTo(Timestamp)}
+	 */
+	private static class TimestampComparator extends PrimitiveComparator
+	{
+		private final long[]	times;
+		private final int[]		nanos;
+
+
+		TimestampComparator(final long[] times, final int[] nanos, final boolean[] nulls,
+				final int sign)
+		{
+			super(nulls,sign);
+			this.times = times;
+			this.nanos = nanos;
+		}
+
+
+		@Override
+		int compareValues(final int index1, final int index2)
+		{
+			final int result = Long.compare(times[index1],times[index2]);
+			return result != 0 ? result : Integer.compare(nanos[index1],nanos[index2]);
+		}
+	}
+
+
+
+	private static class StringComparator implements IndexSort.IndexComparator
+	{
+		private final String[]	values;
+		private final int		sign;
+
+
+		StringComparator(final String[] values, final int sign)
+		{
+			this.values = values;
+			this.sign = sign;
+		}
+
+
+		@Override
+		public int compare(final int index1, final int index2)
+		{
+			final String value1 = values[index1];
+			final String value2 = values[index2];
+			if(value1 == null || value2 == null)
+			{
+				return value1 == value2 ? 0 : value1 == null ? -sign : sign;
+			}
+			return sign * value1.compareTo(value2);
+		}
+	}
+
+
+
+	/**
+	 * Values without a specialized comparator, compared by the column's
+	 * {@link Comparator}
+	 */
+	private static class ObjectComparator implements IndexSort.IndexComparator
+	{
+		private final Object[]		values;
+		private final Comparator	comparator;
+		private final int			sign;
+
+
+		ObjectComparator(final Object[] values, final Comparator comparator, final int sign)
+		{
+			this.values = values;
+			this.comparator = comparator;
+			this.sign = sign;
+		}
+
+
+		@Override
+		public int compare(final int index1, final int index2)
+		{
+			return sign * comparator.compare(values[index1],values[index2]);
+		}
+	}
+}
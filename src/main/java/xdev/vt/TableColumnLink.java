@@ -131,6 +131,36 @@ public class TableColumnLink implements Serializable, Copyable<TableColumnLink>
 	}
 	
 	
+	/**
+	 * Checks if this link joins at most one row of each table of the path to a
+	 * row of the master table, i.e. if each step of the path leads to an
+	 * entity with the {@link Cardinality} {@link Cardinality#ONE}.
+	 * 
+	 * @param masterTable
+	 *            the name of the table the path starts from
+	 * @since 6.0.3
+	 */
+	boolean isToOne(String masterTable)
+	{
+		for(EntityRelationship relation : path)
+		{
+			Entity masterEntity = relation.getReferrer(masterTable);
+			if(masterEntity == null)
+			{
+				return false;
+			}
+			Entity joinedEntity = relation.getOther(masterEntity);
+			if(joinedEntity.getCardinality() != Cardinality.ONE)
+			{
+				return false;
+			}
+			masterTable = joinedEntity.getTableName();
+		}
+		
+		return true;
+	}
+	
+	
 	void addColumn(SELECT select, VirtualTable masterVT, VirtualTableColumn linker,
 			JoinType joinType, SqlGenerationContext context) throws VirtualTableException
 	{
@@ -21,7 +21,6 @@ package xdev.vt;
 import java.beans.Beans;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.Serializable;
@@ -39,8 +38,13 @@ import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
 
 import javax.swing.JFileChooser;
 import javax.swing.JTable;
@@ -49,10 +53,12 @@ import javax.swing.table.JTableHeader;
 import javax.swing.table.TableCellRenderer;
 import javax.swing.table.TableModel;
 
+import xdev.db.BatchWriteRequest;
 import xdev.db.ColumnMetaData;
 import xdev.db.DBConnection;
 import xdev.db.DBDataSource;
 import xdev.db.DBException;
+import xdev.db.DBPager;
 import xdev.db.DBMetaData.TableInfo;
 import xdev.db.DBMetaData.TableMetaData;
 import xdev.db.DBMetaData.TableType;
@@ -61,11 +67,11 @@ import xdev.db.DataType;
 import xdev.db.Index;
 import xdev.db.Index.IndexType;
 import xdev.db.JoinType;
+import xdev.db.KeysetPager;
 import xdev.db.NullDBDataSource;
 import xdev.db.QueryInfo;
 import xdev.db.Result;
 import xdev.db.Transaction;
-import xdev.db.WriteRequest;
 import xdev.db.WriteResult;
 import xdev.db.locking.LockFactory;
 import xdev.db.locking.LockingException;
@@ -83,6 +89,7 @@ import xdev.io.XdevObjectInputStream;
 import xdev.io.XdevObjectOutputStream;
 import xdev.io.csv.CSVParser;
 import xdev.io.csv.CSVReader;
+import xdev.io.csv.CSVTokenizer;
 import xdev.io.csv.CSVWriter;
 import xdev.lang.Copyable;
 import xdev.lang.XDEV;
@@ -190,9 +197,20 @@ public class VirtualTable extends Table
 	 * the default DateFormat used within Virtual Tables.
 	 */
 	public final static String							DATE_FORMAT							= "yyyy-MM-dd HH:mm:ss";
+	/**
+	 * the default batch size of the {@link #synchronizeChangedRows()} methods.
+	 *
+	 * @since 6.0.3
+	 */
+	public final static int								DEFAULT_SYNCHRONIZATION_BATCH_SIZE	= 100;
 
 	private final static String							FILE_HEADER							= "%CX VIRTUAL TABLE%";
 
+	/**
+	 * Count of records per chunk of a parallel CSV import
+	 */
+	private final static int							CSV_IMPORT_CHUNK_SIZE				= 1024;
+
 	private String										name;
 	private String										dbSchema;
 	private String										dbAlias;
@@ -203,6 +221,11 @@ public class VirtualTable extends Table
 
 	private VirtualTableData							data;
 
+	/**
+	 * @since 6.0.3
+	 */
+	private VirtualTableStorage							storage								= VirtualTableStorage.ROW;
+
 	private final static int							FLAG_UNIQUE							= 0x0001;
 
 	// columns + info
@@ -213,6 +236,12 @@ public class VirtualTable extends Table
 	private final List<VirtualTableIndex>				indices								= new ArrayList(
 			3);
 
+	/**
+	 * @since 6.0.3
+	 */
+	private final List<VirtualTableLookupIndex>			lookupIndices						= new ArrayList(
+			2);
+
 	// behaviour configuration
 	private boolean										checkUniqueIndexDoubleValues		= true;
 
@@ -226,6 +255,11 @@ public class VirtualTable extends Table
 	 */
 	private boolean										allowMissingFillColumns				= true;
 
+	/**
+	 * @since 6.0.3
+	 */
+	private int											synchronizationBatchSize			= DEFAULT_SYNCHRONIZATION_BATCH_SIZE;
+
 	/**
 	 * @since 3.1
 	 */
@@ -560,10 +594,17 @@ public class VirtualTable extends Table
 			addIndex(vtIndex._originalIndex);
 		}
 
+		this.lookupIndices.clear();
+		for(final VirtualTableLookupIndex lookupIndex : vt.lookupIndices)
+		{
+			addLookupIndex(lookupIndex.column.getName());
+		}
+
 		this.checkUniqueIndexDoubleValues = vt.checkUniqueIndexDoubleValues;
 		this.allowMultipleNullsInUniqueIndices = vt.allowMultipleNullsInUniqueIndices;
 		this.allowMissingFillColumns = vt.allowMissingFillColumns;
 		this.allowSuperfluousFillColumns = vt.allowSuperfluousFillColumns;
+		this.synchronizationBatchSize = vt.synchronizationBatchSize;
 
 		if(vt.userDefinedSelect != null)
 		{
@@ -670,6 +711,165 @@ public class VirtualTable extends Table
 	}
 
 
+	/**
+	 * Sets how this {@link VirtualTable} holds its data, the present data is
+	 * converted.
+	 * <p>
+	 * In {@link VirtualTableStorage#COLUMNAR} mode numbers and dates are kept in
+	 * primitive arrays and strings dictionary encoded. Rows read from a data
+	 * source don't exist as {@link VirtualTableRow} objects until they are
+	 * requested, e.g. by {@link #getRow(int)}, while
+	 * {@link #getValueAt(int, int)} and sorting by a column with the default
+	 * comparator work on the column values directly.
+	 * </p>
+	 *
+	 * @param storage
+	 *            the new storage mode
+	 * @see #getStorage()
+	 * @since 6.0.3
+	 */
+	public void setStorage(final VirtualTableStorage storage)
+	{
+		this.storage = storage;
+		this.data.setStorage(storage);
+	}
+
+
+	/**
+	 * Returns how this {@link VirtualTable} holds its data.
+	 *
+	 * @return the storage mode
+	 * @see #setStorage(VirtualTableStorage)
+	 * @since 6.0.3
+	 */
+	public VirtualTableStorage getStorage()
+	{
+		return this.storage != null ? this.storage : VirtualTableStorage.ROW;
+	}
+
+
+	/**
+	 * Adds a lookup index for the specified column.
+	 * <p>
+	 * A lookup index is a non-unique hash index which is maintained with every
+	 * change of the data. It is used automatically by
+	 * {@link #getRowIndex(String, Object, int)}, {@link #getRow(KeyValues)},
+	 * {@link #updateRows(Map, KeyValues, boolean)} and
+	 * {@link #removeRows(KeyValues, boolean)} to avoid a scan over all rows.
+	 * </p>
+	 *
+	 * @param columnName
+	 *            the name of the column to index
+	 * @throws IllegalArgumentException
+	 *             if the column does not exist in this {@link VirtualTable}
+	 * @since 6.0.3
+	 */
+	public void addLookupIndex(final String columnName) throws IllegalArgumentException
+	{
+		final int col = getColumnIndex(columnName);
+		if(col == -1)
+		{
+			throw new IllegalArgumentException("column '" + columnName + "' not found");
+		}
+
+		if(getLookupIndex(col) == null)
+		{
+			final VirtualTableLookupIndex lookupIndex = new VirtualTableLookupIndex(
+					this.columns[col]);
+			this.data.putInLookupIndex(lookupIndex);
+			this.lookupIndices.add(lookupIndex);
+		}
+	}
+
+
+	/**
+	 * Removes the lookup index of the specified column.
+	 *
+	 * @param columnName
+	 *            the name of the indexed column
+	 * @return <code>true</code> if a lookup index was removed,
+	 *         <code>false</code> otherwise
+	 * @see #addLookupIndex(String)
+	 * @since 6.0.3
+	 */
+	public boolean removeLookupIndex(final String columnName)
+	{
+		final VirtualTableLookupIndex lookupIndex = getLookupIndex(getColumnIndex(columnName));
+		if(lookupIndex != null)
+		{
+			return this.lookupIndices.remove(lookupIndex);
+		}
+
+		return false;
+	}
+
+
+	/**
+	 * Returns if the specified column has a lookup index.
+	 *
+	 * @param columnName
+	 *            the name of the column
+	 * @return <code>true</code> if the column has a lookup index,
+	 *         <code>false</code> otherwise
+	 * @see #addLookupIndex(String)
+	 * @since 6.0.3
+	 */
+	public boolean hasLookupIndex(final String columnName)
+	{
+		return getLookupIndex(getColumnIndex(columnName)) != null;
+	}
+
+
+	private VirtualTableLookupIndex getLookupIndex(final int col)
+	{
+		if(col >= 0)
+		{
+			for(final VirtualTableLookupIndex lookupIndex : this.lookupIndices)
+			{
+				if(lookupIndex.columnIndex == col)
+				{
+					return lookupIndex;
+				}
+			}
+		}
+
+		return null;
+	}
+
+
+	/**
+	 * Returns the ascending indices of all rows matching <code>keyValues</code>
+	 * by means of a lookup index, or <code>null</code> if no lookup index can
+	 * be used.
+	 */
+	private IntList lookupRows(final KeyValues keyValues)
+	{
+		for(final String name : keyValues.columnNames())
+		{
+			final VirtualTableLookupIndex lookupIndex = getLookupIndex(getColumnIndex(name));
+			if(lookupIndex != null)
+			{
+				final Object value = keyValues.getValue(name);
+				if(lookupIndex.canLookup(value))
+				{
+					final IntList rows = new IntList();
+					for(final VirtualTableRow row : lookupIndex.get(value))
+					{
+						if(keyValues.equals(row))
+						{
+							rows.add(row.index);
+						}
+					}
+					rows.sort();
+					return rows;
+				}
+			}
+		}
+
+		return null;
+	}
+
+
 	/**
 	 * Returns true if all elements of this {@link VirtualTableColumn} are
 	 * unique.
@@ -722,12 +922,27 @@ public class VirtualTable extends Table
 	 * removed</li>
 	 * </ul>
 	 *
+	 * <p>
+	 * A {@link VirtualTableEventCoalescer} which delivers the events to
+	 * <code>l</code> is removed as well.
+	 * </p>
+	 *
 	 * @param l
 	 *            {@link VirtualTableListener} to be removed
 	 */
 	public void removeVirtualTableListener(final VirtualTableListener l)
 	{
 		this.listenerList.remove(VirtualTableListener.class,l);
+
+		for(final VirtualTableListener listener : this.listenerList
+				.getListeners(VirtualTableListener.class))
+		{
+			if(listener instanceof VirtualTableEventCoalescer
+					&& ((VirtualTableEventCoalescer)listener).getTarget() == l)
+			{
+				this.listenerList.remove(VirtualTableListener.class,listener);
+			}
+		}
 	}
 
 
@@ -757,6 +972,34 @@ public class VirtualTable extends Table
 	}
 
 
+	/**
+	 * This method notifies all registered listeners, whenever a range of rows
+	 * gets deleted.
+	 *
+	 * @param firstRowIndex
+	 *            the index of the first deleted row
+	 * @param lastRowIndex
+	 *            the index of the last deleted row
+	 * @since 6.0.3
+	 */
+	protected void fireRowsDeleted(final int firstRowIndex, final int lastRowIndex)
+	{
+		this.cursorpos = -1;
+
+		final VirtualTableListener[] listeners = this.listenerList
+				.getListeners(VirtualTableListener.class);
+		if(listeners != null && listeners.length > 0)
+		{
+			final VirtualTableEvent event = new VirtualTableEvent(this,Type.REMOVED,
+					firstRowIndex,lastRowIndex,-1);
+			for(final VirtualTableListener listener : listeners)
+			{
+				listener.virtualTableRowDeleted(event);
+			}
+		}
+	}
+
+
 	/**
 	 * This method notifies all registered listeners, whenever a row gets
 	 * inserted.
@@ -783,6 +1026,34 @@ public class VirtualTable extends Table
 	}
 
 
+	/**
+	 * This method notifies all registered listeners, whenever a range of rows
+	 * gets inserted.
+	 *
+	 * @param firstRowIndex
+	 *            the index of the first inserted row
+	 * @param lastRowIndex
+	 *            the index of the last inserted row
+	 * @since 6.0.3
+	 */
+	protected void fireRowsInserted(final int firstRowIndex, final int lastRowIndex)
+	{
+		this.cursorpos = -1;
+
+		final VirtualTableListener[] listeners = this.listenerList
+				.getListeners(VirtualTableListener.class);
+		if(listeners != null && listeners.length > 0)
+		{
+			final VirtualTableEvent event = new VirtualTableEvent(this,Type.INSERTED,
+					firstRowIndex,lastRowIndex,-1);
+			for(final VirtualTableListener listener : listeners)
+			{
+				listener.virtualTableRowInserted(event);
+			}
+		}
+	}
+
+
 	/**
 	 * This method notifies all registered listeners, whenever a row gets
 	 * updated.
@@ -1383,7 +1654,7 @@ public class VirtualTable extends Table
 	 */
 	public Object getValueAt(final int row, final int col)
 	{
-		return this.data.get(row).get(col);
+		return this.data.getValue(row,col);
 	}
 
 
@@ -1839,6 +2110,11 @@ public class VirtualTable extends Table
 			index.clear();
 		}
 
+		for(final VirtualTableLookupIndex lookupIndex : this.lookupIndices)
+		{
+			lookupIndex.clear();
+		}
+
 		this.removedRowKeys.clear();
 
 		fireDataChanged();
@@ -2154,15 +2430,47 @@ public class VirtualTable extends Table
 		}
 		this.lastQueryIndices = colIndices;
 
-		final int[] srcCols = new int[this.columns.length];
-		// long[] nextAutoVal = new long[columns.length];
+		final int[] srcCols = getSourceColumns(colIndices);
 
-		for(int c = 0; c < this.columns.length; c++)
+		if(method == VirtualTableFillMethod.OVERWRITE)
+		{
+			clear();
+		}
+
+		int index = 0;
+		while(result.next())
 		{
-			srcCols[c] = -1;
-			// nextAutoVal[c] = 0;
+			final VirtualTableRow row = readRow(result,srcCols);
+
+			switch(method)
+			{
+				case PREPEND:
+					this.data.insert(row,index,false);
+				break;
+				
+				default:
+					this.data.fill(row);
+				break;
+			}
+
+			index++;
 		}
 
+		fireDataChanged();
+	}
+
+
+	/**
+	 * Maps the columns of this {@link VirtualTable} to the result columns.
+	 *
+	 * @return the result column index per column of this table, -1 if the
+	 *         column is not in the result
+	 */
+	private int[] getSourceColumns(final int[] colIndices)
+	{
+		final int[] srcCols = new int[this.columns.length];
+		Arrays.fill(srcCols,-1);
+
 		for(int c = 0; c < colIndices.length; c++)
 		{
 			if(colIndices[c] != -1)
@@ -2171,62 +2479,33 @@ public class VirtualTable extends Table
 			}
 		}
 
-		// for(int c = 0; c < columns.length; c++)
-		// {
-		// if(srcCols[c] == -1 && columns[c].isAutoIncrement())
-		// {
-		// nextAutoVal[c] = getNextAutoVal(c);
-		// }
-		// }
+		return srcCols;
+	}
 
-		if(method == VirtualTableFillMethod.OVERWRITE)
-		{
-			clear();
-		}
 
-		VirtualTableRow row;
-		Object val;
-		int index = 0;
-		while(result.next())
+	private VirtualTableRow readRow(final Result result, final int[] srcCols)
+			throws VirtualTableException, DBException
+	{
+		final VirtualTableRow row = new VirtualTableRow(this.columns.length);
+		for(int c = 0; c < this.columns.length; c++)
 		{
-			row = new VirtualTableRow(this.columns.length);
-			for(int c = 0; c < this.columns.length; c++)
+			if(srcCols[c] == -1)
 			{
-				if(srcCols[c] == -1)
+				if(this.columns[c].isAutoIncrement())
 				{
-					if(this.columns[c].isAutoIncrement())
-					{
-						// long auto_val = nextAutoVal[c]++;
-						row.set(c,getNextAutoVal(this.columns[c]),false,false);
-					}
-					else
-					{
-						row.set(c,this.columns[c].getDefaultValue(),false,false);
-					}
+					row.set(c,getNextAutoVal(this.columns[c]),false,false);
 				}
 				else
 				{
-					val = result.getObject(srcCols[c]);
-
-					row.set(c,checkValue(c,val),false,false);
+					row.set(c,this.columns[c].getDefaultValue(),false,false);
 				}
 			}
-
-			switch(method)
+			else
 			{
-				case PREPEND:
-					this.data.insert(row,index,false);
-				break;
-				
-				default:
-					this.data.add(row,false);
-				break;
+				row.set(c,checkValue(c,result.getObject(srcCols[c])),false,false);
 			}
-
-			index++;
 		}
-
-		fireDataChanged();
+		return row;
 	}
 
 
@@ -2314,19 +2593,7 @@ public class VirtualTable extends Table
 			final JFileChooser fc = UIUtils.getSharedFileChooser();
 			if(fc.showSaveDialog(UIUtils.getActiveWindow()) == JFileChooser.APPROVE_OPTION)
 			{
-				final File f = fc.getSelectedFile();
-
-				final XdevObjectOutputStream out = new XdevObjectOutputStream(
-						new GZIPOutputStream(new FileOutputStream(f)));
-
-				try
-				{
-					write(out);
-				}
-				finally
-				{
-					out.close();
-				}
+				writeSnapshot(fc.getSelectedFile(),true);
 			}
 		}
 		catch(final IOException e)
@@ -2396,16 +2663,23 @@ public class VirtualTable extends Table
 			{
 				final File f = fc.getSelectedFile();
 
-				final XdevObjectInputStream in = new XdevObjectInputStream(
-						new GZIPInputStream(new FileInputStream(f)));
-
-				try
+				if(VirtualTableSnapshot.isSnapshot(f))
 				{
-					read(in);
+					readSnapshot(f);
 				}
-				finally
+				else
 				{
-					in.close();
+					final XdevObjectInputStream in = new XdevObjectInputStream(
+							new GZIPInputStream(new FileInputStream(f)));
+
+					try
+					{
+						read(in);
+					}
+					finally
+					{
+						in.close();
+					}
 				}
 			}
 		}
@@ -2437,6 +2711,10 @@ public class VirtualTable extends Table
 				final int rowc = in.readInt(), colc = in.readInt();
 				if(colc == this.columns.length)
 				{
+					for(final VirtualTableLookupIndex lookupIndex : this.lookupIndices)
+					{
+						lookupIndex.clear();
+					}
 					this.data = new VirtualTableData(rowc);
 					for(int i = 0; i < rowc; i++)
 					{
@@ -2452,7 +2730,7 @@ public class VirtualTable extends Table
 								throw new IOException(e.getMessage());
 							}
 						}
-						this.data.add(rowData,false);
+						this.data.fill(rowData);
 					}
 				}
 				else
@@ -2478,21 +2756,88 @@ public class VirtualTable extends Table
 
 
 	/**
-	 * Imports data from CSV (Comma Separated Values) information.
-	 * <p>
-	 * This is an alias for
-	 * {@link #importCSV(Reader, char, String, boolean, int)}.
-	 * </p>
+	 * Writes the data of this Virtual Table to a block-structured snapshot
+	 * file.
 	 *
-	 * @param reader
-	 *            {@link Reader} to read the CSV information from
+	 * @param file
+	 *            the target file
+	 * @param compress
+	 *            <code>true</code> if the blocks should be compressed
 	 * @throws IOException
-	 *             if reading of CSV file fails
-	 * @throws VirtualTableException
+	 *             if data can't be written
+	 * @see VirtualTableSnapshot
+	 * @since 6.0.3
 	 */
-	public void importCSV(final Reader reader) throws IOException, VirtualTableException
+	public void writeSnapshot(final File file, final boolean compress) throws IOException
 	{
-		importCSV(reader,',',"null",true,0);
+		VirtualTableSnapshot.write(this,file,compress);
+	}
+
+
+	/**
+	 * Replaces the data of this Virtual Table with the data of a snapshot file
+	 * written by {@link #writeSnapshot(File, boolean)}.
+	 * <p>
+	 * For random access without loading all rows use
+	 * {@link VirtualTableSnapshot#open(File)}.
+	 * </p>
+	 *
+	 * @param file
+	 *            the snapshot file
+	 * @throws IOException
+	 *             if the file can't be read or doesn't match this Virtual
+	 *             Table
+	 * @since 6.0.3
+	 */
+	public void readSnapshot(final File file) throws IOException
+	{
+		final VirtualTableSnapshot snapshot = VirtualTableSnapshot.open(file);
+		try
+		{
+			final int rowc = snapshot.getRowCount(), colc = snapshot.getColumnCount();
+			if(colc != this.columns.length)
+			{
+				throw new IOException("Wrong VT");
+			}
+
+			for(final VirtualTableLookupIndex lookupIndex : this.lookupIndices)
+			{
+				lookupIndex.clear();
+			}
+			this.data = new VirtualTableData(rowc);
+			for(int i = 0; i < rowc; i++)
+			{
+				final VirtualTableRow rowData = new VirtualTableRow(colc);
+				for(int j = 0; j < colc; j++)
+				{
+					rowData.set(j,snapshot.getValueAt(i,j),false,false);
+				}
+				this.data.fill(rowData);
+			}
+		}
+		finally
+		{
+			snapshot.close();
+		}
+	}
+
+
+	/**
+	 * Imports data from CSV (Comma Separated Values) information.
+	 * <p>
+	 * This is an alias for
+	 * {@link #importCSV(Reader, char, String, boolean, int)}.
+	 * </p>
+	 *
+	 * @param reader
+	 *            {@link Reader} to read the CSV information from
+	 * @throws IOException
+	 *             if reading of CSV file fails
+	 * @throws VirtualTableException
+	 */
+	public void importCSV(final Reader reader) throws IOException, VirtualTableException
+	{
+		importCSV(reader,',',"null",true,0);
 	}
 
 
@@ -2634,8 +2979,7 @@ public class VirtualTable extends Table
 			final char quotechar, final String nullValue, final boolean useCsvHeaders,
 			final int skipLines) throws IOException, VirtualTableException
 	{
-		final CSVReader csvReader = new CSVReader(reader,separator,quotechar);
-		importCSV(csvReader,nullValue,useCsvHeaders,skipLines);
+		importCSV(new CSVTokenizer(reader,separator,quotechar),nullValue,useCsvHeaders,skipLines);
 	}
 
 
@@ -2666,16 +3010,181 @@ public class VirtualTable extends Table
 			final boolean useCsvHeaders, final int skipLines)
 			throws IOException, VirtualTableException
 	{
-		final List<VirtualTableColumn<?>> columns = new ArrayList();
+		final List<VirtualTableColumn<?>> columns = readCSVColumns(csvReader,useCsvHeaders,
+				skipLines);
+		if(columns == null)
+		{
+			return;
+		}
+
+		final int vtColumnCount = columns.size();
+		final int[] vtColumnIndex = new int[vtColumnCount];
+		for(int i = 0; i < vtColumnCount; i++)
+		{
+			vtColumnIndex[i] = getColumnIndex(columns.get(i));
+		}
+
+		final List rowData = new ArrayList();
+		String[] record;
+		while((record = csvReader.readNext()) != null)
+		{
+			final VirtualTableRow row = createRowForInsert(columns);
+
+			final int readerColumnCount = record.length;
+			for(int i = 0; i < readerColumnCount; i++)
+			{
+				Object value;
+				final String str = record[i];
+				if(nullValue.equals(str))
+				{
+					value = null;
+				}
+				else
+				{
+					value = checkValue(vtColumnIndex[i],str);
+				}
+
+				row.set(vtColumnIndex[i],value,false,true);
+			}
+
+			this.data.add(row,true);
+			fireRowInserted(row,row.index);
+
+			rowData.clear();
+		}
+	}
+
+
+	/**
+	 * Imports data from CSV (Comma Separated Values) information.
+	 * <p>
+	 * Field values are compared with <code>nullValue</code> directly in the
+	 * buffer of the tokenizer, strings are only created for the values which
+	 * are imported.
+	 * </p>
+	 *
+	 * @param tokenizer
+	 *            the input source
+	 * @param nullValue
+	 *            a {@link String} which is interpreted as <code>null</code> by
+	 *            the VirtualTable
+	 * @param useCsvHeaders
+	 *            if set to true, the first line of the CSV file is interpreted
+	 *            as column names
+	 * @param skipLines
+	 *            int value, skips the specified number of lines at the start,
+	 *            when reading the CSV file
+	 * @throws IOException
+	 *             if reading of CSV file fails
+	 *
+	 * @throws VirtualTableException
+	 *
+	 * @see #exportCSV(Writer, int, String, char, List, boolean)
+	 *
+	 * @since 6.0.3
+	 */
+	public synchronized void importCSV(final CSVTokenizer tokenizer, final String nullValue,
+			final boolean useCsvHeaders, final int skipLines)
+			throws IOException, VirtualTableException
+	{
+		final List<VirtualTableColumn<?>> columns;
 		if(useCsvHeaders)
 		{
-			final String[] record = csvReader.readNext();
-			if(record == null)
+			if(!tokenizer.next())
+			{
+				return;
+			}
+			columns = getCSVColumns(tokenizer.toArray());
+		}
+		else
+		{
+			columns = getCSVColumns(null);
+		}
+
+		for(int i = 0; i < skipLines; i++)
+		{
+			if(!tokenizer.next())
 			{
 				return;
 			}
+		}
 
-			for(final String name : record)
+		final int vtColumnCount = columns.size();
+		final int[] vtColumnIndex = new int[vtColumnCount];
+		for(int i = 0; i < vtColumnCount; i++)
+		{
+			vtColumnIndex[i] = getColumnIndex(columns.get(i));
+		}
+
+		while(tokenizer.next())
+		{
+			final VirtualTableRow row = createRowForInsert(columns);
+
+			final int readerColumnCount = tokenizer.getFieldCount();
+			for(int i = 0; i < readerColumnCount; i++)
+			{
+				Object value;
+				if(tokenizer.fieldEquals(i,nullValue))
+				{
+					value = null;
+				}
+				else
+				{
+					value = checkValue(vtColumnIndex[i],tokenizer.getField(i));
+				}
+
+				row.set(vtColumnIndex[i],value,false,true);
+			}
+
+			this.data.add(row,true);
+			fireRowInserted(row,row.index);
+		}
+	}
+
+
+	/**
+	 * Reads the header and the skipped records of a CSV import.
+	 *
+	 * @return the imported columns, or <code>null</code> if the end of the
+	 *         data has been reached
+	 */
+	private List<VirtualTableColumn<?>> readCSVColumns(final CSVReader csvReader,
+			final boolean useCsvHeaders, final int skipLines) throws IOException
+	{
+		String[] header = null;
+		if(useCsvHeaders)
+		{
+			header = csvReader.readNext();
+			if(header == null)
+			{
+				return null;
+			}
+		}
+
+		for(int i = 0; i < skipLines; i++)
+		{
+			if(csvReader.readNext() == null)
+			{
+				return null;
+			}
+		}
+
+		return getCSVColumns(header);
+	}
+
+
+	/**
+	 * @param header
+	 *            the column names of the CSV data, <code>null</code> to import
+	 *            all columns
+	 * @return the imported columns
+	 */
+	private List<VirtualTableColumn<?>> getCSVColumns(final String[] header)
+	{
+		final List<VirtualTableColumn<?>> columns = new ArrayList();
+		if(header != null)
+		{
+			for(final String name : header)
 			{
 				final VirtualTableColumn<?> col = getColumn(name);
 				if(col != null)
@@ -2691,13 +3200,59 @@ public class VirtualTable extends Table
 				columns.add(this.columns[i]);
 			}
 		}
+		return columns;
+	}
 
-		for(int i = 0; i < skipLines; i++)
+
+	/**
+	 * Imports data from CSV (Comma Separated Values) information, using all
+	 * available processors.
+	 * <p>
+	 * The import runs as a pipeline: a reader thread splits the input into
+	 * chunks of records, the chunks are parsed
+	 * and converted in parallel in the common {@link ForkJoinPool} and the
+	 * calling thread appends the rows in the original order. Only a few chunks
+	 * are in progress at a time, so the memory usage is bounded regardless of
+	 * the size of the input.
+	 * </p>
+	 * <p>
+	 * The result is the same as of
+	 * {@link #importCSV(Reader, char, char, String, boolean, int)}, including
+	 * the rows imported before an invalid record and the exception thrown for
+	 * it, but the validators of the columns are called concurrently.
+	 * </p>
+	 *
+	 * @param reader
+	 *            {@link Reader} to read the CSV information from
+	 * @param separator
+	 *            char used to separate the column values
+	 * @param quotechar
+	 *            the character to use for quoted elements
+	 * @param nullValue
+	 *            a {@link String} which is interpreted as <code>null</code> by
+	 *            the VirtualTable
+	 * @param useCsvHeaders
+	 *            if set to true, the first line of the CSV file is interpreted
+	 *            as column names
+	 * @param skipLines
+	 *            int value, skips the specified number of lines at the start,
+	 *            when reading the CSV file
+	 * @throws IOException
+	 *             if reading of CSV file fails
+	 * @throws VirtualTableException
+	 *             if a value can't be converted
+	 * @since 6.0.3
+	 */
+	public synchronized void importCSVParallel(final Reader reader, final char separator,
+			final char quotechar, final String nullValue, final boolean useCsvHeaders,
+			final int skipLines) throws IOException, VirtualTableException
+	{
+		final CSVReader csvReader = new CSVReader(reader,separator,quotechar);
+		final List<VirtualTableColumn<?>> columns = readCSVColumns(csvReader,useCsvHeaders,
+				skipLines);
+		if(columns == null)
 		{
-			if(csvReader.readNext() == null)
-			{
-				return;
-			}
+			return;
 		}
 
 		final int vtColumnCount = columns.size();
@@ -2707,33 +3262,207 @@ public class VirtualTable extends Table
 			vtColumnIndex[i] = getColumnIndex(columns.get(i));
 		}
 
-		final List rowData = new ArrayList();
-		String[] record;
-		while((record = csvReader.readNext()) != null)
+		final ForkJoinPool pool = ForkJoinPool.commonPool();
+		final BlockingQueue<Object> chunks = new ArrayBlockingQueue<Object>(
+				pool.getParallelism() * 2);
+		final Object end = new Object();
+
+		final Thread readerThread = new Thread("csv-import-reader")
 		{
-			final VirtualTableRow row = createRowForInsert(columns);
+			@Override
+			public void run()
+			{
+				try
+				{
+					List<String[]> records;
+					while((records = csvReader.readRawRecords(CSV_IMPORT_CHUNK_SIZE)).size() > 0)
+					{
+						chunks.put(pool.submit(new CSVChunkTask(records,separator,quotechar,
+								nullValue,vtColumnIndex)));
+					}
+					chunks.put(end);
+				}
+				catch(final InterruptedException e)
+				{
+					// import aborted
+				}
+				catch(final Throwable t)
+				{
+					try
+					{
+						chunks.put(t);
+					}
+					catch(final InterruptedException e)
+					{
+						// import aborted
+					}
+				}
+			}
+		};
+		readerThread.setDaemon(true);
+		readerThread.start();
 
-			final int readerColumnCount = record.length;
-			for(int i = 0; i < readerColumnCount; i++)
+		try
+		{
+			Object chunk;
+			while((chunk = chunks.take()) != end)
 			{
-				Object value;
-				final String str = record[i];
-				if(nullValue.equals(str))
+				if(chunk instanceof Throwable)
 				{
-					value = null;
+					throw rethrowCSVImportException((Throwable)chunk);
 				}
-				else
+
+				final CSVChunk result;
+				try
+				{
+					result = ((ForkJoinTask<CSVChunk>)chunk).get();
+				}
+				catch(final ExecutionException e)
+				{
+					throw rethrowCSVImportException(e.getCause());
+				}
+
+				final Object[][] records = result.values;
+				this.data.ensureCapacity(this.data.size() + records.length);
+				for(final Object[] values : records)
+				{
+					if(values == null)
+					{
+						continue;
+					}
+
+					final VirtualTableRow row = createRowForInsert(columns);
+					for(int i = 0; i < values.length; i++)
+					{
+						row.set(vtColumnIndex[i],values[i],false,true);
+					}
+
+					this.data.add(row,true);
+					fireRowInserted(row,row.index);
+				}
+
+				if(result.failure != null)
+				{
+					throw rethrowCSVImportException(result.failure);
+				}
+			}
+		}
+		catch(final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		}
+		finally
+		{
+			readerThread.interrupt();
+		}
+	}
+
+
+	private static IOException rethrowCSVImportException(final Throwable t)
+			throws VirtualTableException
+	{
+		if(t instanceof VirtualTableException)
+		{
+			throw (VirtualTableException)t;
+		}
+		if(t instanceof RuntimeException)
+		{
+			throw (RuntimeException)t;
+		}
+		if(t instanceof Error)
+		{
+			throw (Error)t;
+		}
+		if(t instanceof IOException)
+		{
+			return (IOException)t;
+		}
+		return new IOException(t);
+	}
+
+
+
+	/**
+	 * The converted values of a chunk of CSV records.
+	 */
+	private static class CSVChunk
+	{
+		final Object[][]	values;
+		/**
+		 * The error of the record after the converted ones, <code>null</code>
+		 * if all records have been converted
+		 */
+		final Exception		failure;
+
+
+		CSVChunk(final Object[][] values, final Exception failure)
+		{
+			this.values = values;
+			this.failure = failure;
+		}
+	}
+
+
+
+	/**
+	 * Parses and converts a chunk of CSV records of
+	 * {@link VirtualTable#importCSVParallel(Reader, char, char, String, boolean, int)}
+	 * .
+	 */
+	private class CSVChunkTask implements Callable<CSVChunk>
+	{
+		private final List<String[]>	records;
+		private final char				separator;
+		private final char				quotechar;
+		private final String			nullValue;
+		private final int[]				vtColumnIndex;
+
+
+		CSVChunkTask(final List<String[]> records, final char separator, final char quotechar,
+				final String nullValue, final int[] vtColumnIndex)
+		{
+			this.records = records;
+			this.separator = separator;
+			this.quotechar = quotechar;
+			this.nullValue = nullValue;
+			this.vtColumnIndex = vtColumnIndex;
+		}
+
+
+		@Override
+		public CSVChunk call()
+		{
+			final CSVParser parser = new CSVParser(this.separator,this.quotechar);
+			final Object[][] values = new Object[this.records.size()][];
+			for(int r = 0; r < values.length; r++)
+			{
+				try
+				{
+					final String[] record = parser.parseRecord(this.records.get(r));
+					if(record == null)
+					{
+						continue;
+					}
+
+					final Object[] rowValues = new Object[record.length];
+					for(int i = 0; i < record.length; i++)
+					{
+						// too long records fail like in importCSV
+						final int col = this.vtColumnIndex[i];
+						final String str = record[i];
+						rowValues[i] = this.nullValue.equals(str) ? null : checkValue(col,str);
+					}
+					values[r] = rowValues;
+				}
+				catch(final Exception e)
 				{
-					value = checkValue(vtColumnIndex[i],str);
+					// the preceding records are imported before the error is
+					// reported
+					return new CSVChunk(Arrays.copyOf(values,r),e);
 				}
-
-				row.set(vtColumnIndex[i],value,false,true);
 			}
-
-			this.data.add(row,true);
-			fireRowInserted(row,row.index);
-
-			rowData.clear();
+			return new CSVChunk(values,null);
 		}
 	}
 
@@ -3059,7 +3788,19 @@ public class VirtualTable extends Table
 	{
 		int index = -1;
 		final int col = getColumnIndex(columnName);
-		if(col != -1)
+		final VirtualTableLookupIndex lookupIndex = getLookupIndex(col);
+		if(lookupIndex != null && lookupIndex.canLookup(val))
+		{
+			for(final VirtualTableRow row : lookupIndex.get(val))
+			{
+				final int rowIndex = row.index;
+				if(rowIndex >= startIndex && (index == -1 || rowIndex < index))
+				{
+					index = rowIndex;
+				}
+			}
+		}
+		else if(col != -1)
 		{
 			final DataType type = getColumnAt(col).getType();
 			final int max = getRowCount();
@@ -4079,6 +4820,12 @@ public class VirtualTable extends Table
 	 */
 	public VirtualTableRow getRow(final KeyValues pkValues)
 	{
+		final IntList rows = lookupRows(pkValues);
+		if(rows != null)
+		{
+			return rows.size() > 0 ? this.data.get(rows.get(0)) : null;
+		}
+
 		for(int i = 0; i < this.data.size(); i++)
 		{
 			final VirtualTableRow row = this.data.get(i);
@@ -4585,9 +5332,18 @@ public class VirtualTable extends Table
 	}
 
 
-	private VirtualTableRow addRow(VirtualTableRow row, Map<String, Object> map,
+	private VirtualTableRow addRow(final VirtualTableRow row, final Map<String, Object> map,
 			final boolean synchronizeDB, final boolean ignoreWarnings,
 			final DBConnection connection) throws VirtualTableException, DBException
+	{
+		return addRow(row,map,synchronizeDB,ignoreWarnings,connection,true);
+	}
+
+
+	private VirtualTableRow addRow(VirtualTableRow row, Map<String, Object> map,
+			final boolean synchronizeDB, final boolean ignoreWarnings,
+			final DBConnection connection, final boolean fireEvent)
+			throws VirtualTableException, DBException
 	{
 		INSERT insert = null;
 		List values = null;
@@ -4705,13 +5461,111 @@ public class VirtualTable extends Table
 		finally
 		{
 			this.data.add(row,markAsAdded);
-			fireRowInserted(row,row.index);
+			if(fireEvent)
+			{
+				fireRowInserted(row,row.index);
+			}
 		}
 
 		return row;
 	}
 
 
+	/**
+	 * Creates new {@link VirtualTableRow}s and adds them at the end of this
+	 * {@link VirtualTable}.
+	 * <p>
+	 * Listeners are notified once for all added rows instead of once per row.
+	 * </p>
+	 * <p>
+	 * The elements of <code>rows</code> may be
+	 * <ul>
+	 * <li>{@link Map}s of column names and values, see
+	 * {@link #addRow(Map, boolean)}</li>
+	 * <li>{@link List}s or arrays of values in the order of the columns, see
+	 * {@link #addRow(List, boolean)}</li>
+	 * <li>{@link VirtualTableRow}s, see {@link #addRow(VirtualTableRow, boolean)}
+	 * </li>
+	 * </ul>
+	 * </p>
+	 *
+	 * @param rows
+	 *            the rows to add
+	 * @param synchronizeDB
+	 *            if set to <code>true</code>, the new rows will be inserted in
+	 *            the database automatically.
+	 * @return the added rows
+	 * @throws VirtualTableException
+	 *             thrown if a column of a map was not found in the
+	 *             {@link VirtualTable} or an element of <code>rows</code> is
+	 *             not supported
+	 * @throws DBException
+	 *             thrown if synchronization with database failed.
+	 * @since 6.0.3
+	 */
+	public VirtualTableRow[] addRows(final List<?> rows, final boolean synchronizeDB)
+			throws VirtualTableException, DBException
+	{
+		final VirtualTableRow[] added = new VirtualTableRow[rows.size()];
+		final int first = getRowCount();
+		int count = 0;
+		try
+		{
+			for(final Object element : rows)
+			{
+				if(element instanceof VirtualTableRow)
+				{
+					added[count] = addRow((VirtualTableRow)element,null,synchronizeDB,false,
+							null,false);
+				}
+				else if(element instanceof Map)
+				{
+					added[count] = addRow(null,(Map<String, Object>)element,synchronizeDB,false,
+							null,false);
+				}
+				else
+				{
+					final List values;
+					if(element instanceof List)
+					{
+						values = (List)element;
+					}
+					else if(element instanceof Object[])
+					{
+						values = Arrays.asList((Object[])element);
+					}
+					else
+					{
+						throw new VirtualTableException(this,"Unsupported row: " + element);
+					}
+
+					final Map map = new HashMap(this.columns.length);
+					for(int ci = 0, li = 0; ci < this.columns.length && li < values.size(); ci++)
+					{
+						if(!this.columns[ci].isAutoIncrement())
+						{
+							map.put(this.columns[ci].getName(),values.get(li++));
+						}
+					}
+					added[count] = addRow(null,map,synchronizeDB,false,null,false);
+				}
+				count++;
+			}
+		}
+		finally
+		{
+			// rows added before a failure are part of the table
+			final int last = getRowCount() - 1;
+			if(last >= first)
+			{
+				fireRowsInserted(first,last);
+			}
+		}
+
+		return added;
+	}
+
+
 	/**
 	 * Removes a specified row from this {@link VirtualTable}.
 	 * <p>
@@ -4773,6 +5627,73 @@ public class VirtualTable extends Table
 	}
 
 
+	/**
+	 * Removes the rows at the specified indices from this {@link VirtualTable}.
+	 * <p>
+	 * Unlike calling {@link #removeRow(int, boolean)} for every row, the
+	 * remaining rows are moved only once and listeners are notified once per
+	 * range of adjacent rows.
+	 * </p>
+	 *
+	 * @param rows
+	 *            the indices of the rows to remove, in any order
+	 * @param synchronizeDB
+	 *            if set to <code>true</code>, the corresponding rows in the
+	 *            database table get deleted too.
+	 * @throws VirtualTableException
+	 *             thrown if no primary key is specified for this
+	 *             {@link VirtualTable}.
+	 * @throws DBException
+	 *             thrown if deletion of a row in database failed.
+	 * @since 6.0.3
+	 */
+	public void removeRows(final int[] rows, final boolean synchronizeDB)
+			throws VirtualTableException, DBException
+	{
+		final VirtualTableColumn[] pk = getPrimaryKeyColumns();
+		if(synchronizeDB && pk.length == 0)
+		{
+			throw new VirtualTableException(this,"No primary key specified");
+		}
+
+		final int[] indices = rows.clone();
+		Arrays.sort(indices);
+		int count = 0;
+		for(int i = 0; i < indices.length; i++)
+		{
+			if(count == 0 || indices[count - 1] != indices[i])
+			{
+				indices[count++] = indices[i];
+			}
+		}
+		if(count > 0 && (indices[0] < 0 || indices[count - 1] >= getRowCount()))
+		{
+			throw new IndexOutOfBoundsException("row: "
+					+ (indices[0] < 0 ? indices[0] : indices[count - 1]));
+		}
+
+		final KeyValues[] pkValues = new KeyValues[count];
+		for(int i = 0; i < count; i++)
+		{
+			pkValues[i] = new KeyValues(this.data.get(indices[i]));
+		}
+
+		this.data.remove(indices,count);
+
+		for(final KeyValues pkValue : pkValues)
+		{
+			if(synchronizeDB)
+			{
+				deleteDB(pkValue);
+			}
+			else
+			{
+				this.removedRowKeys.add(pkValue);
+			}
+		}
+	}
+
+
 	/**
 	 * Removes rows from the {@link VirtualTable} as specified by a
 	 * {@link KeyValues} object.
@@ -4820,14 +5741,37 @@ public class VirtualTable extends Table
 	{
 		checkKeyValues(keyValues);
 
-		for(int r = getRowCount() - 1; r >= 0; r--)
+		int[] indices;
+		int count = 0;
+		final IntList rows = lookupRows(keyValues);
+		if(rows != null)
+		{
+			indices = new int[rows.size()];
+			for(int i = 0; i < indices.length; i++)
+			{
+				indices[count++] = rows.get(i);
+			}
+			Arrays.sort(indices);
+		}
+		else
 		{
-			if(keyValues.equals(this.data.get(r)))
+			final int rowCount = getRowCount();
+			indices = new int[Math.min(rowCount,16)];
+			for(int r = 0; r < rowCount; r++)
 			{
-				this.data.remove(r);
+				if(keyValues.equals(this.data.get(r)))
+				{
+					if(count == indices.length)
+					{
+						indices = Arrays.copyOf(indices,count * 2);
+					}
+					indices[count++] = r;
+				}
 			}
 		}
 
+		this.data.remove(indices,count);
+
 		if(synchronizeDB)
 		{
 			deleteDB(keyValues);
@@ -4978,24 +5922,31 @@ public class VirtualTable extends Table
 	{
 		checkKeyValues(keyValues);
 
-		final IntList updatedRows = new IntList();
-
-		final int max = getRowCount();
-		for(int row = 0; row < max; row++)
+		IntList updatedRows = lookupRows(keyValues);
+		if(updatedRows == null)
 		{
-			if(keyValues.equals(this.data.get(row)))
+			updatedRows = new IntList();
+			final int max = getRowCount();
+			for(int row = 0; row < max; row++)
 			{
-				updatedRows.add(row);
+				if(keyValues.equals(this.data.get(row)))
+				{
+					updatedRows.add(row);
+				}
+			}
+		}
 
-				for(int c = 0; c < this.columns.length; c++)
+		for(int i = 0, rc = updatedRows.size(); i < rc; i++)
+		{
+			final int row = updatedRows.get(i);
+			for(int c = 0; c < this.columns.length; c++)
+			{
+				if(!this.columns[c].isAutoIncrement())
 				{
-					if(!this.columns[c].isAutoIncrement())
+					final String key = getKey(this.columns[c].getName(),map);
+					if(key != null)
 					{
-						final String key = getKey(this.columns[c].getName(),map);
-						if(key != null)
-						{
-							setValueAt(map.get(key),row,c);
-						}
+						setValueAt(map.get(key),row,c);
 					}
 				}
 			}
@@ -5352,9 +6303,11 @@ public class VirtualTable extends Table
 
 		final int[] colIndices = getColumnIndices(columns);
 
-		final List<WriteRequest> updateStatements = new ArrayList();
-		final List<WriteRequest> insertStatements = new ArrayList();
-		final List<WriteRequest> deleteStatements = new ArrayList();
+		// all updates and inserts share one statement, deletes are grouped by
+		// the columns of their keys
+		BatchWriteRequest updateRequest = null;
+		BatchWriteRequest insertRequest = null;
+		final Map<List<String>, BatchWriteRequest> deleteRequests = new LinkedHashMap();
 		final IntList updateIndices = new IntList();
 		final IntList insertIndices = new IntList();
 
@@ -5369,7 +6322,8 @@ public class VirtualTable extends Table
 					
 					if(r.rowState == RowState.UPDATED && doUpdates)
 					{
-						final UPDATE update = new UPDATE(this);
+						final boolean createRequest = updateRequest == null;
+						final UPDATE update = createRequest ? new UPDATE(this) : null;
 						final List values = new ArrayList();
 
 						for(int c = 0; c < columns.length; c++)
@@ -5378,25 +6332,37 @@ public class VirtualTable extends Table
 							// Don't update auto incremented primary key columns
 							if(!(Arrays.binarySearch(pkIndices,c) >= 0 && cd.isAutoIncrement()))
 							{
-								update.SET(cd.toSqlField(),"?");
+								if(createRequest)
+								{
+									update.SET(cd.toSqlField(),"?");
+								}
 								values.add(r.get(colIndices[c]));
 							}
 						}
 
-						final WHERE where = new WHERE();
+						final WHERE where = createRequest ? new WHERE() : null;
 						for(int pi = 0; pi < pk.length; pi++)
 						{
-							where.and(pk[pi].eq("?"));
+							if(createRequest)
+							{
+								where.and(pk[pi].eq("?"));
+							}
 							values.add(r.get(pkIndices[pi]));
 						}
-						update.WHERE(where);
 
-						updateStatements.add(new WriteRequest(update,false,values.toArray()));
+						if(createRequest)
+						{
+							update.WHERE(where);
+							updateRequest = new BatchWriteRequest(update,false);
+						}
+
+						updateRequest.addParams(values.toArray());
 						updateIndices.add(i);
 					}
 					else if(r.rowState == RowState.ADDED && doInserts)
 					{
-						final INSERT insert = new INSERT().INTO(this);
+						final boolean createRequest = insertRequest == null;
+						final INSERT insert = createRequest ? new INSERT().INTO(this) : null;
 						final List values = new ArrayList();
 
 						for(int c = 0; c < columns.length; c++)
@@ -5405,13 +6371,20 @@ public class VirtualTable extends Table
 
 							if(!cd.isAutoIncrement())
 							{
-								insert.assign(cd,"?");
+								if(createRequest)
+								{
+									insert.assign(cd,"?");
+								}
 								values.add(r.get(colIndices[c]));
 							}
 						}
 
-						insertStatements.add(
-								new WriteRequest(insert,getAutoValueColumns(),values.toArray()));
+						if(createRequest)
+						{
+							insertRequest = new BatchWriteRequest(insert,getAutoValueColumns());
+						}
+
+						insertRequest.addParams(values.toArray());
 						insertIndices.add(i);
 					}
 				}
@@ -5422,51 +6395,56 @@ public class VirtualTable extends Table
 		{
 			for(final KeyValues keyValues : this.removedRowKeys)
 			{
-				final DELETE delete = new DELETE().FROM(this);
+				final List<String> shape = Arrays.asList(keyValues.getColumnNames());
+				BatchWriteRequest deleteRequest = deleteRequests.get(shape);
 				final List values = new ArrayList();
 				final WHERE where = new WHERE();
 				keyValues.appendCondition(where,values,this);
-				delete.WHERE(where);
-				deleteStatements.add(new WriteRequest(delete,false,values.toArray()));
+				if(deleteRequest == null)
+				{
+					deleteRequest = new BatchWriteRequest(new DELETE().FROM(this).WHERE(where),
+							false);
+					deleteRequests.put(shape,deleteRequest);
+				}
+				deleteRequest.addParams(values.toArray());
 			}
 		}
 
+		final BatchWriteRequest updates = updateRequest;
+		final BatchWriteRequest inserts = insertRequest;
+		final int batchSize = this.synchronizationBatchSize;
+
 		class Writer
 		{
 			void write(final DBConnection connection) throws DBException
 			{
-				int statementCount = updateStatements.size();
-				if(statementCount > 0)
+				if(updates != null)
 				{
-					final WriteRequest[] updates = updateStatements
-							.toArray(new WriteRequest[statementCount]);
-					writeDB(connection,updates);
+					updates.execute(connection,batchSize);
 
-					for(int i = 0; i < statementCount; i++)
+					for(int i = 0, c = updateIndices.size(); i < c; i++)
 					{
 						VirtualTable.this.data
 								.get(updateIndices.get(i)).rowState = RowState.UNCHANGED;
 					}
 				}
 
-				statementCount = insertStatements.size();
-				if(statementCount > 0)
+				if(inserts != null)
 				{
-					final WriteRequest[] inserts = insertStatements
-							.toArray(new WriteRequest[statementCount]);
-
-					int insertIndex = 0;
-					for(final WriteResult result : writeDB(connection,inserts))
+					final WriteResult[] results = inserts.execute(connection,batchSize);
+					for(int r = 0; r < results.length; r++)
 					{
-						if(result.hasGeneratedKeys())
+						final WriteResult result = results[r];
+						if(result != null && result.hasGeneratedKeys())
 						{
 							final Result rs = result.getGeneratedKeys();
 							final int columnCount = rs.getColumnCount();
 							try
 							{
-								while(rs.next())
+								// one result per inserted row
+								if(rs.next())
 								{
-									final int row = insertIndices.get(insertIndex++);
+									final int row = insertIndices.get(r);
 									for(int c = 0; c < columnCount; c++)
 									{
 										int col = getColumnIndex(rs.getMetadata(c).getName());
@@ -5488,19 +6466,19 @@ public class VirtualTable extends Table
 						}
 					}
 
-					for(int i = 0; i < statementCount; i++)
+					for(int i = 0, c = insertIndices.size(); i < c; i++)
 					{
 						VirtualTable.this.data
 								.get(insertIndices.get(i)).rowState = RowState.UNCHANGED;
 					}
 				}
 
-				statementCount = deleteStatements.size();
-				if(statementCount > 0)
+				if(!deleteRequests.isEmpty())
 				{
-					final WriteRequest[] deletes = deleteStatements
-							.toArray(new WriteRequest[statementCount]);
-					writeDB(connection,deletes);
+					for(final BatchWriteRequest deletes : deleteRequests.values())
+					{
+						deletes.execute(connection,batchSize);
+					}
 
 					VirtualTable.this.removedRowKeys.clear();
 				}
@@ -5576,20 +6554,6 @@ public class VirtualTable extends Table
 	}
 
 
-	private WriteResult[] writeDB(final DBConnection connection, final WriteRequest... requests)
-			throws DBException
-	{
-		final WriteResult[] results = new WriteResult[requests.length];
-
-		for(int i = 0; i < requests.length; i++)
-		{
-			results[i] = requests[i].execute(connection);
-		}
-
-		return results;
-	}
-
-
 	/**
 	 * Removes a {@link VirtualTableColumn} from this {@link VirtualTable}.
 	 *
@@ -5640,6 +6604,20 @@ public class VirtualTable extends Table
 			index.removeCol(vtCol);
 		}
 
+		for(final Iterator<VirtualTableLookupIndex> it = this.lookupIndices.iterator(); it
+				.hasNext();)
+		{
+			final VirtualTableLookupIndex lookupIndex = it.next();
+			if(lookupIndex.column == vtCol)
+			{
+				it.remove();
+			}
+			else
+			{
+				lookupIndex.columnIndex = getColumnIndex(lookupIndex.column);
+			}
+		}
+
 		this.data.removeColumn(col);
 
 		fireStructureChanged();
@@ -5911,7 +6889,7 @@ public class VirtualTable extends Table
 		{
 			try
 			{
-				final Object o = this.columns[col].getTextFormat().getFormat()
+				final Object o = this.columns[col].getTextFormat().getPooledFormat()
 						.parseObject(value.toString());
 				if(o instanceof Byte)
 				{
@@ -5942,7 +6920,7 @@ public class VirtualTable extends Table
 		{
 			try
 			{
-				final Object o = this.columns[col].getTextFormat().getFormat()
+				final Object o = this.columns[col].getTextFormat().getPooledFormat()
 						.parseObject(value.toString());
 				if(o instanceof Short)
 				{
@@ -5973,7 +6951,7 @@ public class VirtualTable extends Table
 		{
 			try
 			{
-				final Object o = this.columns[col].getTextFormat().getFormat()
+				final Object o = this.columns[col].getTextFormat().getPooledFormat()
 						.parseObject(value.toString());
 				if(o instanceof Integer)
 				{
@@ -6004,7 +6982,7 @@ public class VirtualTable extends Table
 		{
 			try
 			{
-				final Object o = this.columns[col].getTextFormat().getFormat()
+				final Object o = this.columns[col].getTextFormat().getPooledFormat()
 						.parseObject(value.toString());
 				if(o instanceof Long)
 				{
@@ -6035,7 +7013,7 @@ public class VirtualTable extends Table
 		{
 			try
 			{
-				final Object o = this.columns[col].getTextFormat().getFormat()
+				final Object o = this.columns[col].getTextFormat().getPooledFormat()
 						.parseObject(value.toString());
 				if(o instanceof Float)
 				{
@@ -6066,7 +7044,7 @@ public class VirtualTable extends Table
 		{
 			try
 			{
-				final Object o = this.columns[col].getTextFormat().getFormat()
+				final Object o = this.columns[col].getTextFormat().getPooledFormat()
 						.parseObject(value.toString());
 				if(o instanceof Double)
 				{
@@ -6266,11 +7244,115 @@ public class VirtualTable extends Table
 		VirtualTableRow[]			data;
 		int							size;
 
+		/**
+		 * The values per column in {@link VirtualTableStorage#COLUMNAR} mode,
+		 * <code>null</code> otherwise. In columnar mode the rows are views,
+		 * created on demand, see {@link #get(int)}.
+		 */
+		ColumnStore[]				stores;
+
 
 		VirtualTableData(final int initialCapacity)
 		{
 			this.data = new VirtualTableRow[initialCapacity];
 			this.size = 0;
+
+			if(VirtualTable.this.storage == VirtualTableStorage.COLUMNAR)
+			{
+				this.stores = createStores(initialCapacity);
+			}
+		}
+
+
+		private ColumnStore[] createStores(final int capacity)
+		{
+			final ColumnStore[] stores = new ColumnStore[VirtualTable.this.columns.length];
+			for(int col = 0; col < stores.length; col++)
+			{
+				stores[col] = ColumnStore.create(VirtualTable.this.columns[col].getType(),
+						capacity);
+			}
+			return stores;
+		}
+
+
+		synchronized void setStorage(final VirtualTableStorage storage)
+		{
+			if(storage == VirtualTableStorage.COLUMNAR)
+			{
+				if(this.stores == null)
+				{
+					this.stores = createStores(this.data.length);
+					for(int i = 0; i < this.size; i++)
+					{
+						attach(this.data[i],i);
+					}
+				}
+			}
+			else if(this.stores != null)
+			{
+				for(int i = 0; i < this.size; i++)
+				{
+					detach(get(i));
+				}
+				this.stores = null;
+			}
+		}
+
+
+		/**
+		 * Moves the values of <code>row</code> into the column stores.
+		 */
+		private void attach(final VirtualTableRow row, final int index)
+		{
+			for(int col = 0; col < this.stores.length; col++)
+			{
+				this.stores[col] = this.stores[col].set(index,row.data[col]);
+			}
+			row.data = null;
+		}
+
+
+		/**
+		 * Copies the values of <code>row</code> out of the column stores.
+		 */
+		private void detach(final VirtualTableRow row)
+		{
+			if(row.data == null)
+			{
+				row.data = getValues(row.index);
+			}
+		}
+
+
+		synchronized Object getValue(final int row, final int col)
+		{
+			if(this.stores != null)
+			{
+				if(row >= this.size)
+				{
+					throw new ArrayIndexOutOfBoundsException(row);
+				}
+				return this.stores[col].get(row);
+			}
+			return this.data[row].data[col];
+		}
+
+
+		synchronized void setValue(final int row, final int col, final Object value)
+		{
+			this.stores[col] = this.stores[col].set(row,value);
+		}
+
+
+		synchronized Object[] getValues(final int row)
+		{
+			final Object[] values = new Object[this.stores.length];
+			for(int col = 0; col < values.length; col++)
+			{
+				values[col] = this.stores[col].get(row);
+			}
+			return values;
 		}
 
 
@@ -6280,6 +7362,10 @@ public class VirtualTable extends Table
 
 			ensureCapacity(this.size + 1);
 			row.index = this.size;
+			if(this.stores != null)
+			{
+				attach(row,this.size);
+			}
 			this.data[this.size++] = row;
 
 			if(markAsAdded)
@@ -6289,6 +7375,22 @@ public class VirtualTable extends Table
 		}
 
 
+		/**
+		 * Appends a row read from a data source. In columnar mode no row object
+		 * is kept, unless a lookup index refers to it.
+		 */
+		synchronized void fill(final VirtualTableRow row)
+		{
+			add(row,false);
+
+			if(this.stores != null && VirtualTable.this.lookupIndices.isEmpty())
+			{
+				row.index = -1;
+				this.data[this.size - 1] = null;
+			}
+		}
+
+
 		synchronized void insert(final VirtualTableRow row, final int index,
 				final boolean markAsAdded)
 		{
@@ -6296,12 +7398,17 @@ public class VirtualTable extends Table
 
 			ensureCapacity(this.size + 1);
 			System.arraycopy(this.data,index,this.data,index + 1,this.size - index);
-			this.data[index] = row;
-			this.size++;
-			for(int i = index; i < this.size; i++)
+			if(this.stores != null)
 			{
-				this.data[i].index = i;
+				for(final ColumnStore store : this.stores)
+				{
+					store.move(index,index + 1,this.size - index);
+				}
+				attach(row,index);
 			}
+			this.data[index] = row;
+			this.size++;
+			updateIndices(index);
 
 			if(markAsAdded)
 			{
@@ -6310,6 +7417,19 @@ public class VirtualTable extends Table
 		}
 
 
+		private void updateIndices(final int from)
+		{
+			for(int i = from; i < this.size; i++)
+			{
+				final VirtualTableRow row = this.data[i];
+				if(row != null)
+				{
+					row.index = i;
+				}
+			}
+		}
+
+
 		void tryInsertInIndex(final VirtualTableRow row)
 		{
 			for(final VirtualTableIndex vtIndex : VirtualTable.this.indices)
@@ -6319,6 +7439,20 @@ public class VirtualTable extends Table
 					reportUniqueIndexDoubleValues(row,vtIndex);
 				}
 			}
+
+			for(final VirtualTableLookupIndex lookupIndex : VirtualTable.this.lookupIndices)
+			{
+				lookupIndex.put(row);
+			}
+		}
+
+
+		synchronized void putInLookupIndex(final VirtualTableLookupIndex lookupIndex)
+		{
+			for(int i = 0; i < this.size; i++)
+			{
+				lookupIndex.put(get(i));
+			}
 		}
 
 
@@ -6336,17 +7470,45 @@ public class VirtualTable extends Table
 				this.data = new VirtualTableRow[newCapacity];
 				System.arraycopy(oldData,0,this.data,0,this.size);
 			}
+
+			if(this.stores != null)
+			{
+				for(final ColumnStore store : this.stores)
+				{
+					store.ensureCapacity(minCapacity);
+				}
+			}
 		}
 
 
 		synchronized VirtualTableRow get(final int i)
 		{
-			return this.data[i];
+			VirtualTableRow row = this.data[i];
+			if(row == null && i < this.size)
+			{
+				row = new VirtualTableRow();
+				row.index = i;
+				this.data[i] = row;
+			}
+			return row;
+		}
+
+
+		private void materialize()
+		{
+			if(this.stores != null)
+			{
+				for(int i = 0; i < this.size; i++)
+				{
+					get(i);
+				}
+			}
 		}
 
 
 		synchronized VirtualTableRow[] getAll()
 		{
+			materialize();
 			final VirtualTableRow[] array = new VirtualTableRow[this.size];
 			System.arraycopy(this.data,0,array,0,this.size);
 			return array;
@@ -6356,7 +7518,10 @@ public class VirtualTable extends Table
 		synchronized VirtualTableRow[] get(final int startIndex, final int endIndex)
 		{
 			final VirtualTableRow[] array = new VirtualTableRow[endIndex - startIndex];
-			System.arraycopy(this.data,startIndex,array,0,endIndex - startIndex);
+			for(int i = startIndex; i < endIndex; i++)
+			{
+				array[i - startIndex] = get(i);
+			}
 			return array;
 		}
 
@@ -6369,23 +7534,34 @@ public class VirtualTable extends Table
 
 		synchronized VirtualTableRow remove(final int index)
 		{
-			final VirtualTableRow row = this.data[index];
+			final VirtualTableRow row = get(index);
 			for(final VirtualTableIndex vtIndex : VirtualTable.this.indices)
 			{
 				vtIndex.remove(row);
 			}
 
+			for(final VirtualTableLookupIndex lookupIndex : VirtualTable.this.lookupIndices)
+			{
+				lookupIndex.remove(row);
+			}
+
 			final int numMoved = this.size - index - 1;
+			if(this.stores != null)
+			{
+				detach(row);
+				for(int col = 0; col < this.stores.length; col++)
+				{
+					this.stores[col].move(index + 1,index,numMoved);
+					this.stores[col] = this.stores[col].set(this.size - 1,null);
+				}
+			}
 			if(numMoved > 0)
 			{
 				System.arraycopy(this.data,index + 1,this.data,index,numMoved);
 			}
 			this.data[--this.size] = null;
 
-			for(int i = index; i < this.size; i++)
-			{
-				this.data[i].index = i;
-			}
+			updateIndices(index);
 			row.index = -1;
 
 			fireRowDeleted(row,index);
@@ -6394,11 +7570,113 @@ public class VirtualTable extends Table
 		}
 
 
+		/**
+		 * Removes the rows at <code>indices</code> in one compaction pass and
+		 * fires one event per range of adjacent rows, from the last range to
+		 * the first.
+		 *
+		 * @param indices
+		 *            distinct row indices in ascending order
+		 * @param count
+		 *            the count of indices to use
+		 * @return the removed rows
+		 */
+		synchronized VirtualTableRow[] remove(final int[] indices, final int count)
+		{
+			final VirtualTableRow[] rows = new VirtualTableRow[count];
+			if(count == 0)
+			{
+				return rows;
+			}
+
+			for(int i = 0; i < count; i++)
+			{
+				final VirtualTableRow row = get(indices[i]);
+				for(final VirtualTableIndex vtIndex : VirtualTable.this.indices)
+				{
+					vtIndex.remove(row);
+				}
+
+				for(final VirtualTableLookupIndex lookupIndex : VirtualTable.this.lookupIndices)
+				{
+					lookupIndex.remove(row);
+				}
+
+				if(this.stores != null)
+				{
+					detach(row);
+				}
+				rows[i] = row;
+			}
+
+			// move the rows between the removed ones to the front
+			int target = indices[0];
+			for(int i = 0; i < count; i++)
+			{
+				final int start = indices[i] + 1;
+				final int length = (i + 1 < count ? indices[i + 1] : this.size) - start;
+				if(length > 0)
+				{
+					System.arraycopy(this.data,start,this.data,target,length);
+					if(this.stores != null)
+					{
+						for(final ColumnStore store : this.stores)
+						{
+							store.move(start,target,length);
+						}
+					}
+					target += length;
+				}
+			}
+
+			for(int i = target; i < this.size; i++)
+			{
+				this.data[i] = null;
+				if(this.stores != null)
+				{
+					for(int col = 0; col < this.stores.length; col++)
+					{
+						this.stores[col] = this.stores[col].set(i,null);
+					}
+				}
+			}
+			this.size = target;
+
+			updateIndices(indices[0]);
+			for(final VirtualTableRow row : rows)
+			{
+				row.index = -1;
+			}
+
+			for(int last = count - 1; last >= 0;)
+			{
+				int first = last;
+				while(first > 0 && indices[first - 1] == indices[first] - 1)
+				{
+					first--;
+				}
+				fireRowsDeleted(indices[first],indices[last]);
+				last = first - 1;
+			}
+
+			return rows;
+		}
+
+
 		synchronized void removeColumn(final int col)
 		{
+			if(this.stores != null)
+			{
+				this.stores = ArrayUtils.remove(ColumnStore.class,this.stores,col);
+			}
+
 			for(int i = 0; i < this.size; i++)
 			{
-				this.data[i].remove(col);
+				final VirtualTableRow row = this.data[i];
+				if(row != null)
+				{
+					row.remove(col);
+				}
 			}
 
 			for(final VirtualTableIndex vtIndex : VirtualTable.this.indices)
@@ -6406,7 +7684,7 @@ public class VirtualTable extends Table
 				vtIndex.clear();
 				for(int i = 0; i < this.size; i++)
 				{
-					vtIndex.put(this.data[i]);
+					vtIndex.put(get(i));
 				}
 			}
 		}
@@ -6416,10 +7694,23 @@ public class VirtualTable extends Table
 		{
 			for(int i = 0; i < this.size; i++)
 			{
-				this.data[i].index = -1;
-				this.data[i] = null;
+				final VirtualTableRow row = this.data[i];
+				if(row != null)
+				{
+					if(this.stores != null)
+					{
+						detach(row);
+					}
+					row.index = -1;
+					this.data[i] = null;
+				}
 			}
 			this.size = 0;
+
+			if(this.stores != null)
+			{
+				this.stores = createStores(10);
+			}
 		}
 
 
@@ -6438,6 +7729,7 @@ public class VirtualTable extends Table
 		@Override
 		public Iterator<VirtualTableRow> iterator()
 		{
+			materialize();
 			return ArrayUtils.getIterator(this.data,0,this.size);
 		}
 
@@ -6446,13 +7738,28 @@ public class VirtualTable extends Table
 		{
 			final Comparator columnComparator = VirtualTable.this.columns[columnIndex]
 					.getComparator();
+
+			if(this.stores != null && isDefaultComparator(columnComparator))
+			{
+				// sort the row numbers by the stored values, without boxing
+				final int[] order = new int[this.size];
+				for(int i = 0; i < order.length; i++)
+				{
+					order[i] = i;
+				}
+				this.stores[columnIndex].sort(order,this.size,ascending);
+				permute(order);
+				fireDataChanged();
+				return;
+			}
+
 			final Comparator comparator = new Comparator<VirtualTableRow>()
 			{
 				@Override
 				public int compare(final VirtualTableRow row1, final VirtualTableRow row2)
 				{
-					int value = columnComparator.compare(row1.data[columnIndex],
-							row2.data[columnIndex]);
+					int value = columnComparator.compare(row1.value(columnIndex),
+							row2.value(columnIndex));
 					if(!ascending)
 					{
 						value *= -1;
@@ -6464,21 +7771,60 @@ public class VirtualTable extends Table
 		}
 
 
+		private boolean isDefaultComparator(final Comparator comparator)
+		{
+			return comparator.getClass() == VirtualTableColumn.NullAwareComparator.class
+					&& ((VirtualTableColumn.NullAwareComparator)comparator).actualComparator
+							.getClass() == VirtualTableColumn.DefaultComparator.class;
+		}
+
+
 		synchronized void sortByCol(final Comparator<VirtualTableRow> comparator)
 		{
+			materialize();
 			Arrays.sort(this.data,0,this.size,comparator);
-			for(int i = 0; i < this.size; i++)
+			if(this.stores != null)
 			{
-				this.data[i].index = i;
+				final int[] order = new int[this.size];
+				for(int i = 0; i < order.length; i++)
+				{
+					order[i] = this.data[i].index;
+				}
+				for(final ColumnStore store : this.stores)
+				{
+					store.permute(order,this.size);
+				}
 			}
+			updateIndices(0);
 			fireDataChanged();
 		}
 
 
+		/**
+		 * Reorders the rows, the new row at <code>i</code> is the old row at
+		 * <code>order[i]</code>.
+		 */
+		private void permute(final int[] order)
+		{
+			for(final ColumnStore store : this.stores)
+			{
+				store.permute(order,this.size);
+			}
+
+			final VirtualTableRow[] permuted = new VirtualTableRow[this.data.length];
+			for(int i = 0; i < this.size; i++)
+			{
+				permuted[i] = this.data[order[i]];
+			}
+			this.data = permuted;
+			updateIndices(0);
+		}
+
+
 		@Override
 		public String toString()
 		{
-			return Arrays.toString(this.data);
+			return Arrays.toString(getAll());
 		}
 
 
@@ -6486,7 +7832,7 @@ public class VirtualTable extends Table
 		{
 			for(int row = 0; row < this.size && arrayOffset < s.length; row++)
 			{
-				s[arrayOffset++] = this.data[row].toFormattedStrings();
+				s[arrayOffset++] = get(row).toFormattedStrings();
 			}
 			return s;
 		}
@@ -6539,7 +7885,6 @@ public class VirtualTable extends Table
 		private Object[]			data;
 		private RowState			rowState			= RowState.UNCHANGED;
 		private int					index				= -1;
-		String						primaryKeyHash;
 
 
 		/**
@@ -6547,8 +7892,7 @@ public class VirtualTable extends Table
 		 */
 		private VirtualTableRow(final VirtualTableRow original)
 		{
-			this(original.data.length);
-			System.arraycopy(original.data,0,this.data,0,this.data.length);
+			this.data = original.values().clone();
 		}
 
 
@@ -6558,6 +7902,58 @@ public class VirtualTable extends Table
 		}
 
 
+		/**
+		 * used for rows in the columnar storage, which have no own values
+		 */
+		private VirtualTableRow()
+		{
+		}
+
+
+		/**
+		 * Returns the value at <code>col</code>, either of this row or, if this
+		 * row is in the columnar storage, of the column store.
+		 */
+		private Object value(final int col)
+		{
+			final Object[] data = this.data;
+			if(data != null)
+			{
+				return data[col];
+			}
+			return VirtualTable.this.data.getValue(this.index,col);
+		}
+
+
+		private void store(final int col, final Object value)
+		{
+			final Object[] data = this.data;
+			if(data != null)
+			{
+				data[col] = value;
+			}
+			else
+			{
+				VirtualTable.this.data.setValue(this.index,col,value);
+			}
+		}
+
+
+		/**
+		 * Returns the values of this row, the own array or, if this row is in
+		 * the columnar storage, a copy out of the column stores.
+		 */
+		private Object[] values()
+		{
+			final Object[] data = this.data;
+			if(data != null)
+			{
+				return data;
+			}
+			return VirtualTable.this.data.getValues(this.index);
+		}
+
+
 		/**
 		 * Returns a {@link PessimisticLock} related to this row, with the given
 		 * locktime as lock duration.
@@ -6684,7 +8080,7 @@ public class VirtualTable extends Table
 		{
 			value = optConvertValue(value);
 
-			if(VirtualTable.equals(this.data[columnIndex],value,getColumnAt(columnIndex).getType()))
+			if(VirtualTable.equals(value(columnIndex),value,getColumnAt(columnIndex).getType()))
 			{
 				return;
 			}
@@ -6699,20 +8095,24 @@ public class VirtualTable extends Table
 					if(vtIndex.hasCol(columnIndex))
 					{
 						vtIndex.remove(this);
-						final String newHash = vtIndex.computeHash(this,columnIndex,value);
-						if(!vtIndex.put(newHash) && vtIndex.isUnique)
+						if(!vtIndex.put(this,columnIndex,value) && vtIndex.isUnique)
 						{
 							reportUniqueIndexDoubleValues(this,vtIndex);
 						}
-						if(vtIndex.type == IndexType.PRIMARY_KEY)
-						{
-							this.primaryKeyHash = newHash;
-						}
+					}
+				}
+
+				for(final VirtualTableLookupIndex lookupIndex : VirtualTable.this.lookupIndices)
+				{
+					if(lookupIndex.columnIndex == columnIndex)
+					{
+						lookupIndex.remove(this);
+						lookupIndex.put(this,value);
 					}
 				}
 			}
 
-			this.data[columnIndex] = value;
+			store(columnIndex,value);
 
 			// if(columns[index].isAutoIncrement() && value != null && value
 			// instanceof Number)
@@ -6760,7 +8160,7 @@ public class VirtualTable extends Table
 		 */
 		public synchronized Object get(final int i)
 		{
-			return this.data[i];
+			return value(i);
 		}
 
 
@@ -6774,7 +8174,7 @@ public class VirtualTable extends Table
 		 */
 		public synchronized Object get(final String name)
 		{
-			return this.data[getColumnIndex(name)];
+			return value(getColumnIndex(name));
 		}
 
 
@@ -6787,7 +8187,7 @@ public class VirtualTable extends Table
 		 */
 		public synchronized <T> T get(final VirtualTableColumn<T> column)
 		{
-			return (T)this.data[getColumnIndex(column)];
+			return (T)value(getColumnIndex(column));
 		}
 
 
@@ -6805,7 +8205,7 @@ public class VirtualTable extends Table
 		 */
 		public synchronized String getFormattedValue(final int col)
 		{
-			return formatValue(this.data[col],col);
+			return formatValue(value(col),col);
 		}
 
 
@@ -6834,7 +8234,7 @@ public class VirtualTable extends Table
 					{
 						return "";
 					}
-					return formatValue(VirtualTableRow.this.data[index],index);
+					return formatValue(value(index),index);
 				}
 			});
 		}
@@ -6851,7 +8251,10 @@ public class VirtualTable extends Table
 		 */
 		private synchronized void remove(final int i)
 		{
-			this.data = ArrayUtils.remove(Object.class,this.data,i);
+			if(this.data != null)
+			{
+				this.data = ArrayUtils.remove(Object.class,this.data,i);
+			}
 		}
 
 
@@ -6862,7 +8265,8 @@ public class VirtualTable extends Table
 		 */
 		public int size()
 		{
-			return this.data.length;
+			final Object[] data = this.data;
+			return data != null ? data.length : VirtualTable.this.columns.length;
 		}
 
 
@@ -7281,6 +8685,11 @@ public class VirtualTable extends Table
 						vtIndex.remove(this);
 					}
 
+					for(final VirtualTableLookupIndex lookupIndex : VirtualTable.this.lookupIndices)
+					{
+						lookupIndex.remove(this);
+					}
+
 					final int[] colIndices = getColumnIndices(result,false);
 					for(int i = 0; i < colIndices.length; i++)
 					{
@@ -7295,6 +8704,11 @@ public class VirtualTable extends Table
 					{
 						vtIndex.put(this);
 					}
+
+					for(final VirtualTableLookupIndex lookupIndex : VirtualTable.this.lookupIndices)
+					{
+						lookupIndex.put(this);
+					}
 				}
 				finally
 				{
@@ -7321,7 +8735,7 @@ public class VirtualTable extends Table
 		@Override
 		public String toString()
 		{
-			return Arrays.toString(this.data);
+			return Arrays.toString(values());
 		}
 
 
@@ -7333,11 +8747,12 @@ public class VirtualTable extends Table
 		 */
 		public String[] toFormattedStrings()
 		{
-			final int len = this.data.length;
+			final Object[] data = values();
+			final int len = data.length;
 			final String[] s = new String[len];
 			for(int col = 0; col < len; col++)
 			{
-				s[col] = formatValue(this.data[col],col);
+				s[col] = formatValue(data[col],col);
 			}
 			return s;
 		}
@@ -7355,7 +8770,7 @@ public class VirtualTable extends Table
 					VirtualTable.this.columns.length);
 			for(int col = 0; col < VirtualTable.this.columns.length; col++)
 			{
-				map.put(VirtualTable.this.columns[col].getName(),this.data[col]);
+				map.put(VirtualTable.this.columns[col].getName(),value(col));
 			}
 			return map;
 		}
@@ -7372,7 +8787,7 @@ public class VirtualTable extends Table
 			final XdevList list = new XdevList(c);
 			for(int i = 0; i < c; i++)
 			{
-				list.add(this.data[i]);
+				list.add(value(i));
 			}
 			return list;
 		}
@@ -7386,7 +8801,7 @@ public class VirtualTable extends Table
 		public Object[] getValues()
 		{
 			final Object[] values = new Object[VirtualTable.this.columns.length];
-			System.arraycopy(this.data,0,values,0,VirtualTable.this.columns.length);
+			System.arraycopy(values(),0,values,0,VirtualTable.this.columns.length);
 			return values;
 		}
 
@@ -7427,8 +8842,8 @@ public class VirtualTable extends Table
 		 */
 		public boolean equalsValues(final VirtualTableRow other)
 		{
-			final Object[] data1 = this.data;
-			final Object[] data2 = other.data;
+			final Object[] data1 = values();
+			final Object[] data2 = other.values();
 
 			final int length = data1.length;
 			if(length != data2.length)
@@ -7520,22 +8935,20 @@ public class VirtualTable extends Table
 
 
 	/**
-	 * Hash values are only computed and stored if the index is unique.
+	 * Keys are only stored if the index is unique.
 	 */
 	private class VirtualTableIndex implements Serializable
 	{
-		private static final long				serialVersionUID	= 7320439821022328063L;
+		private static final long	serialVersionUID	= 7320439821022328063L;
 
-		final Index								_originalIndex;
+		final Index					_originalIndex;
 
-		final String							name;
-		final IndexType							type;
-		VirtualTableColumn[]					columns;
-		int[]									columnIndices;
-		final boolean							isUnique;
-		HashSet<String>							set;
-		transient Object						hashLock;
-		transient LinkedHashMap<String, Object>	hashMap;
+		final String				name;
+		final IndexType				type;
+		VirtualTableColumn[]		columns;
+		int[]						columnIndices;
+		final boolean				isUnique;
+		IndexKeyTable				keys;
 
 
 		VirtualTableIndex(final Index index)
@@ -7572,7 +8985,7 @@ public class VirtualTable extends Table
 			boolean unique = false;
 			if(index.isUnique())
 			{
-				this.set = new HashSet();
+				this.keys = new IndexKeyTable();
 				if(!onlyAutoValues)
 				{
 					unique = true;
@@ -7587,162 +9000,284 @@ public class VirtualTable extends Table
 			final int index = ArrayUtils.indexOf(this.columns,column);
 			if(index >= 0)
 			{
-				this.columns = ArrayUtils.remove(VirtualTableColumn.class,this.columns,index);
-				this.columnIndices = ArrayUtils.remove(this.columnIndices,index);
+				this.columns = ArrayUtils.remove(VirtualTableColumn.class,this.columns,index);
+				this.columnIndices = ArrayUtils.remove(this.columnIndices,index);
+			}
+			else
+			// update column indices
+			{
+				for(int i = 0; i < this.columns.length; i++)
+				{
+					this.columnIndices[i] = getColumnIndex(this.columns[i]);
+				}
+			}
+		}
+
+
+		boolean hasCol(final int index)
+		{
+			final int[] columnIndices = this.columnIndices;
+			for(int i = 0; i < columnIndices.length; i++)
+			{
+				if(columnIndices[i] == index)
+				{
+					return true;
+				}
+			}
+
+			return false;
+		}
+
+
+		/**
+		 * Reads the values of the key columns of <code>row</code>, with the
+		 * value at <code>replacementIndex</code> replaced by
+		 * <code>replacement</code>. Only the key columns are read, so rows in
+		 * the columnar storage are not materialized.
+		 */
+		private Object[] key(final VirtualTableRow row, final int replacementIndex,
+				final Object replacement)
+		{
+			final int[] columnIndices = this.columnIndices;
+			final Object[] key = new Object[columnIndices.length];
+			for(int i = 0; i < columnIndices.length; i++)
+			{
+				final int columnIndex = columnIndices[i];
+				key[i] = columnIndex == replacementIndex ? replacement : row.value(columnIndex);
+			}
+			return key;
+		}
+
+
+		/**
+		 * Keys consisting only of <code>null</code> values are not stored if
+		 * multiple nulls are allowed.
+		 */
+		private boolean isExcluded(final Object[] key)
+		{
+			if(!getAllowMultipleNullsInUniqueIndices())
+			{
+				return false;
+			}
+
+			for(int i = 0; i < key.length; i++)
+			{
+				if(key[i] != null)
+				{
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+
+		/**
+		 * @return <code>true</code> if row is new, <code>false</code> otherwise
+		 */
+		boolean put(final VirtualTableRow row)
+		{
+			return put(row,-1,null);
+		}
+
+
+		/**
+		 * Puts the key of <code>row</code>, with the value at
+		 * <code>replacementIndex</code> replaced by <code>replacement</code>.
+		 *
+		 * @param replacementIndex
+		 *            the column index of the replaced value, or -1
+		 * @return <code>true</code> if the key is new, <code>false</code>
+		 *         otherwise
+		 */
+		boolean put(final VirtualTableRow row, final int replacementIndex,
+				final Object replacement)
+		{
+			if(this.keys == null)
+			{
+				return true;
 			}
-			else
-			// update column indices
+
+			final Object[] key = key(row,replacementIndex,replacement);
+			if(isExcluded(key))
 			{
-				for(int i = 0; i < this.columns.length; i++)
-				{
-					this.columnIndices[i] = getColumnIndex(this.columns[i]);
-				}
+				return true;
 			}
+
+			return this.keys.add(key);
 		}
 
 
-		boolean hasCol(final int index)
+		void remove(final VirtualTableRow row)
 		{
-			final int[] columnIndices = this.columnIndices;
-			for(int i = 0; i < columnIndices.length; i++)
+			if(this.keys != null)
 			{
-				if(columnIndices[i] == index)
+				final Object[] key = key(row,-1,null);
+				if(!isExcluded(key))
 				{
-					return true;
+					this.keys.remove(key);
 				}
 			}
-
-			return false;
 		}
 
 
-		String computeHash(final VirtualTableRow row)
+		synchronized void clear()
 		{
-			synchronized(getHashLock())
+			if(this.keys != null)
 			{
-				if(this.hashMap == null)
-				{
-					this.hashMap = new LinkedHashMap<>();
-				}
-				else
-				{
-					this.hashMap.clear();
-				}
+				this.keys.clear();
+			}
+		}
+	}
 
-				for(int i = 0, c = this.columns.length; i < c; i++)
-				{
-					this.hashMap.put(this.columns[i].getName(),row.data[this.columnIndices[i]]);
-				}
 
-				final String hash = HashComputer.computeHash(this.hashMap,
-						getAllowMultipleNullsInUniqueIndices());
+	/**
+	 * Non-unique hash index over the values of a single column, see
+	 * {@link VirtualTable#addLookupIndex(String)}.
+	 * <p>
+	 * Numbers are stored by their double value, so lookups match
+	 * {@link VirtualTable#equals(Object, Object, DataType)}. Lookups with a
+	 * value of another kind than the stored values are rejected by
+	 * {@link #canLookup(Object)}, the caller has to scan the rows in that case.
+	 * </p>
+	 *
+	 * @since 6.0.3
+	 */
+	private class VirtualTableLookupIndex implements Serializable
+	{
+		private static final long							serialVersionUID	= -6041339573385926127L;
+
+		final VirtualTableColumn							column;
+		int													columnIndex;
+		private final Map<Object, List<VirtualTableRow>>	rows				= new HashMap();
+		private boolean										hasNumbers;
+		private Class<?>									valueClass;
+		private boolean										hasMixedValues;
 
-				if(this.type == IndexType.PRIMARY_KEY)
-				{
-					row.primaryKeyHash = hash;
-				}
 
-				return hash;
-			}
+		VirtualTableLookupIndex(final VirtualTableColumn column)
+		{
+			this.column = column;
+			this.columnIndex = getColumnIndex(column);
 		}
 
 
-		String computeHash(final VirtualTableRow row, final int replacementIndex,
-				final Object replacement)
+		private Object key(final Object value)
 		{
-			synchronized(getHashLock())
+			if(value instanceof Number)
 			{
-				if(this.hashMap == null)
-				{
-					this.hashMap = new LinkedHashMap<>();
-				}
-				else
-				{
-					this.hashMap.clear();
-				}
-
-				for(int i = 0, c = this.columns.length; i < c; i++)
-				{
-					final int columnIndex = this.columnIndices[i];
-					final Object value = columnIndex == replacementIndex ? replacement
-							: row.data[columnIndex];
-					this.hashMap.put(this.columns[i].getName(),value);
-				}
-
-				return HashComputer.computeHash(this.hashMap,
-						getAllowMultipleNullsInUniqueIndices());
+				final double d = ((Number)value).doubleValue();
+				// -0.0 and 0.0 are equal for equals(Object, Object, DataType)
+				return d == 0d ? (Object)0d : (Object)d;
 			}
+
+			return value;
 		}
 
 
-		private Object getHashLock()
+		synchronized boolean canLookup(final Object value)
 		{
-			if(this.hashLock == null)
+			if(value == null)
+			{
+				return true;
+			}
+
+			if(value instanceof Number)
 			{
-				this.hashLock = new Object();
+				return this.valueClass == null && !this.hasMixedValues;
 			}
-			return this.hashLock;
+
+			return !this.hasNumbers && !this.hasMixedValues
+					&& (this.valueClass == null || this.valueClass == value.getClass());
 		}
 
 
 		/**
-		 * @return <code>true</code> if row is new, <code>false</code> otherwise
+		 * Returns all rows whose value may be equal to <code>value</code>, the
+		 * caller has to verify the rows.
 		 */
-		boolean put(final VirtualTableRow row)
+		synchronized VirtualTableRow[] get(final Object value)
 		{
-			if(this.set != null)
+			final List<VirtualTableRow> list = this.rows.get(key(value));
+			if(list == null)
+			{
+				return new VirtualTableRow[0];
+			}
+
+			final DataType type = this.column.getType();
+			final List<VirtualTableRow> matches = new ArrayList(list.size());
+			for(final VirtualTableRow row : list)
 			{
-				final String hash = computeHash(row);
-				if(hash == HashComputer.EMPTY_HASH)
+				if(VirtualTable.equals(row.value(this.columnIndex),value,type))
 				{
-					return true;
+					matches.add(row);
 				}
-
-				return this.set.add(hash);
 			}
-
-			return true;
+			return matches.toArray(new VirtualTableRow[matches.size()]);
 		}
 
 
-		/**
-		 *
-		 * @param hash
-		 * @return <code>true</code> if hash is new, <code>false</code>
-		 *         otherwise
-		 */
+		void put(final VirtualTableRow row)
+		{
+			put(row,row.value(this.columnIndex));
+		}
 
-		boolean put(final String hash)
+
+		synchronized void put(final VirtualTableRow row, final Object value)
 		{
-			if(this.set != null)
+			if(value instanceof Number)
+			{
+				this.hasNumbers = true;
+			}
+			else if(value != null && this.valueClass != value.getClass())
 			{
-				if(hash == HashComputer.EMPTY_HASH)
+				if(this.valueClass != null)
 				{
-					return true;
+					this.hasMixedValues = true;
 				}
-
-				return this.set.add(hash);
+				this.valueClass = value.getClass();
 			}
 
-			return true;
+			final Object key = key(value);
+			List<VirtualTableRow> list = this.rows.get(key);
+			if(list == null)
+			{
+				list = new ArrayList(1);
+				this.rows.put(key,list);
+			}
+			list.add(row);
 		}
 
 
-		void remove(final VirtualTableRow row)
+		synchronized void remove(final VirtualTableRow row)
 		{
-			if(this.set != null)
+			final Object key = key(row.value(this.columnIndex));
+			final List<VirtualTableRow> list = this.rows.get(key);
+			if(list != null)
 			{
-				this.set.remove(computeHash(row));
+				for(int i = list.size() - 1; i >= 0; i--)
+				{
+					if(list.get(i) == row)
+					{
+						list.remove(i);
+						break;
+					}
+				}
+
+				if(list.isEmpty())
+				{
+					this.rows.remove(key);
+				}
 			}
 		}
 
 
 		synchronized void clear()
 		{
-			if(this.set != null)
-			{
-				this.set.clear();
-			}
+			this.rows.clear();
+			this.hasNumbers = false;
+			this.valueClass = null;
+			this.hasMixedValues = false;
 		}
 	}
 
@@ -7877,6 +9412,40 @@ public class VirtualTable extends Table
 	}
 
 
+	/**
+	 * Returns the maximum number of rows which are written in one batch by the
+	 * {@link #synchronizeChangedRows()} methods.
+	 *
+	 * @return the synchronization batch size
+	 * @see #setSynchronizationBatchSize(int)
+	 * @since 6.0.3
+	 */
+	public int getSynchronizationBatchSize()
+	{
+		return this.synchronizationBatchSize;
+	}
+
+
+	/**
+	 * Sets the maximum number of rows which are written in one batch by the
+	 * {@link #synchronizeChangedRows()} methods.
+	 * <p>
+	 * Changed rows with the same statement are sent to the database in batches
+	 * if the connection supports it. A value less than 2 writes every row
+	 * with its own statement. The default is
+	 * {@link #DEFAULT_SYNCHRONIZATION_BATCH_SIZE}.
+	 * </p>
+	 *
+	 * @param synchronizationBatchSize
+	 *            the new batch size
+	 * @since 6.0.3
+	 */
+	public void setSynchronizationBatchSize(final int synchronizationBatchSize)
+	{
+		this.synchronizationBatchSize = synchronizationBatchSize;
+	}
+
+
 	private int[] getColumnIndices(final Result result,
 			final boolean checkMissingOrSuperfluousColumns) throws VirtualTableException
 	{
@@ -8025,14 +9594,30 @@ public class VirtualTable extends Table
 	{
 		final SELECT select = new SELECT().FROM(this);
 
+		// identical default selects of all tables share their assembled SQL
+		final List<Object> structureKey = new ArrayList<>(columns.length + 4);
+		structureKey.add(VirtualTable.class);
+		structureKey.add(getSchema());
+		structureKey.add(getTableName());
+		structureKey.add(getAlias());
+		boolean shareable = true;
+
 		for(final VirtualTableColumn col : columns)
 		{
 			if(col.isPersistent())
 			{
 				select.columns(col);
+
+				structureKey.add(col.getName());
+				shareable &= col.getVirtualTable() == this;
 			}
 		}
 
+		if(shareable)
+		{
+			select.shareAssembledSql(structureKey);
+		}
+
 		return select;
 	}
 
@@ -8104,6 +9689,110 @@ public class VirtualTable extends Table
 	}
 
 
+	/**
+	 * Creates a {@link DBPager} for <code>select</code>, a query on this
+	 * {@link VirtualTable}.
+	 * <p>
+	 * If this {@link VirtualTable} has a primary key, <code>select</code>
+	 * selects the key columns and has no own ORDER BY, OFFSET or FETCH FIRST
+	 * clause, a {@link KeysetPager} is used, which orders the rows by the
+	 * primary key. This requires the key to be unique in the result, so the
+	 * query must not have a GROUP BY clause, DISTINCT, a sub select in the FROM
+	 * clause or joins other than those of the n:1 links of this
+	 * {@link VirtualTable}. Otherwise the pager of the connection is used and the order
+	 * of the rows is left to the query.
+	 * </p>
+	 *
+	 * @param rowsPerPage
+	 *            the page size
+	 * @param select
+	 *            the query
+	 * @param params
+	 *            the parameters of the query
+	 * @return a new pager, which holds a connection until it is closed
+	 * @throws DBException
+	 *             if a database error occurs
+	 * @since 6.0.3
+	 */
+	public DBPager getPager(final int rowsPerPage, final SELECT select, final Object... params)
+			throws DBException
+	{
+		final DBConnection<?> connection = getDataSource().openConnection();
+		try
+		{
+			final VirtualTableColumn<?>[] pk = getPrimaryKeyColumns();
+			if(pk.length > 0 && isKeysetPageable(select,pk))
+			{
+				return new KeysetPager(connection,rowsPerPage,select,pk,params);
+			}
+
+			return connection.getPager(rowsPerPage,select,params);
+		}
+		catch(final DBException e)
+		{
+			connection.close();
+			throw e;
+		}
+	}
+
+
+	private boolean isKeysetPageable(final SELECT select, final VirtualTableColumn<?>[] pk)
+	{
+		if(select.hasOrderBy() || select.isCompound() || select.getOffsetSkipCount() != null
+				|| select.getFetchFirstRowCount() != null)
+		{
+			return false;
+		}
+
+		// seeking by key skips rows if the key isn't unique in the result,
+		// e.g. of a 1:n join
+		if(select.hasGroupBy() || select.isDistinct() || select.isFromSelect()
+				|| (select.hasJoins() && !hasOnlyToOneLinkJoins(select)))
+		{
+			return false;
+		}
+
+		for(final VirtualTableColumn<?> column : pk)
+		{
+			// the key of the page boundaries is needed to seek
+			if(!column.isPersistent() || column.getVirtualTable() != this
+					|| !select.selectsColumn(column.getName()))
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+
+	/**
+	 * Checks if the joins of <code>select</code> are joins of the links of this
+	 * {@link VirtualTable} and all links are n:1 links, which don't repeat
+	 * rows.
+	 */
+	private boolean hasOnlyToOneLinkJoins(final SELECT select)
+	{
+		for(final VirtualTableColumn column : this.columns)
+		{
+			final TableColumnLink link = column.getTableColumnLink();
+			if(link != null && !link.isToOne(getName()))
+			{
+				return false;
+			}
+		}
+
+		try
+		{
+			return select.hasOnlyJoinsOf(getExtendedSelect(this.columns));
+		}
+		catch(final VirtualTableException e)
+		{
+			return false;
+		}
+	}
+
+
 	/**
 	 * Sets a user-defined {@link SELECT} statement which should be used to fill
 	 * this Virtual Table.
@@ -8275,6 +9964,158 @@ public class VirtualTable extends Table
 	}
 
 
+	/**
+	 * Executes <code>select</code> and fills this {@link VirtualTable} chunk by
+	 * chunk while the result is read. After each chunk the listeners of this
+	 * table are notified and <code>handler</code> is called, which may stop
+	 * the reading of further rows.
+	 * <p>
+	 * The rows are read with the fetch size of the connection, see
+	 * {@link xdev.util.systemproperty.XdevSystemPropertyKeys#FETCH_SIZE}.
+	 * </p>
+	 *
+	 * @param select
+	 *            the SELECT to be executed for querying the database
+	 * @param chunkSize
+	 *            the number of rows per chunk
+	 * @param handler
+	 *            the handler which is notified after each chunk, may be
+	 *            <code>null</code>
+	 * @param params
+	 *            dynamic parameters, that can be used optionally
+	 * @return the number of read rows
+	 * @throws VirtualTableException
+	 * @throws DBException
+	 *             thrown if database access failed, or if the handler failed
+	 * @see #queryAndStream(SELECT, int, VirtualTableChunkHandler, Object...)
+	 * @since 6.0.3
+	 */
+	public int queryAndFillChunked(final SELECT select, final int chunkSize,
+			final VirtualTableChunkHandler handler, final Object... params)
+			throws VirtualTableException, DBException
+	{
+		return queryChunked(select,chunkSize,handler,true,params);
+	}
+
+
+	/**
+	 * Executes <code>select</code> and passes the result chunk by chunk
+	 * through this {@link VirtualTable}: each chunk replaces the previous one,
+	 * so only <code>chunkSize</code> rows are held in memory at once, e.g. for
+	 * exports of large tables. After the last chunk this table is empty.
+	 *
+	 * @param select
+	 *            the SELECT to be executed for querying the database
+	 * @param chunkSize
+	 *            the maximum number of rows in this table
+	 * @param handler
+	 *            the handler which processes the chunks
+	 * @param params
+	 *            dynamic parameters, that can be used optionally
+	 * @return the number of read rows
+	 * @throws VirtualTableException
+	 * @throws DBException
+	 *             thrown if database access failed, or if the handler failed
+	 * @see #queryAndFillChunked(SELECT, int, VirtualTableChunkHandler,
+	 *      Object...)
+	 * @since 6.0.3
+	 */
+	public int queryAndStream(final SELECT select, final int chunkSize,
+			final VirtualTableChunkHandler handler, final Object... params)
+			throws VirtualTableException, DBException
+	{
+		return queryChunked(select,chunkSize,handler,false,params);
+	}
+
+
+	private int queryChunked(final SELECT select, final int chunkSize,
+			final VirtualTableChunkHandler handler, final boolean keepRows,
+			final Object... params) throws VirtualTableException, DBException
+	{
+		if(chunkSize <= 0)
+		{
+			throw new IllegalArgumentException("chunkSize must be greater than 0");
+		}
+
+		final DBDataSource<?> dataSource = getDataSource();
+		final DBConnection<?> connection = dataSource.openConnection();
+		try
+		{
+			final Result result = connection.query(select,params);
+			try
+			{
+				final int[] colIndices = getColumnIndices(result,true);
+				if(keepRows)
+				{
+					setLastQuery(result.getQueryInfo());
+					this.lastQueryIndices = colIndices;
+				}
+				final int[] srcCols = getSourceColumns(colIndices);
+
+				clear();
+
+				int rowCount = 0;
+				boolean proceed = true;
+				while(proceed)
+				{
+					if(!keepRows && rowCount > 0)
+					{
+						clearData();
+					}
+
+					final int firstRow = this.data.size();
+					int count = 0;
+					while(count < chunkSize && result.next())
+					{
+						this.data.fill(readRow(result,srcCols));
+						count++;
+					}
+
+					if(count == 0)
+					{
+						break;
+					}
+
+					rowCount += count;
+					fireRowsInserted(firstRow,firstRow + count - 1);
+
+					proceed = count == chunkSize;
+					if(handler != null)
+					{
+						try
+						{
+							proceed &= handler.chunkAdded(this,firstRow,count);
+						}
+						catch(final DBException | RuntimeException e)
+						{
+							throw e;
+						}
+						catch(final Exception e)
+						{
+							throw new DBException(dataSource,e);
+						}
+					}
+				}
+
+				if(!keepRows && rowCount > 0)
+				{
+					clearData();
+				}
+
+				return rowCount;
+			}
+			finally
+			{
+				result.close();
+			}
+		}
+		finally
+		{
+			connection.close();
+		}
+	}
+
+
 	/**
 	 * Executes a query and appends its results at the end of this
 	 * {@link VirtualTable}.
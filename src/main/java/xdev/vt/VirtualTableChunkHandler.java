@@ -0,0 +1,51 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package xdev.vt;
+
+
+/**
+ * Receives the rows of a query in chunks while a {@link VirtualTable} is
+ * filled.
+ *
+ * @author XDEV Software
+ * @see VirtualTable#queryAndFillChunked(xdev.db.sql.SELECT, int,
+ *      VirtualTableChunkHandler, Object...)
+ * @see VirtualTable#queryAndStream(xdev.db.sql.SELECT, int,
+ *      VirtualTableChunkHandler, Object...)
+ * @since 6.0.3
+ */
+public interface VirtualTableChunkHandler
+{
+	/**
+	 * This method gets called after a chunk of rows has been added to the
+	 * {@link VirtualTable}.
+	 *
+	 * @param vt
+	 *            the filled {@link VirtualTable}
+	 * @param firstRow
+	 *            the index of the chunk's first row in <code>vt</code>
+	 * @param rowCount
+	 *            the number of rows in the chunk
+	 * @return <code>true</code> to continue, <code>false</code> to stop
+	 *         reading the query result
+	 * @throws Exception
+	 *             if the chunk couldn't be processed, stops reading the query
+	 *             result
+	 */
+	public boolean chunkAdded(VirtualTable vt, int firstRow, int rowCount) throws Exception;
+}
@@ -66,6 +66,7 @@ public class VirtualTableEvent extends EventObject
 	private VirtualTableRow	row;
 	private int				rowIndex;
 	private int				columnIndex;
+	private int				lastRowIndex;
 	
 
 	/**
@@ -122,6 +123,32 @@ public class VirtualTableEvent extends EventObject
 		this.row = row;
 		this.rowIndex = rowIndex;
 		this.columnIndex = columnIndex;
+		this.lastRowIndex = rowIndex;
+	}
+	
+
+	/**
+	 * Initializes a new {@link VirtualTableEvent} for a range of rows.
+	 * 
+	 * @param vt
+	 *            the {@link VirtualTable} the event is created for.
+	 * @param type
+	 *            the {@link Type} of the event
+	 * @param firstRowIndex
+	 *            the index of the first row of the range
+	 * @param lastRowIndex
+	 *            the index of the last row of the range
+	 * @param columnIndex
+	 *            the index of the column that caused the event, -1 for all
+	 *            columns
+	 * @since 6.0.3
+	 */
+	public VirtualTableEvent(VirtualTable vt, Type type, int firstRowIndex, int lastRowIndex,
+			int columnIndex)
+	{
+		this(vt,type,null,firstRowIndex,columnIndex);
+		
+		this.lastRowIndex = lastRowIndex;
 	}
 	
 
@@ -151,7 +178,8 @@ public class VirtualTableEvent extends EventObject
 	/**
 	 * Returns the {@link VirtualTableRow} that caused the event.
 	 * 
-	 * @return a {@link VirtualTableRow}.
+	 * @return a {@link VirtualTableRow}, <code>null</code> if the event
+	 *         affects a range of rows
 	 */
 	public VirtualTableRow getRow()
 	{
@@ -160,7 +188,8 @@ public class VirtualTableEvent extends EventObject
 	
 
 	/**
-	 * Returns the index of the row that caused the event.
+	 * Returns the index of the row that caused the event, the index of the
+	 * first row if the event affects a range of rows.
 	 * 
 	 * @return a row index
 	 */
@@ -170,6 +199,24 @@ public class VirtualTableEvent extends EventObject
 	}
 	
 
+	/**
+	 * Returns the index of the last row of the range of rows the event
+	 * affects. For events of a single row this is the same as
+	 * {@link #getRowIndex()}.
+	 * <p>
+	 * Ranges of removed rows refer to the row indices before the removal,
+	 * ranges of inserted rows to the row indices after the insertion.
+	 * </p>
+	 * 
+	 * @return a row index
+	 * @since 6.0.3
+	 */
+	public int getLastRowIndex()
+	{
+		return lastRowIndex;
+	}
+	
+
 	/**
 	 * Returns the index of the column that caused the event.
 	 * 
@@ -0,0 +1,384 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package xdev.vt;
+
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+import xdev.vt.VirtualTableEvent.Type;
+
+
+/**
+ * A {@link VirtualTableListener} which merges the events of a
+ * {@link VirtualTable} before they are delivered to another listener.
+ * <p>
+ * Events which occur outside of the event dispatch thread are collected for
+ * the duration of a frame interval. Adjacent row events of the same type are
+ * merged into range events, see {@link VirtualTableEvent#getLastRowIndex()}.
+ * If too many unrelated events occur, or the data or structure of the
+ * {@link VirtualTable} change, the collected row events are replaced by a
+ * single event. The collected events are delivered to the target listener in
+ * the event dispatch thread.
+ * </p>
+ * <p>
+ * Events which occur in the event dispatch thread are delivered immediately,
+ * after the collected events.
+ * </p>
+ *
+ * <pre>
+ * vt.addVirtualTableListener(new VirtualTableEventCoalescer(listener));
+ * </pre>
+ *
+ * @author XDEV Software
+ * @since 6.0.3
+ */
+public class VirtualTableEventCoalescer implements VirtualTableListener
+{
+	/**
+	 * Default delay in milliseconds before collected events are delivered
+	 */
+	public static final int				DEFAULT_INTERVAL	= 16;
+
+	/**
+	 * Maximum count of collected row events, a data change is delivered
+	 * instead if it is exceeded
+	 */
+	private static final int			MAX_PENDING			= 64;
+
+	private final VirtualTableListener	target;
+	private final Timer					timer;
+
+	private final List<Pending>			pending				= new ArrayList<>();
+	/**
+	 * Collected data or structure change, all further row events are included
+	 * in it
+	 */
+	private Pending						change;
+
+
+	/**
+	 * Creates a coalescer with the {@link #DEFAULT_INTERVAL}.
+	 *
+	 * @param target
+	 *            the listener to deliver the events to
+	 */
+	public VirtualTableEventCoalescer(final VirtualTableListener target)
+	{
+		this(target,DEFAULT_INTERVAL);
+	}
+
+
+	/**
+	 * @param target
+	 *            the listener to deliver the events to
+	 * @param interval
+	 *            the delay in milliseconds before collected events are
+	 *            delivered
+	 */
+	public VirtualTableEventCoalescer(final VirtualTableListener target, final int interval)
+	{
+		this.target = target;
+		this.timer = new Timer(interval,new ActionListener()
+		{
+			@Override
+			public void actionPerformed(final ActionEvent e)
+			{
+				flush();
+			}
+		});
+		this.timer.setRepeats(false);
+	}
+
+
+	/**
+	 * @return the listener the events are delivered to
+	 */
+	public VirtualTableListener getTarget()
+	{
+		return target;
+	}
+
+
+	@Override
+	public void virtualTableRowDeleted(final VirtualTableEvent event)
+	{
+		handle(Kind.ROW,event);
+	}
+
+
+	@Override
+	public void virtualTableRowInserted(final VirtualTableEvent event)
+	{
+		handle(Kind.ROW,event);
+	}
+
+
+	@Override
+	public void virtualTableRowUpdated(final VirtualTableEvent event)
+	{
+		handle(Kind.ROW,event);
+	}
+
+
+	@Override
+	public void virtualTableDataChanged(final VirtualTableEvent event)
+	{
+		handle(Kind.DATA,event);
+	}
+
+
+	@Override
+	public void virtualTableStructureChanged(final VirtualTableEvent event)
+	{
+		handle(Kind.STRUCTURE,event);
+	}
+
+
+	private void handle(final Kind kind, final VirtualTableEvent event)
+	{
+		if(SwingUtilities.isEventDispatchThread())
+		{
+			flush();
+			deliver(kind,event);
+		}
+		else
+		{
+			synchronized(this)
+			{
+				collect(kind,event);
+			}
+			// not restarted, a steady stream of events is delivered once per
+			// interval
+			if(!timer.isRunning())
+			{
+				timer.start();
+			}
+		}
+	}
+
+
+	/**
+	 * Delivers all collected events to the target listener in the current
+	 * thread.
+	 */
+	public void flush()
+	{
+		final Pending[] events;
+		synchronized(this)
+		{
+			if(change != null)
+			{
+				events = new Pending[]{change};
+			}
+			else
+			{
+				events = pending.toArray(new Pending[pending.size()]);
+			}
+			pending.clear();
+			change = null;
+		}
+
+		for(final Pending event : events)
+		{
+			deliver(event.kind,event.toEvent());
+		}
+	}
+
+
+	/**
+	 * @return <code>true</code> if there are collected events which have not
+	 *         been delivered yet
+	 */
+	public synchronized boolean hasPendingEvents()
+	{
+		return change != null || !pending.isEmpty();
+	}
+
+
+	private void collect(final Kind kind, final VirtualTableEvent event)
+	{
+		if(kind != Kind.ROW)
+		{
+			if(change == null || change.kind == Kind.DATA)
+			{
+				change = new Pending(kind,event);
+			}
+			pending.clear();
+			return;
+		}
+
+		if(change != null)
+		{
+			// the listener reads the current state when it handles the change
+			return;
+		}
+
+		if(!pending.isEmpty() && pending.get(pending.size() - 1).merge(event))
+		{
+			return;
+		}
+
+		if(pending.size() == MAX_PENDING)
+		{
+			change = new Pending(Kind.DATA,new VirtualTableEvent(event.getSource()));
+			pending.clear();
+			return;
+		}
+
+		pending.add(new Pending(kind,event));
+	}
+
+
+	private void deliver(final Kind kind, final VirtualTableEvent event)
+	{
+		switch(kind)
+		{
+			case STRUCTURE:
+				target.virtualTableStructureChanged(event);
+			break;
+
+			case DATA:
+				target.virtualTableDataChanged(event);
+			break;
+
+			default:
+				switch(event.getType())
+				{
+					case INSERTED:
+						target.virtualTableRowInserted(event);
+					break;
+
+					case REMOVED:
+						target.virtualTableRowDeleted(event);
+					break;
+
+					case UPDATED:
+						target.virtualTableRowUpdated(event);
+					break;
+
+					default:
+						target.virtualTableDataChanged(event);
+				}
+		}
+	}
+
+
+
+	private static enum Kind
+	{
+		ROW, DATA, STRUCTURE
+	}
+
+
+
+	/**
+	 * A collected event, row events may be extended to a range of rows.
+	 */
+	private static class Pending
+	{
+		final Kind				kind;
+		final VirtualTableEvent	event;
+		int						first;
+		int						last;
+		int						column;
+		boolean					merged;
+
+
+		Pending(final Kind kind, final VirtualTableEvent event)
+		{
+			this.kind = kind;
+			this.event = event;
+			this.first = event.getRowIndex();
+			this.last = event.getLastRowIndex();
+			this.column = event.getColumnIndex();
+		}
+
+
+		/**
+		 * Merges <code>next</code>, which occurred after this event, into this
+		 * event if both affect one range of rows.
+		 */
+		boolean merge(final VirtualTableEvent next)
+		{
+			final Type type = event.getType();
+			if(next.getType() != type)
+			{
+				return false;
+			}
+
+			final int nextFirst = next.getRowIndex();
+			final int nextLast = next.getLastRowIndex();
+			switch(type)
+			{
+				case INSERTED:
+					// rows inserted within or directly after the range
+					if(nextFirst < first || nextFirst > last + 1)
+					{
+						return false;
+					}
+					last += nextLast - nextFirst + 1;
+				break;
+
+				case REMOVED:
+					// the range contains the position of the removed rows
+					if(first < nextFirst || first > nextLast + 1)
+					{
+						return false;
+					}
+					last = nextLast + last - first + 1;
+					first = nextFirst;
+				break;
+
+				case UPDATED:
+					if(nextFirst > last + 1 || nextLast < first - 1)
+					{
+						return false;
+					}
+					first = Math.min(first,nextFirst);
+					last = Math.max(last,nextLast);
+					if(column != next.getColumnIndex())
+					{
+						column = -1;
+					}
+				break;
+
+				default:
+					return false;
+			}
+
+			merged = true;
+			return true;
+		}
+
+
+		VirtualTableEvent toEvent()
+		{
+			if(!merged)
+			{
+				return event;
+			}
+			return new VirtualTableEvent(event.getSource(),event.getType(),first,last,column);
+		}
+	}
+}
@@ -21,6 +21,7 @@ package xdev.vt;
 import java.util.Vector;
 
 import javax.swing.SwingUtilities;
+import javax.swing.event.TableModelEvent;
 import javax.swing.table.AbstractTableModel;
 
 import xdev.db.DataType;
@@ -42,6 +43,12 @@ import xdev.vt.VirtualTable.VirtualTableRow;
  * The number and order of columns of this Model and the {@link VirtualTable}
  * may differ. <code>modelColumnIndices</code> is used to map the columns of
  * this Model to the columns of the {@link VirtualTable}.
+ * </p>
+ * <p>
+ * Events of the {@link VirtualTable} which occur outside of the event dispatch
+ * thread are merged by a {@link VirtualTableEventCoalescer} before they are
+ * passed on to the listeners of this Model.
+ * </p>
  * 
  * @author XDEV Software Corp.
  */
@@ -55,6 +62,16 @@ public class VirtualTableModel extends AbstractTableModel implements VirtualTabl
 	
 	private VirtualTable			vt;
 	private int[]					columnIndices;
+	/**
+	 * Order of the rows, <code>null</code> for the order of the
+	 * {@link VirtualTable}
+	 */
+	private SortedVirtualTableView	sortedView;
+	/**
+	 * The listener registered at the {@link VirtualTable}, delivers the events
+	 * to this model
+	 */
+	private VirtualTableEventCoalescer	eventCoalescer;
 	
 	
 	/**
@@ -72,7 +89,63 @@ public class VirtualTableModel extends AbstractTableModel implements VirtualTabl
 		this.vt = vt;
 		this.columnIndices = columnIndices;
 		
-		vt.addVirtualTableListener(this);
+		eventCoalescer = new VirtualTableEventCoalescer(this);
+		vt.addVirtualTableListener(eventCoalescer);
+	}
+	
+	
+	/**
+	 * Initializes a new {@link VirtualTableModel} which shows the rows in the
+	 * order of <code>sortedView</code>. Several models can show the same
+	 * {@link VirtualTable} in different orders this way.
+	 * 
+	 * @param vt
+	 *            the {@link VirtualTable} to use
+	 * @param columnIndices
+	 *            an <code>int</code> array of column indices of the model. The
+	 *            values of the array contain the indexes of the
+	 *            {@link VirtualTable}.
+	 * @param sortedView
+	 *            a view of <code>vt</code> which determines the order of the
+	 *            rows
+	 * @since 6.0.3
+	 */
+	public VirtualTableModel(VirtualTable vt, int[] columnIndices,
+			SortedVirtualTableView sortedView)
+	{
+		this(vt,columnIndices);
+		
+		this.sortedView = sortedView;
+	}
+	
+	
+	/**
+	 * Returns the view which determines the order of the rows.
+	 * 
+	 * @return the {@link SortedVirtualTableView} or <code>null</code> if the
+	 *         rows are shown in the order of the {@link VirtualTable}
+	 * @since 6.0.3
+	 */
+	public SortedVirtualTableView getSortedView()
+	{
+		return sortedView;
+	}
+	
+	
+	private int toVirtualTableRow(int row)
+	{
+		return sortedView != null ? sortedView.convertRowIndexToModel(row) : row;
+	}
+	
+	
+	/**
+	 * Stops listening to the {@link VirtualTable}.
+	 * 
+	 * @since 6.0.3
+	 */
+	public void dispose()
+	{
+		vt.removeVirtualTableListener(eventCoalescer);
 	}
 	
 	
@@ -109,7 +182,7 @@ public class VirtualTableModel extends AbstractTableModel implements VirtualTabl
 	@Override
 	public Object getValueAt(int row, int col)
 	{
-		return vt.getValueAt(row,columnIndices[col]);
+		return vt.getValueAt(toVirtualTableRow(row),columnIndices[col]);
 	}
 	
 	
@@ -225,7 +298,7 @@ public class VirtualTableModel extends AbstractTableModel implements VirtualTabl
 			Object oldValue = getValueAt(row,col);
 			if(!VirtualTable.equals(oldValue,newValue))
 			{
-				vt.setValueAt(newValue,row,columnIndices[col]);
+				vt.setValueAt(newValue,toVirtualTableRow(row),columnIndices[col]);
 			}
 		}
 		catch(Exception e)
@@ -283,7 +356,7 @@ public class VirtualTableModel extends AbstractTableModel implements VirtualTabl
 	@Override
 	public VirtualTableRow getVirtualTableRow(int modelRow)
 	{
-		return vt.getRow(modelRow);
+		return vt.getRow(toVirtualTableRow(modelRow));
 	}
 	
 	
@@ -297,6 +370,12 @@ public class VirtualTableModel extends AbstractTableModel implements VirtualTabl
 	@Override
 	public void virtualTableDataChanged(VirtualTableEvent event)
 	{
+		if(sortedView != null)
+		{
+			// the view may be notified after this model
+			sortedView.invalidate();
+		}
+		
 		enqueue(new Runnable()
 		{
 			@Override
@@ -326,14 +405,22 @@ public class VirtualTableModel extends AbstractTableModel implements VirtualTabl
 	@Override
 	public void virtualTableRowDeleted(VirtualTableEvent event)
 	{
+		if(sortedView != null)
+		{
+			// the position of the row in the view is unknown
+			virtualTableDataChanged(event);
+			return;
+		}
+		
 		final int row = event.getRowIndex();
+		final int lastRow = event.getLastRowIndex();
 		
 		enqueue(new Runnable()
 		{
 			@Override
 			public void run()
 			{
-				fireTableRowsDeleted(row,row);
+				fireTableRowsDeleted(row,lastRow);
 			}
 		});
 		// UIUtils.enqueue(false,new Runnable()
@@ -357,14 +444,22 @@ public class VirtualTableModel extends AbstractTableModel implements VirtualTabl
 	@Override
 	public void virtualTableRowInserted(VirtualTableEvent event)
 	{
+		if(sortedView != null)
+		{
+			// the position of the row in the view is unknown
+			virtualTableDataChanged(event);
+			return;
+		}
+		
 		final int row = event.getRowIndex();
+		final int lastRow = event.getLastRowIndex();
 		
 		enqueue(new Runnable()
 		{
 			@Override
 			public void run()
 			{
-				fireTableRowsInserted(row,row);
+				fireTableRowsInserted(row,lastRow);
 			}
 		});
 		// UIUtils.enqueue(false,new Runnable()
@@ -388,7 +483,15 @@ public class VirtualTableModel extends AbstractTableModel implements VirtualTabl
 	@Override
 	public void virtualTableRowUpdated(VirtualTableEvent event)
 	{
+		if(sortedView != null)
+		{
+			// the position of the row in the view is unknown
+			virtualTableDataChanged(event);
+			return;
+		}
+		
 		final int row = event.getRowIndex();
+		final int lastRow = event.getLastRowIndex();
 		int c = event.getColumnIndex();
 		final int col = c != -1 ? modelToViewColumn(c) : -1;
 		
@@ -399,11 +502,11 @@ public class VirtualTableModel extends AbstractTableModel implements VirtualTabl
 			{
 				if(col != -1)
 				{
-					fireTableCellUpdated(row,col);
+					fireTableChanged(new TableModelEvent(VirtualTableModel.this,row,lastRow,col));
 				}
 				else
 				{
-					fireTableRowsUpdated(row,row);
+					fireTableRowsUpdated(row,lastRow);
 				}
 			}
 		});
@@ -435,6 +538,11 @@ public class VirtualTableModel extends AbstractTableModel implements VirtualTabl
 	@Override
 	public void virtualTableStructureChanged(VirtualTableEvent event)
 	{
+		if(sortedView != null)
+		{
+			sortedView.invalidate();
+		}
+		
 		Vector v = new Vector(columnIndices.length);
 		for(int i = 0; i < columnIndices.length; i++)
 		{
@@ -0,0 +1,873 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package xdev.vt;
+
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import xdev.io.XdevObjectInputStream;
+import xdev.io.XdevObjectOutputStream;
+
+
+/**
+ * Block-structured binary snapshot of the data of a {@link VirtualTable}.
+ * <p>
+ * The rows are split into row groups, every row group stores one block per
+ * column, optionally compressed. A row-group index at the end of the file
+ * locates the blocks. An opened snapshot only maps the file, the row groups
+ * are paged in on first access, so even very large snapshots open instantly
+ * and can be read randomly.
+ * </p>
+ *
+ * <pre>
+ * VirtualTableSnapshot.write(vt,file,true);
+ * VirtualTableSnapshot snapshot = VirtualTableSnapshot.open(file);
+ * try
+ * {
+ * 	Object value = snapshot.getValueAt(1000000,2);
+ * }
+ * finally
+ * {
+ * 	snapshot.close();
+ * }
+ * </pre>
+ *
+ * @author XDEV Software
+ * @since 6.0.3
+ * @see VirtualTable#writeSnapshot(File, boolean)
+ * @see VirtualTable#readSnapshot(File)
+ */
+public class VirtualTableSnapshot implements Closeable
+{
+	/**
+	 * "XVTS"
+	 */
+	private static final int	MAGIC					= 0x58565453;
+	private static final int	VERSION					= 1;
+	private static final int	FOOTER_SIZE				= 12;
+
+	/**
+	 * Default count of rows per row group
+	 */
+	public static final int		DEFAULT_ROWS_PER_GROUP	= 8192;
+
+	/**
+	 * Maximum count of decompressed blocks held in memory
+	 */
+	private static final int	DECODED_BLOCK_CACHE		= 64;
+
+	private static final byte	KIND_NULL				= 0;
+	private static final byte	KIND_BOOLEAN			= 1;
+	private static final byte	KIND_BYTE				= 2;
+	private static final byte	KIND_SHORT				= 3;
+	private static final byte	KIND_INT				= 4;
+	private static final byte	KIND_LONG				= 5;
+	private static final byte	KIND_FLOAT				= 6;
+	private static final byte	KIND_DOUBLE				= 7;
+	private static final byte	KIND_DATE				= 8;
+	private static final byte	KIND_SQL_DATE			= 9;
+	private static final byte	KIND_TIMESTAMP			= 10;
+	private static final byte	KIND_STRING				= 11;
+	/**
+	 * Mixed or other values, written by the {@link XdevObjectOutputStream}
+	 */
+	private static final byte	KIND_OBJECT				= 12;
+
+
+	/**
+	 * Checks if <code>file</code> starts like a snapshot.
+	 *
+	 * @param file
+	 *            the file to check
+	 * @return <code>true</code> if <code>file</code> is a snapshot
+	 * @throws IOException
+	 *             if the file can't be read
+	 */
+	public static boolean isSnapshot(final File file) throws IOException
+	{
+		final DataInputStream in = new DataInputStream(new FileInputStream(file));
+		try
+		{
+			return file.length() >= 4 && in.readInt() == MAGIC;
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+
+
+	/**
+	 * Writes the data of <code>vt</code> to <code>file</code>.
+	 *
+	 * @param vt
+	 *            the {@link VirtualTable} to write
+	 * @param file
+	 *            the target file
+	 * @param compress
+	 *            <code>true</code> if the blocks should be compressed
+	 * @throws IOException
+	 *             if the file can't be written
+	 */
+	public static void write(final VirtualTable vt, final File file, final boolean compress)
+			throws IOException
+	{
+		write(vt,file,compress,DEFAULT_ROWS_PER_GROUP);
+	}
+
+
+	/**
+	 * Writes the data of <code>vt</code> to <code>file</code>.
+	 *
+	 * @param vt
+	 *            the {@link VirtualTable} to write
+	 * @param file
+	 *            the target file
+	 * @param compress
+	 *            <code>true</code> if the blocks should be compressed
+	 * @param rowsPerGroup
+	 *            the count of rows per row group
+	 * @throws IOException
+	 *             if the file can't be written
+	 */
+	public static void write(final VirtualTable vt, final File file, final boolean compress,
+			final int rowsPerGroup) throws IOException
+	{
+		if(rowsPerGroup <= 0)
+		{
+			throw new IllegalArgumentException("rowsPerGroup must be positive");
+		}
+
+		final int columnCount = vt.getColumnCount();
+		final int rowCount = vt.getRowCount();
+		final int groupCount = (rowCount + rowsPerGroup - 1) / rowsPerGroup;
+
+		final RandomAccessFile raf = new RandomAccessFile(file,"rw");
+		try
+		{
+			raf.setLength(0);
+			final FileChannel channel = raf.getChannel();
+
+			final ByteArrayOutputStream header = new ByteArrayOutputStream();
+			final DataOutputStream out = new DataOutputStream(header);
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeBoolean(compress);
+			out.writeUTF(vt.getName() != null ? vt.getName() : "");
+			out.writeInt(columnCount);
+			for(int col = 0; col < columnCount; col++)
+			{
+				out.writeUTF(vt.getColumnAt(col).getName());
+			}
+			out.writeInt(rowCount);
+			out.writeInt(rowsPerGroup);
+			out.flush();
+			writeFully(channel,ByteBuffer.wrap(header.toByteArray()));
+
+			final long[] groupOffsets = new long[groupCount];
+			final int[][] blockOffsets = new int[groupCount][columnCount];
+			final int[][] storedLengths = new int[groupCount][columnCount];
+			final int[][] rawLengths = new int[groupCount][columnCount];
+
+			final Deflater deflater = compress ? new Deflater(Deflater.BEST_SPEED) : null;
+			try
+			{
+				final Object[] values = new Object[rowsPerGroup];
+				for(int group = 0; group < groupCount; group++)
+				{
+					groupOffsets[group] = channel.position();
+					final int firstRow = group * rowsPerGroup;
+					final int rows = Math.min(rowsPerGroup,rowCount - firstRow);
+
+					int offset = 0;
+					for(int col = 0; col < columnCount; col++)
+					{
+						for(int row = 0; row < rows; row++)
+						{
+							values[row] = vt.getValueAt(firstRow + row,col);
+						}
+
+						final byte[] raw = encodeBlock(values,rows);
+						byte[] stored = raw;
+						rawLengths[group][col] = -1;
+						if(deflater != null)
+						{
+							stored = deflate(deflater,raw);
+							rawLengths[group][col] = raw.length;
+						}
+
+						blockOffsets[group][col] = offset;
+						storedLengths[group][col] = stored.length;
+						writeFully(channel,ByteBuffer.wrap(stored));
+						offset += stored.length;
+					}
+				}
+			}
+			finally
+			{
+				if(deflater != null)
+				{
+					deflater.end();
+				}
+			}
+
+			final long indexOffset = channel.position();
+			final ByteBuffer index = ByteBuffer.allocate(4 + groupCount * (8 + 12 * columnCount)
+					+ FOOTER_SIZE);
+			index.putInt(groupCount);
+			for(int group = 0; group < groupCount; group++)
+			{
+				index.putLong(groupOffsets[group]);
+				for(int col = 0; col < columnCount; col++)
+				{
+					index.putInt(blockOffsets[group][col]);
+					index.putInt(storedLengths[group][col]);
+					index.putInt(rawLengths[group][col]);
+				}
+			}
+			index.putLong(indexOffset);
+			index.putInt(MAGIC);
+			index.flip();
+			writeFully(channel,index);
+		}
+		finally
+		{
+			raf.close();
+		}
+	}
+
+
+	private static void writeFully(final FileChannel channel, final ByteBuffer buffer)
+			throws IOException
+	{
+		while(buffer.hasRemaining())
+		{
+			channel.write(buffer);
+		}
+	}
+
+
+	private static byte[] deflate(final Deflater deflater, final byte[] raw)
+	{
+		deflater.reset();
+		deflater.setInput(raw);
+		deflater.finish();
+
+		final ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2 + 16);
+		final byte[] buffer = new byte[8192];
+		while(!deflater.finished())
+		{
+			final int count = deflater.deflate(buffer);
+			out.write(buffer,0,count);
+		}
+		return out.toByteArray();
+	}
+
+
+	private static byte getKind(final Object value)
+	{
+		final Class<?> type = value.getClass();
+		if(type == Boolean.class)
+		{
+			return KIND_BOOLEAN;
+		}
+		if(type == Byte.class)
+		{
+			return KIND_BYTE;
+		}
+		if(type == Short.class)
+		{
+			return KIND_SHORT;
+		}
+		if(type == Integer.class)
+		{
+			return KIND_INT;
+		}
+		if(type == Long.class)
+		{
+			return KIND_LONG;
+		}
+		if(type == Float.class)
+		{
+			return KIND_FLOAT;
+		}
+		if(type == Double.class)
+		{
+			return KIND_DOUBLE;
+		}
+		if(type == java.util.Date.class)
+		{
+			return KIND_DATE;
+		}
+		if(type == java.sql.Date.class)
+		{
+			return KIND_SQL_DATE;
+		}
+		if(type == java.sql.Timestamp.class)
+		{
+			return KIND_TIMESTAMP;
+		}
+		if(type == String.class)
+		{
+			return KIND_STRING;
+		}
+		return KIND_OBJECT;
+	}
+
+
+	/**
+	 * @return the size of one value, -1 for variable sized kinds
+	 */
+	private static int getValueSize(final byte kind)
+	{
+		switch(kind)
+		{
+			case KIND_BOOLEAN:
+			case KIND_BYTE:
+				return 1;
+			case KIND_SHORT:
+				return 2;
+			case KIND_INT:
+			case KIND_FLOAT:
+				return 4;
+			case KIND_LONG:
+			case KIND_DOUBLE:
+			case KIND_DATE:
+			case KIND_SQL_DATE:
+				return 8;
+			case KIND_TIMESTAMP:
+				return 12;
+			default:
+				return -1;
+		}
+	}
+
+
+	/**
+	 * Encodes the values of one column block: the kind, a bitmap of the
+	 * non-null values and either fixed size values or offsets followed by the
+	 * variable sized values.
+	 */
+	static byte[] encodeBlock(final Object[] values, final int count) throws IOException
+	{
+		byte kind = KIND_NULL;
+		for(int i = 0; i < count; i++)
+		{
+			if(values[i] != null)
+			{
+				final byte valueKind = getKind(values[i]);
+				if(kind == KIND_NULL)
+				{
+					kind = valueKind;
+				}
+				else if(kind != valueKind)
+				{
+					kind = KIND_OBJECT;
+					break;
+				}
+			}
+		}
+
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final DataOutputStream out = new DataOutputStream(bytes);
+		out.writeByte(kind);
+		if(kind == KIND_NULL)
+		{
+			out.flush();
+			return bytes.toByteArray();
+		}
+
+		final byte[] bitmap = new byte[(count + 7) / 8];
+		for(int i = 0; i < count; i++)
+		{
+			if(values[i] != null)
+			{
+				bitmap[i >> 3] |= 1 << (i & 7);
+			}
+		}
+		out.write(bitmap);
+
+		if(getValueSize(kind) > 0)
+		{
+			for(int i = 0; i < count; i++)
+			{
+				writeFixed(out,kind,values[i]);
+			}
+		}
+		else
+		{
+			final ByteArrayOutputStream data = new ByteArrayOutputStream();
+			final XdevObjectOutputStream objectOut = new XdevObjectOutputStream(data);
+			out.writeInt(0);
+			for(int i = 0; i < count; i++)
+			{
+				if(values[i] != null)
+				{
+					if(kind == KIND_STRING)
+					{
+						data.write(((String)values[i]).getBytes(StandardCharsets.UTF_8));
+					}
+					else
+					{
+						try
+						{
+							objectOut.writeObject(values[i]);
+							objectOut.flush();
+						}
+						catch(final IOException e)
+						{
+							throw e;
+						}
+						catch(final Exception e)
+						{
+							throw new IOException(e);
+						}
+					}
+				}
+				out.writeInt(data.size());
+			}
+			data.writeTo(out);
+		}
+
+		out.flush();
+		return bytes.toByteArray();
+	}
+
+
+	private static void writeFixed(final DataOutputStream out, final byte kind, final Object value)
+			throws IOException
+	{
+		switch(kind)
+		{
+			case KIND_BOOLEAN:
+				out.writeBoolean(value != null && (Boolean)value);
+			break;
+			case KIND_BYTE:
+				out.writeByte(value != null ? (Byte)value : 0);
+			break;
+			case KIND_SHORT:
+				out.writeShort(value != null ? (Short)value : 0);
+			break;
+			case KIND_INT:
+				out.writeInt(value != null ? (Integer)value : 0);
+			break;
+			case KIND_LONG:
+				out.writeLong(value != null ? (Long)value : 0L);
+			break;
+			case KIND_FLOAT:
+				out.writeFloat(value != null ? (Float)value : 0f);
+			break;
+			case KIND_DOUBLE:
+				out.writeDouble(value != null ? (Double)value : 0d);
+			break;
+			case KIND_DATE:
+			case KIND_SQL_DATE:
+				out.writeLong(value != null ? ((java.util.Date)value).getTime() : 0L);
+			break;
+			case KIND_TIMESTAMP:
+				out.writeLong(value != null ? ((java.util.Date)value).getTime() : 0L);
+				out.writeInt(value != null ? ((java.sql.Timestamp)value).getNanos() : 0);
+			break;
+		}
+	}
+
+
+	/**
+	 * Opens a snapshot file for random access. The file is only mapped, the
+	 * row groups are paged in on first access.
+	 *
+	 * @param file
+	 *            the snapshot file
+	 * @return the opened snapshot
+	 * @throws IOException
+	 *             if the file can't be opened or is no snapshot
+	 */
+	public static VirtualTableSnapshot open(final File file) throws IOException
+	{
+		final RandomAccessFile raf = new RandomAccessFile(file,"r");
+		try
+		{
+			return new VirtualTableSnapshot(raf);
+		}
+		catch(final IOException e)
+		{
+			raf.close();
+			throw e;
+		}
+		catch(final RuntimeException e)
+		{
+			raf.close();
+			throw new IOException("Invalid snapshot: " + file,e);
+		}
+	}
+
+	private final RandomAccessFile			file;
+	private final FileChannel				channel;
+	private final boolean					compressed;
+	private final String					name;
+	private final String[]					columnNames;
+	private final int						rowCount;
+	private final int						rowsPerGroup;
+	private final long[]					groupOffsets;
+	private final int[][]					blockOffsets;
+	private final int[][]					storedLengths;
+	private final int[][]					rawLengths;
+	private final ByteBuffer[]				groups;
+	private final Map<Long, ByteBuffer>		decodedBlocks;
+
+
+	private VirtualTableSnapshot(final RandomAccessFile file) throws IOException
+	{
+		this.file = file;
+		this.channel = file.getChannel();
+
+		final long length = file.length();
+		if(length < 8 + FOOTER_SIZE || file.readInt() != MAGIC)
+		{
+			throw new IOException("Invalid snapshot");
+		}
+		if(file.readInt() != VERSION)
+		{
+			throw new IOException("Unsupported snapshot version");
+		}
+
+		this.compressed = file.readBoolean();
+		this.name = file.readUTF();
+		this.columnNames = new String[file.readInt()];
+		for(int col = 0; col < this.columnNames.length; col++)
+		{
+			this.columnNames[col] = file.readUTF();
+		}
+		this.rowCount = file.readInt();
+		this.rowsPerGroup = file.readInt();
+
+		file.seek(length - FOOTER_SIZE);
+		final long indexOffset = file.readLong();
+		if(file.readInt() != MAGIC)
+		{
+			throw new IOException("Incomplete snapshot");
+		}
+
+		final ByteBuffer index = this.channel.map(FileChannel.MapMode.READ_ONLY,indexOffset,
+				length - FOOTER_SIZE - indexOffset);
+		final int groupCount = index.getInt();
+		final int columnCount = this.columnNames.length;
+		this.groupOffsets = new long[groupCount];
+		this.blockOffsets = new int[groupCount][columnCount];
+		this.storedLengths = new int[groupCount][columnCount];
+		this.rawLengths = new int[groupCount][columnCount];
+		for(int group = 0; group < groupCount; group++)
+		{
+			this.groupOffsets[group] = index.getLong();
+			for(int col = 0; col < columnCount; col++)
+			{
+				this.blockOffsets[group][col] = index.getInt();
+				this.storedLengths[group][col] = index.getInt();
+				this.rawLengths[group][col] = index.getInt();
+			}
+		}
+		this.groups = new ByteBuffer[groupCount];
+
+		this.decodedBlocks = new LinkedHashMap<Long, ByteBuffer>(16,0.75f,true)
+		{
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<Long, ByteBuffer> eldest)
+			{
+				return size() > DECODED_BLOCK_CACHE;
+			}
+		};
+	}
+
+
+	/**
+	 * @return the name of the {@link VirtualTable} the snapshot was written of
+	 */
+	public String getName()
+	{
+		return this.name;
+	}
+
+
+	/**
+	 * @return <code>true</code> if the blocks are compressed
+	 */
+	public boolean isCompressed()
+	{
+		return this.compressed;
+	}
+
+
+	/**
+	 * @return the count of rows
+	 */
+	public int getRowCount()
+	{
+		return this.rowCount;
+	}
+
+
+	/**
+	 * @return the count of columns
+	 */
+	public int getColumnCount()
+	{
+		return this.columnNames.length;
+	}
+
+
+	/**
+	 * @param col
+	 *            the column index
+	 * @return the name of the column
+	 */
+	public String getColumnName(final int col)
+	{
+		return this.columnNames[col];
+	}
+
+
+	/**
+	 * Returns the value of a cell, only the row group of <code>row</code> is
+	 * paged in.
+	 *
+	 * @param row
+	 *            the row index
+	 * @param col
+	 *            the column index
+	 * @return the value, may be <code>null</code>
+	 * @throws IOException
+	 *             if the block can't be read
+	 * @throws IndexOutOfBoundsException
+	 *             if row or column are out of range
+	 */
+	public Object getValueAt(final int row, final int col) throws IOException,
+			IndexOutOfBoundsException
+	{
+		if(row < 0 || row >= this.rowCount)
+		{
+			throw new IndexOutOfBoundsException("row: " + row);
+		}
+		if(col < 0 || col >= this.columnNames.length)
+		{
+			throw new IndexOutOfBoundsException("column: " + col);
+		}
+
+		final int group = row / this.rowsPerGroup;
+		final int groupRow = row - group * this.rowsPerGroup;
+		final int groupRows = Math.min(this.rowsPerGroup,this.rowCount - group
+				* this.rowsPerGroup);
+
+		final ByteBuffer block;
+		final int base;
+		if(this.rawLengths[group][col] >= 0)
+		{
+			block = getDecodedBlock(group,col);
+			base = 0;
+		}
+		else
+		{
+			block = getGroup(group);
+			base = this.blockOffsets[group][col];
+		}
+
+		return decodeValue(block,base,groupRow,groupRows);
+	}
+
+
+	/**
+	 * @param row
+	 *            the row index
+	 * @return all values of the row
+	 * @throws IOException
+	 *             if the row can't be read
+	 */
+	public Object[] getRow(final int row) throws IOException
+	{
+		final Object[] values = new Object[this.columnNames.length];
+		for(int col = 0; col < values.length; col++)
+		{
+			values[col] = getValueAt(row,col);
+		}
+		return values;
+	}
+
+
+	private synchronized ByteBuffer getGroup(final int group) throws IOException
+	{
+		ByteBuffer buffer = this.groups[group];
+		if(buffer == null)
+		{
+			final int columnCount = this.columnNames.length;
+			final long length = columnCount == 0 ? 0 : (long)this.blockOffsets[group][columnCount - 1]
+					+ this.storedLengths[group][columnCount - 1];
+			buffer = this.channel.map(FileChannel.MapMode.READ_ONLY,this.groupOffsets[group],
+					length);
+			this.groups[group] = buffer;
+		}
+		return buffer;
+	}
+
+
+	private ByteBuffer getDecodedBlock(final int group, final int col) throws IOException
+	{
+		final Long key = (long)group * this.columnNames.length + col;
+		synchronized(this.decodedBlocks)
+		{
+			final ByteBuffer block = this.decodedBlocks.get(key);
+			if(block != null)
+			{
+				return block;
+			}
+		}
+
+		final ByteBuffer stored = getGroup(group).duplicate();
+		stored.position(this.blockOffsets[group][col]);
+		final byte[] input = new byte[this.storedLengths[group][col]];
+		stored.get(input);
+
+		final byte[] raw = new byte[this.rawLengths[group][col]];
+		final Inflater inflater = new Inflater();
+		try
+		{
+			inflater.setInput(input);
+			int count = 0;
+			while(count < raw.length && !inflater.finished())
+			{
+				count += inflater.inflate(raw,count,raw.length - count);
+				if(inflater.needsInput())
+				{
+					break;
+				}
+			}
+			if(count != raw.length)
+			{
+				throw new IOException("Damaged block");
+			}
+		}
+		catch(final DataFormatException e)
+		{
+			throw new IOException(e);
+		}
+		finally
+		{
+			inflater.end();
+		}
+
+		final ByteBuffer block = ByteBuffer.wrap(raw);
+		synchronized(this.decodedBlocks)
+		{
+			this.decodedBlocks.put(key,block);
+		}
+		return block;
+	}
+
+
+	private static Object decodeValue(final ByteBuffer block, final int base, final int row,
+			final int rows) throws IOException
+	{
+		final byte kind = block.get(base);
+		if(kind == KIND_NULL || (block.get(base + 1 + (row >> 3)) & (1 << (row & 7))) == 0)
+		{
+			return null;
+		}
+
+		final int data = base + 1 + (rows + 7) / 8;
+		final int size = getValueSize(kind);
+		final int position = data + row * size;
+		switch(kind)
+		{
+			case KIND_BOOLEAN:
+				return block.get(position) != 0;
+			case KIND_BYTE:
+				return block.get(position);
+			case KIND_SHORT:
+				return block.getShort(position);
+			case KIND_INT:
+				return block.getInt(position);
+			case KIND_LONG:
+				return block.getLong(position);
+			case KIND_FLOAT:
+				return block.getFloat(position);
+			case KIND_DOUBLE:
+				return block.getDouble(position);
+			case KIND_DATE:
+				return new java.util.Date(block.getLong(position));
+			case KIND_SQL_DATE:
+				return new java.sql.Date(block.getLong(position));
+			case KIND_TIMESTAMP:
+			{
+				final java.sql.Timestamp timestamp = new java.sql.Timestamp(
+						block.getLong(position));
+				timestamp.setNanos(block.getInt(position + 8));
+				return timestamp;
+			}
+		}
+
+		final int start = block.getInt(data + row * 4);
+		final int end = block.getInt(data + (row + 1) * 4);
+		final byte[] bytes = new byte[end - start];
+		final ByteBuffer values = block.duplicate();
+		values.position(data + (rows + 1) * 4 + start);
+		values.get(bytes);
+
+		if(kind == KIND_STRING)
+		{
+			return new String(bytes,StandardCharsets.UTF_8);
+		}
+
+		try
+		{
+			return new XdevObjectInputStream(new ByteArrayInputStream(bytes)).readObject();
+		}
+		catch(final IOException e)
+		{
+			throw e;
+		}
+		catch(final Exception e)
+		{
+			throw new IOException(e);
+		}
+	}
+
+
+	/**
+	 * Closes the file. Already paged in row groups stay accessible until they
+	 * are garbage collected.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		this.file.close();
+	}
+}
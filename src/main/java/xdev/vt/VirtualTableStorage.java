@@ -0,0 +1,41 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package xdev.vt;
+
+
+/**
+ * An enum specifying how a {@link VirtualTable} holds its data.
+ * 
+ * @author XDEV Software
+ * @see VirtualTable#setStorage(VirtualTableStorage)
+ * @since 6.0.3
+ */
+public enum VirtualTableStorage
+{
+	/**
+	 * Each row holds its values as objects.
+	 */
+	ROW,
+
+	/**
+	 * Each column holds its values, numbers and dates in primitive arrays and
+	 * strings dictionary encoded. Row objects are only created on demand. This
+	 * mode needs considerably less memory for large tables.
+	 */
+	COLUMNAR
+}
@@ -0,0 +1,160 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.xdev.jadoth.collections;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class JaSortTest
+{
+	private static final int	SIZE	= 200000;
+
+
+	@Test
+	public void testParallelMergesort()
+	{
+		final Random random = new Random(42);
+		final long[][] values = new long[SIZE][];
+		for(int i = 0; i < SIZE; i++)
+		{
+			// few distinct keys to check the stability
+			values[i] = new long[]{random.nextInt(100),i};
+		}
+		final Comparator<long[]> byKey = new Comparator<long[]>()
+		{
+			@Override
+			public int compare(final long[] o1, final long[] o2)
+			{
+				return Long.compare(o1[0],o2[0]);
+			}
+		};
+
+		final long[][] expected = values.clone();
+		JaSort.mergesort(expected,byKey);
+		final long[][] actual = values.clone();
+		JaSort.parallelMergesort(actual,byKey);
+		Assert.assertArrayEquals(expected,actual);
+
+		final long[][] range = values.clone();
+		JaSort.parallelMergesort(range,1000,SIZE - 1001,byKey);
+		final long[][] expectedRange = values.clone();
+		JaSort.mergesort(expectedRange,1000,SIZE - 1001,byKey);
+		Assert.assertArrayEquals(expectedRange,range);
+	}
+
+
+	@Test
+	public void testParallelRadixsort()
+	{
+		final Random random = new Random(42);
+		final int[] ints = new int[SIZE];
+		final long[] longs = new long[SIZE];
+		for(int i = 0; i < SIZE; i++)
+		{
+			ints[i] = i % 3 == 0 ? random.nextInt(1000) - 500 : random.nextInt();
+			longs[i] = i % 3 == 0 ? random.nextInt(1000) - 500 : random.nextLong();
+		}
+		ints[0] = Integer.MIN_VALUE;
+		ints[1] = Integer.MAX_VALUE;
+		longs[0] = Long.MIN_VALUE;
+		longs[1] = Long.MAX_VALUE;
+
+		final int[] expectedInts = ints.clone();
+		Arrays.sort(expectedInts);
+		final int[] actualInts = ints.clone();
+		JaSort.parallelRadixsort(actualInts);
+		Assert.assertArrayEquals(expectedInts,actualInts);
+
+		final long[] expectedLongs = longs.clone();
+		Arrays.sort(expectedLongs,10,SIZE - 10);
+		final long[] actualLongs = longs.clone();
+		JaSort.parallelRadixsort(actualLongs,10,SIZE - 11);
+		Assert.assertArrayEquals(expectedLongs,actualLongs);
+
+		// equal high digits are skipped
+		final int[] small = new int[SIZE];
+		for(int i = 0; i < SIZE; i++)
+		{
+			small[i] = random.nextInt(256);
+		}
+		final int[] expectedSmall = small.clone();
+		Arrays.sort(expectedSmall);
+		JaSort.parallelRadixsort(small);
+		Assert.assertArrayEquals(expectedSmall,small);
+	}
+
+
+	@Test
+	public void testSortParallel()
+	{
+		final Random random = new Random(42);
+		final GrowList<Integer> list = new GrowList<Integer>(SIZE);
+		for(int i = 0; i < SIZE; i++)
+		{
+			list.add(random.nextInt());
+		}
+		final Integer[] expected = list.toArray(new Integer[SIZE]);
+		Arrays.sort(expected);
+
+		list.sortParallel(new Comparator<Integer>()
+		{
+			@Override
+			public int compare(final Integer o1, final Integer o2)
+			{
+				return o1.compareTo(o2);
+			}
+		});
+		Assert.assertArrayEquals(expected,list.toArray());
+	}
+
+
+	@Test
+	public void testSortIsSequential()
+	{
+		final Random random = new Random(42);
+		final GrowList<Integer> list = new GrowList<Integer>(SIZE);
+		for(int i = 0; i < SIZE; i++)
+		{
+			list.add(random.nextInt());
+		}
+
+		// comparators passed to sort() don't have to be thread-safe
+		final Set<Thread> threads = new HashSet<Thread>();
+		list.sort(new Comparator<Integer>()
+		{
+			@Override
+			public int compare(final Integer o1, final Integer o2)
+			{
+				threads.add(Thread.currentThread());
+				return o1.compareTo(o2);
+			}
+		});
+		Assert.assertEquals(Collections.singleton(Thread.currentThread()),threads);
+		for(int i = 1; i < SIZE; i++)
+		{
+			Assert.assertTrue(list.get(i - 1) <= list.get(i));
+		}
+	}
+}
@@ -0,0 +1,198 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.xdev.jadoth.cql;
+
+import java.util.Comparator;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.xdev.jadoth.collections.GrowList;
+import com.xdev.jadoth.collections.XList;
+import com.xdev.jadoth.lang.Equalator;
+import com.xdev.jadoth.lang.HashEqualator;
+import com.xdev.jadoth.lang.functional.Predicate;
+import com.xdev.jadoth.lang.functional.aggregates.AvgInteger;
+import com.xdev.jadoth.lang.functional.aggregates.SumInteger;
+import com.xdev.jadoth.util.KeyValue;
+
+public class CQLTest
+{
+	private static final HashEqualator<Integer>	MOD_1000	= new HashEqualator<Integer>()
+															{
+																@Override
+																public boolean equal(final Integer object,
+																		final Integer object2)
+																{
+																	return object % 1000 == object2 % 1000;
+																}
+
+
+																@Override
+																public int hashCode(final Integer object)
+																{
+																	return object % 1000;
+																}
+															};
+
+	private static final Predicate<Integer>		ALL			= new Predicate<Integer>()
+															{
+																@Override
+																public boolean apply(final Integer e)
+																{
+																	return true;
+																}
+															};
+
+	private static final Comparator<Integer>	NATURAL		= new Comparator<Integer>()
+															{
+																@Override
+																public int compare(final Integer o1,
+																		final Integer o2)
+																{
+																	return o1.compareTo(o2);
+																}
+															};
+
+
+	private static GrowList<Integer> createData(final int size)
+	{
+		final GrowList<Integer> data = new GrowList<Integer>(size);
+		for(int i = 0; i < size; i++)
+		{
+			data.add((int)((long)i * 7919 % size));
+		}
+		return data;
+	}
+
+
+	@Test
+	public void testHashedGrouping()
+	{
+		final XList<KeyValue<Integer, XList<Integer>>> groups = CQL.select(
+				new CqlAggregateCollector<Integer>(),createData(1000000),ALL,
+				CQL.groupBy(MOD_1000),NATURAL,0,Integer.MAX_VALUE);
+
+		Assert.assertEquals(1000,groups.size());
+		for(final KeyValue<Integer, XList<Integer>> group : groups)
+		{
+			Assert.assertEquals(1000,group.value().size());
+			for(final Integer value : group.value())
+			{
+				Assert.assertEquals(group.key() % 1000,value % 1000);
+			}
+		}
+	}
+
+
+	@Test
+	public void testDistinct()
+	{
+		final Equalator<Integer> linear = new Equalator<Integer>()
+		{
+			@Override
+			public boolean equal(final Integer object1, final Integer object2)
+			{
+				return MOD_1000.equal(object1,object2);
+			}
+		};
+
+		final GrowList<Integer> data = createData(5000);
+		final GrowList<Integer> hashed = CQL.select(new CqlProjector.Implementation<Integer>(0),
+				data,ALL,MOD_1000,NATURAL,0,Integer.MAX_VALUE);
+		final GrowList<Integer> searched = CQL.select(new CqlProjector.Implementation<Integer>(
+				0),data,ALL,linear,NATURAL,0,Integer.MAX_VALUE);
+
+		Assert.assertEquals(1000,hashed.size());
+		Assert.assertEquals(hashed.size(),searched.size());
+		for(int i = 0; i < hashed.size(); i++)
+		{
+			Assert.assertEquals(hashed.get(i),searched.get(i));
+		}
+	}
+
+
+	@Test
+	public void testParallelSelect()
+	{
+		final GrowList<Integer> data = createData(100000);
+		final Predicate<Integer> even = new Predicate<Integer>()
+		{
+			@Override
+			public boolean apply(final Integer e)
+			{
+				return e % 2 == 0;
+			}
+		};
+		final Comparator<Integer> byLastDigit = new Comparator<Integer>()
+		{
+			@Override
+			public int compare(final Integer o1, final Integer o2)
+			{
+				return o1 % 10 - o2 % 10;
+			}
+		};
+
+		final int[][] skipLimits = {{0,Integer.MAX_VALUE},{10,100},{49990,100},{0,0}};
+		for(final int[] skipLimit : skipLimits)
+		{
+			final GrowList<Integer> sequential = CQL.select(
+					new CqlProjector.Implementation<Integer>(0),data,even,byLastDigit,
+					skipLimit[0],skipLimit[1]);
+			final GrowList<Integer> parallel = CQL.selectParallel(
+					new CqlProjector.Implementation<Integer>(0),data,even,byLastDigit,
+					skipLimit[0],skipLimit[1]);
+			Assert.assertArrayEquals(sequential.toArray(),parallel.toArray());
+		}
+
+		final GrowList<Integer> distinct = CQL.selectParallel(
+				new CqlProjector.Implementation<Integer>(0),data,ALL,MOD_1000,null,5,Integer.MAX_VALUE);
+		Assert.assertArrayEquals(CQL.select(new CqlProjector.Implementation<Integer>(0),data,ALL,
+				MOD_1000,null,5,Integer.MAX_VALUE).toArray(),distinct.toArray());
+	}
+
+
+	@Test
+	public void testParallelGrouping()
+	{
+		final GrowList<Integer> data = createData(100000);
+		final XList<KeyValue<Integer, XList<Integer>>> sequential = CQL.select(
+				new CqlAggregateCollector<Integer>(),data,ALL,MOD_1000,NATURAL,0,Integer.MAX_VALUE);
+		final XList<KeyValue<Integer, XList<Integer>>> parallel = CQL.selectParallel(
+				new CqlAggregateCollector<Integer>(),data,ALL,MOD_1000,NATURAL,0,Integer.MAX_VALUE);
+
+		Assert.assertEquals(sequential.size(),parallel.size());
+		for(int i = 0; i < sequential.size(); i++)
+		{
+			Assert.assertEquals(sequential.get(i).key(),parallel.get(i).key());
+			Assert.assertArrayEquals(sequential.get(i).value().toArray(),parallel.get(i).value()
+					.toArray());
+		}
+	}
+
+
+	@Test
+	public void testParallelAggregate()
+	{
+		final GrowList<Integer> data = createData(100000);
+		Assert.assertEquals(new SumInteger(data).yield(),
+				CQL.aggregateParallel(data,new SumInteger()));
+		Assert.assertEquals(new AvgInteger(data).yield(),
+				CQL.aggregateParallel(data,new AvgInteger()));
+	}
+}
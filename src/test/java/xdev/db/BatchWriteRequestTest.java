@@ -0,0 +1,104 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package xdev.db;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+
+public class BatchWriteRequestTest
+{
+	private static final String	SQL		= "UPDATE T SET A = ? WHERE ID = ?";
+	
+	private final List<String>	calls	= new ArrayList<>();
+	
+	
+	private BatchWriteRequest createRequest()
+	{
+		final BatchWriteRequest request = new BatchWriteRequest(SQL,false);
+		request.addParams("a",1);
+		request.addParams("b",2);
+		request.addParams("c",3);
+		return request;
+	}
+	
+	
+	private DBConnection<?> createConnection(final Class<?>... interfaces)
+	{
+		return (DBConnection<?>)Proxy.newProxyInstance(getClass().getClassLoader(),interfaces,
+				(proxy, method, args) -> {
+					this.calls.add(method.getName() + Arrays.deepToString(args));
+					if(method.getName().equals("write"))
+					{
+						return new WriteResult(1,null);
+					}
+					if(method.getName().equals("writeBatch"))
+					{
+						final BatchWriteRequest request = (BatchWriteRequest)args[0];
+						return new WriteResult[request.size()];
+					}
+					return null;
+				});
+	}
+	
+	
+	@Test
+	public void testFallbackWithoutBatchSupport() throws Exception
+	{
+		final DBConnection<?> connection = createConnection(DBConnection.class);
+		
+		final WriteResult[] results = createRequest().execute(connection,100);
+		
+		Assert.assertEquals(3,results.length);
+		Assert.assertEquals(Arrays.asList("write[" + SQL + ", false, [a, 1]]",
+				"write[" + SQL + ", false, [b, 2]]","write[" + SQL + ", false, [c, 3]]"),
+				this.calls);
+	}
+	
+	
+	@Test
+	public void testBatchSupport() throws Exception
+	{
+		final DBConnection<?> connection = createConnection(DBConnection.class,
+				BatchWriteSupport.class);
+		
+		Assert.assertEquals(3,createRequest().execute(connection,100).length);
+		Assert.assertEquals(1,this.calls.size());
+		Assert.assertTrue(this.calls.get(0).startsWith("writeBatch"));
+	}
+	
+	
+	@Test
+	public void testBatchSizeOneDisablesBatching() throws Exception
+	{
+		final DBConnection<?> connection = createConnection(DBConnection.class,
+				BatchWriteSupport.class);
+		
+		Assert.assertEquals(3,createRequest().execute(connection,1).length);
+		Assert.assertEquals(3,this.calls.size());
+		for(final String call : this.calls)
+		{
+			Assert.assertTrue(call.startsWith("write["));
+		}
+	}
+}
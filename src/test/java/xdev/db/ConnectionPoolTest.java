@@ -0,0 +1,187 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package xdev.db;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.xdev.jadoth.sqlengine.exceptions.SQLEngineCouldNotConnectToDBException;
+import xdev.util.systemproperty.XdevSystemPropertyKeys;
+
+
+public class ConnectionPoolTest
+{
+	private final AtomicInteger	created	= new AtomicInteger();
+	private final AtomicInteger	closed	= new AtomicInteger();
+
+	private ConnectionPool		pool;
+
+
+	@After
+	public void doAfterEveryTest()
+	{
+		if(this.pool != null)
+		{
+			this.pool.close();
+		}
+		System.clearProperty(XdevSystemPropertyKeys.CONNECTION_ACQUIRE_TIMEOUT);
+	}
+
+
+	@SuppressWarnings({"rawtypes","unchecked"})
+	private ConnectionPool createPool(final int size, final boolean keepAlive)
+	{
+		final ConnectionInformation info = new ConnectionInformation("host",0,"user",null,
+				"catalog",null,null)
+		{
+			@Override
+			public Connection createConnection() throws SQLEngineCouldNotConnectToDBException
+			{
+				ConnectionPoolTest.this.created.incrementAndGet();
+				return createFakeConnection();
+			}
+
+
+			@Override
+			public String createJdbcConnectionUrl()
+			{
+				return null;
+			}
+
+
+			@Override
+			public String getJdbcDriverClassName()
+			{
+				return null;
+			}
+		};
+		return this.pool = new ConnectionPool(size,keepAlive,null,info,0);
+	}
+
+
+	private Connection createFakeConnection()
+	{
+		final boolean[] isClosed = {false};
+		return (Connection)Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[]{Connection.class},(proxy, method, args) -> {
+					switch(method.getName())
+					{
+						case "close":
+							isClosed[0] = true;
+							this.closed.incrementAndGet();
+							return null;
+						case "isClosed":
+							return isClosed[0];
+						case "isValid":
+							return !isClosed[0];
+						case "hashCode":
+							return System.identityHashCode(proxy);
+						case "equals":
+							return proxy == args[0];
+						case "toString":
+							return "FakeConnection";
+					}
+					return null;
+				});
+	}
+
+
+	@Test
+	public void testIdleConnectionIsReused() throws Exception
+	{
+		createPool(2,true);
+
+		final Connection first = this.pool.getConnection();
+		first.close();
+		first.close(); // second close must not release twice
+
+		final Connection second = this.pool.getConnection();
+		Assert.assertSame(first,second);
+
+		final Connection third = this.pool.getConnection();
+		Assert.assertNotSame(first,third);
+		Assert.assertEquals(2,this.created.get());
+	}
+
+
+	@Test
+	public void testConnectionIsClosedWithoutKeepAlive() throws Exception
+	{
+		createPool(1,false);
+
+		this.pool.getConnection().close();
+		this.pool.getConnection().close();
+
+		Assert.assertEquals(2,this.created.get());
+		Assert.assertEquals(2,this.closed.get());
+	}
+
+
+	@Test
+	public void testAcquireTimeout() throws Exception
+	{
+		System.setProperty(XdevSystemPropertyKeys.CONNECTION_ACQUIRE_TIMEOUT,"50");
+		createPool(1,true);
+
+		final Connection connection = this.pool.getConnection();
+		try
+		{
+			this.pool.getConnection();
+			Assert.fail("pool is exhausted");
+		}
+		catch(final SQLEngineCouldNotConnectToDBException e)
+		{
+			// expected
+		}
+
+		connection.close();
+		Assert.assertSame(connection,this.pool.getConnection());
+	}
+
+
+	@Test
+	public void testWaitingRequestIsServed() throws Exception
+	{
+		createPool(1,true);
+
+		final Connection connection = this.pool.getConnection();
+		final Connection[] result = new Connection[1];
+		final Thread waiter = new Thread(() -> {
+			try
+			{
+				result[0] = this.pool.getConnection();
+			}
+			catch(final SQLEngineCouldNotConnectToDBException e)
+			{
+			}
+		});
+		waiter.start();
+
+		Thread.sleep(50);
+		connection.close();
+		waiter.join(5000);
+
+		Assert.assertSame(connection,result[0]);
+		Assert.assertEquals(1,this.created.get());
+	}
+}
@@ -0,0 +1,226 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package xdev.db;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import xdev.db.sql.SELECT;
+import xdev.db.sql.Table;
+import xdev.vt.VirtualTableColumn;
+
+
+public class KeysetPagerTest
+{
+	private static final int			TOTAL	= 25;
+
+	private final Table					table	= new Table("PERSON");
+	private final VirtualTableColumn<?>	id		= new VirtualTableColumn<Integer>("ID");
+	private final List<String>			queries	= new ArrayList<>();
+
+
+	/**
+	 * A connection to a table with the ids 1 to {@link #TOTAL}, which
+	 * understands the queries of the pager
+	 */
+	private DBConnection<?> createConnection()
+	{
+		return (DBConnection<?>)Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[]{DBConnection.class},(proxy, method, args) -> {
+					if(!method.getName().equals("query"))
+					{
+						return null;
+					}
+
+					final String sql = args[0].toString().replaceAll("\\s+"," ");
+					final Object[] params = (Object[])args[1];
+					this.queries.add(sql);
+
+					final List<Object[]> rows = new ArrayList<>();
+					if(sql.contains("COUNT(*)"))
+					{
+						rows.add(new Object[]{TOTAL});
+						return createResult(rows);
+					}
+
+					final boolean desc = sql.contains("DESC");
+					for(int i = 1; i <= TOTAL; i++)
+					{
+						final int value = desc ? TOTAL + 1 - i : i;
+						if(sql.contains("ID > ?") && value <= (Integer)params[0])
+						{
+							continue;
+						}
+						if(sql.contains("ID < ?") && value >= (Integer)params[0])
+						{
+							continue;
+						}
+						rows.add(new Object[]{value});
+					}
+
+					final int offset = find(sql,"OFFSET (\\d+)",0);
+					final int limit = find(sql,"FETCH FIRST (\\d+)",rows.size());
+					return createResult(new ArrayList<>(rows.subList(Math.min(offset,rows.size()),
+							Math.min(offset + limit,rows.size()))));
+				});
+	}
+
+
+	private static int find(final String sql, final String regex, final int defaultValue)
+	{
+		final Matcher matcher = Pattern.compile(regex).matcher(sql);
+		return matcher.find() ? Integer.parseInt(matcher.group(1)) : defaultValue;
+	}
+
+
+	private static Result createResult(final List<Object[]> rows)
+	{
+		return new Result()
+		{
+			private int	index	= -1;
+
+
+			@Override
+			public int getColumnCount()
+			{
+				return 1;
+			}
+
+
+			@Override
+			public ColumnMetaData getMetadata(final int col)
+			{
+				return new ColumnMetaData("PERSON","ID","ID",DataType.INTEGER,0,0,null,false,
+						false);
+			}
+
+
+			@Override
+			public boolean next()
+			{
+				return ++this.index < rows.size();
+			}
+
+
+			@Override
+			public Object getObject(final int col)
+			{
+				return rows.get(this.index)[col];
+			}
+
+
+			@Override
+			public int skip(final int count)
+			{
+				this.index += count;
+				return count;
+			}
+
+
+			@Override
+			public void close()
+			{
+			}
+		};
+	}
+
+
+	private KeysetPager createPager() throws DBException
+	{
+		return new KeysetPager(createConnection(),10,new SELECT().columns(this.id).FROM(
+				this.table),new VirtualTableColumn<?>[]{this.id});
+	}
+
+
+	private static void assertPage(final Result result, final int first, final int last)
+			throws DBException
+	{
+		for(int i = first; i <= last; i++)
+		{
+			Assert.assertTrue(result.next());
+			Assert.assertEquals(i,result.getInt(0));
+		}
+		Assert.assertFalse(result.next());
+	}
+
+
+	private String lastQuery()
+	{
+		return this.queries.get(this.queries.size() - 1);
+	}
+
+
+	@Test
+	public void testSequentialPagesSeek() throws Exception
+	{
+		final KeysetPager pager = createPager();
+		Assert.assertEquals(TOTAL,pager.getTotalRows());
+		Assert.assertEquals(2,pager.getMaxPageIndex());
+		Assert.assertTrue(this.queries.get(0).endsWith(") AS _RESULT_COUNT_"));
+
+		Result result = pager.firstPage();
+		assertPage(result,1,10);
+		Assert.assertEquals(PagingStrategy.KEYSET,result.getQueryInfo().getPagingStrategy());
+
+		result = pager.nextPage();
+		assertPage(result,11,20);
+		Assert.assertTrue(lastQuery().contains("ID > ?"));
+		Assert.assertFalse(lastQuery().contains("OFFSET"));
+
+		result = pager.nextPage();
+		assertPage(result,21,25);
+		Assert.assertFalse(pager.hasNextPage());
+
+		result = pager.previousPage();
+		assertPage(result,11,20);
+		Assert.assertTrue(lastQuery().contains("ID < ?"));
+		Assert.assertEquals(PagingStrategy.KEYSET,result.getQueryInfo().getPagingStrategy());
+		Assert.assertEquals(1,pager.getCurrentPageIndex());
+	}
+
+
+	@Test
+	public void testLastPage() throws Exception
+	{
+		final KeysetPager pager = createPager();
+		assertPage(pager.lastPage(),21,25);
+		Assert.assertFalse(lastQuery().contains("OFFSET"));
+
+		assertPage(pager.previousPage(),11,20);
+		assertPage(pager.previousPage(),1,10);
+		Assert.assertFalse(pager.hasPreviousPage());
+	}
+
+
+	@Test
+	public void testRandomAccessUsesOffset() throws Exception
+	{
+		final KeysetPager pager = createPager();
+		assertPage(pager.gotoPage(1),11,20);
+		Assert.assertTrue(lastQuery().contains("OFFSET 10"));
+
+		assertPage(pager.nextPage(),21,25);
+		Assert.assertTrue(lastQuery().contains("ID > ?"));
+	}
+}
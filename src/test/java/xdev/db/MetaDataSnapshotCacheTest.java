@@ -0,0 +1,240 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package xdev.db;
+
+
+import java.io.File;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import xdev.db.DBMetaData.TableInfo;
+import xdev.db.DBMetaData.TableMetaData;
+import xdev.db.DBMetaData.TableType;
+import xdev.db.StoredProcedure.Param;
+import xdev.db.StoredProcedure.ReturnTypeFlavor;
+import xdev.util.ProgressMonitor;
+import xdev.vt.Cardinality;
+import xdev.vt.EntityRelationship;
+import xdev.vt.EntityRelationship.Entity;
+import xdev.vt.EntityRelationshipModel;
+
+
+public class MetaDataSnapshotCacheTest
+{
+	@Rule
+	public TemporaryFolder			folder				= new TemporaryFolder();
+
+	private final Map<TableInfo, Long>	fingerprints	= new HashMap<>();
+	private long					proceduresFingerprint;
+	private final List<String>		reads				= new ArrayList<>();
+	private File					file;
+
+
+	@Before
+	public void doBeforeEveryTest() throws Exception
+	{
+		this.fingerprints.put(table("A"),1L);
+		this.fingerprints.put(table("B"),2L);
+		this.file = new File(this.folder.getRoot(),"meta/snapshot.bin");
+	}
+
+
+	private interface TestMetaData extends DBMetaData, MetaDataSnapshotCache.FingerprintProvider
+	{
+	}
+
+
+	private MetaDataSnapshotCache createCache()
+	{
+		final TestMetaData delegate = (TestMetaData)Proxy.newProxyInstance(getClass()
+				.getClassLoader(),new Class<?>[]{TestMetaData.class},(proxy, method, args) -> {
+			switch(method.getName())
+			{
+				case "getName":
+					return "Test";
+				case "getVersion":
+					return "1";
+				case "getTableFingerprints":
+					return new HashMap<>(this.fingerprints);
+				case "getStoredProceduresFingerprint":
+					return this.proceduresFingerprint;
+
+				case "getTableMetaData":
+				{
+					final TableInfo[] tables = (TableInfo[])args[2];
+					final TableMetaData[] metaData = new TableMetaData[tables.length];
+					for(int i = 0; i < tables.length; i++)
+					{
+						this.reads.add(tables[i].getName());
+						metaData[i] = createTableMetaData(tables[i]);
+					}
+					return metaData;
+				}
+
+				case "getStoredProcedures":
+					this.reads.add("procedures");
+					return new StoredProcedure[]{new StoredProcedure(ReturnTypeFlavor.VOID,
+							null,"P","",new Param[0])};
+
+				case "getEntityRelationshipModel":
+				{
+					this.reads.add("relations");
+					final EntityRelationshipModel model = new EntityRelationshipModel();
+					model.add(new EntityRelationship(new Entity("A","ID",Cardinality.ONE),
+							new Entity("B","A_ID",Cardinality.MANY)));
+					return model;
+				}
+
+				default:
+					return null;
+			}
+		});
+		return new MetaDataSnapshotCache(delegate,this.file);
+	}
+
+
+	private TableMetaData createTableMetaData(final TableInfo table)
+	{
+		final String name = table.getName();
+		return new TableMetaData(table,new ColumnMetaData[]{new ColumnMetaData(name,"ID",
+				"ID",DataType.INTEGER,0,0,null,false,true)},new Index[0]);
+	}
+
+
+	private static TableInfo table(final String name)
+	{
+		return new TableInfo(TableType.TABLE,null,name);
+	}
+
+
+	@Test
+	public void testReloadChangedTablesOnly() throws Exception
+	{
+		final TableMetaData[] first = createCache().getTableMetaData(ProgressMonitor.DUMMY,
+				DBMetaData.INDICES,table("A"),table("B"));
+		Assert.assertEquals(2,first.length);
+		Assert.assertEquals("[A, B]",this.reads.toString());
+		Assert.assertTrue(this.file.exists());
+
+		// next start, B changed meanwhile
+		this.reads.clear();
+		this.fingerprints.put(table("B"),3L);
+		final MetaDataSnapshotCache cache = createCache();
+		final TableMetaData[] second = cache.getTableMetaData(ProgressMonitor.DUMMY,
+				DBMetaData.INDICES,table("A"),table("B"));
+		Assert.assertEquals("[B]",this.reads.toString());
+		Assert.assertEquals("A",second[0].getTableInfo().getName());
+		Assert.assertEquals("B",second[1].getTableInfo().getName());
+
+		// row counts are always read
+		this.reads.clear();
+		cache.getTableMetaData(ProgressMonitor.DUMMY,DBMetaData.ALL,table("A"));
+		Assert.assertEquals("[A]",this.reads.toString());
+
+		// unknown fingerprint, not cached
+		this.reads.clear();
+		cache.getTableMetaData(ProgressMonitor.DUMMY,0,table("C"));
+		cache.getTableMetaData(ProgressMonitor.DUMMY,0,table("C"));
+		Assert.assertEquals("[C, C]",this.reads.toString());
+	}
+
+
+	@Test
+	public void testSchemas() throws Exception
+	{
+		final TableInfo other = new TableInfo(TableType.TABLE,"OTHER","A");
+		this.fingerprints.put(other,4L);
+
+		MetaDataSnapshotCache cache = createCache();
+		cache.getTableMetaData(ProgressMonitor.DUMMY,0,table("A"),other);
+		Assert.assertEquals("[A, A]",this.reads.toString());
+
+		// only the table in the changed schema is read again
+		this.reads.clear();
+		this.fingerprints.put(other,6L);
+		cache = createCache();
+		final TableMetaData[] tables = cache.getTableMetaData(ProgressMonitor.DUMMY,0,
+				table("A"),other);
+		Assert.assertEquals("[A]",this.reads.toString());
+		Assert.assertNull(tables[0].getTableInfo().getSchema());
+		Assert.assertEquals("OTHER",tables[1].getTableInfo().getSchema());
+	}
+
+
+	@Test
+	public void testCachedTablesAreCopies() throws Exception
+	{
+		final MetaDataSnapshotCache cache = createCache();
+		final TableMetaData first = cache.getTableMetaData(ProgressMonitor.DUMMY,0,
+				table("A"))[0];
+		first.getColumns()[0].setCaption("changed");
+
+		final TableMetaData second = cache.getTableMetaData(ProgressMonitor.DUMMY,0,
+				table("A"))[0];
+		Assert.assertNotSame(first,second);
+		Assert.assertEquals("ID",second.getColumns()[0].getCaption());
+		Assert.assertEquals("[A]",this.reads.toString());
+	}
+
+
+	@Test
+	public void testStoredProceduresAndRelationships() throws Exception
+	{
+		MetaDataSnapshotCache cache = createCache();
+		cache.getStoredProcedures(ProgressMonitor.DUMMY);
+		cache.getEntityRelationshipModel(ProgressMonitor.DUMMY,table("A"),table("B"));
+		Assert.assertEquals("[procedures, relations]",this.reads.toString());
+
+		this.reads.clear();
+		cache = createCache();
+		Assert.assertEquals("P",cache.getStoredProcedures(ProgressMonitor.DUMMY)[0].getName());
+		Assert.assertEquals(1,cache.getEntityRelationshipModel(ProgressMonitor.DUMMY,
+				table("B"),table("A")).size());
+		Assert.assertEquals("[]",this.reads.toString());
+
+		this.proceduresFingerprint = 7;
+		this.fingerprints.put(table("A"),5L);
+		cache = createCache();
+		cache.getStoredProcedures(ProgressMonitor.DUMMY);
+		cache.getEntityRelationshipModel(ProgressMonitor.DUMMY,table("A"),table("B"));
+		Assert.assertEquals("[procedures, relations]",this.reads.toString());
+	}
+
+
+	@Test
+	public void testDamagedSnapshot() throws Exception
+	{
+		this.file.getParentFile().mkdirs();
+		Files.write(this.file.toPath(),new byte[]{1,2,3});
+
+		final TableMetaData[] tables = createCache().getTableMetaData(ProgressMonitor.DUMMY,0,
+				table("A"));
+		Assert.assertEquals(1,tables.length);
+		Assert.assertEquals("[A]",this.reads.toString());
+	}
+}
@@ -0,0 +1,177 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package xdev.db;
+
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class PreparedStatementCacheTest
+{
+	private final List<FakeStatement>	created	= new ArrayList<>();
+
+	private StatementCacheStatistics	statistics;
+	private PreparedStatementCache		cache;
+
+
+
+	private static class FakeStatement
+	{
+		boolean	closed;
+		int		clearedParameters;
+	}
+
+
+	@Before
+	public void doBeforeEveryTest()
+	{
+		this.statistics = new StatementCacheStatistics();
+		this.cache = new PreparedStatementCache(null,2,this.statistics);
+	}
+
+
+	private PreparedStatement createStatement()
+	{
+		final FakeStatement fake = new FakeStatement();
+		this.created.add(fake);
+		return (PreparedStatement)Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[]{PreparedStatement.class},(proxy, method, args) -> {
+					switch(method.getName())
+					{
+						case "close":
+							fake.closed = true;
+							return null;
+						case "isClosed":
+							return fake.closed;
+						case "clearParameters":
+							fake.clearedParameters++;
+							return null;
+						case "executeQuery":
+							return Proxy.newProxyInstance(getClass().getClassLoader(),
+									new Class<?>[]{ResultSet.class},(rs, m, a) -> m.getName()
+											.equals("getStatement") ? proxy : null);
+					}
+					return null;
+				});
+	}
+
+
+	private PreparedStatement prepare(final String sql) throws SQLException
+	{
+		return this.cache.prepare(new PreparedStatementCache.Key(sql,ResultSet.TYPE_FORWARD_ONLY,
+				ResultSet.CONCUR_READ_ONLY,-1,null),this::createStatement);
+	}
+
+
+	@Test
+	public void testStatementIsReused() throws Exception
+	{
+		final PreparedStatement first = prepare("SELECT 1");
+		first.close();
+		Assert.assertTrue(first.isClosed());
+
+		final PreparedStatement second = prepare("SELECT 1");
+		Assert.assertFalse(second.isClosed());
+		second.close();
+
+		Assert.assertEquals(1,this.created.size());
+		Assert.assertFalse(this.created.get(0).closed);
+		Assert.assertEquals(2,this.created.get(0).clearedParameters);
+		Assert.assertEquals(1,this.statistics.getHits());
+		Assert.assertEquals(1,this.statistics.getMisses());
+	}
+
+
+	@Test(expected = SQLException.class)
+	public void testClosedLeaseIsInvalid() throws Exception
+	{
+		final PreparedStatement statement = prepare("SELECT 1");
+		statement.close();
+		statement.executeQuery();
+	}
+
+
+	@Test
+	public void testResultSetReturnsStatement() throws Exception
+	{
+		final PreparedStatement statement = prepare("SELECT 1");
+		final Statement fromResult = statement.executeQuery().getStatement();
+		Assert.assertSame(statement,fromResult);
+
+		fromResult.close();
+		prepare("SELECT 1");
+		Assert.assertEquals(1,this.statistics.getHits());
+	}
+
+
+	@Test
+	public void testStatementInUseIsNotShared() throws Exception
+	{
+		final PreparedStatement first = prepare("SELECT 1");
+		final PreparedStatement second = prepare("SELECT 1");
+		Assert.assertNotSame(first,second);
+		Assert.assertEquals(2,this.created.size());
+
+		// the uncached one is closed for real
+		second.close();
+		Assert.assertTrue(this.created.get(1).closed);
+	}
+
+
+	@Test
+	public void testKeyIncludesGeneratedKeysMode() throws Exception
+	{
+		prepare("INSERT").close();
+		this.cache.prepare(new PreparedStatementCache.Key("INSERT",ResultSet.TYPE_FORWARD_ONLY,
+				ResultSet.CONCUR_READ_ONLY,-1,new String[]{"ID"}),this::createStatement).close();
+		this.cache.prepare(new PreparedStatementCache.Key("INSERT",ResultSet.TYPE_FORWARD_ONLY,
+				ResultSet.CONCUR_READ_ONLY,-1,new String[]{"ID"}),this::createStatement).close();
+
+		Assert.assertEquals(2,this.created.size());
+		Assert.assertEquals(1,this.statistics.getHits());
+	}
+
+
+	@Test
+	public void testEvictionAndClose() throws Exception
+	{
+		prepare("SELECT 1").close();
+		final PreparedStatement inUse = prepare("SELECT 2");
+		prepare("SELECT 3").close();
+
+		Assert.assertEquals(1,this.statistics.getEvictions());
+		Assert.assertTrue(this.created.get(0).closed);
+		Assert.assertEquals(2,this.cache.size());
+
+		this.cache.close();
+		Assert.assertTrue(this.created.get(2).closed);
+		Assert.assertFalse(this.created.get(1).closed);
+
+		inUse.close();
+		Assert.assertTrue(this.created.get(1).closed);
+	}
+}
@@ -0,0 +1,303 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package xdev.db.jdbc;
+
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.xdev.jadoth.sqlengine.dbms.DbmsAdaptor;
+import com.xdev.jadoth.sqlengine.interfaces.ConnectionProvider;
+import com.xdev.jadoth.sqlengine.internal.DatabaseGateway;
+
+import xdev.db.BatchWriteRequest;
+import xdev.db.ConnectionInformation;
+import xdev.db.DBException;
+import xdev.db.WriteResult;
+
+
+public class JDBCConnectionBatchTest
+{
+	private static final String	SQL			= "INSERT INTO T (NAME) VALUES (?)";
+
+	private final List<String>	calls		= new ArrayList<>();
+	private String				driverName	= "Test Driver";
+	/**
+	 * Count of generated keys returned after a batch
+	 */
+	private int					batchKeys	= -1;
+
+
+	private static Object defaultValue(final Method method)
+	{
+		final Class<?> type = method.getReturnType();
+		if(type == boolean.class)
+		{
+			return false;
+		}
+		if(type == int.class || type == short.class || type == long.class)
+		{
+			return 0;
+		}
+		return null;
+	}
+
+
+	private static ResultSet createKeys(final int first, final int count)
+	{
+		final ResultSetMetaData meta = (ResultSetMetaData)Proxy.newProxyInstance(
+				JDBCConnectionBatchTest.class.getClassLoader(),
+				new Class<?>[]{ResultSetMetaData.class},(proxy, method, args) -> {
+					switch(method.getName())
+					{
+						case "getColumnCount":
+							return 1;
+						case "getColumnName":
+						case "getColumnLabel":
+							return "ID";
+						case "getColumnType":
+							return Types.INTEGER;
+						default:
+							return defaultValue(method);
+					}
+				});
+		final int[] index = {-1};
+		return (ResultSet)Proxy.newProxyInstance(JDBCConnectionBatchTest.class.getClassLoader(),
+				new Class<?>[]{ResultSet.class},(proxy, method, args) -> {
+					switch(method.getName())
+					{
+						case "getMetaData":
+							return meta;
+						case "next":
+							return ++index[0] < count;
+						case "getObject":
+							return first + index[0];
+						default:
+							return defaultValue(method);
+					}
+				});
+	}
+
+
+	private PreparedStatement createStatement()
+	{
+		final int[] batch = {0};
+		final int[] nextKey = {100};
+		return (PreparedStatement)Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[]{PreparedStatement.class},(proxy, method, args) -> {
+					switch(method.getName())
+					{
+						case "addBatch":
+							batch[0]++;
+							return null;
+						case "executeBatch":
+							this.calls.add("executeBatch " + batch[0]);
+							final int[] affected = new int[batch[0]];
+							java.util.Arrays.fill(affected,1);
+							batch[0] = 0;
+							return affected;
+						case "executeUpdate":
+							this.calls.add("executeUpdate");
+							return 1;
+						case "getGeneratedKeys":
+							final int count = this.calls.get(this.calls.size() - 1).startsWith(
+									"executeBatch") ? this.batchKeys : 1;
+							final ResultSet keys = createKeys(nextKey[0],count);
+							nextKey[0] += count;
+							return keys;
+						default:
+							return defaultValue(method);
+					}
+				});
+	}
+
+
+	private Connection createConnection()
+	{
+		final DatabaseMetaData meta = (DatabaseMetaData)Proxy.newProxyInstance(getClass()
+				.getClassLoader(),new Class<?>[]{DatabaseMetaData.class},(proxy, method,
+				args) -> {
+			switch(method.getName())
+			{
+				case "supportsBatchUpdates":
+					return true;
+				case "getDriverName":
+					return this.driverName;
+				default:
+					return defaultValue(method);
+			}
+		});
+		return (Connection)Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[]{Connection.class},(proxy, method, args) -> {
+					switch(method.getName())
+					{
+						case "getMetaData":
+							return meta;
+						case "prepareStatement":
+							return createStatement();
+						default:
+							return defaultValue(method);
+					}
+				});
+	}
+
+
+	private WriteResult[] insert(final int rows, final boolean returnGeneratedKeys)
+			throws DBException
+	{
+		final BatchWriteRequest request = new BatchWriteRequest(SQL,returnGeneratedKeys);
+		for(int i = 0; i < rows; i++)
+		{
+			request.addParams("name" + i);
+		}
+		return request.execute(new TestDataSource().openConnectionImpl(),100);
+	}
+
+
+	private static int key(final WriteResult result) throws DBException
+	{
+		Assert.assertTrue(result.hasGeneratedKeys());
+		Assert.assertTrue(result.getGeneratedKeys().next());
+		return ((Number)result.getGeneratedKeys().getObject(0)).intValue();
+	}
+
+
+	@Test
+	public void testBatchWithoutKeys() throws Exception
+	{
+		final WriteResult[] results = insert(3,false);
+		Assert.assertEquals(3,results.length);
+		Assert.assertEquals("[executeBatch 3]",this.calls.toString());
+	}
+
+
+	@Test
+	public void testGeneratedKeysOfUnknownDriver() throws Exception
+	{
+		final WriteResult[] results = insert(3,true);
+		Assert.assertEquals("[executeUpdate, executeUpdate, executeUpdate]",
+				this.calls.toString());
+		for(int i = 0; i < results.length; i++)
+		{
+			Assert.assertEquals(100,key(results[i]));
+		}
+	}
+
+
+	@Test
+	public void testGeneratedKeysOfBatch() throws Exception
+	{
+		this.driverName = "PostgreSQL JDBC Driver";
+		this.batchKeys = 3;
+		final WriteResult[] results = insert(3,true);
+		Assert.assertEquals("[executeBatch 3]",this.calls.toString());
+		for(int i = 0; i < results.length; i++)
+		{
+			Assert.assertEquals(100 + i,key(results[i]));
+		}
+	}
+
+
+	@Test(expected = DBException.class)
+	public void testMissingGeneratedKeysOfBatch() throws Exception
+	{
+		this.driverName = "PostgreSQL JDBC Driver";
+		this.batchKeys = 1;
+		insert(3,true);
+	}
+
+
+
+	private class TestDataSource extends JDBCDataSource
+	{
+		TestDataSource()
+		{
+			super((DbmsAdaptor)Proxy.newProxyInstance(JDBCConnectionBatchTest.class
+					.getClassLoader(),new Class<?>[]{DbmsAdaptor.class},
+					(proxy, method, args) -> defaultValue(method)));
+		}
+
+
+		@Override
+		protected ConnectionProvider createConnectionProvider()
+		{
+			return null;
+		}
+
+
+		@Override
+		protected DatabaseGateway createGateway()
+		{
+			return null;
+		}
+
+
+		@Override
+		public JDBCConnection openConnectionImpl()
+		{
+			return new JDBCConnection(this)
+			{
+				@Override
+				protected Connection establishConnection()
+				{
+					return createConnection();
+				}
+			};
+		}
+
+
+		@Override
+		public boolean canExport()
+		{
+			return false;
+		}
+
+
+		@Override
+		public Parameter[] getDefaultParameters()
+		{
+			return new Parameter[0];
+		}
+
+
+		@Override
+		protected ConnectionInformation getConnectionInformation()
+		{
+			return null;
+		}
+
+
+		@Override
+		public xdev.db.DBMetaData getMetaData()
+		{
+			return null;
+		}
+	}
+}
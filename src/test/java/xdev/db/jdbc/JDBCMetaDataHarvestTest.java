@@ -0,0 +1,497 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package xdev.db.jdbc;
+
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.xdev.jadoth.sqlengine.dbms.DbmsAdaptor;
+import com.xdev.jadoth.sqlengine.interfaces.ConnectionProvider;
+import com.xdev.jadoth.sqlengine.internal.DatabaseGateway;
+
+import xdev.db.ConnectionInformation;
+import xdev.db.DBException;
+import xdev.db.DBMetaData.TableInfo;
+import xdev.db.DBMetaData.TableMetaData;
+import xdev.db.DBMetaData.TableType;
+import xdev.db.Index;
+import xdev.db.ColumnMetaData;
+import xdev.util.ProgressMonitor;
+import xdev.vt.EntityRelationship;
+import xdev.vt.EntityRelationshipModel;
+
+
+public class JDBCMetaDataHarvestTest
+{
+	private static final int	TABLES				= 30;
+
+	private final AtomicInteger	openConnections		= new AtomicInteger();
+	private final AtomicInteger	maxOpenConnections	= new AtomicInteger();
+	private final AtomicInteger	exportedKeysCalls	= new AtomicInteger();
+	private String				nameColumnType		= "VARCHAR";
+
+
+	private static Object defaultValue(final Method method)
+	{
+		final Class<?> type = method.getReturnType();
+		if(type == boolean.class)
+		{
+			return false;
+		}
+		if(type == int.class || type == short.class || type == long.class)
+		{
+			return 0;
+		}
+		return null;
+	}
+
+
+	private static <T> T proxy(final Class<T> type, final Map<String, Object> values)
+	{
+		return type.cast(Proxy.newProxyInstance(JDBCMetaDataHarvestTest.class.getClassLoader(),
+				new Class<?>[]{type},(proxy, method, args) -> values.containsKey(method
+						.getName()) ? values.get(method.getName()) : defaultValue(method)));
+	}
+
+
+	private static ResultSet createResultSet(final List<Map<String, Object>> rows)
+	{
+		final int[] index = {-1};
+		return (ResultSet)Proxy.newProxyInstance(JDBCMetaDataHarvestTest.class.getClassLoader(),
+				new Class<?>[]{ResultSet.class},(proxy, method, args) -> {
+					switch(method.getName())
+					{
+						case "next":
+							return ++index[0] < rows.size();
+						case "getString":
+							return rows.get(index[0]).get(args[0]);
+						case "getShort":
+							return ((Number)rows.get(index[0]).get(args[0])).shortValue();
+						default:
+							return defaultValue(method);
+					}
+				});
+	}
+
+
+	private static String tableName(final int i)
+	{
+		return String.format("T%02d",i);
+	}
+
+
+	private static Map<String, Object> table(final String schema, final String table)
+	{
+		final Map<String, Object> row = new HashMap<>();
+		row.put("TABLE_SCHEM",schema);
+		row.put("TABLE_NAME",table);
+		row.put("TABLE_TYPE","TABLE");
+		return row;
+	}
+
+
+	private static Map<String, Object> column(final String schema, final String table,
+			final String column, final String type)
+	{
+		final Map<String, Object> row = table(schema,table);
+		row.put("COLUMN_NAME",column);
+		row.put("TYPE_NAME",type);
+		return row;
+	}
+
+
+	private DatabaseMetaData createDatabaseMetaData()
+	{
+		return (DatabaseMetaData)Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[]{DatabaseMetaData.class},(proxy, method, args) -> {
+					switch(method.getName())
+					{
+						case "getDatabaseProductName":
+							return "Test";
+
+						case "getTables":
+						{
+							final List<Map<String, Object>> rows = new ArrayList<>();
+							for(int i = 0; i < 2; i++)
+							{
+								rows.add(table(null,tableName(i)));
+							}
+							rows.add(table("OTHER",tableName(0)));
+							return createResultSet(rows);
+						}
+
+						case "getColumns":
+						{
+							final List<Map<String, Object>> rows = new ArrayList<>();
+							for(int i = 0; i < 2; i++)
+							{
+								rows.add(column(null,tableName(i),"ID","INTEGER"));
+								rows.add(column(null,tableName(i),"NAME",this.nameColumnType));
+							}
+							rows.add(column("OTHER",tableName(0),"ID","INTEGER"));
+							return createResultSet(rows);
+						}
+
+						case "getExportedKeys":
+						{
+							this.exportedKeysCalls.incrementAndGet();
+							Thread.sleep(10);
+
+							// every table is referenced by the next one
+							final String table = (String)args[2];
+							final int next = Integer.parseInt(table.substring(1)) + 1;
+							final List<Map<String, Object>> rows = new ArrayList<>();
+							if(next < TABLES)
+							{
+								final Map<String, Object> row = new HashMap<>();
+								row.put("KEY_SEQ",1);
+								row.put("PKTABLE_NAME",table);
+								row.put("FKTABLE_NAME",tableName(next));
+								row.put("PKCOLUMN_NAME","ID");
+								row.put("FKCOLUMN_NAME","PARENT");
+								rows.add(row);
+							}
+							return createResultSet(rows);
+						}
+
+						default:
+							return defaultValue(method);
+					}
+				});
+	}
+
+
+	private Connection createConnection()
+	{
+		final int open = this.openConnections.incrementAndGet();
+		this.maxOpenConnections.accumulateAndGet(open,Math::max);
+
+		final DatabaseMetaData meta = createDatabaseMetaData();
+		final boolean[] closed = {false};
+		return (Connection)Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[]{Connection.class},(proxy, method, args) -> {
+					switch(method.getName())
+					{
+						case "getMetaData":
+							return meta;
+						case "close":
+							if(!closed[0])
+							{
+								closed[0] = true;
+								this.openConnections.decrementAndGet();
+							}
+							return null;
+						case "isClosed":
+							return closed[0];
+						default:
+							return defaultValue(method);
+					}
+				});
+	}
+
+
+
+	private class TestDataSource extends JDBCDataSource
+	{
+		TestDataSource()
+		{
+			super(proxy(DbmsAdaptor.class,new HashMap<>()));
+		}
+
+
+		@Override
+		protected ConnectionProvider createConnectionProvider()
+		{
+			final DbmsAdaptor adaptor = getDbmsAdaptor();
+			return (ConnectionProvider)Proxy.newProxyInstance(getClass().getClassLoader(),
+					new Class<?>[]{ConnectionProvider.class},(proxy, method, args) -> {
+						switch(method.getName())
+						{
+							case "getConnection":
+								return createConnection();
+							case "getDbmsAdaptor":
+								return adaptor;
+							default:
+								return defaultValue(method);
+						}
+					});
+		}
+
+
+		@Override
+		protected DatabaseGateway createGateway()
+		{
+			return null;
+		}
+
+
+		@Override
+		public JDBCConnection openConnectionImpl()
+		{
+			return new JDBCConnection(this)
+			{
+			};
+		}
+
+
+		@Override
+		public boolean canExport()
+		{
+			return false;
+		}
+
+
+		@Override
+		public Parameter[] getDefaultParameters()
+		{
+			return new Parameter[0];
+		}
+
+
+		@Override
+		protected ConnectionInformation getConnectionInformation()
+		{
+			return null;
+		}
+
+
+		@Override
+		public xdev.db.DBMetaData getMetaData() throws DBException
+		{
+			return new TestMetaData(this);
+		}
+	}
+
+
+
+	private static class TestMetaData extends JDBCMetaData
+	{
+		private final int	workers;
+
+
+		TestMetaData(final JDBCDataSource dataSource) throws DBException
+		{
+			this(dataSource,4);
+		}
+
+
+		TestMetaData(final JDBCDataSource dataSource, final int workers) throws DBException
+		{
+			super(dataSource);
+			this.workers = workers;
+		}
+
+
+		@Override
+		protected int getMetaDataWorkerCount(final int tableCount)
+		{
+			return Math.min(this.workers,tableCount);
+		}
+
+
+		@Override
+		protected void createTable(final JDBCConnection jdbcConnection, final TableMetaData table)
+		{
+		}
+
+
+		@Override
+		protected void addColumn(final JDBCConnection jdbcConnection, final TableMetaData table,
+				final ColumnMetaData column, final ColumnMetaData columnBefore,
+				final ColumnMetaData columnAfter)
+		{
+		}
+
+
+		@Override
+		protected void alterColumn(final JDBCConnection jdbcConnection,
+				final TableMetaData table, final ColumnMetaData column,
+				final ColumnMetaData existing)
+		{
+		}
+
+
+		@Override
+		public boolean equalsType(final ColumnMetaData clientColumn,
+				final ColumnMetaData dbColumn)
+		{
+			return false;
+		}
+
+
+		@Override
+		protected void dropColumn(final JDBCConnection jdbcConnection, final TableMetaData table,
+				final ColumnMetaData column)
+		{
+		}
+
+
+		@Override
+		protected void createIndex(final JDBCConnection jdbcConnection, final TableMetaData table,
+				final Index index)
+		{
+		}
+
+
+		@Override
+		protected void dropIndex(final JDBCConnection jdbcConnection, final TableMetaData table,
+				final Index index)
+		{
+		}
+	}
+
+
+	private static TableInfo[] createTableInfos()
+	{
+		final TableInfo[] tables = new TableInfo[TABLES];
+		for(int i = 0; i < TABLES; i++)
+		{
+			tables[i] = new TableInfo(TableType.TABLE,null,tableName(i));
+		}
+		return tables;
+	}
+
+
+	private static List<String> toStrings(final EntityRelationshipModel model)
+	{
+		final List<String> list = new ArrayList<>();
+		for(final EntityRelationship relation : model)
+		{
+			list.add(relation.toString());
+		}
+		Collections.sort(list);
+		return list;
+	}
+
+
+	@Test
+	public void testParallelEqualsSequential() throws Exception
+	{
+		final TestDataSource dataSource = new TestDataSource();
+
+		final EntityRelationshipModel sequential = new TestMetaData(dataSource,1)
+				.getEntityRelationshipModel(ProgressMonitor.DUMMY,createTableInfos());
+		Assert.assertEquals(1,this.maxOpenConnections.get());
+
+		this.maxOpenConnections.set(0);
+		final EntityRelationshipModel parallel = new TestMetaData(dataSource,4)
+				.getEntityRelationshipModel(ProgressMonitor.DUMMY,createTableInfos());
+
+		Assert.assertEquals(TABLES - 1,toStrings(parallel).size());
+		Assert.assertEquals(toStrings(sequential),toStrings(parallel));
+		Assert.assertTrue(this.maxOpenConnections.get() > 1);
+		Assert.assertTrue(this.maxOpenConnections.get() <= 4);
+		Assert.assertEquals(0,this.openConnections.get());
+	}
+
+
+	@Test
+	public void testProgressAndCancel() throws Exception
+	{
+		final TestDataSource dataSource = new TestDataSource();
+		final List<Integer> worked = new ArrayList<>();
+		final ProgressMonitor monitor = new ProgressMonitor()
+		{
+			private boolean	canceled;
+
+
+			@Override
+			public void beginTask(final String name, final int totalWork)
+			{
+			}
+
+
+			@Override
+			public void worked(final int progress)
+			{
+				worked.add(progress);
+				if(progress == 5)
+				{
+					cancel();
+				}
+			}
+
+
+			@Override
+			public void setTaskName(final String name)
+			{
+			}
+
+
+			@Override
+			public void done()
+			{
+			}
+
+
+			@Override
+			public boolean isCanceled()
+			{
+				return this.canceled;
+			}
+
+
+			@Override
+			public void cancel()
+			{
+				this.canceled = true;
+			}
+		};
+
+		new TestMetaData(dataSource,2).getEntityRelationshipModel(monitor,createTableInfos());
+
+		Assert.assertEquals(Integer.valueOf(1),worked.get(0));
+		Assert.assertTrue(worked.size() >= 5);
+		Assert.assertTrue(this.exportedKeysCalls.get() < TABLES);
+		Assert.assertEquals(0,this.openConnections.get());
+	}
+
+
+	@Test
+	public void testTableFingerprints() throws Exception
+	{
+		final TestMetaData meta = new TestMetaData(new TestDataSource());
+		final Map<TableInfo, Long> first = meta.getTableFingerprints(ProgressMonitor.DUMMY);
+		Assert.assertEquals(3,first.size());
+		Assert.assertEquals(first,meta.getTableFingerprints(ProgressMonitor.DUMMY));
+
+		// same name in another schema
+		final TableInfo table = new TableInfo(TableType.TABLE,null,tableName(0));
+		final TableInfo other = new TableInfo(TableType.TABLE,"OTHER",tableName(0));
+		Assert.assertNotEquals(first.get(table),first.get(other));
+
+		this.nameColumnType = "CLOB";
+		final Map<TableInfo, Long> second = meta.getTableFingerprints(ProgressMonitor.DUMMY);
+		Assert.assertNotEquals(first.get(table),second.get(table));
+		Assert.assertEquals(first.get(other),second.get(other));
+		Assert.assertEquals(0,this.openConnections.get());
+	}
+}
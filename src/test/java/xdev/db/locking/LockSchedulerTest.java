@@ -0,0 +1,110 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package xdev.db.locking;
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+
+public class LockSchedulerTest
+{
+	@Test
+	public void testSchedule() throws Exception
+	{
+		final LockScheduler scheduler = new LockScheduler(10,renewals -> {
+		});
+		final List<String> calls = Collections.synchronizedList(new ArrayList<>());
+		final CountDownLatch latch = new CountDownLatch(1);
+
+		scheduler.schedule(() -> {
+			calls.add("failing");
+			throw new IllegalStateException();
+		},0);
+		final ScheduledFuture<?> canceled = scheduler.schedule(() -> calls.add("canceled"),50);
+		scheduler.schedule(() -> {
+			calls.add(Thread.currentThread().getName());
+			latch.countDown();
+		},100);
+		canceled.cancel(false);
+
+		Assert.assertTrue(latch.await(5,TimeUnit.SECONDS));
+		Assert.assertEquals("[failing, db-lock-scheduler]",calls.toString());
+	}
+
+
+	@Test
+	public void testCoalesceRenewals() throws Exception
+	{
+		final List<String> batches = Collections.synchronizedList(new ArrayList<>());
+		final LockScheduler scheduler = new LockScheduler(100,renewals -> {
+			batches.add(renewals.size() + ":" + renewals.get(0).additionalTime);
+			if(renewals.get(0).additionalTime == -1)
+			{
+				throw new LockingException("failed");
+			}
+			if(renewals.get(0).additionalTime == -2)
+			{
+				renewals.get(0).future.completeExceptionally(new RowAlreadyLockedException("blocked",null,null));
+			}
+		});
+
+		final CompletableFuture<Void> first = scheduler.requestRenewal("a",null,1000);
+		final CompletableFuture<Void> second = scheduler.requestRenewal("a",null,500);
+		final CompletableFuture<Void> other = scheduler.requestRenewal("b",null,-1);
+		final CompletableFuture<Void> blocked = scheduler.requestRenewal("c",null,-2);
+		// same lock, merged into one renewal
+		Assert.assertSame(first,second);
+
+		first.get(5,TimeUnit.SECONDS);
+		try
+		{
+			other.get(5,TimeUnit.SECONDS);
+			Assert.fail();
+		}
+		catch(final ExecutionException e)
+		{
+			Assert.assertTrue(e.getCause() instanceof LockingException);
+		}
+		// failed by the handler itself, not overwritten by the scheduler
+		try
+		{
+			blocked.get(5,TimeUnit.SECONDS);
+			Assert.fail();
+		}
+		catch(final ExecutionException e)
+		{
+			Assert.assertTrue(e.getCause() instanceof RowAlreadyLockedException);
+		}
+
+		Collections.sort(batches);
+		Assert.assertEquals("[1:-1, 1:-2, 1:1500]",batches.toString());
+
+		// a new batch after the flush
+		Assert.assertNotSame(first,scheduler.requestRenewal("a",null,1000));
+	}
+}
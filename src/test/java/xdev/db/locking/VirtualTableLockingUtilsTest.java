@@ -0,0 +1,360 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package xdev.db.locking;
+
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.xdev.jadoth.sqlengine.dbms.standard.StandardDbmsAdaptor;
+import com.xdev.jadoth.sqlengine.interfaces.ConnectionProvider;
+
+import xdev.db.ConnectionInformation;
+import xdev.db.jdbc.JDBCConnection;
+import xdev.db.jdbc.JDBCDataSource;
+import xdev.db.locking.VirtualTableLockingUtils.LockEntry;
+import xdev.db.locking.VirtualTableLockingUtils.LockPlan;
+
+
+public class VirtualTableLockingUtilsTest
+{
+	private static final Date		SERVER_TIME	= new Date(100000);
+	private static final long		USER		= 1;
+
+	/**
+	 * The executed statements, e.g. "DELETE 3" for a statement with three
+	 * parameters or "INSERT batch 2" for a batch of two rows
+	 */
+	private final List<String>		calls		= new ArrayList<>();
+	/**
+	 * The rows of the lock table: row identifier, valid until, user string
+	 * and user id
+	 */
+	private final List<Object[]>	entries		= new ArrayList<>();
+	private String					failingVerb;
+
+
+	private static Object defaultValue(final Method method)
+	{
+		final Class<?> type = method.getReturnType();
+		if(type == boolean.class)
+		{
+			return false;
+		}
+		if(type == int.class || type == short.class || type == long.class)
+		{
+			return 0;
+		}
+		return null;
+	}
+
+
+	private static String verb(final String sql)
+	{
+		return sql.trim().split("\\s+")[0].toUpperCase();
+	}
+
+
+	private ResultSet createLockEntries(final Map<Integer, Object> params)
+	{
+		final List<Object[]> rows = new ArrayList<>();
+		for(final Object[] entry : this.entries)
+		{
+			if(params.containsValue(entry[0]))
+			{
+				rows.add(entry);
+			}
+		}
+
+		final ResultSetMetaData meta = (ResultSetMetaData)Proxy.newProxyInstance(getClass()
+				.getClassLoader(),new Class<?>[]{ResultSetMetaData.class},(proxy, method,
+				args) -> {
+			switch(method.getName())
+			{
+				case "getColumnCount":
+					return 4;
+				case "getColumnType":
+					return Types.VARCHAR;
+				default:
+					return defaultValue(method);
+			}
+		});
+		final int[] index = {-1};
+		return (ResultSet)Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[]{ResultSet.class},(proxy, method, args) -> {
+					switch(method.getName())
+					{
+						case "getMetaData":
+							return meta;
+						case "next":
+							return ++index[0] < rows.size();
+						case "getObject":
+							return rows.get(index[0])[(Integer)args[0] - 1];
+						default:
+							return defaultValue(method);
+					}
+				});
+	}
+
+
+	private PreparedStatement createStatement(final String sql)
+	{
+		final String verb = verb(sql);
+		final Map<Integer, Object> params = new HashMap<>();
+		final int[] batch = {0};
+		return (PreparedStatement)Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[]{PreparedStatement.class},(proxy, method, args) -> {
+					switch(method.getName())
+					{
+						case "setObject":
+							params.put((Integer)args[0],args[1]);
+							return null;
+						case "executeQuery":
+							this.calls.add(verb + " " + params.size());
+							return createLockEntries(params);
+						case "executeUpdate":
+							this.calls.add(verb + " " + params.size());
+							// every row of the IN list is deleted
+							return params.size() - 2;
+						case "addBatch":
+							batch[0]++;
+							params.clear();
+							return null;
+						case "executeBatch":
+							this.calls.add(verb + " batch " + batch[0]);
+							if(verb.equals(this.failingVerb))
+							{
+								throw new SQLException("failed");
+							}
+							final int[] affected = new int[batch[0]];
+							Arrays.fill(affected,1);
+							batch[0] = 0;
+							return affected;
+						default:
+							return defaultValue(method);
+					}
+				});
+	}
+
+
+	private Connection createConnection()
+	{
+		final DatabaseMetaData meta = (DatabaseMetaData)Proxy.newProxyInstance(getClass()
+				.getClassLoader(),new Class<?>[]{DatabaseMetaData.class},(proxy, method,
+				args) -> method.getName().equals("supportsBatchUpdates") ? true
+				: defaultValue(method));
+		final boolean[] autoCommit = {true};
+		return (Connection)Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[]{Connection.class},(proxy, method, args) -> {
+					switch(method.getName())
+					{
+						case "getMetaData":
+							return meta;
+						case "prepareStatement":
+							return createStatement((String)args[0]);
+						case "setAutoCommit":
+							autoCommit[0] = (Boolean)args[0];
+							return null;
+						case "getAutoCommit":
+							return autoCommit[0];
+						case "commit":
+						case "rollback":
+							this.calls.add(method.getName());
+							return null;
+						default:
+							return defaultValue(method);
+					}
+				});
+	}
+
+
+	private static List<RowIdentifier> rows(final int count)
+	{
+		final List<RowIdentifier> rows = new ArrayList<>();
+		for(int i = 0; i < count; i++)
+		{
+			final String row = String.valueOf(i);
+			rows.add(() -> row);
+		}
+		return rows;
+	}
+
+
+	private BulkLockResult lockRows(final int count) throws LockingException
+	{
+		return VirtualTableLockingUtils.lockRows(new TestDataSource(),"T",rows(count),
+				() -> USER,"me",1000);
+	}
+
+
+	@Test
+	public void testPlanLocks()
+	{
+		final Date now = new Date(100000);
+		final LockPlan plan = VirtualTableLockingUtils.planLocks("T",Arrays.asList("1","2","3",
+				"4"),Arrays.asList(new LockEntry("2",new Date(90000),"me",1),new LockEntry("3",
+				new Date(200000),"other",2),new LockEntry("4",new Date(50000),"other",2)),now,1,
+				"me",1000);
+
+		Assert.assertEquals("[1, 4]",plan.inserts.toString());
+		Assert.assertEquals("[2]",plan.updates.toString());
+		Assert.assertEquals("[4]",plan.expired.toString());
+
+		Assert.assertEquals("[1, 2, 4]",plan.result.getLockedRows().toString());
+		Assert.assertFalse(plan.result.isComplete());
+		Assert.assertFalse(plan.result.isLocked("3"));
+
+		final RowAlreadyLockedException conflict = plan.result.getConflicts().get("3");
+		Assert.assertEquals("other",conflict.getBlockingLockInfo().getUserString());
+		Assert.assertEquals(2,conflict.getBlockingLockInfo().getUserId());
+	}
+
+
+	@Test
+	public void testLockRows() throws Exception
+	{
+		this.entries.add(new Object[]{"1",new Date(90000),"me",USER});
+		this.entries.add(new Object[]{"2",new Date(200000),"other",2L});
+		this.entries.add(new Object[]{"150",new Date(50000),"other",2L});
+
+		final BulkLockResult result = lockRows(250);
+
+		// one IN list per 100 rows, the expired lock is deleted and inserted again
+		Assert.assertEquals("[SELECT 101, SELECT 101, SELECT 51, DELETE 4, UPDATE batch 1, "
+				+ "INSERT batch 100, INSERT batch 100, INSERT batch 48, commit]",
+				this.calls.toString());
+		Assert.assertEquals(249,result.getLockedRows().size());
+		Assert.assertTrue(result.isLocked("1"));
+		Assert.assertTrue(result.isLocked("150"));
+		Assert.assertEquals("other",result.getConflicts().get("2").getBlockingLockInfo()
+				.getUserString());
+	}
+
+
+	@Test
+	public void testLockRowsRollback() throws Exception
+	{
+		this.failingVerb = "INSERT";
+		try
+		{
+			lockRows(3);
+			Assert.fail();
+		}
+		catch(final LockingException e)
+		{
+			Assert.assertEquals("[SELECT 4, INSERT batch 3, rollback]",this.calls.toString());
+		}
+	}
+
+
+	@Test
+	public void testReleaseRows() throws Exception
+	{
+		final int count = VirtualTableLockingUtils.releaseRows(new TestDataSource(),"T",
+				rows(150),() -> USER);
+		Assert.assertEquals(150,count);
+		Assert.assertEquals("[DELETE 102, DELETE 52, commit]",this.calls.toString());
+	}
+
+
+
+	private class TestDataSource extends JDBCDataSource
+	{
+		TestDataSource()
+		{
+			super(new StandardDbmsAdaptor());
+		}
+
+
+		@Override
+		protected ConnectionProvider createConnectionProvider()
+		{
+			final StandardDbmsAdaptor adaptor = (StandardDbmsAdaptor)getDbmsAdaptor();
+			return (ConnectionProvider)Proxy.newProxyInstance(getClass().getClassLoader(),
+					new Class<?>[]{ConnectionProvider.class},(proxy, method, args) -> {
+						switch(method.getName())
+						{
+							case "getConnection":
+								return createConnection();
+							case "getDbmsAdaptor":
+								return adaptor;
+							default:
+								return defaultValue(method);
+						}
+					});
+		}
+
+
+		@Override
+		public JDBCConnection openConnectionImpl()
+		{
+			return new JDBCConnection(this)
+			{
+				@Override
+				public Date getServerTime()
+				{
+					return SERVER_TIME;
+				}
+			};
+		}
+
+
+		@Override
+		public boolean canExport()
+		{
+			return false;
+		}
+
+
+		@Override
+		public Parameter[] getDefaultParameters()
+		{
+			return new Parameter[0];
+		}
+
+
+		@Override
+		protected ConnectionInformation getConnectionInformation()
+		{
+			return null;
+		}
+
+
+		@Override
+		public xdev.db.DBMetaData getMetaData()
+		{
+			return null;
+		}
+	}
+}
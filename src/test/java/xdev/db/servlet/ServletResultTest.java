@@ -0,0 +1,200 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package xdev.db.servlet;
+
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import xdev.db.ColumnMetaData;
+import xdev.db.DataType;
+import xdev.db.Result;
+import xdev.io.XdevObjectInputStream;
+import xdev.io.XdevObjectOutputStream;
+
+
+public class ServletResultTest
+{
+	private static final int	ROWS	= 2500;
+	private static final int	COLUMNS	= 8;
+
+
+	private static Object[] createRow(final int row)
+	{
+		final Timestamp timestamp = new Timestamp(1000000000000L + row * 60000L);
+		timestamp.setNanos(123456789);
+		return new Object[]{row % 10 == 0 ? null : row,"Name " + (row % 7),timestamp,
+				row * 0.5,row % 3 == 0,row % 2 == 0 ? (Object)row : "odd",
+				BigDecimal.valueOf(row,2),new java.sql.Date(86400000L * row)};
+	}
+
+
+	private static Result createResult()
+	{
+		final List<Object[]> rows = new ArrayList<>();
+		for(int i = 0; i < ROWS; i++)
+		{
+			rows.add(createRow(i));
+		}
+
+		return new Result()
+		{
+			private int	index	= -1;
+
+
+			@Override
+			public int getColumnCount()
+			{
+				return COLUMNS;
+			}
+
+
+			@Override
+			public ColumnMetaData getMetadata(final int col)
+			{
+				return new ColumnMetaData("T","C" + col,"C" + col,DataType.VARCHAR,0,0,null,true,
+						false);
+			}
+
+
+			@Override
+			public boolean next()
+			{
+				return ++this.index < rows.size();
+			}
+
+
+			@Override
+			public Object getObject(final int col)
+			{
+				return rows.get(this.index)[col];
+			}
+
+
+			@Override
+			public int skip(final int count)
+			{
+				this.index += count;
+				return count;
+			}
+
+
+			@Override
+			public void close()
+			{
+			}
+		};
+	}
+
+
+	private static byte[] write(final int wireFormat) throws Exception
+	{
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final XdevObjectOutputStream out = new XdevObjectOutputStream(bytes);
+		ServletResult.write(createResult(),out,wireFormat);
+		out.writeUTF("trailer");
+		out.close();
+		return bytes.toByteArray();
+	}
+
+
+	private static void assertRoundTrip(final int wireFormat) throws Exception
+	{
+		final XdevObjectInputStream in = new XdevObjectInputStream(new ByteArrayInputStream(
+				write(wireFormat)));
+		final ServletResult result = new ServletResult(in,wireFormat);
+		Assert.assertEquals("trailer",in.readUTF());
+
+		Assert.assertEquals(COLUMNS,result.getColumnCount());
+		Assert.assertEquals("C2",result.getMetadata(2).getName());
+
+		int row = 0;
+		while(result.next())
+		{
+			final Object[] expected = createRow(row);
+			for(int col = 0; col < COLUMNS; col++)
+			{
+				Assert.assertEquals(expected[col],result.getObject(col));
+			}
+			row++;
+		}
+		Assert.assertEquals(ROWS,row);
+		result.close();
+	}
+
+
+	@Test
+	public void testRowsFormat() throws Exception
+	{
+		assertRoundTrip(ServletServiceConstants.WIRE_FORMAT_ROWS);
+	}
+
+
+	@Test
+	public void testColumnarFormat() throws Exception
+	{
+		assertRoundTrip(ServletServiceConstants.WIRE_FORMAT_COLUMNAR);
+	}
+
+
+	@Test
+	public void testColumnarFormatIsSmaller() throws Exception
+	{
+		final int rows = write(ServletServiceConstants.WIRE_FORMAT_ROWS).length;
+		final int columnar = write(ServletServiceConstants.WIRE_FORMAT_COLUMNAR).length;
+		Assert.assertTrue(columnar + " < " + rows,columnar < rows / 2);
+	}
+
+
+	@Test
+	public void testSkipAcrossBlocks() throws Exception
+	{
+		final ServletResult result = new ServletResult(new XdevObjectInputStream(
+				new ByteArrayInputStream(write(ServletServiceConstants.WIRE_FORMAT_COLUMNAR))),
+				ServletServiceConstants.WIRE_FORMAT_COLUMNAR);
+		Assert.assertTrue(result.next());
+		Assert.assertNull(result.getObject(0));
+		result.skip(2000);
+		Assert.assertTrue(result.next());
+		Assert.assertEquals(2001,result.getObject(0));
+		Assert.assertEquals("odd",result.getObject(5));
+	}
+
+
+	@Test
+	public void testNegotiation()
+	{
+		Assert.assertEquals(ServletServiceConstants.WIRE_FORMAT_ROWS,
+				ServletUtils.getWireFormat(null));
+		Assert.assertEquals(ServletServiceConstants.WIRE_FORMAT_COLUMNAR,
+				ServletUtils.getWireFormat("2"));
+		Assert.assertEquals(ServletServiceConstants.WIRE_FORMAT_COLUMNAR,
+				ServletUtils.getWireFormat("9"));
+		Assert.assertEquals(ServletServiceConstants.RESPONSE_TYPE_1,
+				ServletUtils.getResponseType(true,ServletServiceConstants.WIRE_FORMAT_ROWS));
+		Assert.assertEquals(ServletServiceConstants.RESPONSE_TYPE_3,
+				ServletUtils.getResponseType(true,ServletServiceConstants.WIRE_FORMAT_COLUMNAR));
+	}
+}
@@ -0,0 +1,159 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package xdev.db.sql;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+
+public class AssembledSqlTest
+{
+	private final Table		table	= new Table("PERSON");
+	private final Column	id		= new Column(this.table,"ID");
+	private final Column	name	= new Column(this.table,"NAME");
+
+
+	private SELECT createSelect()
+	{
+		return new SELECT().columns(this.id,this.name).FROM(this.table);
+	}
+
+
+	@Test
+	public void testSqlIsCached()
+	{
+		final SELECT select = createSelect();
+		final String sql = select.toString();
+		Assert.assertSame(sql,select.toString());
+	}
+
+
+	@Test
+	public void testModificationInvalidates()
+	{
+		final SELECT select = createSelect();
+		final String sql = select.toString();
+
+		select.WHERE(this.id.eq(1));
+		final String withWhere = select.toString();
+		Assert.assertNotEquals(sql,withWhere);
+		Assert.assertTrue(withWhere.contains("WHERE"));
+
+		select.getWhere().and(this.name.eq("x"));
+		Assert.assertTrue(select.toString().contains("NAME"));
+		Assert.assertNotEquals(withWhere,select.toString());
+
+		select.ORDER_BY(this.name);
+		Assert.assertTrue(select.toString().contains("ORDER BY"));
+	}
+
+
+	@Test
+	public void testNestedModificationInvalidates()
+	{
+		final SELECT sub = new SELECT().columns(this.id).FROM(this.table);
+		final SELECT select = createSelect().WHERE(Condition.EXISTS(sub));
+		final String sql = select.toString();
+
+		sub.WHERE(this.name.eq("x"));
+		Assert.assertNotEquals(sql,select.toString());
+
+		final WHERE where = new WHERE(this.id.eq(1));
+		final SELECT other = createSelect().WHERE(where);
+		final String otherSql = other.toString();
+
+		where.and(this.name.eq("y"));
+		Assert.assertNotEquals(otherSql,other.toString());
+	}
+
+
+	@Test
+	public void testCopiesShareSql()
+	{
+		final SELECT select = createSelect();
+		final SELECT copy = select.clone();
+		final String sql = copy.toString();
+		Assert.assertSame(sql,select.toString());
+
+		copy.DISTINCT();
+		Assert.assertNotEquals(sql,copy.toString());
+		Assert.assertSame(sql,select.toString());
+	}
+
+
+	@Test
+	public void testSharedStructure()
+	{
+		final Object key = Arrays.asList(AssembledSqlTest.class,"PERSON");
+		final String sql = createSelect().shareAssembledSql(key).toString();
+		Assert.assertSame(sql,createSelect().shareAssembledSql(key).toString());
+	}
+
+
+	@Test
+	public void testSubSelectAlias()
+	{
+		final String ownAlias = new SELECT().columns(Functions.COUNT()).FROM(
+				createSelect().AS("X")).toString();
+		Assert.assertTrue(ownAlias,ownAlias.endsWith(") AS X"));
+
+		// the alias of the sub select's FROM clause names the derived table
+		final Table aliased = new Table("PERSON","P");
+		final String fromAlias = new SELECT().columns(Functions.COUNT()).FROM(
+				new SELECT().FROM(aliased)).toString();
+		Assert.assertTrue(fromAlias,fromAlias.endsWith(") P"));
+	}
+
+
+	@Test
+	public void testSelectsColumn()
+	{
+		Assert.assertTrue(createSelect().selectsColumn("id"));
+		Assert.assertFalse(new SELECT().columns(this.name).FROM(this.table).selectsColumn("ID"));
+		Assert.assertTrue(new SELECT().FROM(this.table).selectsColumn("ID"));
+	}
+
+
+	@Test
+	public void testUniqueness()
+	{
+		final Table address = new Table("ADDRESS");
+		final Column addressId = new Column(this.table,"ADDRESS_ID");
+		final SELECT joined = createSelect().LEFT_JOIN(address,
+				new Column(address,"ID").eq(addressId));
+		final SELECT inner = createSelect().INNER_JOIN(address,
+				new Column(address,"ID").eq(addressId));
+		final SELECT other = createSelect().LEFT_JOIN(address,
+				new Column(address,"PERSON_ID").eq(this.id));
+
+		Assert.assertFalse(createSelect().hasJoins());
+		Assert.assertTrue(joined.hasJoins());
+		Assert.assertTrue(inner.hasOnlyJoinsOf(joined));
+		Assert.assertFalse(other.hasOnlyJoinsOf(joined));
+		Assert.assertTrue(createSelect().hasOnlyJoinsOf(joined));
+
+		Assert.assertFalse(createSelect().isDistinct());
+		Assert.assertTrue(createSelect().DISTINCT().isDistinct());
+		Assert.assertFalse(createSelect().hasGroupBy());
+		Assert.assertTrue(createSelect().GROUP_BY(this.name).hasGroupBy());
+		Assert.assertFalse(createSelect().isFromSelect());
+		Assert.assertTrue(new SELECT().FROM(createSelect().AS("X")).isFromSelect());
+	}
+}
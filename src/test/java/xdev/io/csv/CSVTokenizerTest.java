@@ -0,0 +1,101 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package xdev.io.csv;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CSVTokenizerTest
+{
+	private static final String[] INPUTS = {
+		"a,b,c\n1,2,3\n",
+		"a,b,c",
+		"\n\n,\n",
+		"\"a\",\"b,c\",\"d\"\"e\"\n",
+		"a,bc\"d\"ef,g\r\nx,\"y\r\nz\",w\rlast",
+		"\"multi\nline\nvalue\",2\n3,4\n",
+		"\"open,1\n2,3",
+		"a,\"b\ncontinued\" and more,\"c\nd\",e\n",
+		"\\\"x\\\",\"a\\\"b\\\\c\",y\\z\n",
+		"  \"lead\",   x\"q\"y,\"\"\"\",\"\"\n",
+		"strict\"in\"out,\"a\"b,c\"d\"\n",
+		"abc\"\n\"x\n",
+		"  \" q\",a\n"};
+
+
+	@Test
+	public void testCompatibility() throws IOException
+	{
+		for(final String input : INPUTS)
+		{
+			for(final boolean strictQuotes : new boolean[]{false,true})
+			{
+				for(final boolean ignoreLeadingWhiteSpace : new boolean[]{false,true})
+				{
+					for(final int bufferSize : new int[]{2,3,7,CSVTokenizer.DEFAULT_BUFFER_SIZE})
+					{
+						for(final int skipLines : new int[]{0,1})
+						{
+							final List<String[]> expected = new CSVReader(new StringReader(input),
+									',','"','\\',skipLines,strictQuotes,ignoreLeadingWhiteSpace)
+									.readAll();
+
+							final CSVTokenizer tokenizer = new CSVTokenizer(new StringReader(input),
+									',','"','\\',skipLines,strictQuotes,ignoreLeadingWhiteSpace,
+									bufferSize);
+							final List<String[]> actual = new ArrayList<>();
+							while(tokenizer.next())
+							{
+								actual.add(tokenizer.toArray());
+							}
+
+							final String message = input + " strict=" + strictQuotes + " ignore="
+									+ ignoreLeadingWhiteSpace + " buffer=" + bufferSize + " skip="
+									+ skipLines;
+							Assert.assertEquals(message,expected.size(),actual.size());
+							for(int i = 0; i < expected.size(); i++)
+							{
+								Assert.assertArrayEquals(message,expected.get(i),actual.get(i));
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+
+
+	@Test
+	public void testFieldAccess() throws IOException
+	{
+		final CSVTokenizer tokenizer = new CSVTokenizer(new StringReader("\"a\"\"b\",null,xyz\n"));
+		Assert.assertTrue(tokenizer.next());
+		Assert.assertEquals(3,tokenizer.getFieldCount());
+		Assert.assertEquals(3,tokenizer.getFieldLength(0));
+		Assert.assertTrue(tokenizer.fieldEquals(1,"null"));
+		Assert.assertFalse(tokenizer.fieldEquals(2,"null"));
+		Assert.assertEquals("a\"b",tokenizer.getFieldBuffer(0).toString());
+		Assert.assertEquals("<xyz",tokenizer.appendField(2,new StringBuilder("<")).toString());
+		Assert.assertFalse(tokenizer.next());
+	}
+}
@@ -0,0 +1,154 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package xdev.ui.paging;
+
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import xdev.db.ColumnMetaData;
+import xdev.db.DataType;
+import xdev.db.Result;
+
+
+public class RowBlockCacheTest
+{
+	/**
+	 * A result of the rows <code>first</code> to <code>total - 1</code> with
+	 * two columns: the row index and its name.
+	 */
+	private static Result createResult(final int first, final int total)
+	{
+		return new Result()
+		{
+			private int	row	= first - 1;
+
+
+			@Override
+			public int getColumnCount()
+			{
+				return 2;
+			}
+
+
+			@Override
+			public ColumnMetaData getMetadata(final int col)
+			{
+				return new ColumnMetaData("T",col == 0 ? "ID" : "NAME",null,
+						col == 0 ? DataType.INTEGER : DataType.VARCHAR,0,0,null,true,false);
+			}
+
+
+			@Override
+			public boolean next()
+			{
+				return ++this.row < total;
+			}
+
+
+			@Override
+			public int skip(final int count)
+			{
+				return 0;
+			}
+
+
+			@Override
+			public Object getObject(final int col)
+			{
+				return col == 0 ? (Object)this.row : "Row " + this.row;
+			}
+
+
+			@Override
+			public void close()
+			{
+			}
+		};
+	}
+
+
+	@Test
+	public void testBlocks() throws Exception
+	{
+		final RowBlockCache cache = new RowBlockCache(1000);
+		Assert.assertArrayEquals(new int[]{0,10},cache.getMissingRows(0,5,10));
+
+		Assert.assertEquals(10,cache.put(20,10,createResult(20,100),-1,-1));
+		Assert.assertEquals("Row 25",cache.getRow(25)[1]);
+		Assert.assertNull(cache.getRow(30));
+
+		// gaps end at the next block
+		Assert.assertArrayEquals(new int[]{15,5},cache.getMissingRows(15,40,10));
+		Assert.assertArrayEquals(new int[]{30,10},cache.getMissingRows(20,40,10));
+		Assert.assertNull(cache.getMissingRows(20,29,10));
+
+		// end of data
+		Assert.assertEquals(5,cache.put(95,10,createResult(95,100),-1,-1));
+
+		final Result result = cache.createResult(24,26);
+		int count = 0;
+		while(result.next())
+		{
+			Assert.assertEquals(24 + count++,result.getObject(0));
+		}
+		Assert.assertEquals(3,count);
+	}
+
+
+	@Test
+	public void testEviction() throws Exception
+	{
+		// 2 columns, 3 blocks of 10 rows fit
+		final RowBlockCache cache = new RowBlockCache(60);
+		cache.put(0,10,createResult(0,100),-1,-1);
+		cache.put(10,10,createResult(10,100),-1,-1);
+		cache.put(20,10,createResult(20,100),-1,-1);
+		Assert.assertEquals(60,cache.getCachedValueCount());
+
+		// 0 becomes the most recently used
+		cache.getRow(5);
+		cache.put(30,10,createResult(30,100),-1,-1);
+		Assert.assertNotNull(cache.getRow(5));
+		Assert.assertNull(cache.getRow(15));
+
+		// the pinned viewport stays although it is the least recently used
+		cache.put(40,10,createResult(40,100),20,29);
+		Assert.assertNotNull(cache.getRow(25));
+		Assert.assertNull(cache.getRow(35));
+		Assert.assertEquals(60,cache.getCachedValueCount());
+	}
+
+
+	@Test
+	public void testAdaptiveBlockSize()
+	{
+		final RowBlockCache cache = new RowBlockCache(1000);
+		Assert.assertEquals(40,cache.getBlockSize(20));
+
+		cache.recordLatency(500);
+		Assert.assertEquals(140,cache.getBlockSize(20));
+
+		for(int i = 0; i < 10; i++)
+		{
+			cache.recordLatency(10000);
+		}
+		Assert.assertEquals(1000,cache.getBlockSize(20));
+		Assert.assertEquals(2000,cache.getBlockSize(2000));
+	}
+}
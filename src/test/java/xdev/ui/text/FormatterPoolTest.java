@@ -0,0 +1,182 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package xdev.ui.text;
+
+
+import java.math.BigDecimal;
+import java.text.DecimalFormat;
+import java.text.NumberFormat;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+
+public class FormatterPoolTest
+{
+	private static List<Object> createNumbers()
+	{
+		final List<Object> values = new ArrayList<>();
+		final Random random = new Random(42);
+		for(final double d : new double[]{0,-0.0,0.5,-0.001,0.125,0.135,2.675,1.005,999.995,
+				1234567.891,-9876543.21,1e20,1.2345678901234567E25,123456789012.345,4.35,1e-7})
+		{
+			values.add(d);
+		}
+		for(int i = 0; i < 500; i++)
+		{
+			values.add((random.nextDouble() - 0.5) * Math.pow(10,random.nextInt(16)));
+			values.add(random.nextLong() >> random.nextInt(64));
+			values.add(random.nextInt());
+			values.add((float)(random.nextGaussian() * 1000));
+			values.add(new BigDecimal(random.nextLong()).movePointLeft(random.nextInt(10)));
+		}
+		values.add(Long.MAX_VALUE);
+		values.add(Long.MIN_VALUE);
+		values.add(new BigDecimal("-0.004"));
+		values.add(new BigDecimal("1E+5"));
+		values.add(Double.NaN);
+		return values;
+	}
+
+
+	private static void assertSameAsFormat(final NumberFormat format)
+	{
+		final PooledFormat pooledFormat = FormatterPool.get(new Object(),() -> format);
+		Assert.assertTrue(pooledFormat.hasFastPath());
+		for(final Object value : createNumbers())
+		{
+			Assert.assertEquals(String.valueOf(value),format.format(value),
+					pooledFormat.format(value));
+		}
+	}
+
+
+	@Test
+	public void testNumberFastPath()
+	{
+		for(final Locale locale : new Locale[]{Locale.US,Locale.GERMANY,Locale.FRANCE,
+				new Locale("de","CH"),new Locale("ar","EG"),new Locale("hi","IN")})
+		{
+			for(final int fractionDigits : new int[]{0,2,5})
+			{
+				final NumberFormat format = NumberFormat.getNumberInstance(locale);
+				if(!FormatterPool.get(new Object(),() -> format).hasFastPath())
+				{
+					continue;
+				}
+				format.setMinimumFractionDigits(fractionDigits);
+				format.setMaximumFractionDigits(fractionDigits);
+				format.setGroupingUsed(fractionDigits != 5);
+				assertSameAsFormat(format);
+			}
+		}
+
+		assertSameAsFormat(new DecimalFormat("#,##0.0#"));
+		assertSameAsFormat(new DecimalFormat("0.###"));
+		assertSameAsFormat(new DecimalFormat("#,####0"));
+
+		Assert.assertFalse(FormatterPool.get(new Object(),
+				() -> NumberFormat.getPercentInstance(Locale.US)).hasFastPath());
+		Assert.assertFalse(FormatterPool.get(new Object(),() -> new DecimalFormat("0.00E0"))
+				.hasFastPath());
+	}
+
+
+	@Test
+	public void testDateFastPath()
+	{
+		for(final String pattern : new String[]{"yyyy-MM-dd HH:mm:ss","dd.MM.yy","d.M.y H:m:s.SSS",
+				"'Date: 'yyyy'/'MM''dd","hh:mm"})
+		{
+			final PooledFormat pooledFormat = FormatterPool.getDateFormat(pattern,Locale.GERMANY);
+			Assert.assertTrue(pattern,pooledFormat.hasFastPath());
+
+			final SimpleDateFormat format = new SimpleDateFormat(pattern,Locale.GERMANY);
+			final Random random = new Random(7);
+			for(int i = 0; i < 1000; i++)
+			{
+				final Date date = new Date(random.nextLong() % 4000000000000L);
+				Assert.assertEquals(format.format(date),pooledFormat.format(date));
+			}
+			// before the gregorian change
+			final Date julian = new Date(-15000000000000L);
+			Assert.assertEquals(format.format(julian),pooledFormat.format(julian));
+		}
+
+		for(final String pattern : new String[]{"EEE, d MMM yyyy","h:mm a","yyyy-MM-dd'T'HH:mm:ssZ",
+				"S"})
+		{
+			Assert.assertFalse(pattern,FormatterPool.getDateFormat(pattern,Locale.US)
+					.hasFastPath());
+		}
+	}
+
+
+	@Test
+	public void testConcurrentUse() throws Exception
+	{
+		final TextFormat textFormat = TextFormat.getDateInstance(Locale.US,"EEE, d MMM yyyy HH:mm",
+				TextFormat.USE_DATE_AND_TIME,0,0);
+		final SimpleDateFormat format = new SimpleDateFormat("EEE, d MMM yyyy HH:mm");
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+		try
+		{
+			final List<Future<Boolean>> futures = new ArrayList<>();
+			for(int t = 0; t < 4; t++)
+			{
+				final long seed = t;
+				futures.add(executor.submit(new Callable<Boolean>()
+				{
+					@Override
+					public Boolean call() throws Exception
+					{
+						final Random random = new Random(seed);
+						final SimpleDateFormat own = (SimpleDateFormat)format.clone();
+						for(int i = 0; i < 5000; i++)
+						{
+							final Date date = new Date(Math.abs(random.nextLong()) % 4000000000000L);
+							if(!own.format(date).equals(textFormat.format(date)))
+							{
+								return false;
+							}
+						}
+						return true;
+					}
+				}));
+			}
+			for(final Future<Boolean> future : futures)
+			{
+				Assert.assertTrue(future.get());
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+}
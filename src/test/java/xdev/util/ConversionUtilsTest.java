@@ -0,0 +1,90 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package xdev.util;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+
+public class ConversionUtilsTest
+{
+	@Test
+	public void testParseNumbers() throws Exception
+	{
+		Assert.assertEquals(Integer.valueOf(-42),ConversionUtils.toInteger("-42"));
+		Assert.assertEquals(Long.valueOf(1234567890123L),ConversionUtils.toLong("1234567890123"));
+		Assert.assertEquals(Double.valueOf(2.5),ConversionUtils.toDouble("2.5"));
+		Assert.assertEquals(Double.valueOf(2.5),ConversionUtils.toDouble("2,5"));
+		Assert.assertEquals(Double.valueOf(1000),ConversionUtils.toDouble("1000"));
+	}
+
+
+	@Test
+	public void testConcurrentParsing() throws Exception
+	{
+		final ExecutorService executor = Executors.newFixedThreadPool(8);
+		try
+		{
+			final List<Future<String>> futures = new ArrayList<>();
+			for(int t = 0; t < 8; t++)
+			{
+				final long seed = t;
+				futures.add(executor.submit(new Callable<String>()
+				{
+					@Override
+					public String call() throws Exception
+					{
+						final Random random = new Random(seed);
+						for(int i = 0; i < 20000; i++)
+						{
+							final int value = random.nextInt();
+							final Integer integer = ConversionUtils.toInteger(String.valueOf(value));
+							if(integer.intValue() != value)
+							{
+								return value + " -> " + integer;
+							}
+							final Double d = ConversionUtils.toDouble(String.valueOf(value));
+							if(d.doubleValue() != value)
+							{
+								return value + " -> " + d;
+							}
+						}
+						return null;
+					}
+				}));
+			}
+			for(final Future<String> future : futures)
+			{
+				Assert.assertNull(future.get());
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+}
@@ -0,0 +1,106 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package xdev.vt;
+
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class IndexKeyTableTest
+{
+	private IndexKeyTable	table;
+
+
+	@Before
+	public void doBeforeEveryTest()
+	{
+		this.table = new IndexKeyTable();
+	}
+
+
+	@Test
+	public void testAddRejectsDuplicates()
+	{
+		Assert.assertTrue(add(1,"x"));
+		Assert.assertTrue(add(1,"y"));
+		Assert.assertFalse(add(1,"x"));
+		Assert.assertEquals(2,this.table.size());
+	}
+
+
+	@Test
+	public void testNullsAreCompared()
+	{
+		Assert.assertTrue(add(null,null));
+		Assert.assertFalse(add(null,null));
+		Assert.assertTrue(add(null,"x"));
+	}
+
+
+	@Test
+	public void testIntegralNumbers()
+	{
+		Assert.assertTrue(add(1,"x"));
+		Assert.assertFalse(add(1L,"x"));
+		Assert.assertFalse(add((short)1,"x"));
+		Assert.assertTrue(add(-5L,"x"));
+		Assert.assertFalse(add(-5,"x"));
+		// decimals aren't integral keys
+		Assert.assertTrue(add(1.0,"x"));
+		Assert.assertTrue(this.table.remove(new Object[]{1L,"x"}));
+		Assert.assertFalse(this.table.contains(new Object[]{1,"x"}));
+	}
+
+
+	@Test
+	public void testRemoveAndGrow()
+	{
+		final int count = 10000;
+		for(int i = 0; i < count; i++)
+		{
+			Assert.assertTrue(add(i,i % 7));
+		}
+		Assert.assertEquals(count,this.table.size());
+
+		for(int i = 0; i < count; i += 2)
+		{
+			Assert.assertTrue(this.table.remove(new Object[]{i,i % 7}));
+		}
+		Assert.assertEquals(count / 2,this.table.size());
+
+		for(int i = 0; i < count; i++)
+		{
+			Assert.assertEquals(i % 2 == 1,
+					this.table.contains(new Object[]{i,i % 7}));
+		}
+
+		Assert.assertFalse(this.table.remove(new Object[]{0,0}));
+
+		this.table.clear();
+		Assert.assertEquals(0,this.table.size());
+		Assert.assertTrue(add(1,1));
+	}
+
+
+	private boolean add(final Object key1, final Object key2)
+	{
+		return this.table.add(new Object[]{key1,key2});
+	}
+}
@@ -0,0 +1,132 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package xdev.vt;
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import xdev.db.DataType;
+
+
+public class KeyHashTableTest
+{
+	private static VirtualTable createTable(final String name, final int... keys)
+			throws Exception
+	{
+		final VirtualTableColumn<Integer> key = new VirtualTableColumn<Integer>("KEY");
+		key.setType(DataType.INTEGER);
+		final VirtualTableColumn<String> value = new VirtualTableColumn<String>("VALUE");
+		value.setType(DataType.VARCHAR,20);
+
+		final VirtualTable vt = new VirtualTable(name,null,key,value);
+		for(final int k : keys)
+		{
+			vt.addRow(false,k,name + k);
+		}
+		return vt;
+	}
+
+
+	@Test
+	public void testNumericKeys()
+	{
+		final VirtualTableColumn<Long> column = new VirtualTableColumn<Long>("ID");
+		column.setType(DataType.BIGINT);
+
+		final KeyHashTable<String> table = new KeyHashTable<String>(column);
+		table.put(new Object[]{1},"a");
+		table.put(new Object[]{2L},"b");
+		table.put(new Object[]{1L},"c");
+		table.put(new Object[]{null},"d");
+
+		Assert.assertEquals(4,table.size());
+		Assert.assertEquals("[a, c]",table.get(new Object[]{1.0}).toString());
+		Assert.assertEquals("[b]",table.get(new Object[]{"2"}).toString());
+		Assert.assertEquals("[d]",table.get(new Object[]{null}).toString());
+		Assert.assertTrue(table.get(new Object[]{3}).isEmpty());
+
+		Assert.assertEquals("a",table.removeFirst(new Object[]{1}));
+		Assert.assertEquals("c",table.removeFirst(new Object[]{1}));
+		Assert.assertNull(table.removeFirst(new Object[]{1}));
+		Assert.assertFalse(table.containsKey(new Object[]{1}));
+		Assert.assertEquals(2,table.size());
+	}
+
+
+	@Test
+	public void testStringKeys()
+	{
+		final VirtualTableColumn<String> column = new VirtualTableColumn<String>("CODE");
+		column.setType(DataType.VARCHAR,10);
+
+		final KeyHashTable<String> table = new KeyHashTable<String>(column);
+		table.put(new Object[]{5},"a");
+		table.put(new Object[]{"5.0"},"b");
+
+		// like VirtualTable.equals(5,"5",VARCHAR)
+		Assert.assertTrue(VirtualTable.equals(5,"5",DataType.VARCHAR));
+		Assert.assertEquals("[a]",table.get(new Object[]{"5"}).toString());
+		Assert.assertEquals("[a]",table.get(new Object[]{5L}).toString());
+		Assert.assertEquals("[b]",table.get(new Object[]{"5.0"}).toString());
+	}
+
+
+	@Test
+	public void testJoin() throws Exception
+	{
+		final VirtualTable left = createTable("L",1,2,3,2);
+		final VirtualTable right = createTable("R",2,3,3,4,5,6);
+
+		for(final VirtualTable[] sides : new VirtualTable[][]{{left,right},{right,left}})
+		{
+			final List<String> pairs = new ArrayList<String>();
+			KeyHashTable.join(sides[0],new VirtualTableColumn[]{sides[0].getColumnAt(0)},
+					sides[1],new VirtualTableColumn[]{sides[1].getColumnAt(0)},
+					(leftRow, rightRow) -> pairs.add(sides[0].getValueAt(leftRow,1) + "-"
+							+ sides[1].getValueAt(rightRow,1)));
+			Collections.sort(pairs);
+
+			if(sides[0] == left)
+			{
+				Assert.assertEquals("[L2-R2, L2-R2, L3-R3, L3-R3]",pairs.toString());
+			}
+			else
+			{
+				Assert.assertEquals("[R2-L2, R2-L2, R3-L3, R3-L3]",pairs.toString());
+			}
+		}
+	}
+
+
+	@Test
+	public void testRowKey() throws Exception
+	{
+		final VirtualTable vt = createTable("T",7,8);
+		final KeyHashTable<Integer> table = new KeyHashTable<Integer>(vt.getColumnAt(0));
+		table.put(table.getKey(vt.getRow(1)),1);
+
+		Assert.assertEquals("[1]",table.get(new Object[]{8}).toString());
+		Assert.assertEquals("[1]",table.get(
+				table.getKey(new KeyValues(vt,"KEY",Integer.valueOf(8)))).toString());
+	}
+}
@@ -0,0 +1,210 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package xdev.vt;
+
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import xdev.vt.SortedVirtualTableView.SortKey;
+import xdev.vt.dummies.PersonVT;
+
+
+public class SortedVirtualTableViewTest
+{
+	private PersonVT	vt;
+
+
+	@Before
+	public void doBeforeEveryTest() throws Exception
+	{
+		this.vt = new PersonVT();
+		for(int i = 0; i < 10000; i++)
+		{
+			final Integer salary = i % 97 == 0 ? null : (i * 31) % 50;
+			final Timestamp timestamp = i % 89 == 0 ? null : new Timestamp(1000L * (i % 13));
+			if(timestamp != null)
+			{
+				timestamp.setNanos((i % 7) * 1000);
+			}
+			this.vt.addRow(false,"n" + (i % 37),salary,(i % 11) / 4.0,null,null,timestamp,
+					i % 3 == 0);
+			this.vt.setValueAt(i,i,"id");
+		}
+	}
+
+
+	private List<Integer> expectedOrder(final SortKey... keys)
+	{
+		final List<Integer> rows = new ArrayList<>();
+		for(int i = 0; i < this.vt.getRowCount(); i++)
+		{
+			rows.add(i);
+		}
+		Collections.sort(rows,new Comparator<Integer>()
+		{
+			@Override
+			public int compare(final Integer row1, final Integer row2)
+			{
+				for(final SortKey key : keys)
+				{
+					final int col = key.getColumnIndex();
+					int result = SortedVirtualTableViewTest.this.vt.getColumnAt(col)
+							.getComparator().compare(vt.getValueAt(row1,col),
+									vt.getValueAt(row2,col));
+					if(result != 0)
+					{
+						return key.isAscending() ? result : -result;
+					}
+				}
+				return 0;
+			}
+		});
+		return rows;
+	}
+
+
+	private List<Integer> viewOrder(final SortedVirtualTableView view)
+	{
+		final List<Integer> rows = new ArrayList<>();
+		for(int i = 0; i < view.getRowCount(); i++)
+		{
+			rows.add(view.convertRowIndexToModel(i));
+		}
+		return rows;
+	}
+
+
+	private int col(final String name)
+	{
+		return this.vt.getColumnIndex(name);
+	}
+
+
+	@Test
+	public void testMultipleKeys()
+	{
+		final SortKey[] keys = {new SortKey(col("Gehalt"),false),new SortKey(col("Name"),true),
+				new SortKey(col("Gewicht"),true)};
+		final SortedVirtualTableView view = new SortedVirtualTableView(this.vt,keys);
+		Assert.assertEquals(expectedOrder(keys),viewOrder(view));
+		Assert.assertNull(view.getValueAt(view.getRowCount() - 1,col("Gehalt")));
+
+		for(int i = 0; i < 10000; i++)
+		{
+			Assert.assertEquals(i,this.vt.getValueAt(i,col("id")));
+		}
+		view.dispose();
+	}
+
+
+	@Test
+	public void testTypes()
+	{
+		for(final String name : new String[]{"GeburtsTimeStamp","Krank","id"})
+		{
+			final SortKey[] keys = {new SortKey(col(name),true),new SortKey(col("id"),false)};
+			final SortedVirtualTableView view = new SortedVirtualTableView(this.vt,keys);
+			Assert.assertEquals(name,expectedOrder(keys),viewOrder(view));
+			view.dispose();
+		}
+	}
+
+
+	@Test
+	public void testInvalidate() throws Exception
+	{
+		final SortedVirtualTableView view = new SortedVirtualTableView(this.vt,new SortKey(
+				col("id"),false));
+		Assert.assertEquals(9999,view.getValueAt(0,col("id")));
+		Assert.assertEquals(9999,view.convertRowIndexToView(0));
+
+		this.vt.setValueAt(-1,9999,col("id"));
+		Assert.assertEquals(9998,view.getValueAt(0,col("id")));
+		Assert.assertEquals(9999,view.convertRowIndexToModel(9999));
+
+		view.setSortKeys(new SortKey(col("id"),true));
+		Assert.assertEquals(-1,view.getValueAt(0,col("id")));
+		Assert.assertEquals(0,view.convertRowIndexToView(9999));
+
+		view.dispose();
+		this.vt.setValueAt(-2,9998,col("id"));
+		Assert.assertEquals(-1,view.getValueAt(0,col("id")));
+	}
+
+
+	@Test
+	public void testModels()
+	{
+		final int[] columns = {col("id"),col("Name")};
+		final VirtualTableModel ascending = new VirtualTableModel(this.vt,columns,
+				new SortedVirtualTableView(this.vt,new SortKey(col("id"),true)));
+		final VirtualTableModel descending = new VirtualTableModel(this.vt,columns,
+				new SortedVirtualTableView(this.vt,new SortKey(col("id"),false)));
+
+		Assert.assertEquals(0,ascending.getValueAt(0,0));
+		Assert.assertEquals(9999,descending.getValueAt(0,0));
+		Assert.assertEquals("n9",descending.getVirtualTableRow(9990).get(1));
+
+		descending.setValueAt("x",0,1);
+		Assert.assertEquals("x",this.vt.getValueAt(9999,col("Name")));
+		Assert.assertEquals("x",ascending.getValueAt(9999,1));
+	}
+
+
+	@Test
+	public void testCustomComparator()
+	{
+		final Set<Thread> threads = Collections.synchronizedSet(new HashSet<>());
+		final VirtualTableColumn column = this.vt.getColumnAt(col("Name"));
+		column.setComparator(new Comparator<String>()
+		{
+			@Override
+			public int compare(final String o1, final String o2)
+			{
+				threads.add(Thread.currentThread());
+				return o1.length() != o2.length() ? o1.length() - o2.length() : o1
+						.compareTo(o2);
+			}
+		});
+		try
+		{
+			final SortKey[] keys = {new SortKey(col("Name"),true)};
+			final SortedVirtualTableView view = new SortedVirtualTableView(this.vt,keys);
+			Assert.assertEquals(expectedOrder(keys),viewOrder(view));
+			Assert.assertEquals("n10",view.getValueAt(2710,col("Name")));
+
+			// not thread-safe comparators are only called by the accessing thread
+			Assert.assertEquals(Collections.singleton(Thread.currentThread()),threads);
+			view.dispose();
+		}
+		finally
+		{
+			column.setComparator(null);
+		}
+	}
+}
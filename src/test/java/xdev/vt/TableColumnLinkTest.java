@@ -0,0 +1,43 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package xdev.vt;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+
+public class TableColumnLinkTest
+{
+	@Test
+	public void testIsToOne()
+	{
+		final EntityRelationship address = new EntityRelationship("customer","address_id",
+				Cardinality.MANY,"address","id",Cardinality.ONE);
+		final EntityRelationship country = new EntityRelationship("address","country_id",
+				Cardinality.MANY,"country","id",Cardinality.ONE);
+		final EntityRelationship orders = new EntityRelationship("customer","id",
+				Cardinality.ONE,"orders","customer_id",Cardinality.MANY);
+
+		Assert.assertTrue(new TableColumnLink("address","city",address).isToOne("customer"));
+		Assert.assertTrue(new TableColumnLink("country","name",address,country)
+				.isToOne("customer"));
+		Assert.assertFalse(new TableColumnLink("orders","total",orders).isToOne("customer"));
+		// the other way round
+		Assert.assertFalse(new TableColumnLink("customer","name",address).isToOne("address"));
+	}
+}
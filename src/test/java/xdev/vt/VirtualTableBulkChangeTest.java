@@ -0,0 +1,306 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package xdev.vt;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.swing.SwingUtilities;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import xdev.db.Index;
+import xdev.db.Index.IndexType;
+import xdev.vt.VirtualTable.VirtualTableRow;
+import xdev.vt.dummies.PersonVT;
+
+
+public class VirtualTableBulkChangeTest
+{
+	private PersonVT			vt;
+	private final List<String>	events	= new ArrayList<>();
+
+
+	@Before
+	public void doBeforeEveryTest() throws Exception
+	{
+		this.vt = new PersonVT();
+		for(int i = 0; i < 20; i++)
+		{
+			this.vt.addRow(false,"n" + i);
+			this.vt.setValueAt(i,i,"id");
+		}
+	}
+
+
+	private VirtualTableListener recorder()
+	{
+		return new VirtualTableListener()
+		{
+			@Override
+			public void virtualTableRowDeleted(final VirtualTableEvent event)
+			{
+				record("deleted",event);
+			}
+
+
+			@Override
+			public void virtualTableRowInserted(final VirtualTableEvent event)
+			{
+				record("inserted",event);
+			}
+
+
+			@Override
+			public void virtualTableRowUpdated(final VirtualTableEvent event)
+			{
+				record("updated",event);
+			}
+
+
+			@Override
+			public void virtualTableDataChanged(final VirtualTableEvent event)
+			{
+				VirtualTableBulkChangeTest.this.events.add("changed");
+			}
+
+
+			@Override
+			public void virtualTableStructureChanged(final VirtualTableEvent event)
+			{
+				VirtualTableBulkChangeTest.this.events.add("structure");
+			}
+		};
+	}
+
+
+	private void record(final String name, final VirtualTableEvent event)
+	{
+		this.events.add(name + " " + event.getRowIndex() + "-" + event.getLastRowIndex());
+	}
+
+
+	private String ids()
+	{
+		final StringBuilder sb = new StringBuilder();
+		for(int row = 0; row < this.vt.getRowCount(); row++)
+		{
+			if(row > 0)
+			{
+				sb.append(',');
+			}
+			sb.append(this.vt.getValueAt(row,"id"));
+		}
+		return sb.toString();
+	}
+
+
+	private void testRemoveRows() throws Exception
+	{
+		this.vt.addVirtualTableListener(recorder());
+		final VirtualTableRow removed = this.vt.getRow(4);
+
+		this.vt.removeRows(new int[]{10,3,4,0,5,4,19},false);
+
+		Assert.assertEquals("1,2,6,7,8,9,11,12,13,14,15,16,17,18",ids());
+		Assert.assertEquals(Arrays.asList("deleted 19-19","deleted 10-10","deleted 3-5",
+				"deleted 0-0"),this.events);
+		Assert.assertTrue(removed.isNew());
+		Assert.assertEquals("n6",this.vt.getRow(2).get(PersonVT.Name));
+		Assert.assertEquals(Integer.valueOf(6),this.vt.getRow(2).get(PersonVT.id));
+		Assert.assertEquals(6,this.vt.getRemovedRowsKeyValues().length);
+	}
+
+
+	@Test
+	public void testRemoveRowsRowStorage() throws Exception
+	{
+		testRemoveRows();
+	}
+
+
+	@Test
+	public void testRemoveRowsColumnarStorage() throws Exception
+	{
+		this.vt.setStorage(VirtualTableStorage.COLUMNAR);
+		testRemoveRows();
+	}
+
+
+	@Test
+	public void testUniqueIndexColumnarStorage() throws Exception
+	{
+		final PersonVT vt = new PersonVT();
+		vt.addIndex(new Index("UQ",IndexType.UNIQUE,"Name"));
+		vt.setStorage(VirtualTableStorage.COLUMNAR);
+		for(int i = 0; i < 3; i++)
+		{
+			vt.addRow(false,"n" + i);
+		}
+
+		try
+		{
+			vt.setValueAt("n1",0,"Name");
+			Assert.fail();
+		}
+		catch(final UniqueIndexDuplicateValuesException e)
+		{
+			// expected
+		}
+		Assert.assertEquals("n0",vt.getValueAt(0,"Name"));
+
+		vt.removeRow(1,false);
+		vt.setValueAt("n1",0,"Name");
+		Assert.assertEquals("n1",vt.getValueAt(0,"Name"));
+	}
+
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testRemoveRowsOutOfRange() throws Exception
+	{
+		this.vt.removeRows(new int[]{3,20},false);
+	}
+
+
+	@Test
+	public void testAddRows() throws Exception
+	{
+		this.vt.addVirtualTableListener(recorder());
+
+		final Map<String, Object> map = new HashMap<>();
+		map.put("Name","map");
+		final VirtualTableRow[] rows = this.vt.addRows(Arrays.asList(map,
+				Arrays.asList("list",100),new Object[]{"array",200}),false);
+
+		Assert.assertEquals(3,rows.length);
+		Assert.assertEquals(23,this.vt.getRowCount());
+		Assert.assertEquals(Arrays.asList("inserted 20-22"),this.events);
+		Assert.assertEquals("map",this.vt.getValueAt(20,"Name"));
+		Assert.assertEquals(100,this.vt.getValueAt(21,"Gehalt"));
+		Assert.assertSame(rows[2],this.vt.getRow(22));
+	}
+
+
+	@Test
+	public void testCoalescer()
+	{
+		final VirtualTableEventCoalescer coalescer = new VirtualTableEventCoalescer(recorder());
+
+		for(int i = 5; i < 8; i++)
+		{
+			coalescer.virtualTableRowInserted(new VirtualTableEvent(this.vt,
+					VirtualTableEvent.Type.INSERTED,null,i));
+		}
+		for(final int i : new int[]{3,3,2})
+		{
+			coalescer.virtualTableRowDeleted(new VirtualTableEvent(this.vt,
+					VirtualTableEvent.Type.REMOVED,null,i));
+		}
+		for(final int i : new int[]{8,7,9,12})
+		{
+			coalescer.virtualTableRowUpdated(new VirtualTableEvent(this.vt,
+					VirtualTableEvent.Type.UPDATED,null,i));
+		}
+
+		Assert.assertTrue(this.events.isEmpty());
+		Assert.assertTrue(coalescer.hasPendingEvents());
+		coalescer.flush();
+		Assert.assertFalse(coalescer.hasPendingEvents());
+		Assert.assertEquals(Arrays.asList("inserted 5-7","deleted 2-4","updated 7-9",
+				"updated 12-12"),this.events);
+
+		this.events.clear();
+		coalescer.virtualTableRowUpdated(new VirtualTableEvent(this.vt,
+				VirtualTableEvent.Type.UPDATED,null,1));
+		coalescer.virtualTableDataChanged(new VirtualTableEvent(this.vt));
+		coalescer.virtualTableRowInserted(new VirtualTableEvent(this.vt,
+				VirtualTableEvent.Type.INSERTED,null,1));
+		coalescer.flush();
+		Assert.assertEquals(Arrays.asList("changed"),this.events);
+
+		this.events.clear();
+		for(int i = 0; i < 200; i += 2)
+		{
+			coalescer.virtualTableRowUpdated(new VirtualTableEvent(this.vt,
+					VirtualTableEvent.Type.UPDATED,null,i));
+		}
+		coalescer.flush();
+		Assert.assertEquals(Arrays.asList("changed"),this.events);
+	}
+
+
+	private static void waitForEvents() throws Exception
+	{
+		Thread.sleep(VirtualTableEventCoalescer.DEFAULT_INTERVAL * 5);
+		SwingUtilities.invokeAndWait(() -> {
+		});
+	}
+
+
+	@Test
+	public void testModelUnregistration() throws Exception
+	{
+		final AtomicInteger events = new AtomicInteger();
+		final VirtualTableModel removed = new VirtualTableModel(this.vt,new int[]{0});
+		removed.addTableModelListener(e -> events.incrementAndGet());
+		final VirtualTableModel disposed = new VirtualTableModel(this.vt,new int[]{0});
+		disposed.addTableModelListener(e -> events.incrementAndGet());
+
+		this.vt.addRow(false,"a");
+		waitForEvents();
+		Assert.assertEquals(2,events.get());
+
+		this.vt.removeVirtualTableListener(removed);
+		disposed.dispose();
+		this.vt.addRow(false,"b");
+		waitForEvents();
+		Assert.assertEquals(2,events.get());
+	}
+
+
+	@Test
+	public void testSteadyEventStream() throws Exception
+	{
+		final AtomicInteger delivered = new AtomicInteger();
+		final VirtualTableEventCoalescer coalescer = new VirtualTableEventCoalescer(
+				new VirtualTableAdapter()
+				{
+					@Override
+					public void virtualTableRowUpdated(final VirtualTableEvent event)
+					{
+						delivered.incrementAndGet();
+					}
+				},20);
+
+		// events more frequent than the interval must not postpone the delivery
+		for(int i = 0; i < 100 && delivered.get() == 0; i++)
+		{
+			coalescer.virtualTableRowUpdated(new VirtualTableEvent(this.vt,
+					VirtualTableEvent.Type.UPDATED,null,i));
+			Thread.sleep(5);
+		}
+		Assert.assertTrue(delivered.get() > 0);
+	}
+}
@@ -0,0 +1,166 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package xdev.vt;
+
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import xdev.io.csv.CSVParser;
+import xdev.io.csv.CSVReader;
+import xdev.vt.dummies.PersonVT;
+
+
+public class VirtualTableCSVImportTest
+{
+	private static String createCSV(final int rows)
+	{
+		final StringBuilder sb = new StringBuilder("Name,Gehalt,Gewicht\n");
+		for(int i = 0; i < rows; i++)
+		{
+			switch(i % 5)
+			{
+				case 0:
+					sb.append("Person ").append(i).append(',').append(i * 10).append(',')
+							.append(i / 4.0);
+				break;
+				case 1:
+					sb.append("\"Last, First ").append(i).append("\",null,").append(i);
+				break;
+				case 2:
+					sb.append("\"multi\nline ").append(i).append("\",").append(i).append(",1.5");
+				break;
+				case 3:
+					sb.append("\"quote \"\" ").append(i).append('"');
+				break;
+				default:
+					sb.append(",,");
+			}
+			sb.append('\n');
+		}
+		return sb.toString();
+	}
+
+
+	@Test
+	public void testRawRecords() throws Exception
+	{
+		final String csv = createCSV(100) + "\"open";
+		final List<String[]> expected = new CSVReader(new StringReader(csv)).readAll();
+
+		final CSVReader reader = new CSVReader(new StringReader(csv));
+		final CSVParser parser = new CSVParser();
+		final List<String[]> records = new ArrayList<>();
+		List<String[]> chunk;
+		while((chunk = reader.readRawRecords(7)).size() > 0)
+		{
+			for(final String[] lines : chunk)
+			{
+				final String[] record = parser.parseRecord(lines);
+				if(record != null)
+				{
+					records.add(record);
+				}
+			}
+		}
+
+		Assert.assertEquals(expected.size(),records.size());
+		for(int i = 0; i < expected.size(); i++)
+		{
+			Assert.assertArrayEquals(expected.get(i),records.get(i));
+		}
+	}
+
+
+	@Test
+	public void testParallelImport() throws Exception
+	{
+		final String csv = createCSV(5000);
+
+		final PersonVT sequential = new PersonVT();
+		sequential.importCSV(new StringReader(csv),',','"',"null",true,0);
+
+		final PersonVT parallel = new PersonVT();
+		parallel.importCSVParallel(new StringReader(csv),',','"',"null",true,0);
+
+		Assert.assertEquals(5000,sequential.getRowCount());
+		Assert.assertEquals(sequential.getRowCount(),parallel.getRowCount());
+		for(int row = 0; row < sequential.getRowCount(); row++)
+		{
+			for(int col = 0; col < sequential.getColumnCount(); col++)
+			{
+				Assert.assertEquals(sequential.getValueAt(row,col),parallel.getValueAt(row,col));
+			}
+		}
+		Assert.assertEquals("multi\nline 2",parallel.getValueAt(2,"Name"));
+		Assert.assertNull(parallel.getValueAt(1,"Gehalt"));
+	}
+
+
+	@Test(expected = VirtualTableException.class)
+	public void testConversionError() throws Exception
+	{
+		new PersonVT().importCSVParallel(new StringReader(createCSV(3000) + "x,abc,1\n"),',',
+				'"',"null",true,0);
+	}
+
+
+	private static void assertSameFailure(final String csv) throws Exception
+	{
+		final PersonVT sequential = new PersonVT();
+		Exception expected = null;
+		try
+		{
+			sequential.importCSV(new StringReader(csv),',','"',"null",true,0);
+		}
+		catch(final Exception e)
+		{
+			expected = e;
+		}
+
+		final PersonVT parallel = new PersonVT();
+		Exception actual = null;
+		try
+		{
+			parallel.importCSVParallel(new StringReader(csv),',','"',"null",true,0);
+		}
+		catch(final Exception e)
+		{
+			actual = e;
+		}
+
+		Assert.assertNotNull(expected);
+		Assert.assertNotNull(actual);
+		Assert.assertEquals(expected.getClass(),actual.getClass());
+		Assert.assertEquals(sequential.getRowCount(),parallel.getRowCount());
+	}
+
+
+	@Test
+	public void testInvalidRecords() throws Exception
+	{
+		final String csv = createCSV(3000);
+		final String tail = createCSV(2000).substring(csv.indexOf('\n') + 1);
+		assertSameFailure(csv + "x,1,2,3\n" + tail);
+		assertSameFailure(csv + "x,abc,1\n" + tail);
+	}
+}
@@ -0,0 +1,218 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package xdev.vt;
+
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import xdev.db.ColumnMetaData;
+import xdev.db.DBConnection;
+import xdev.db.DBDataSource;
+import xdev.db.DBException;
+import xdev.db.DataType;
+import xdev.db.Result;
+import xdev.vt.dummies.PersonVT;
+
+
+public class VirtualTableChunkedFillTest
+{
+	private static final int	ROWS		= 25;
+
+	private PersonVT			vt;
+	private int					readRows;
+	private boolean				resultClosed;
+	private final List<String>	events		= new ArrayList<>();
+
+
+	@Before
+	public void doBeforeEveryTest() throws Exception
+	{
+		this.vt = new PersonVT();
+		this.vt.setDataSource(createDataSource());
+		this.vt.addVirtualTableListener(new VirtualTableAdapter()
+		{
+			@Override
+			public void virtualTableDataChanged(final VirtualTableEvent event)
+			{
+				VirtualTableChunkedFillTest.this.events.add("changed "
+						+ event.getSource().getRowCount());
+			}
+
+
+			@Override
+			public void virtualTableRowInserted(final VirtualTableEvent event)
+			{
+				VirtualTableChunkedFillTest.this.events.add("inserted "
+						+ event.getRowIndex() + "-" + event.getLastRowIndex());
+			}
+		});
+	}
+
+
+	private DBDataSource<?> createDataSource()
+	{
+		final DBConnection<?> connection = (DBConnection<?>)Proxy.newProxyInstance(getClass()
+				.getClassLoader(),new Class<?>[]{DBConnection.class},(proxy, method, args) -> {
+			if(method.getName().equals("query"))
+			{
+				return createResult();
+			}
+			return null;
+		});
+		return (DBDataSource<?>)Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[]{DBDataSource.class},(proxy, method, args) -> {
+					if(method.getName().equals("openConnection"))
+					{
+						return connection;
+					}
+					return null;
+				});
+	}
+
+
+	private Result createResult()
+	{
+		return new Result()
+		{
+			private final String[]	names	= {"id","Name"};
+
+
+			@Override
+			public int getColumnCount()
+			{
+				return this.names.length;
+			}
+
+
+			@Override
+			public ColumnMetaData getMetadata(final int col)
+			{
+				return new ColumnMetaData("PERSON",this.names[col],this.names[col],
+						col == 0 ? DataType.INTEGER : DataType.VARCHAR,0,0,null,true,false);
+			}
+
+
+			@Override
+			public boolean next()
+			{
+				if(VirtualTableChunkedFillTest.this.readRows < ROWS)
+				{
+					VirtualTableChunkedFillTest.this.readRows++;
+					return true;
+				}
+				return false;
+			}
+
+
+			@Override
+			public Object getObject(final int col)
+			{
+				final int row = VirtualTableChunkedFillTest.this.readRows;
+				return col == 0 ? (Object)row : "Person " + row;
+			}
+
+
+			@Override
+			public int skip(final int count)
+			{
+				return 0;
+			}
+
+
+			@Override
+			public void close()
+			{
+				VirtualTableChunkedFillTest.this.resultClosed = true;
+			}
+		};
+	}
+
+
+	@Test
+	public void testFillChunked() throws Exception
+	{
+		final List<String> chunks = new ArrayList<>();
+		final int count = this.vt.queryAndFillChunked(this.vt.getSelect(),10,
+				(vt, firstRow, rowCount) -> chunks.add(firstRow + "+" + rowCount),new Object[0]);
+
+		Assert.assertEquals(ROWS,count);
+		Assert.assertEquals(ROWS,this.vt.getRowCount());
+		Assert.assertEquals("Person 25",this.vt.getValueAt(24,"Name"));
+		Assert.assertEquals("[0+10, 10+10, 20+5]",chunks.toString());
+		Assert.assertEquals("[changed 0, inserted 0-9, inserted 10-19, inserted 20-24]",
+				this.events.toString());
+		Assert.assertTrue(this.resultClosed);
+	}
+
+
+	@Test
+	public void testFillChunkedStop() throws Exception
+	{
+		final int count = this.vt.queryAndFillChunked(this.vt.getSelect(),10,
+				(vt, firstRow, rowCount) -> false,new Object[0]);
+
+		Assert.assertEquals(10,count);
+		Assert.assertEquals(10,this.vt.getRowCount());
+		Assert.assertEquals(10,this.readRows);
+		Assert.assertTrue(this.resultClosed);
+	}
+
+
+	@Test
+	public void testStream() throws Exception
+	{
+		final List<Object> firstValues = new ArrayList<>();
+		final int count = this.vt.queryAndStream(this.vt.getSelect(),10,(vt, firstRow, rowCount) -> {
+			Assert.assertEquals(0,firstRow);
+			Assert.assertEquals(rowCount,vt.getRowCount());
+			firstValues.add(vt.getValueAt(0,"id"));
+			return true;
+		},new Object[0]);
+
+		Assert.assertEquals(ROWS,count);
+		Assert.assertEquals("[1, 11, 21]",firstValues.toString());
+		Assert.assertEquals(0,this.vt.getRowCount());
+		Assert.assertEquals("[changed 0, inserted 0-9, changed 0, inserted 0-9, changed 0, "
+				+ "inserted 0-4, changed 0]",this.events.toString());
+	}
+
+
+	@Test
+	public void testHandlerFailure() throws Exception
+	{
+		try
+		{
+			this.vt.queryAndStream(this.vt.getSelect(),10,(vt, firstRow, rowCount) -> {
+				throw new IOException("disk full");
+			},new Object[0]);
+			Assert.fail();
+		}
+		catch(final DBException e)
+		{
+			Assert.assertTrue(e.getCause() instanceof IOException);
+		}
+		Assert.assertTrue(this.resultClosed);
+	}
+}
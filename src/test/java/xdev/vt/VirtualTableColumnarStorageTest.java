@@ -0,0 +1,143 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package xdev.vt;
+
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import xdev.vt.dummies.PersonVT;
+
+
+public class VirtualTableColumnarStorageTest
+{
+	private PersonVT	vt;
+
+
+	@Before
+	public void doBeforeEveryTest() throws Exception
+	{
+		this.vt = new PersonVT();
+		this.vt.setStorage(VirtualTableStorage.COLUMNAR);
+		addPerson(3,"Carl",3000,80.5);
+		addPerson(1,"Anna",null,60.0);
+		addPerson(2,"Bert",2000,null);
+	}
+
+
+	private void addPerson(final int id, final String name, final Integer salary,
+			final Double weight) throws Exception
+	{
+		final Map<String, Object> values = new HashMap<>();
+		values.put("Name",name);
+		values.put("Gehalt",salary);
+		values.put("Gewicht",weight);
+		this.vt.addRow(values,false);
+		this.vt.setValueAt(id,this.vt.getRowCount() - 1,"id");
+	}
+
+
+	private String column(final String name)
+	{
+		final StringBuilder sb = new StringBuilder();
+		for(int row = 0; row < this.vt.getRowCount(); row++)
+		{
+			if(row > 0)
+			{
+				sb.append(',');
+			}
+			sb.append(this.vt.getValueAt(row,name));
+		}
+		return sb.toString();
+	}
+
+
+	@Test
+	public void testValues()
+	{
+		Assert.assertEquals(VirtualTableStorage.COLUMNAR,this.vt.getStorage());
+		Assert.assertEquals(3,this.vt.getRowCount());
+		Assert.assertEquals("3,1,2",column("id"));
+		Assert.assertEquals("Carl,Anna,Bert",column("Name"));
+		Assert.assertEquals("3000,null,2000",column("Gehalt"));
+		Assert.assertEquals("80.5,60.0,null",column("Gewicht"));
+
+		final VirtualTable.VirtualTableRow row = this.vt.getRow(1);
+		Assert.assertEquals("Anna",row.get(PersonVT.Name));
+		row.set("Name","Anne");
+		Assert.assertEquals("Anne",this.vt.getValueAt(1,"Name"));
+	}
+
+
+	@Test
+	public void testSort()
+	{
+		this.vt.sortByCol("id",true);
+		Assert.assertEquals("1,2,3",column("id"));
+		Assert.assertEquals("Anna,Bert,Carl",column("Name"));
+
+		this.vt.sortByCol("Gehalt",false);
+		Assert.assertEquals("3000,2000,null",column("Gehalt"));
+		Assert.assertEquals("3,2,1",column("id"));
+
+		this.vt.sortByCol("Name",false);
+		Assert.assertEquals("Carl,Bert,Anna",column("Name"));
+	}
+
+
+	@Test
+	public void testRemoveRow() throws Exception
+	{
+		final VirtualTable.VirtualTableRow last = this.vt.getRow(2);
+		this.vt.removeRow(0,false);
+		Assert.assertEquals("1,2",column("id"));
+		Assert.assertSame(last,this.vt.getRow(1));
+		Assert.assertEquals("Bert",last.get(PersonVT.Name));
+	}
+
+
+	@Test
+	public void testTypeFallback() throws Exception
+	{
+		final Date date = Date.valueOf("2001-02-03");
+		this.vt.setValueAt(date,0,"Geburtsdatum");
+		Assert.assertEquals(date,this.vt.getValueAt(0,"Geburtsdatum"));
+		Assert.assertTrue(this.vt.getValueAt(0,"Geburtsdatum") instanceof Date);
+
+		final Timestamp timestamp = Timestamp.valueOf("2001-02-03 04:05:06.123");
+		this.vt.setValueAt(timestamp,1,"GeburtsTimeStamp");
+		Assert.assertEquals(timestamp,this.vt.getValueAt(1,"GeburtsTimeStamp"));
+	}
+
+
+	@Test
+	public void testConvertBack()
+	{
+		this.vt.setStorage(VirtualTableStorage.ROW);
+		Assert.assertEquals(VirtualTableStorage.ROW,this.vt.getStorage());
+		Assert.assertEquals("3,1,2",column("id"));
+		Assert.assertEquals("Carl,Anna,Bert",column("Name"));
+		Assert.assertEquals("3000,null,2000",column("Gehalt"));
+	}
+}
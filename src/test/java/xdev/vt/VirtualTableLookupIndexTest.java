@@ -0,0 +1,86 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package xdev.vt;
+
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import xdev.vt.dummies.PersonVT;
+
+
+public class VirtualTableLookupIndexTest
+{
+	private PersonVT	vt;
+
+
+	@Before
+	public void doBeforeEveryTest() throws Exception
+	{
+		this.vt = new PersonVT();
+		this.vt.addRow(false,"Mustermann",2500);
+		this.vt.addRow(false,"Testmann",1200);
+		this.vt.addRow(false,"Mustermann",4000);
+	}
+
+
+	@Test
+	public void testGetRowIndex() throws Exception
+	{
+		this.vt.addLookupIndex("Name");
+		Assert.assertTrue(this.vt.hasLookupIndex("Name"));
+
+		Assert.assertEquals(0,this.vt.getRowIndex("Name","Mustermann"));
+		Assert.assertEquals(2,this.vt.getRowIndex("Name","Mustermann",1));
+		Assert.assertEquals(-1,this.vt.getRowIndex("Name","Klinger"));
+
+		this.vt.setValueAt("Klinger",1,"Name");
+		Assert.assertEquals(1,this.vt.getRowIndex("Name","Klinger"));
+		Assert.assertEquals(-1,this.vt.getRowIndex("Name","Testmann"));
+
+		this.vt.removeRow(0,false);
+		Assert.assertEquals(1,this.vt.getRowIndex("Name","Mustermann"));
+	}
+
+
+	@Test
+	public void testNumericLookup() throws Exception
+	{
+		this.vt.addLookupIndex("Gehalt");
+
+		Assert.assertEquals(1,this.vt.getRowIndex("Gehalt",1200));
+		Assert.assertEquals(1,this.vt.getRowIndex("Gehalt",1200L));
+		Assert.assertEquals(2,this.vt.getRowIndex("Gehalt","4000"));
+	}
+
+
+	@Test
+	public void testKeyValues() throws Exception
+	{
+		this.vt.addLookupIndex("Name");
+
+		final KeyValues keyValues = new KeyValues(this.vt,"Name","Mustermann");
+		Assert.assertSame(this.vt.getRow(0),this.vt.getRow(keyValues));
+
+		this.vt.removeRows(keyValues,false);
+		Assert.assertEquals(1,this.vt.getRowCount());
+		Assert.assertEquals("Testmann",this.vt.getValueAt(0,"Name"));
+		Assert.assertNull(this.vt.getRow(keyValues));
+	}
+}
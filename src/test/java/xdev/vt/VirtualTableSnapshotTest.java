@@ -0,0 +1,147 @@
+/*
+ * XDEV Application Framework - XDEV Application Framework
+ * Copyright © 2003 XDEV Software (https://xdev.software)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package xdev.vt;
+
+
+import java.io.File;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import xdev.vt.dummies.PersonVT;
+
+
+public class VirtualTableSnapshotTest
+{
+	@Rule
+	public TemporaryFolder	folder	= new TemporaryFolder();
+
+	private PersonVT		vt;
+
+
+	@Before
+	public void doBeforeEveryTest() throws Exception
+	{
+		this.vt = new PersonVT();
+		for(int i = 0; i < 25; i++)
+		{
+			final Map<String, Object> values = new HashMap<>();
+			values.put("Name",i % 7 == 0 ? null : "Person ä" + i);
+			values.put("Gehalt",i % 3 == 0 ? null : i * 1000);
+			values.put("Gewicht",60.5 + i);
+			values.put("Geburtsdatum",new Date(i * 86400000L));
+			values.put("Geburtszeit",new Time(i * 1000L));
+			final Timestamp timestamp = new Timestamp(i * 3600000L);
+			timestamp.setNanos(i * 1001);
+			values.put("GeburtsTimeStamp",timestamp);
+			values.put("Krank",i % 2 == 0);
+			this.vt.addRow(values,false);
+			this.vt.setValueAt(i,i,"id");
+		}
+	}
+
+
+	private void assertSnapshot(final boolean compress) throws Exception
+	{
+		final File file = this.folder.newFile();
+		VirtualTableSnapshot.write(this.vt,file,compress,10);
+		Assert.assertTrue(VirtualTableSnapshot.isSnapshot(file));
+
+		final VirtualTableSnapshot snapshot = VirtualTableSnapshot.open(file);
+		try
+		{
+			Assert.assertEquals(compress,snapshot.isCompressed());
+			Assert.assertEquals(25,snapshot.getRowCount());
+			Assert.assertEquals(this.vt.getColumnCount(),snapshot.getColumnCount());
+			Assert.assertEquals("Name",snapshot.getColumnName(1));
+
+			// random access across the row groups
+			for(final int row : new int[]{24,3,17,0,10,21})
+			{
+				for(int col = 0; col < this.vt.getColumnCount(); col++)
+				{
+					final Object expected = this.vt.getValueAt(row,col);
+					final Object value = snapshot.getValueAt(row,col);
+					Assert.assertEquals(expected,value);
+					if(expected != null)
+					{
+						Assert.assertSame(expected.getClass(),value.getClass());
+					}
+				}
+			}
+		}
+		finally
+		{
+			snapshot.close();
+		}
+
+		final PersonVT copy = new PersonVT();
+		copy.readSnapshot(file);
+		Assert.assertEquals(25,copy.getRowCount());
+		for(int row = 0; row < 25; row++)
+		{
+			for(int col = 0; col < this.vt.getColumnCount(); col++)
+			{
+				Assert.assertEquals(this.vt.getValueAt(row,col),copy.getValueAt(row,col));
+			}
+		}
+	}
+
+
+	@Test
+	public void testUncompressed() throws Exception
+	{
+		assertSnapshot(false);
+	}
+
+
+	@Test
+	public void testCompressed() throws Exception
+	{
+		assertSnapshot(true);
+	}
+
+
+	@Test
+	public void testMixedValues() throws Exception
+	{
+		final Object[] values = {1,"a",null,2L,new java.util.Date(5)};
+		final byte[] block = VirtualTableSnapshot.encodeBlock(values,values.length);
+		Assert.assertEquals(12,block[0]);
+
+		Assert.assertEquals(1,VirtualTableSnapshot.encodeBlock(new Object[3],3).length);
+	}
+
+
+	@Test(expected = java.io.IOException.class)
+	public void testNoSnapshot() throws Exception
+	{
+		final File file = this.folder.newFile();
+		java.nio.file.Files.write(file.toPath(),new byte[100]);
+		Assert.assertFalse(VirtualTableSnapshot.isSnapshot(file));
+		VirtualTableSnapshot.open(file);
+	}
+}